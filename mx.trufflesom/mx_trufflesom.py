@@ -220,6 +220,86 @@ def tests_junit(args, **kwargs):
         print(f"Run JUnit for {t} interpreter:")
         mx.run_mx(["unittest", "--suite", "trufflesom", "-Dsom.interp=AST"])
 
+    print("Run JUnit dispatch guard tests with class-based guards:")
+    mx.run_mx(
+        [
+            "unittest",
+            "--suite",
+            "trufflesom",
+            "-Dsom.dispatchGuard=class",
+            "DispatchGuardTests",
+        ]
+    )
+
+    print("Run JUnit array storage tests with compact arrays:")
+    mx.run_mx(
+        [
+            "unittest",
+            "--suite",
+            "trufflesom",
+            "-Dsom.compactArrays=true",
+            "CompactArrayStorageTests",
+        ]
+    )
+
+    print("Run JUnit array copy tests with copy-on-write:")
+    mx.run_mx(
+        [
+            "unittest",
+            "--suite",
+            "trufflesom",
+            "-Dsom.copyOnWriteMinLength=1",
+            "CopyOnWriteTests",
+            "SArrayTests",
+        ]
+    )
+
+    print("Run JUnit string tests with ropes:")
+    mx.run_mx(
+        [
+            "unittest",
+            "--suite",
+            "trufflesom",
+            "-Dsom.ropeMinLength=4",
+            "RopeTests",
+            "SRopeTests",
+        ]
+    )
+
+    print("Run JUnit symbol table tests with weak symbols:")
+    mx.run_mx(
+        [
+            "unittest",
+            "--suite",
+            "trufflesom",
+            "-Dsom.weakSymbols=true",
+            "SymbolTableTests",
+        ]
+    )
+
+    print("Run JUnit bytecode tests on the BC interpreter:")
+    mx.run_mx(
+        [
+            "unittest",
+            "--suite",
+            "trufflesom",
+            "-Dsom.interp=BC",
+            "BytecodeMethodTests",
+        ]
+    )
+
+    print("Run JUnit bytecode tests with superinstructions:")
+    mx.run_mx(
+        [
+            "unittest",
+            "--suite",
+            "trufflesom",
+            "-Dsom.interp=BC",
+            "-Dsom.superinstructions=true",
+            "BytecodeMethodTests",
+        ]
+    )
+
 
 @mx.command(suite.name, "tests-som")
 def tests_som(args, **kwargs):
@@ -182,12 +182,12 @@ public final class ClassGenerationContext {
     return false;
   }
 
-  public byte getFieldIndex(final SSymbol fieldName) {
+  public int getFieldIndex(final SSymbol fieldName) {
     List<Field> fields = (isClassSide() ? classFields : instanceFields);
 
     for (Field f : fields) {
       if (f.getName() == fieldName) {
-        return (byte) f.getIndex();
+        return f.getIndex();
       }
     }
     return -1;
@@ -24,6 +24,10 @@
 
 package trufflesom.compiler;
 
+import trufflesom.vm.SymbolTable;
+import trufflesom.vmobjects.SSymbol;
+
+
 public class Lexer {
 
   private static final String SEPARATOR = "----";
@@ -93,6 +97,9 @@ public class Lexer {
 
   private LexerState stateAfterPeek;
 
+  /** Buffer to look up symbols without converting the text to a String. */
+  private char[] symbolChars = new char[64];
+
   protected Lexer(final String content) {
     this.content = content;
     peekDone = false;
@@ -374,6 +381,19 @@ public class Lexer {
     return state.text.toString();
   }
 
+  protected boolean textEquals(final String str) {
+    return str.contentEquals(state.text);
+  }
+
+  protected SSymbol getTextAsSymbol() {
+    int length = state.text.length();
+    if (symbolChars.length < length) {
+      symbolChars = new char[length];
+    }
+    state.text.getChars(0, length, symbolChars);
+    return SymbolTable.symbolFor(symbolChars, 0, length);
+  }
+
   protected int getCurrentLineNumber() {
     return state.lineNumber;
   }
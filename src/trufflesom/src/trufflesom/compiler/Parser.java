@@ -91,9 +91,11 @@ public abstract class Parser<MGenC extends MethodGenerationContext> {
   protected final StructuralProbe<SSymbol, SClass, SInvokable, Field, Variable> structuralProbe;
 
   protected Symbol sym;
-  protected String text;
   protected Symbol nextSym;
 
+  /** Text of the current symbol, only created when needed, see {@link #getText()}. */
+  private String text;
+
   protected int lastStartIndex;
 
   protected long lastMethodsCoord;
@@ -142,7 +144,7 @@ public abstract class Parser<MGenC extends MethodGenerationContext> {
       super(message);
       this.source = parser.source;
       this.startIndex = parser.getStartIndex();
-      this.text = parser.text;
+      this.text = parser.getText();
       this.rawBuffer = parser.lexer.getCurrentLine();
       this.fileName = parser.source.getName();
       this.expected = expected;
@@ -290,9 +292,9 @@ public abstract class Parser<MGenC extends MethodGenerationContext> {
 
   protected void className(final ClassGenerationContext cgenc, final int coord)
       throws ParseError {
-    cgenc.setName(symbolFor(text));
+    cgenc.setName(lexer.getTextAsSymbol());
 
-    if ("Object".equals(text)) {
+    if (lexer.textEquals("Object")) {
       Universe.selfCoord = getCoordWithLength(coord);
       Universe.selfSource = source;
     }
@@ -303,7 +305,7 @@ public abstract class Parser<MGenC extends MethodGenerationContext> {
   protected void superclass(final ClassGenerationContext cgenc) throws ParseError {
     SSymbol superName;
     if (sym == Identifier) {
-      superName = symbolFor(text);
+      superName = lexer.getTextAsSymbol();
       accept(Identifier);
     } else {
       superName = symObject;
@@ -499,7 +501,7 @@ public abstract class Parser<MGenC extends MethodGenerationContext> {
   }
 
   private SSymbol binarySelectorImpl() throws ParseError {
-    String s = new String(text);
+    SSymbol s = lexer.getTextAsSymbol();
 
     // Checkstyle: stop @formatter:off
     if (acceptOneOf(singleOpSyms)) {
@@ -507,7 +509,7 @@ public abstract class Parser<MGenC extends MethodGenerationContext> {
     } else { expect(NONE); }
     // Checkstyle: resume @formatter:on
 
-    return symbolFor(s);
+    return s;
   }
 
   protected SSymbol binarySelector() throws ParseError {
@@ -519,16 +521,16 @@ public abstract class Parser<MGenC extends MethodGenerationContext> {
   }
 
   private SSymbol identifier() throws ParseError {
-    String s = new String(text);
+    SSymbol s = lexer.getTextAsSymbol();
     boolean isPrimitive = accept(Primitive);
     if (!isPrimitive) {
       expect(Identifier);
     }
-    return symbolFor(s);
+    return s;
   }
 
   protected String keyword() throws ParseError {
-    String s = new String(text);
+    String s = getText();
     expect(Keyword);
 
     return s;
@@ -617,7 +619,7 @@ public abstract class Parser<MGenC extends MethodGenerationContext> {
 
   protected Object literalInteger(final boolean isNegative) throws ParseError {
     try {
-      long i = Long.parseLong(text);
+      long i = Long.parseLong(getText());
       if (isNegative) {
         i = 0 - i;
       }
@@ -625,7 +627,7 @@ public abstract class Parser<MGenC extends MethodGenerationContext> {
       return i;
     } catch (NumberFormatException e) {
       try {
-        BigInteger big = new BigInteger(text);
+        BigInteger big = new BigInteger(getText());
         if (isNegative) {
           big = big.negate();
         }
@@ -633,14 +635,14 @@ public abstract class Parser<MGenC extends MethodGenerationContext> {
         return big;
       } catch (NumberFormatException e2) {
         throw new ParseError("Could not parse integer. Expected a number but " +
-            "got '" + text + "'", NONE, this);
+            "got '" + getText() + "'", NONE, this);
       }
     }
   }
 
   protected double literalDouble(final boolean isNegative) throws ParseError {
     try {
-      double d = java.lang.Double.parseDouble(text);
+      double d = java.lang.Double.parseDouble(getText());
       if (isNegative) {
         d = 0.0 - d;
       }
@@ -648,7 +650,7 @@ public abstract class Parser<MGenC extends MethodGenerationContext> {
       return d;
     } catch (NumberFormatException e) {
       throw new ParseError("Could not parse double. Expected a number but " +
-          "got '" + text + "'", NONE, this);
+          "got '" + getText() + "'", NONE, this);
     }
   }
 
@@ -679,14 +681,13 @@ public abstract class Parser<MGenC extends MethodGenerationContext> {
   }
 
   private SSymbol keywordSelector() throws ParseError {
-    String s = new String(text);
+    SSymbol symb = lexer.getTextAsSymbol();
     expectOneOf(keywordSelectorSyms);
-    SSymbol symb = symbolFor(s);
     return symb;
   }
 
   protected String string() throws ParseError {
-    String s = new String(text);
+    String s = getText();
     expect(STString);
     return s;
   }
@@ -724,7 +725,18 @@ public abstract class Parser<MGenC extends MethodGenerationContext> {
 
   private void getSymbolFromLexer() {
     sym = lexer.getSym();
-    text = lexer.getText();
+    text = null;
+  }
+
+  /**
+   * The text of the current symbol as a String. Symbols and comparisons use the lexer's
+   * buffer directly, so that only literals and error messages allocate a String.
+   */
+  protected String getText() {
+    if (text == null) {
+      text = lexer.getText();
+    }
+    return text;
   }
 
   protected void peekForNextSymbolFromLexerIfNecessary() {
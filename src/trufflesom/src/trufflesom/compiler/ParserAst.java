@@ -389,7 +389,7 @@ public class ParserAst extends Parser<MethodGenerationContext> {
         return literalDouble(isNegativeNumber());
       case Identifier:
         expect(Identifier);
-        return Globals.getGlobal(symbolFor(text));
+        return Globals.getGlobal(lexer.getTextAsSymbol());
       default:
         throw new ParseError("Could not parse literal array value", NONE, this);
     }
@@ -123,7 +123,7 @@ public class ParserBc extends Parser<BytecodeMethodGenContext> {
       throws ProgramDefinitionError {
     // try to parse a `^ self` to emit RETURN_SELF
     if (!mgenc.isBlockMethod() && sym == Identifier) {
-      if (text.equals("self")) {
+      if (lexer.textEquals("self")) {
         peekForNextSymbolFromLexerIfNecessary();
         if (nextSym == Period || nextSym == EndTerm) {
           expect(Identifier);
@@ -248,7 +248,7 @@ public class ParserBc extends Parser<BytecodeMethodGenContext> {
 
     boolean isPossibleIncOrDec = msg == symPlus || msg == symMinus;
     if (isPossibleIncOrDec) {
-      if (sym == Integer && text.equals("1")) {
+      if (sym == Integer && lexer.textEquals("1")) {
         expect(Integer);
         if (msg == symPlus) {
           emitINC(mgenc);
@@ -364,7 +364,7 @@ public class ParserBc extends Parser<BytecodeMethodGenContext> {
     expect(Pound);
     expect(NewTerm);
 
-    final byte arraySizeLiteralIndex = mgenc.addLiteral(symArraySizePlaceholder, this);
+    final int arraySizeLiteralIndex = mgenc.addLiteral(symArraySizePlaceholder, this);
 
     // create empty array
     emitPUSHGLOBAL(mgenc, symArray, this);
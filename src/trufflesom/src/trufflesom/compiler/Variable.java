@@ -211,13 +211,13 @@ public abstract class Variable implements trufflesom.bdt.inlining.Variable<Expre
     @Override
     public void emitPop(final BytecodeMethodGenContext mgenc) {
       int contextLevel = mgenc.getContextLevel(this);
-      emitPOPLOCAL(mgenc, (byte) slotIndex, (byte) contextLevel);
+      emitPOPLOCAL(mgenc, slotIndex, (byte) contextLevel);
     }
 
     @Override
     public void emitPush(final BytecodeMethodGenContext mgenc) {
       int contextLevel = mgenc.getContextLevel(this);
-      emitPUSHLOCAL(mgenc, (byte) slotIndex, (byte) contextLevel);
+      emitPUSHLOCAL(mgenc, slotIndex, (byte) contextLevel);
     }
   }
 
@@ -25,10 +25,12 @@
 package trufflesom.compiler.bc;
 
 import static trufflesom.interpreter.bc.Bytecodes.DEC;
+import static trufflesom.interpreter.bc.Bytecodes.DEC_LOCAL_PUSH;
 import static trufflesom.interpreter.bc.Bytecodes.DUP;
 import static trufflesom.interpreter.bc.Bytecodes.HALT;
 import static trufflesom.interpreter.bc.Bytecodes.INC;
 import static trufflesom.interpreter.bc.Bytecodes.INC_FIELD_PUSH;
+import static trufflesom.interpreter.bc.Bytecodes.INC_LOCAL_PUSH;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP2;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP2_BACKWARDS;
@@ -37,6 +39,7 @@ import static trufflesom.interpreter.bc.Bytecodes.JUMP_ON_FALSE_POP;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP_ON_FALSE_TOP_NIL;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP_ON_TRUE_POP;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP_ON_TRUE_TOP_NIL;
+import static trufflesom.interpreter.bc.Bytecodes.MOVE_LOCAL;
 import static trufflesom.interpreter.bc.Bytecodes.POP;
 import static trufflesom.interpreter.bc.Bytecodes.POP_ARGUMENT;
 import static trufflesom.interpreter.bc.Bytecodes.POP_FIELD;
@@ -75,12 +78,14 @@ import static trufflesom.interpreter.bc.Bytecodes.RETURN_NON_LOCAL;
 import static trufflesom.interpreter.bc.Bytecodes.RETURN_SELF;
 import static trufflesom.interpreter.bc.Bytecodes.SEND;
 import static trufflesom.interpreter.bc.Bytecodes.SUPER_SEND;
+import static trufflesom.interpreter.bc.Bytecodes.WIDE;
 import static trufflesom.vm.SymbolTable.symFalse;
 import static trufflesom.vm.SymbolTable.symNil;
 import static trufflesom.vm.SymbolTable.symTrue;
 
 import trufflesom.compiler.Parser.ParseError;
 import trufflesom.compiler.ParserBc;
+import trufflesom.interpreter.bc.Bytecodes;
 import trufflesom.interpreter.nodes.GlobalNode;
 import trufflesom.vm.constants.Nil;
 import trufflesom.vmobjects.SInvokable.SMethod;
@@ -103,10 +108,25 @@ public final class BytecodeGenerator {
   }
 
   public static void emitINCFIELDPUSH(final BytecodeMethodGenContext mgenc,
-      final byte fieldIdx, final byte ctx) {
+      final int fieldIdx, final byte ctx) {
     assert fieldIdx >= 0;
     assert ctx >= 0;
-    emit3(mgenc, INC_FIELD_PUSH, fieldIdx, ctx, 1);
+    emit3WithIndex(mgenc, INC_FIELD_PUSH, fieldIdx, ctx, 1);
+  }
+
+  public static void emitINCDECLOCALPUSH(final BytecodeMethodGenContext mgenc,
+      final byte bytecode, final int localIdx, final byte ctx) {
+    assert bytecode == INC_LOCAL_PUSH || bytecode == DEC_LOCAL_PUSH;
+    assert localIdx >= 0;
+    assert ctx >= 0;
+    emit3WithIndex(mgenc, bytecode, localIdx, ctx, 1);
+  }
+
+  public static void emitMOVELOCAL(final BytecodeMethodGenContext mgenc, final byte srcIdx,
+      final byte dstIdx) {
+    assert srcIdx >= 0;
+    assert dstIdx >= 0;
+    emit3(mgenc, MOVE_LOCAL, srcIdx, dstIdx, 0);
   }
 
   public static void emitPOP(final BytecodeMethodGenContext mgenc) {
@@ -169,12 +189,12 @@ public final class BytecodeGenerator {
 
   public static void emitPUSHBLOCK(final BytecodeMethodGenContext mgenc,
       final SMethod blockMethod, final boolean withContext) {
-    byte litIdx = mgenc.findLiteralIndex(blockMethod);
+    int litIdx = mgenc.findLiteralIndex(blockMethod);
     assert litIdx >= 0;
-    emit2(mgenc, withContext ? PUSH_BLOCK : PUSH_BLOCK_NO_CTX, litIdx, 1);
+    emit2WithIndex(mgenc, withContext ? PUSH_BLOCK : PUSH_BLOCK_NO_CTX, litIdx, 1);
   }
 
-  public static void emitPUSHLOCAL(final BytecodeMethodGenContext mgenc, final byte idx,
+  public static void emitPUSHLOCAL(final BytecodeMethodGenContext mgenc, final int idx,
       final byte ctx) {
     assert idx >= 0;
     assert ctx >= 0;
@@ -190,17 +210,17 @@ public final class BytecodeGenerator {
         return;
       }
     }
-    emit3(mgenc, PUSH_LOCAL, idx, ctx, 1);
+    emit3WithIndex(mgenc, PUSH_LOCAL, idx, ctx, 1);
   }
 
   public static void emitPUSHFIELD(final BytecodeMethodGenContext mgenc,
       final SSymbol fieldName) {
-    byte fieldIdx = mgenc.getFieldIndex(fieldName);
+    int fieldIdx = mgenc.getFieldIndex(fieldName);
     byte ctx = mgenc.getMaxContextLevel();
     emitPUSHFIELD(mgenc, fieldIdx, ctx);
   }
 
-  public static void emitPUSHFIELD(final BytecodeMethodGenContext mgenc, final byte fieldIdx,
+  public static void emitPUSHFIELD(final BytecodeMethodGenContext mgenc, final int fieldIdx,
       final byte ctx) {
     assert fieldIdx != -1;
     if (ctx == 0) {
@@ -212,7 +232,7 @@ public final class BytecodeGenerator {
         return;
       }
     }
-    emit3(mgenc, PUSH_FIELD, fieldIdx, ctx, 1);
+    emit3WithIndex(mgenc, PUSH_FIELD, fieldIdx, ctx, 1);
   }
 
   public static void emitPUSHGLOBAL(final BytecodeMethodGenContext mgenc,
@@ -235,9 +255,9 @@ public final class BytecodeGenerator {
     if (GlobalNode.isPotentiallyUnknown(global)) {
       mgenc.markAccessingOuterScopes();
     }
-    byte idx = mgenc.addLiteralIfAbsent(global, parser);
+    int idx = mgenc.addLiteralIfAbsent(global, parser);
     assert idx != -1;
-    emit2(mgenc, PUSH_GLOBAL, idx, 1);
+    emit2WithIndex(mgenc, PUSH_GLOBAL, idx, 1);
   }
 
   public static void emitPOPARGUMENT(final BytecodeMethodGenContext mgenc, final byte idx,
@@ -247,10 +267,14 @@ public final class BytecodeGenerator {
     emit3(mgenc, POP_ARGUMENT, idx, ctx, -1);
   }
 
-  public static void emitPOPLOCAL(final BytecodeMethodGenContext mgenc, final byte idx,
+  public static void emitPOPLOCAL(final BytecodeMethodGenContext mgenc, final int idx,
       final byte ctx) {
     assert idx >= 0;
     assert ctx >= 0;
+    if (mgenc.optimizeIncDecLocal(idx, ctx)) {
+      return;
+    }
+
     if (ctx == 0) {
       if (idx == 0) {
         emit1(mgenc, POP_LOCAL_0, -1);
@@ -263,19 +287,19 @@ public final class BytecodeGenerator {
         return;
       }
     }
-    emit3(mgenc, POP_LOCAL, idx, ctx, -1);
+    emit3WithIndex(mgenc, POP_LOCAL, idx, ctx, -1);
   }
 
   public static void emitPOPFIELD(final BytecodeMethodGenContext mgenc,
       final SSymbol fieldName) {
-    byte fieldIdx = mgenc.getFieldIndex(fieldName);
+    int fieldIdx = mgenc.getFieldIndex(fieldName);
     byte ctx = mgenc.getMaxContextLevel();
     if (!mgenc.optimizeIncField(fieldIdx, ctx)) {
       emitPOPFIELD(mgenc, fieldIdx, ctx);
     }
   }
 
-  public static void emitPOPFIELD(final BytecodeMethodGenContext mgenc, final byte fieldIdx,
+  public static void emitPOPFIELD(final BytecodeMethodGenContext mgenc, final int fieldIdx,
       final byte ctx) {
     assert fieldIdx != -1;
     if (ctx == 0) {
@@ -287,23 +311,23 @@ public final class BytecodeGenerator {
         return;
       }
     }
-    emit3(mgenc, POP_FIELD, fieldIdx, ctx, -1);
+    emit3WithIndex(mgenc, POP_FIELD, fieldIdx, ctx, -1);
   }
 
   public static void emitSUPERSEND(final BytecodeMethodGenContext mgenc, final SSymbol msg,
       final ParserBc parser) throws ParseError {
     int stackEffect = -msg.getNumberOfSignatureArguments() + 1; // +1 for the return value
 
-    byte idx = mgenc.addLiteralIfAbsent(msg, parser);
-    emit2(mgenc, SUPER_SEND, idx, stackEffect);
+    int idx = mgenc.addLiteralIfAbsent(msg, parser);
+    emit2WithIndex(mgenc, SUPER_SEND, idx, stackEffect);
   }
 
   public static void emitSEND(final BytecodeMethodGenContext mgenc, final SSymbol msg,
       final ParserBc parser) throws ParseError {
     int stackEffect = -msg.getNumberOfSignatureArguments() + 1; // +1 for the return value
 
-    byte idx = mgenc.addLiteralIfAbsent(msg, parser);
-    emit2(mgenc, SEND, idx, stackEffect);
+    int idx = mgenc.addLiteralIfAbsent(msg, parser);
+    emit2WithIndex(mgenc, SEND, idx, stackEffect);
   }
 
   public static void emitPUSHCONSTANT(final BytecodeMethodGenContext mgenc, final Object lit,
@@ -325,7 +349,7 @@ public final class BytecodeGenerator {
       return;
     }
 
-    byte idx = mgenc.addLiteralIfAbsent(lit, parser);
+    int idx = mgenc.addLiteralIfAbsent(lit, parser);
     switch (idx) {
       case 0:
         emit1(mgenc, PUSH_CONSTANT_0, 1);
@@ -337,15 +361,15 @@ public final class BytecodeGenerator {
         emit1(mgenc, PUSH_CONSTANT_2, 1);
         break;
       default:
-        emit2(mgenc, PUSH_CONSTANT, idx, 1);
+        emit2WithIndex(mgenc, PUSH_CONSTANT, idx, 1);
         break;
     }
   }
 
   public static void emitPUSHCONSTANT(final BytecodeMethodGenContext mgenc,
-      final byte literalIndex) {
+      final int literalIndex) {
     assert literalIndex >= 0;
-    emit2(mgenc, PUSH_CONSTANT, literalIndex, 1);
+    emit2WithIndex(mgenc, PUSH_CONSTANT, literalIndex, 1);
   }
 
   public static int emitJumpOnBoolWithDummyOffset(final BytecodeMethodGenContext mgenc,
@@ -412,4 +436,31 @@ public final class BytecodeGenerator {
     mgenc.addBytecodeArgument(idx);
     mgenc.addBytecodeArgument(ctx);
   }
+
+  /**
+   * Emits a bytecode with a literal index, preceded by a WIDE bytecode if the index does not
+   * fit into one byte.
+   */
+  public static void emit2WithIndex(final BytecodeMethodGenContext mgenc, final byte code,
+      final int idx, final int stackEffect) {
+    emitWIDEIfNeeded(mgenc, idx);
+    emit2(mgenc, code, (byte) idx, stackEffect);
+  }
+
+  /**
+   * Emits a bytecode with a local or field index and a context level, preceded by a WIDE
+   * bytecode if the index does not fit into one byte.
+   */
+  public static void emit3WithIndex(final BytecodeMethodGenContext mgenc, final byte code,
+      final int idx, final byte ctx, final int stackEffect) {
+    emitWIDEIfNeeded(mgenc, idx);
+    emit3(mgenc, code, (byte) idx, ctx, stackEffect);
+  }
+
+  private static void emitWIDEIfNeeded(final BytecodeMethodGenContext mgenc, final int idx) {
+    assert 0 <= idx && idx <= Bytecodes.MAX_WIDE_INDEX;
+    if (idx > Byte.MAX_VALUE) {
+      emit2(mgenc, WIDE, (byte) (idx >>> 8), 0);
+    }
+  }
 }
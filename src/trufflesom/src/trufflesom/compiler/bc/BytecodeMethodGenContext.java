@@ -5,14 +5,20 @@ import static trufflesom.compiler.bc.BytecodeGenerator.emitJumpOnBoolWithDummyOf
 import static trufflesom.compiler.bc.BytecodeGenerator.emitJumpWithDummyOffset;
 import static trufflesom.compiler.bc.BytecodeGenerator.emitPOP;
 import static trufflesom.compiler.bc.BytecodeGenerator.emitPUSHCONSTANT;
+import static trufflesom.interpreter.bc.Bytecodes.DEC;
+import static trufflesom.interpreter.bc.Bytecodes.DEC_LOCAL;
+import static trufflesom.interpreter.bc.Bytecodes.DEC_LOCAL_PUSH;
 import static trufflesom.interpreter.bc.Bytecodes.DUP;
 import static trufflesom.interpreter.bc.Bytecodes.INC;
 import static trufflesom.interpreter.bc.Bytecodes.INC_FIELD;
 import static trufflesom.interpreter.bc.Bytecodes.INC_FIELD_PUSH;
+import static trufflesom.interpreter.bc.Bytecodes.INC_LOCAL;
+import static trufflesom.interpreter.bc.Bytecodes.INC_LOCAL_PUSH;
 import static trufflesom.interpreter.bc.Bytecodes.INVALID;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP2;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP_BYTECODES;
+import static trufflesom.interpreter.bc.Bytecodes.MOVE_LOCAL;
 import static trufflesom.interpreter.bc.Bytecodes.POP;
 import static trufflesom.interpreter.bc.Bytecodes.POP_ARGUMENT;
 import static trufflesom.interpreter.bc.Bytecodes.POP_FIELD;
@@ -48,6 +54,7 @@ import static trufflesom.interpreter.bc.Bytecodes.RETURN_FIELD_1;
 import static trufflesom.interpreter.bc.Bytecodes.RETURN_FIELD_2;
 import static trufflesom.interpreter.bc.Bytecodes.RETURN_LOCAL;
 import static trufflesom.interpreter.bc.Bytecodes.RETURN_SELF;
+import static trufflesom.interpreter.bc.Bytecodes.WIDE;
 import static trufflesom.interpreter.bc.Bytecodes.getBytecodeLength;
 import static trufflesom.vm.SymbolTable.symSelf;
 
@@ -74,6 +81,7 @@ import trufflesom.interpreter.nodes.bc.BytecodeLoopNode;
 import trufflesom.interpreter.nodes.bc.BytecodeLoopNode.BackJump;
 import trufflesom.interpreter.nodes.literals.LiteralNode;
 import trufflesom.vm.NotYetImplementedException;
+import trufflesom.vm.VmSettings;
 import trufflesom.vm.constants.Nil;
 import trufflesom.vmobjects.SAbstractObject;
 import trufflesom.vmobjects.SClass;
@@ -137,13 +145,13 @@ public class BytecodeMethodGenContext extends MethodGenerationContext {
     return holderGenc.hasField(fieldName);
   }
 
-  public byte getFieldIndex(final SSymbol fieldName) {
+  public int getFieldIndex(final SSymbol fieldName) {
     markAccessingOuterScopes();
     return holderGenc.getFieldIndex(fieldName);
   }
 
-  public byte findLiteralIndex(final Object lit) {
-    return (byte) literals.indexOf(lit);
+  public int findLiteralIndex(final Object lit) {
+    return literals.indexOf(lit);
   }
 
   public int getStackDepth() {
@@ -156,6 +164,12 @@ public class BytecodeMethodGenContext extends MethodGenerationContext {
     currentStackDepth += stackEffect;
     maxStackDepth = Math.max(currentStackDepth, maxStackDepth);
 
+    if (last4Bytecodes[3] == WIDE) {
+      // the optimizations only read one byte index operands, so hide bytecodes with a prefix
+      resetLastBytecodeBuffer();
+      return;
+    }
+
     last4Bytecodes[0] = last4Bytecodes[1];
     last4Bytecodes[1] = last4Bytecodes[2];
     last4Bytecodes[2] = last4Bytecodes[3];
@@ -284,34 +298,48 @@ public class BytecodeMethodGenContext extends MethodGenerationContext {
       assert Bytecodes.getBytecodeLength(INC_FIELD) == 3;
       assert bytecode.get(bcOffset) == INC_FIELD;
       bytecode.set(bcOffset, INC_FIELD_PUSH);
+    } else if (last4Bytecodes[3] == INC_LOCAL || last4Bytecodes[3] == DEC_LOCAL) {
+      // same as for INC_FIELD
+      byte withPush = last4Bytecodes[3] == INC_LOCAL ? INC_LOCAL_PUSH : DEC_LOCAL_PUSH;
+      last4Bytecodes[3] = withPush;
+
+      int bcOffset = bytecode.size() - 3;
+      assert Bytecodes.getBytecodeLength(withPush) == 3;
+      assert bytecode.get(bcOffset) == INC_LOCAL || bytecode.get(bcOffset) == DEC_LOCAL;
+      bytecode.set(bcOffset, withPush);
+    } else if (last4Bytecodes[3] == MOVE_LOCAL) {
+      // MOVE_LOCAL doesn't modify the stack either, but the value is in the destination local
+      int bcOffset = bytecode.size() - 3;
+      assert bytecode.get(bcOffset) == MOVE_LOCAL;
+      BytecodeGenerator.emitPUSHLOCAL(this, bytecode.get(bcOffset + 2), (byte) 0);
     }
   }
 
-  public byte addLiteralIfAbsent(final Object lit, final ParserBc parser)
+  public int addLiteralIfAbsent(final Object lit, final ParserBc parser)
       throws ParseError {
     int idx = literals.indexOf(lit);
     if (idx != -1) {
-      return (byte) idx;
+      return idx;
     }
 
     return addLiteral(lit, parser);
   }
 
-  public byte addLiteral(final Object lit, final ParserBc parser) throws ParseError {
+  public int addLiteral(final Object lit, final ParserBc parser) throws ParseError {
     int i = literals.size();
-    if (i > Byte.MAX_VALUE) {
+    if (i > Bytecodes.MAX_WIDE_INDEX) {
       String methodSignature = holderGenc.getName().getString() + ">>" + signature;
       throw new ParseError(
           "The method " + methodSignature + " has more than the supported " +
-              Byte.MAX_VALUE
+              Bytecodes.MAX_WIDE_INDEX
               + " literal values. Please split the method. The literal to be added is: " + lit,
           Symbol.NONE, parser);
     }
     literals.add(lit);
-    return (byte) i;
+    return i;
   }
 
-  public void updateLiteral(final SAbstractObject oldVal, final byte index,
+  public void updateLiteral(final SAbstractObject oldVal, final int index,
       final Object newVal) {
     assert literals.get(index) == oldVal;
     literals.set(index, newVal);
@@ -462,6 +490,7 @@ public class BytecodeMethodGenContext extends MethodGenerationContext {
 
   private static final byte[] DUP_BYTECODES = new byte[] {DUP};
   private static final byte[] INC_BYTECODES = new byte[] {INC};
+  private static final byte[] INC_DEC_BYTECODES = new byte[] {INC, DEC};
 
   private static final byte[] PUSH_BLOCK_BYTECODES =
       new byte[] {PUSH_BLOCK, PUSH_BLOCK_NO_CTX};
@@ -471,6 +500,12 @@ public class BytecodeMethodGenContext extends MethodGenerationContext {
       POP_ARGUMENT,
       POP_FIELD, POP_FIELD_0, POP_FIELD_1};
 
+  private static final byte[] PUSH_LOCAL_BYTECODES = new byte[] {
+      PUSH_LOCAL, PUSH_LOCAL_0, PUSH_LOCAL_1, PUSH_LOCAL_2};
+
+  private static final byte[] POP_LOCAL_BYTECODES = new byte[] {
+      POP_LOCAL, POP_LOCAL_0, POP_LOCAL_1, POP_LOCAL_2};
+
   private static final byte[] PUSH_FIELD_BYTECODES = new byte[] {
       PUSH_FIELD, PUSH_FIELD_0, PUSH_FIELD_1};
 
@@ -603,6 +638,11 @@ public class BytecodeMethodGenContext extends MethodGenerationContext {
       return optimizeIncFieldPush();
     }
 
+    if (lastBytecodeIs(0, INC_LOCAL_PUSH) != INVALID
+        || lastBytecodeIs(0, DEC_LOCAL_PUSH) != INVALID) {
+      return optimizeIncDecLocalPush();
+    }
+
     final byte popCandidate = lastBytecodeIsOneOf(0, POP_X_BYTECODES);
     if (popCandidate == INVALID) {
       return false;
@@ -620,9 +660,42 @@ public class BytecodeMethodGenContext extends MethodGenerationContext {
     last4Bytecodes[1] = last4Bytecodes[0];
     last4Bytecodes[0] = INVALID;
 
+    optimizeMoveLocal();
     return true;
   }
 
+  /**
+   * Try using the MOVE_LOCAL superinstruction for an assignment of one local to another,
+   * which is the following sequence, once the DUP and POP of the assignment statement were
+   * removed. Both locals need to be in the current frame. The superinstruction is only used
+   * with {@link VmSettings#UseSuperinstructions}.
+   *
+   * <pre>
+   *   PUSH_LOCAL
+   *   POP_LOCAL
+   * </pre>
+   */
+  private void optimizeMoveLocal() {
+    if (!VmSettings.UseSuperinstructions) {
+      return;
+    }
+
+    if (lastBytecodeIsOneOf(0, POP_LOCAL_BYTECODES) == INVALID
+        || lastBytecodeIsOneOf(1, PUSH_LOCAL_BYTECODES) == INVALID) {
+      return;
+    }
+
+    byte[] idxCtxPushLocal = getIndexAndContext(1);
+    byte[] idxCtxPopLocal = getIndexAndContext(0);
+
+    if (idxCtxPushLocal[1] == 0 && idxCtxPopLocal[1] == 0) {
+      removeLastBytecodes(2);
+
+      resetLastBytecodeBuffer();
+      BytecodeGenerator.emitMOVELOCAL(this, idxCtxPushLocal[0], idxCtxPopLocal[0]);
+    }
+  }
+
   private byte getIndex(final int idxFromEnd) {
     byte actual = last4Bytecodes[last4Bytecodes.length - 1 - idxFromEnd];
 
@@ -683,20 +756,32 @@ public class BytecodeMethodGenContext extends MethodGenerationContext {
 
     switch (actual) {
       case POP_FIELD_0:
-      case PUSH_FIELD_0: {
+      case PUSH_FIELD_0:
+      case PUSH_LOCAL_0:
+      case POP_LOCAL_0: {
         ctx = 0;
         idx = 0;
         break;
       }
       case POP_FIELD_1:
-      case PUSH_FIELD_1: {
+      case PUSH_FIELD_1:
+      case PUSH_LOCAL_1:
+      case POP_LOCAL_1: {
         ctx = 0;
         idx = 1;
         break;
       }
+      case PUSH_LOCAL_2:
+      case POP_LOCAL_2: {
+        ctx = 0;
+        idx = 2;
+        break;
+      }
 
       case PUSH_FIELD:
-      case POP_FIELD: {
+      case POP_FIELD:
+      case PUSH_LOCAL:
+      case POP_LOCAL: {
         int bcOffset = getOffsetOfLastBytecode(idxFromEnd);
         idx = bytecode.get(bcOffset + 1);
         ctx = bytecode.get(bcOffset + 2);
@@ -734,7 +819,7 @@ public class BytecodeMethodGenContext extends MethodGenerationContext {
    *
    * @return true, if it optimized it.
    */
-  public boolean optimizeIncField(final byte fieldIdx, final byte ctx) {
+  public boolean optimizeIncField(final int fieldIdx, final byte ctx) {
     if (isCurrentlyInliningBlock) {
       return false;
     }
@@ -763,6 +848,64 @@ public class BytecodeMethodGenContext extends MethodGenerationContext {
     return false;
   }
 
+  private boolean optimizeIncDecLocalPush() {
+    int bcIdx = bytecode.size() - 3;
+    byte withPush = bytecode.get(bcIdx);
+    assert withPush == INC_LOCAL_PUSH || withPush == DEC_LOCAL_PUSH;
+
+    byte withoutPush = withPush == INC_LOCAL_PUSH ? INC_LOCAL : DEC_LOCAL;
+    bytecode.set(bcIdx, withoutPush);
+    last4Bytecodes[3] = withoutPush;
+
+    return true;
+  }
+
+  /**
+   * Try using the INC_LOCAL_PUSH or DEC_LOCAL_PUSH superinstruction instead of the following
+   * sequence, which typically updates a loop counter. The superinstructions are only used
+   * with {@link VmSettings#UseSuperinstructions}.
+   *
+   * <pre>
+   *   PUSH_LOCAL
+   *   INC or DEC
+   *   DUP
+   *   POP_LOCAL
+   * </pre>
+   *
+   * @return true, if it optimized it.
+   */
+  public boolean optimizeIncDecLocal(final int localIdx, final byte ctx) {
+    if (!VmSettings.UseSuperinstructions || isCurrentlyInliningBlock) {
+      return false;
+    }
+
+    if (lastBytecodeIs(0, DUP) == INVALID) {
+      return false;
+    }
+
+    byte incDec = lastBytecodeIsOneOf(1, INC_DEC_BYTECODES);
+    if (incDec == INVALID) {
+      return false;
+    }
+
+    if (lastBytecodeIsOneOf(2, PUSH_LOCAL_BYTECODES) == INVALID) {
+      return false;
+    }
+
+    byte[] idxCtxPushLocal = getIndexAndContext(2);
+
+    if (localIdx == idxCtxPushLocal[0] && ctx == idxCtxPushLocal[1]) {
+      // remove PUSH_LOCAL, INC or DEC, and DUP, and do not emit the POP_LOCAL
+      removeLastBytecodes(3);
+
+      resetLastBytecodeBuffer();
+      BytecodeGenerator.emitINCDECLOCALPUSH(this,
+          incDec == INC ? INC_LOCAL_PUSH : DEC_LOCAL_PUSH, localIdx, ctx);
+      return true;
+    }
+    return false;
+  }
+
   /**
    * This is going to try to optimize PUSH_FIELD_n, RETURN_LOCAL sequences.
    * The RETURN_LOCAL hasn't been written yet, so, we only need to check the PUSH_FIELD_n
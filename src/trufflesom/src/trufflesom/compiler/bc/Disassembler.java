@@ -27,8 +27,12 @@
 package trufflesom.compiler.bc;
 
 import static trufflesom.compiler.bc.BytecodeMethodGenContext.getJumpOffset;
+import static trufflesom.interpreter.bc.Bytecodes.DEC_LOCAL;
+import static trufflesom.interpreter.bc.Bytecodes.DEC_LOCAL_PUSH;
 import static trufflesom.interpreter.bc.Bytecodes.INC_FIELD;
 import static trufflesom.interpreter.bc.Bytecodes.INC_FIELD_PUSH;
+import static trufflesom.interpreter.bc.Bytecodes.INC_LOCAL;
+import static trufflesom.interpreter.bc.Bytecodes.INC_LOCAL_PUSH;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP2;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP2_BACKWARDS;
@@ -41,6 +45,7 @@ import static trufflesom.interpreter.bc.Bytecodes.JUMP_ON_FALSE_POP;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP_ON_FALSE_TOP_NIL;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP_ON_TRUE_POP;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP_ON_TRUE_TOP_NIL;
+import static trufflesom.interpreter.bc.Bytecodes.MOVE_LOCAL;
 import static trufflesom.interpreter.bc.Bytecodes.POP_ARGUMENT;
 import static trufflesom.interpreter.bc.Bytecodes.POP_FIELD;
 import static trufflesom.interpreter.bc.Bytecodes.POP_LOCAL;
@@ -54,14 +59,22 @@ import static trufflesom.interpreter.bc.Bytecodes.PUSH_CONSTANT_2;
 import static trufflesom.interpreter.bc.Bytecodes.PUSH_FIELD;
 import static trufflesom.interpreter.bc.Bytecodes.PUSH_GLOBAL;
 import static trufflesom.interpreter.bc.Bytecodes.PUSH_LOCAL;
+import static trufflesom.interpreter.bc.Bytecodes.Q_POP_LOCAL_DOUBLE;
+import static trufflesom.interpreter.bc.Bytecodes.Q_POP_LOCAL_LONG;
 import static trufflesom.interpreter.bc.Bytecodes.Q_PUSH_GLOBAL;
+import static trufflesom.interpreter.bc.Bytecodes.Q_PUSH_LOCAL_DOUBLE;
+import static trufflesom.interpreter.bc.Bytecodes.Q_PUSH_LOCAL_LONG;
 import static trufflesom.interpreter.bc.Bytecodes.Q_SEND;
 import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_1;
 import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_2;
 import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_3;
+import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_BINARY;
+import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_TERNARY;
+import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_UNARY;
 import static trufflesom.interpreter.bc.Bytecodes.RETURN_NON_LOCAL;
 import static trufflesom.interpreter.bc.Bytecodes.SEND;
 import static trufflesom.interpreter.bc.Bytecodes.SUPER_SEND;
+import static trufflesom.interpreter.bc.Bytecodes.WIDE;
 import static trufflesom.interpreter.bc.Bytecodes.getBytecodeLength;
 import static trufflesom.interpreter.bc.Bytecodes.getPaddedBytecodeName;
 
@@ -155,6 +168,9 @@ public class Disassembler {
         + maxStack + " stack, "
         + bytecodes.size() + " bc_count>");
 
+    // high byte of the index operand of the current bytecode, set by a preceding WIDE
+    int wideIndex = 0;
+
     // output bytecodes
     for (int b = 0; b < bytecodes.size(); b +=
         getBytecodeLength(bytecodes.get(b))) {
@@ -176,8 +192,16 @@ public class Disassembler {
 
       switch (bytecode) {
         case POP_LOCAL:
-        case PUSH_LOCAL: {
-          int idx = bytecodes.get(b + 1);
+        case PUSH_LOCAL:
+        case Q_POP_LOCAL_LONG:
+        case Q_POP_LOCAL_DOUBLE:
+        case Q_PUSH_LOCAL_LONG:
+        case Q_PUSH_LOCAL_DOUBLE:
+        case INC_LOCAL:
+        case INC_LOCAL_PUSH:
+        case DEC_LOCAL:
+        case DEC_LOCAL_PUSH: {
+          int idx = wideIndex | Byte.toUnsignedInt(bytecodes.get(b + 1));
           String localName = "";
           if (m != null) {
             localName = " name: " + m.getNameOfLocal(idx);
@@ -187,6 +211,19 @@ public class Disassembler {
           break;
         }
 
+        case MOVE_LOCAL: {
+          byte srcIdx = bytecodes.get(b + 1);
+          byte dstIdx = bytecodes.get(b + 2);
+          String localNames = "";
+          if (m != null) {
+            localNames =
+                " names: " + m.getNameOfLocal(srcIdx) + ", " + m.getNameOfLocal(dstIdx);
+          }
+          Universe.errorPrintln(
+              "from local: " + srcIdx + ", to local: " + dstIdx + localNames);
+          break;
+        }
+
         case POP_ARGUMENT:
         case PUSH_ARGUMENT: {
           Universe.errorPrintln("argument: " + bytecodes.get(b + 1) + ", context "
@@ -198,7 +235,7 @@ public class Disassembler {
         case INC_FIELD_PUSH:
         case POP_FIELD:
         case PUSH_FIELD: {
-          int idx = bytecodes.get(b + 1);
+          int idx = wideIndex | Byte.toUnsignedInt(bytecodes.get(b + 1));
           int ctx = bytecodes.get(b + 2);
 
           Universe.errorPrint("(index: " + idx
@@ -216,7 +253,7 @@ public class Disassembler {
 
         case PUSH_BLOCK:
         case PUSH_BLOCK_NO_CTX: {
-          int idx = bytecodes.get(b + 1);
+          int idx = wideIndex | Byte.toUnsignedInt(bytecodes.get(b + 1));
           Universe.errorPrint("block: (index: " + idx + ") ");
           if (m != null) {
             dumpMethod((SMethod) m.getConstant(idx), indent + "\t");
@@ -226,7 +263,7 @@ public class Disassembler {
         }
 
         case PUSH_CONSTANT: {
-          int idx = bytecodes.get(b + 1);
+          int idx = wideIndex | Byte.toUnsignedInt(bytecodes.get(b + 1));
 
           Universe.errorPrint("(index: " + idx + ")");
 
@@ -293,7 +330,7 @@ public class Disassembler {
 
         case Q_PUSH_GLOBAL:
         case PUSH_GLOBAL: {
-          int idx = bytecodes.get(b + 1);
+          int idx = wideIndex | Byte.toUnsignedInt(bytecodes.get(b + 1));
 
           Universe.errorPrint("(index: " + idx + ")");
           if (m != null) {
@@ -308,9 +345,12 @@ public class Disassembler {
         case Q_SEND_1:
         case Q_SEND_2:
         case Q_SEND_3:
+        case Q_SEND_UNARY:
+        case Q_SEND_BINARY:
+        case Q_SEND_TERNARY:
         case SEND:
         case SUPER_SEND: {
-          int idx = bytecodes.get(b + 1);
+          int idx = wideIndex | Byte.toUnsignedInt(bytecodes.get(b + 1));
           Universe.errorPrint("(index: " + idx + ")");
           if (m != null) {
             Universe.errorPrint(" signature: " + ((SSymbol) m.getConstant(idx)).toString());
@@ -324,6 +364,12 @@ public class Disassembler {
           break;
         }
 
+        case WIDE: {
+          wideIndex = Byte.toUnsignedInt(bytecodes.get(b + 1)) << 8;
+          Universe.errorPrintln("(index high byte: " + (wideIndex >> 8) + ")");
+          continue;
+        }
+
         default: {
           // parameters (if any)
           if (getBytecodeLength(bytecode) == 1) {
@@ -333,6 +379,8 @@ public class Disassembler {
           }
         }
       }
+
+      wideIndex = 0;
     }
     Universe.errorPrintln(indent + ")");
   }
@@ -1,6 +1,8 @@
 package trufflesom.interpreter;
 
+import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.RootNode;
 import com.oracle.truffle.api.source.Source;
 import com.oracle.truffle.api.source.SourceSection;
@@ -82,6 +84,22 @@ public abstract class Invokable extends RootNode implements WithSource {
 
   public abstract void propagateLoopCountThroughoutLexicalScope(long count);
 
+  /**
+   * Report the iterations of a loop that is implemented by the given node, so that the
+   * method containing it gets compiled and can be replaced on stack. Interpreter only.
+   */
+  public static void reportLoopCount(final Node node, final long count) {
+    if (count <= 0) {
+      return;
+    }
+
+    CompilerAsserts.neverPartOfCompilation("reportLoopCount");
+    RootNode root = node.getRootNode();
+    if (root != null) {
+      ((Invokable) root).propagateLoopCountThroughoutLexicalScope(count);
+    }
+  }
+
   public SClass getHolder() {
     return holder;
   }
@@ -1,5 +1,7 @@
 package trufflesom.interpreter;
 
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+
 import trufflesom.vmobjects.SArray;
 
 
@@ -20,4 +22,24 @@ public final class SArguments {
     System.arraycopy(arguments, 1, argsArr, 0, argsArr.length);
     return SArray.create(argsArr);
   }
+
+  /**
+   * Same as {@link #getArgumentsWithoutReceiver(Object[])}, but for a number of arguments
+   * that is a compilation constant, e.g., derived from the selector of a send. The copy is
+   * unrolled, so that the compiler can remove both arrays when they do not escape.
+   */
+  @ExplodeLoop
+  public static SArray getArgumentsWithoutReceiver(final Object[] arguments,
+      final int numberOfArguments) {
+    assert arguments.length == numberOfArguments;
+    if (numberOfArguments == 1) {
+      return SArray.create(0);
+    }
+
+    Object[] argsArr = new Object[numberOfArguments - 1];
+    for (int i = 1; i < numberOfArguments; i++) {
+      argsArr[i - 1] = arguments[i];
+    }
+    return SArray.create(argsArr);
+  }
 }
@@ -22,6 +22,9 @@ import com.oracle.truffle.api.source.Source;
 
 import trufflesom.compiler.SourcecodeCompiler.AstCompiler;
 import trufflesom.compiler.SourcecodeCompiler.BcCompiler;
+import trufflesom.interpreter.bc.BytecodeNgramStatistics;
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode;
+import trufflesom.interpreter.objectstorage.LayoutStatistics;
 import trufflesom.interpreter.objectstorage.StorageAnalyzer;
 import trufflesom.tools.nodestats.Tags.AnyNode;
 import trufflesom.vm.NotYetImplementedException;
@@ -48,6 +51,19 @@ public class SomLanguage extends TruffleLanguage<SomLanguage> {
   @Option(help = "Test Selector", category = OptionCategory.USER) //
   protected static final OptionKey<String> TEST_SELECTOR = new OptionKey<>("");
 
+  @Option(help = "Number of entries in the inline cache of a send before it is megamorphic",
+      category = OptionCategory.EXPERT) //
+  protected static final OptionKey<Integer> INLINE_CACHE_SIZE =
+      new OptionKey<>(AbstractDispatchNode.DEFAULT_INLINE_CACHE_SIZE);
+
+  @Option(help = "Widen inline caches of hot sends with stable receivers, "
+      + "and order cache entries by hit count", category = OptionCategory.EXPERT) //
+  protected static final OptionKey<Boolean> ADAPTIVE_INLINE_CACHE = new OptionKey<>(false);
+
+  @Option(help = "Maximum number of entries in an adaptively widened inline cache",
+      category = OptionCategory.EXPERT) //
+  protected static final OptionKey<Integer> ADAPTIVE_INLINE_CACHE_MAX = new OptionKey<>(16);
+
   @CompilationFinal(dimensions = 1) private String[] args;
 
   private String classPath;
@@ -57,6 +73,10 @@ public class SomLanguage extends TruffleLanguage<SomLanguage> {
   @Override
   protected SomLanguage createContext(final Env env) {
     StorageAnalyzer.initAccessors();
+    LayoutStatistics.reset();
+    if (VmSettings.PrintBytecodeNgrams) {
+      BytecodeNgramStatistics.reset();
+    }
 
     OptionValues config = env.getOptions();
     args = env.getApplicationArguments();
@@ -64,6 +84,9 @@ public class SomLanguage extends TruffleLanguage<SomLanguage> {
     testClass = config.get(TEST_CLASS);
     testSelector = config.get(TEST_SELECTOR);
 
+    AbstractDispatchNode.configureInlineCache(config.get(INLINE_CACHE_SIZE),
+        config.get(ADAPTIVE_INLINE_CACHE), config.get(ADAPTIVE_INLINE_CACHE_MAX));
+
     return this;
   }
 
@@ -80,6 +103,12 @@ public class SomLanguage extends TruffleLanguage<SomLanguage> {
 
   @Override
   protected void disposeContext(final SomLanguage lang) {
+    if (VmSettings.PrintLayoutStatistics) {
+      LayoutStatistics.report();
+    }
+    if (VmSettings.PrintBytecodeNgrams) {
+      BytecodeNgramStatistics.report();
+    }
     current = null;
   }
 
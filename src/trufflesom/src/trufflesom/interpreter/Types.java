@@ -35,6 +35,7 @@ import com.oracle.truffle.api.dsl.TypeSystem;
 
 import trufflesom.vmobjects.SAbstractObject;
 import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SRope;
 
 
 @TypeSystem({boolean.class,
@@ -58,7 +59,7 @@ public class Types {
       }
     } else if (obj instanceof Long || obj instanceof BigInteger) {
       return integerClass;
-    } else if (obj instanceof String) {
+    } else if (obj instanceof String || obj instanceof SRope) {
       return stringClass;
     } else if (obj instanceof Double) {
       return doubleClass;
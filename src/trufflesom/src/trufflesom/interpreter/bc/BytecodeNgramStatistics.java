@@ -0,0 +1,169 @@
+package trufflesom.interpreter.bc;
+
+import static trufflesom.interpreter.bc.Bytecodes.DEC;
+import static trufflesom.interpreter.bc.Bytecodes.INC;
+import static trufflesom.interpreter.bc.Bytecodes.NUM_BYTECODES;
+import static trufflesom.interpreter.bc.Bytecodes.POP_LOCAL;
+import static trufflesom.interpreter.bc.Bytecodes.PUSH_GLOBAL;
+import static trufflesom.interpreter.bc.Bytecodes.PUSH_LOCAL;
+import static trufflesom.interpreter.bc.Bytecodes.Q_DEC_DOUBLE;
+import static trufflesom.interpreter.bc.Bytecodes.Q_INC_DOUBLE;
+import static trufflesom.interpreter.bc.Bytecodes.Q_POP_LOCAL_DOUBLE;
+import static trufflesom.interpreter.bc.Bytecodes.Q_POP_LOCAL_LONG;
+import static trufflesom.interpreter.bc.Bytecodes.Q_PUSH_GLOBAL;
+import static trufflesom.interpreter.bc.Bytecodes.Q_PUSH_LOCAL_DOUBLE;
+import static trufflesom.interpreter.bc.Bytecodes.Q_PUSH_LOCAL_LONG;
+import static trufflesom.interpreter.bc.Bytecodes.Q_SEND;
+import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_1;
+import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_2;
+import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_3;
+import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_BINARY;
+import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_TERNARY;
+import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_UNARY;
+import static trufflesom.interpreter.bc.Bytecodes.SEND;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import trufflesom.vm.Universe;
+
+
+/**
+ * Counts how often sequences of two and three bytecodes are executed by the bytecode
+ * interpreter, to find candidates for superinstructions. Only sequences without a jump in
+ * between are counted, since only those can be fused. Quickened bytecodes are counted as the
+ * bytecode the compiler emitted. Only interpreted execution is counted, because that is where
+ * superinstructions save dispatches. The report is enabled with -Dsom.bytecodeNgrams=true.
+ */
+public final class BytecodeNgramStatistics {
+  /** History of a bytecode loop activation that has not executed any bytecode yet. */
+  public static final long START = 0;
+
+  private static final int NUM_REPORTED = 25;
+
+  private static long   executedBytecodes;
+  private static long[] bigrams;
+  private static long[] trigrams;
+
+  private BytecodeNgramStatistics() {}
+
+  /** Allocates the counters, which are only needed when the report is enabled. */
+  public static void reset() {
+    executedBytecodes = 0;
+    bigrams = new long[NUM_BYTECODES * NUM_BYTECODES];
+    trigrams = new long[NUM_BYTECODES * NUM_BYTECODES * NUM_BYTECODES];
+  }
+
+  /**
+   * Records the execution of a bytecode.
+   *
+   * <p>
+   * The history encodes the two previously executed bytecodes, and the index of the bytecode
+   * following the last one. If the bytecode is not at that index, it was reached by a jump,
+   * and starts a new sequence.
+   *
+   * @return the history including this bytecode
+   */
+  @TruffleBoundary
+  public static long record(final long history, final int bytecodeIndex,
+      final byte bytecode) {
+    int bc = getEmittedBytecode(bytecode);
+    int prev1 = (int) (history & 0xFF) - 1;
+    int prev2 = (int) ((history >>> 8) & 0xFF) - 1;
+    if ((int) (history >>> 16) != bytecodeIndex) {
+      prev1 = -1;
+      prev2 = -1;
+    }
+
+    executedBytecodes += 1;
+    if (prev1 >= 0) {
+      bigrams[prev1 * NUM_BYTECODES + bc] += 1;
+      if (prev2 >= 0) {
+        trigrams[(prev2 * NUM_BYTECODES + prev1) * NUM_BYTECODES + bc] += 1;
+      }
+    }
+
+    long nextIndex = bytecodeIndex + Bytecodes.getBytecodeLength(bytecode);
+    return (nextIndex << 16) | ((prev1 + 1) << 8) | (bc + 1);
+  }
+
+  private static byte getEmittedBytecode(final byte bytecode) {
+    switch (bytecode) {
+      case Q_PUSH_GLOBAL:
+        return PUSH_GLOBAL;
+      case Q_SEND:
+      case Q_SEND_1:
+      case Q_SEND_2:
+      case Q_SEND_3:
+      case Q_SEND_UNARY:
+      case Q_SEND_BINARY:
+      case Q_SEND_TERNARY:
+        return SEND;
+      case Q_PUSH_LOCAL_LONG:
+      case Q_PUSH_LOCAL_DOUBLE:
+        return PUSH_LOCAL;
+      case Q_POP_LOCAL_LONG:
+      case Q_POP_LOCAL_DOUBLE:
+        return POP_LOCAL;
+      case Q_INC_DOUBLE:
+        return INC;
+      case Q_DEC_DOUBLE:
+        return DEC;
+      default:
+        return bytecode;
+    }
+  }
+
+  public static long getExecutedBytecodes() {
+    return executedBytecodes;
+  }
+
+  /** @return how often the sequence of two or three bytecodes was executed */
+  public static long getCount(final byte... sequence) {
+    if (sequence.length == 2) {
+      return bigrams[sequence[0] * NUM_BYTECODES + sequence[1]];
+    }
+    if (sequence.length == 3) {
+      return trigrams[(sequence[0] * NUM_BYTECODES + sequence[1]) * NUM_BYTECODES
+          + sequence[2]];
+    }
+    throw new IllegalArgumentException("Only 2-grams and 3-grams are counted");
+  }
+
+  @TruffleBoundary
+  public static void report() {
+    Universe.errorPrintln("[bytecodes] executed: " + executedBytecodes);
+    report(bigrams, 2);
+    report(trigrams, 3);
+  }
+
+  private static void report(final long[] counts, final int n) {
+    List<Integer> ngrams = new ArrayList<>();
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        ngrams.add(i);
+      }
+    }
+    ngrams.sort((a, b) -> Long.compare(counts[b], counts[a]));
+
+    Universe.errorPrintln("[bytecodes] most frequent " + n + "-grams:");
+    for (int i = 0; i < Math.min(NUM_REPORTED, ngrams.size()); i++) {
+      int ngram = ngrams.get(i);
+      long count = counts[ngram];
+
+      StringBuilder names = new StringBuilder();
+      for (int j = n - 1; j >= 0; j--) {
+        int bc = ngram;
+        for (int k = 0; k < j; k++) {
+          bc /= NUM_BYTECODES;
+        }
+        names.append(' ').append(Bytecodes.getBytecodeName((byte) (bc % NUM_BYTECODES)));
+      }
+
+      Universe.errorPrintln(String.format("[bytecodes] %12d %5.1f%% ", count,
+          100.0 * count / executedBytecodes) + names);
+    }
+  }
+}
@@ -113,6 +113,42 @@ public class Bytecodes {
   public static final byte Q_SEND_2      = 59;
   public static final byte Q_SEND_3      = 60;
 
+  // typed variants of PUSH_LOCAL, POP_LOCAL, INC, and DEC, see BytecodeLoopNode
+  public static final byte Q_PUSH_LOCAL_LONG   = 61;
+  public static final byte Q_PUSH_LOCAL_DOUBLE = 62;
+  public static final byte Q_POP_LOCAL_LONG    = 63;
+  public static final byte Q_POP_LOCAL_DOUBLE  = 64;
+  public static final byte Q_INC_DOUBLE        = 65;
+  public static final byte Q_DEC_DOUBLE        = 66;
+
+  // superinstructions, only emitted with som.superinstructions=true
+  public static final byte INC_LOCAL      = 67;
+  public static final byte INC_LOCAL_PUSH = 68;
+  public static final byte DEC_LOCAL      = 69;
+  public static final byte DEC_LOCAL_PUSH = 70;
+
+  /**
+   * Prefix for a bytecode with an index operand that does not fit into one byte. The operand
+   * of WIDE is the high byte of the index, and the operand of the following bytecode the low
+   * byte. Without the prefix, the index operand is at most {@link Byte#MAX_VALUE}.
+   */
+  public static final byte WIDE = 71;
+
+  /**
+   * Sends with a generic dispatch chain and one, two, or three arguments. They take the
+   * arguments from the stack without first copying them into an array, see
+   * {@link trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode#executeUnary}.
+   */
+  public static final byte Q_SEND_UNARY   = 72;
+  public static final byte Q_SEND_BINARY  = 73;
+  public static final byte Q_SEND_TERNARY = 74;
+
+  /**
+   * Superinstruction for the assignment of a local to another local of the same frame. Its
+   * operands are the index of the source, and the index of the destination.
+   */
+  public static final byte MOVE_LOCAL = 75;
+
   public static final byte INVALID = -1;
 
   public static final byte NUM_1_BYTE_JUMP_BYTECODES = 6;
@@ -142,6 +178,9 @@ public class Bytecodes {
   public static final byte LEN_TWO_ARGS   = 2;
   public static final byte LEN_THREE_ARGS = 3;
 
+  /** Largest literal, local, or field index, which needs a {@link #WIDE} prefix. */
+  public static final int MAX_WIDE_INDEX = 0xFFFF;
+
   public static int getBytecodeLength(final byte bytecode) {
     return BYTECODE_LENGTH[bytecode];
   }
@@ -166,7 +205,7 @@ public class Bytecodes {
   }
 
   static {
-    NUM_BYTECODES = Q_SEND_3 + 1;
+    NUM_BYTECODES = MOVE_LOCAL + 1;
 
     PADDED_BYTECODE_NAMES = new String[] {
         "HALT            ",
@@ -247,6 +286,26 @@ public class Bytecodes {
         "Q_SEND_1        ",
         "Q_SEND_2        ",
         "Q_SEND_3        ",
+
+        "Q_PUSH_LOCAL_LONG",
+        "Q_PUSH_LOCAL_DOUBLE",
+        "Q_POP_LOCAL_LONG",
+        "Q_POP_LOCAL_DOUBLE",
+        "Q_INC_DOUBLE    ",
+        "Q_DEC_DOUBLE    ",
+
+        "INC_LOCAL       ",
+        "INC_LOCAL_PUSH  ",
+        "DEC_LOCAL       ",
+        "DEC_LOCAL_PUSH  ",
+
+        "WIDE            ",
+
+        "Q_SEND_UNARY    ",
+        "Q_SEND_BINARY   ",
+        "Q_SEND_TERNARY  ",
+
+        "MOVE_LOCAL      ",
     };
 
     assert PADDED_BYTECODE_NAMES.length == NUM_BYTECODES : "Inconsistency between number of bytecodes and defined padded names";
@@ -329,6 +388,26 @@ public class Bytecodes {
         2, // Q_SEND_1
         2, // Q_SEND_2
         2, // Q_SEND_3
+
+        3, // Q_PUSH_LOCAL_LONG
+        3, // Q_PUSH_LOCAL_DOUBLE
+        3, // Q_POP_LOCAL_LONG
+        3, // Q_POP_LOCAL_DOUBLE
+        1, // Q_INC_DOUBLE
+        1, // Q_DEC_DOUBLE
+
+        3, // INC_LOCAL
+        3, // INC_LOCAL_PUSH
+        3, // DEC_LOCAL
+        3, // DEC_LOCAL_PUSH
+
+        2, // WIDE
+
+        2, // Q_SEND_UNARY
+        2, // Q_SEND_BINARY
+        2, // Q_SEND_TERNARY
+
+        3, // MOVE_LOCAL
     };
 
     assert BYTECODE_LENGTH.length == NUM_BYTECODES : "The BYTECODE_LENGTH array is not having the same size as number of bytecodes";
@@ -150,7 +150,7 @@ public abstract class FieldNode extends ExpressionNode {
 
       if (scope instanceof BytecodeMethodGenContext) {
         BytecodeMethodGenContext mgenc = (BytecodeMethodGenContext) scope;
-        BytecodeGenerator.emitPUSHFIELD(mgenc, (byte) read.getFieldIndex(), (byte) 0);
+        BytecodeGenerator.emitPUSHFIELD(mgenc, read.getFieldIndex(), (byte) 0);
       }
     }
   }
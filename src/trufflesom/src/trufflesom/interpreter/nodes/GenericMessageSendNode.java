@@ -37,11 +37,28 @@ public class GenericMessageSendNode extends AbstractMessageSendNode {
     return dispatchNode.executeDispatch(frame, arguments);
   }
 
+  public Object executeUnary(final VirtualFrame frame, final Object rcvr) {
+    return dispatchNode.executeUnary(frame, rcvr);
+  }
+
+  public Object executeBinary(final VirtualFrame frame, final Object rcvr, final Object arg) {
+    return dispatchNode.executeBinary(frame, rcvr, arg);
+  }
+
+  public Object executeTernary(final VirtualFrame frame, final Object rcvr,
+      final Object arg1, final Object arg2) {
+    return dispatchNode.executeTernary(frame, rcvr, arg1, arg2);
+  }
+
   @Override
   public String toString() {
     return "GMsgSend(" + selector.getString() + ")";
   }
 
+  public AbstractDispatchNode getDispatchChain() {
+    return dispatchNode;
+  }
+
   @Override
   public NodeCost getCost() {
     return Cost.getCost(dispatchNode);
@@ -59,6 +59,22 @@ final class GenericMessageSendNodeWrapper extends GenericMessageSendNode
     return returnValue;
   }
 
+  @Override
+  public Object executeUnary(final VirtualFrame frame, final Object rcvr) {
+    return doPreEvaluated(frame, new Object[] {rcvr});
+  }
+
+  @Override
+  public Object executeBinary(final VirtualFrame frame, final Object rcvr, final Object arg) {
+    return doPreEvaluated(frame, new Object[] {rcvr, arg});
+  }
+
+  @Override
+  public Object executeTernary(final VirtualFrame frame, final Object rcvr,
+      final Object arg1, final Object arg2) {
+    return doPreEvaluated(frame, new Object[] {rcvr, arg1, arg2});
+  }
+
   @Override
   public boolean executeBoolean(final VirtualFrame frame) throws UnexpectedResultException {
     boolean returnValue;
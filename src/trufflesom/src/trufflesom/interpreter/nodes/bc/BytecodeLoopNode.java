@@ -2,6 +2,7 @@ package trufflesom.interpreter.nodes.bc;
 
 import static trufflesom.compiler.bc.BytecodeGenerator.emit1;
 import static trufflesom.compiler.bc.BytecodeGenerator.emit3;
+import static trufflesom.compiler.bc.BytecodeGenerator.emit3WithIndex;
 import static trufflesom.compiler.bc.BytecodeGenerator.emit3WithDummy;
 import static trufflesom.compiler.bc.BytecodeGenerator.emitPOP;
 import static trufflesom.compiler.bc.BytecodeGenerator.emitPOPFIELD;
@@ -16,11 +17,15 @@ import static trufflesom.compiler.bc.BytecodeGenerator.emitSEND;
 import static trufflesom.compiler.bc.BytecodeGenerator.emitSUPERSEND;
 import static trufflesom.compiler.bc.BytecodeMethodGenContext.getJumpOffset;
 import static trufflesom.interpreter.bc.Bytecodes.DEC;
+import static trufflesom.interpreter.bc.Bytecodes.DEC_LOCAL;
+import static trufflesom.interpreter.bc.Bytecodes.DEC_LOCAL_PUSH;
 import static trufflesom.interpreter.bc.Bytecodes.DUP;
 import static trufflesom.interpreter.bc.Bytecodes.HALT;
 import static trufflesom.interpreter.bc.Bytecodes.INC;
 import static trufflesom.interpreter.bc.Bytecodes.INC_FIELD;
 import static trufflesom.interpreter.bc.Bytecodes.INC_FIELD_PUSH;
+import static trufflesom.interpreter.bc.Bytecodes.INC_LOCAL;
+import static trufflesom.interpreter.bc.Bytecodes.INC_LOCAL_PUSH;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP2;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP2_BACKWARDS;
@@ -33,6 +38,7 @@ import static trufflesom.interpreter.bc.Bytecodes.JUMP_ON_FALSE_POP;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP_ON_FALSE_TOP_NIL;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP_ON_TRUE_POP;
 import static trufflesom.interpreter.bc.Bytecodes.JUMP_ON_TRUE_TOP_NIL;
+import static trufflesom.interpreter.bc.Bytecodes.MOVE_LOCAL;
 import static trufflesom.interpreter.bc.Bytecodes.POP;
 import static trufflesom.interpreter.bc.Bytecodes.POP_ARGUMENT;
 import static trufflesom.interpreter.bc.Bytecodes.POP_FIELD;
@@ -63,11 +69,20 @@ import static trufflesom.interpreter.bc.Bytecodes.PUSH_LOCAL_1;
 import static trufflesom.interpreter.bc.Bytecodes.PUSH_LOCAL_2;
 import static trufflesom.interpreter.bc.Bytecodes.PUSH_NIL;
 import static trufflesom.interpreter.bc.Bytecodes.PUSH_SELF;
+import static trufflesom.interpreter.bc.Bytecodes.Q_DEC_DOUBLE;
+import static trufflesom.interpreter.bc.Bytecodes.Q_INC_DOUBLE;
+import static trufflesom.interpreter.bc.Bytecodes.Q_POP_LOCAL_DOUBLE;
+import static trufflesom.interpreter.bc.Bytecodes.Q_POP_LOCAL_LONG;
 import static trufflesom.interpreter.bc.Bytecodes.Q_PUSH_GLOBAL;
+import static trufflesom.interpreter.bc.Bytecodes.Q_PUSH_LOCAL_DOUBLE;
+import static trufflesom.interpreter.bc.Bytecodes.Q_PUSH_LOCAL_LONG;
 import static trufflesom.interpreter.bc.Bytecodes.Q_SEND;
 import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_1;
 import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_2;
 import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_3;
+import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_BINARY;
+import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_TERNARY;
+import static trufflesom.interpreter.bc.Bytecodes.Q_SEND_UNARY;
 import static trufflesom.interpreter.bc.Bytecodes.RETURN_FIELD_0;
 import static trufflesom.interpreter.bc.Bytecodes.RETURN_FIELD_1;
 import static trufflesom.interpreter.bc.Bytecodes.RETURN_FIELD_2;
@@ -76,11 +91,14 @@ import static trufflesom.interpreter.bc.Bytecodes.RETURN_NON_LOCAL;
 import static trufflesom.interpreter.bc.Bytecodes.RETURN_SELF;
 import static trufflesom.interpreter.bc.Bytecodes.SEND;
 import static trufflesom.interpreter.bc.Bytecodes.SUPER_SEND;
+import static trufflesom.interpreter.bc.Bytecodes.WIDE;
 import static trufflesom.interpreter.bc.Bytecodes.getBytecodeLength;
 import static trufflesom.interpreter.bc.Bytecodes.getBytecodeName;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.PriorityQueue;
 
@@ -90,6 +108,10 @@ import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.HostCompilerDirectives.BytecodeInterpreterSwitch;
 import com.oracle.truffle.api.HostCompilerDirectives.InliningCutoff;
+import com.oracle.truffle.api.frame.Frame;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.frame.FrameSlotTypeException;
 import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
@@ -112,6 +134,7 @@ import trufflesom.interpreter.Invokable;
 import trufflesom.interpreter.Method;
 import trufflesom.interpreter.ReturnException;
 import trufflesom.interpreter.Types;
+import trufflesom.interpreter.bc.BytecodeNgramStatistics;
 import trufflesom.interpreter.bc.Bytecodes;
 import trufflesom.interpreter.bc.RespecializeException;
 import trufflesom.interpreter.bc.RestartLoopException;
@@ -133,7 +156,9 @@ import trufflesom.interpreter.objectstorage.FieldAccessorNode.IncrementLongField
 import trufflesom.primitives.Primitives;
 import trufflesom.vm.Classes;
 import trufflesom.vm.NotYetImplementedException;
+import trufflesom.vm.SymbolTable;
 import trufflesom.vm.Universe;
+import trufflesom.vm.VmSettings;
 import trufflesom.vm.constants.Nil;
 import trufflesom.vmobjects.SAbstractObject;
 import trufflesom.vmobjects.SBlock;
@@ -237,6 +262,195 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
     return frameType.profile(self.getContext());
   }
 
+  /**
+   * Reads a local, using the kind of its slot as type profile, see
+   * {@link #writeLocal(Frame, int, Object)}.
+   */
+  private static Object readLocal(final Frame frame, final int localIdx) {
+    FrameSlotKind kind = frame.getFrameDescriptor().getSlotKind(localIdx);
+    if (kind == FrameSlotKind.Long) {
+      return readLongLocal(frame, localIdx);
+    }
+    if (kind == FrameSlotKind.Double) {
+      return readDoubleLocal(frame, localIdx);
+    }
+    return frame.getValue(localIdx);
+  }
+
+  /** Reads a local that is expected to hold a long, but may also be uninitialized. */
+  private static Object readLongLocal(final Frame frame, final int localIdx) {
+    if (frame.isLong(localIdx)) {
+      try {
+        return frame.getLong(localIdx);
+      } catch (FrameSlotTypeException e) {
+        throw CompilerDirectives.shouldNotReachHere(e);
+      }
+    }
+    return frame.getValue(localIdx);
+  }
+
+  /** Reads a local that is expected to hold a double, but may also be uninitialized. */
+  private static Object readDoubleLocal(final Frame frame, final int localIdx) {
+    if (frame.isDouble(localIdx)) {
+      try {
+        return frame.getDouble(localIdx);
+      } catch (FrameSlotTypeException e) {
+        throw CompilerDirectives.shouldNotReachHere(e);
+      }
+    }
+    return frame.getValue(localIdx);
+  }
+
+  /**
+   * Writes a local, and uses the kind of its slot in the frame descriptor as the type profile
+   * of the local, as the AST interpreter does. A slot starts out as {@code Illegal}, takes the
+   * kind of the first long or double written to it, and becomes an {@code Object} slot for
+   * good once it sees a value of another type.
+   */
+  private static void writeLocal(final Frame frame, final int localIdx, final Object value) {
+    FrameSlotKind kind = frame.getFrameDescriptor().getSlotKind(localIdx);
+    if (kind == FrameSlotKind.Object) {
+      frame.setObject(localIdx, value);
+    } else if (kind == FrameSlotKind.Long && value instanceof Long) {
+      frame.setLong(localIdx, (Long) value);
+    } else if (kind == FrameSlotKind.Double && value instanceof Double) {
+      frame.setDouble(localIdx, (Double) value);
+    } else {
+      specializeAndWriteLocal(frame, localIdx, value);
+    }
+  }
+
+  @InliningCutoff
+  private static void specializeAndWriteLocal(final Frame frame, final int localIdx,
+      final Object value) {
+    CompilerDirectives.transferToInterpreterAndInvalidate();
+    FrameDescriptor descriptor = frame.getFrameDescriptor();
+    boolean uninitialized = descriptor.getSlotKind(localIdx) == FrameSlotKind.Illegal;
+
+    if (uninitialized && value instanceof Long) {
+      descriptor.setSlotKind(localIdx, FrameSlotKind.Long);
+      frame.setLong(localIdx, (Long) value);
+    } else if (uninitialized && value instanceof Double) {
+      descriptor.setSlotKind(localIdx, FrameSlotKind.Double);
+      frame.setDouble(localIdx, (Double) value);
+    } else {
+      descriptor.setSlotKind(localIdx, FrameSlotKind.Object);
+      frame.setObject(localIdx, value);
+    }
+  }
+
+  /**
+   * Adds delta to a local, without boxing the value if the local is in a long or double
+   * slot. A long that overflows becomes a big integer, as with + and -.
+   *
+   * @return false if the local does not hold a number, for which + or - is to be sent
+   */
+  private static boolean addToLocal(final Frame frame, final int localIdx,
+      final long delta) {
+    try {
+      if (frame.isLong(localIdx)) {
+        long value = frame.getLong(localIdx);
+        try {
+          frame.setLong(localIdx, Math.addExact(value, delta));
+        } catch (ArithmeticException e) {
+          writeLocal(frame, localIdx, addWithOverflow(value, delta));
+        }
+      } else if (frame.isDouble(localIdx)) {
+        frame.setDouble(localIdx, frame.getDouble(localIdx) + delta);
+      } else {
+        Object value = frame.getValue(localIdx);
+        if (!isNumber(value)) {
+          return false;
+        }
+        writeLocal(frame, localIdx, add(value, delta));
+      }
+    } catch (FrameSlotTypeException e) {
+      throw CompilerDirectives.shouldNotReachHere(e);
+    }
+    return true;
+  }
+
+  private static boolean isNumber(final Object value) {
+    return value instanceof Long || value instanceof Double || value instanceof BigInteger;
+  }
+
+  /** Adds delta to a number, with the result + and - would give, used by INC and DEC. */
+  private static Object add(final Object value, final long delta) {
+    if (value instanceof Long) {
+      try {
+        return Math.addExact((Long) value, delta);
+      } catch (ArithmeticException e) {
+        return addWithOverflow((Long) value, delta);
+      }
+    }
+    if (value instanceof Double) {
+      return (Double) value + delta;
+    }
+    return addToBigInteger((BigInteger) value, delta);
+  }
+
+  /**
+   * INC and DEC, and their variants for locals, handle only numbers. For other values, they
+   * send + or - with a generic send node, which is kept at the index of the bytecode.
+   */
+  @InliningCutoff
+  private Object sendAdd(final VirtualFrame frame, final int bytecodeIndex,
+      final Object value, final long delta) {
+    Node node = quickenedField[bytecodeIndex];
+    if (node == null) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      SSymbol selector = SymbolTable.symbolFor(delta > 0 ? "+" : "-");
+      node = insert(MessageSendNode.createGeneric(selector, null, sourceCoord));
+      quickenedField[bytecodeIndex] = node;
+    }
+    return ((GenericMessageSendNode) node).doPreEvaluated(frame,
+        new Object[] {value, Math.abs(delta)});
+  }
+
+  private static Object addWithOverflow(final long value, final long delta) {
+    return addToBigInteger(BigInteger.valueOf(value), delta);
+  }
+
+  @TruffleBoundary
+  private static Object addToBigInteger(final BigInteger value, final long delta) {
+    BigInteger result = value.add(BigInteger.valueOf(delta));
+    if (result.bitLength() > Long.SIZE - 1) {
+      return result;
+    }
+    return result.longValue();
+  }
+
+  /**
+   * Quickens a PUSH_LOCAL or POP_LOCAL to its typed variant, once the slot of the local is a
+   * long or double slot. Only done in the interpreter, compiled code keeps the generic
+   * bytecode, which handles all slot kinds.
+   */
+  private void quickenLocalAccess(final int bytecodeIndex, final Frame frameOrContext,
+      final int localIdx, final byte longBytecode, final byte doubleBytecode) {
+    if (!CompilerDirectives.inInterpreter()) {
+      return;
+    }
+
+    FrameSlotKind kind = frameOrContext.getFrameDescriptor().getSlotKind(localIdx);
+    if (kind == FrameSlotKind.Long) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      bytecodesField[bytecodeIndex] = longBytecode;
+    } else if (kind == FrameSlotKind.Double) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      bytecodesField[bytecodeIndex] = doubleBytecode;
+    }
+  }
+
+  /**
+   * Reverts a typed bytecode to its generic variant, which the bytecode loop then executes
+   * instead, because the typed one saw a value of another type.
+   */
+  @InliningCutoff
+  private void generalizeBytecode(final int bytecodeIndex, final byte genericBytecode) {
+    CompilerDirectives.transferToInterpreterAndInvalidate();
+    bytecodesField[bytecodeIndex] = genericBytecode;
+  }
+
   @InliningCutoff
   private AbstractReadFieldNode createRead(final int bytecodeIndex, final int fieldIndex) {
     CompilerDirectives.transferToInterpreterAndInvalidate();
@@ -268,10 +482,10 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
   }
 
   @InliningCutoff
-  private Object quickenAndExecuteGlobal(final VirtualFrame frame, final int bytecodeIndex) {
+  private Object quickenAndExecuteGlobal(final VirtualFrame frame, final int bytecodeIndex,
+      final int literalIdx) {
     CompilerDirectives.transferToInterpreterAndInvalidate();
 
-    byte literalIdx = bytecodesField[bytecodeIndex + 1];
     SSymbol globalName = (SSymbol) literalsAndConstantsField[literalIdx];
 
     GlobalNode quick =
@@ -312,11 +526,32 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
     return SAbstractObject.sendEscapedBlock(sendOfBlockValueMsg, e.getBlock());
   }
 
+  /**
+   * Sends with up to three arguments use a bytecode that passes the arguments to the dispatch
+   * chain directly, instead of in a newly allocated array.
+   */
+  private void quickenGenericSend(final int bytecodeIndex, final GenericMessageSendNode send) {
+    switch (send.getNumberOfArguments()) {
+      case 1:
+        quickenBytecode(bytecodeIndex, Q_SEND_UNARY, send);
+        break;
+      case 2:
+        quickenBytecode(bytecodeIndex, Q_SEND_BINARY, send);
+        break;
+      case 3:
+        quickenBytecode(bytecodeIndex, Q_SEND_TERNARY, send);
+        break;
+      default:
+        quickenBytecode(bytecodeIndex, Q_SEND, send);
+        break;
+    }
+  }
+
   @InliningCutoff
   private Object quickenAndEvaluate(final VirtualFrame frame, final int bytecodeIndex,
       final RespecializeException r, final Object rcvr) {
     CompilerDirectives.transferToInterpreterAndInvalidate();
-    quickenBytecode(bytecodeIndex, Q_SEND, r.send);
+    quickenGenericSend(bytecodeIndex, r.send);
     return r.send.doPreEvaluated(frame, new Object[] {rcvr});
   }
 
@@ -324,7 +559,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
   private Object quickenAndEvaluate(final VirtualFrame frame, final int bytecodeIndex,
       final RespecializeException r, final Object rcvr, final Object arg) {
     CompilerDirectives.transferToInterpreterAndInvalidate();
-    quickenBytecode(bytecodeIndex, Q_SEND, r.send);
+    quickenGenericSend(bytecodeIndex, r.send);
     return r.send.doPreEvaluated(frame, new Object[] {rcvr, arg});
   }
 
@@ -332,7 +567,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
   private Object quickenAndEvaluate(final VirtualFrame frame, final int bytecodeIndex,
       final RespecializeException r, final Object rcvr, final Object arg1, final Object arg2) {
     CompilerDirectives.transferToInterpreterAndInvalidate();
-    quickenBytecode(bytecodeIndex, Q_SEND, r.send);
+    quickenGenericSend(bytecodeIndex, r.send);
     return r.send.doPreEvaluated(frame, new Object[] {rcvr, arg1, arg2});
   }
 
@@ -370,6 +605,11 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
 
     int backBranchesTaken = 0;
 
+    long ngramHistory = BytecodeNgramStatistics.START;
+
+    // high byte of the index operand of the current bytecode, set by a preceding WIDE
+    int wideIndex = 0;
+
     while (true) {
       byte bytecode = bytecodes[bytecodeIndex];
 
@@ -377,6 +617,10 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
       CompilerAsserts.partialEvaluationConstant(bytecode);
       CompilerDirectives.ensureVirtualized(stack);
 
+      if (VmSettings.PrintBytecodeNgrams && CompilerDirectives.inInterpreter()) {
+        ngramHistory = BytecodeNgramStatistics.record(ngramHistory, bytecodeIndex, bytecode);
+      }
+
       switch (bytecode) {
         case HALT: {
           return stack[stackPointer];
@@ -391,7 +635,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case PUSH_LOCAL: {
-          byte localIdx = bytecodes[bytecodeIndex + 1];
+          int localIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
           byte contextIdx = bytecodes[bytecodeIndex + 2];
 
           VirtualFrame currentOrContext = frame;
@@ -399,28 +643,30 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
             currentOrContext = determineContext(currentOrContext, contextIdx);
           }
 
-          Object value = currentOrContext.getObject(localIdx);
+          Object value = currentOrContext.getValue(localIdx);
           stackPointer += 1;
           stack[stackPointer] = value;
+          quickenLocalAccess(bytecodeIndex, currentOrContext, localIdx, Q_PUSH_LOCAL_LONG,
+              Q_PUSH_LOCAL_DOUBLE);
           bytecodeIndex += Bytecodes.LEN_THREE_ARGS;
           break;
         }
 
         case PUSH_LOCAL_0: {
           stackPointer += 1;
-          stack[stackPointer] = frame.getObject(0);
+          stack[stackPointer] = readLocal(frame, 0);
           bytecodeIndex += Bytecodes.LEN_NO_ARG;
           break;
         }
         case PUSH_LOCAL_1: {
           stackPointer += 1;
-          stack[stackPointer] = frame.getObject(1);
+          stack[stackPointer] = readLocal(frame, 1);
           bytecodeIndex += Bytecodes.LEN_NO_ARG;
           break;
         }
         case PUSH_LOCAL_2: {
           stackPointer += 1;
-          stack[stackPointer] = frame.getObject(2);
+          stack[stackPointer] = readLocal(frame, 2);
           bytecodeIndex += Bytecodes.LEN_NO_ARG;
           break;
         }
@@ -462,7 +708,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case PUSH_FIELD: {
-          byte fieldIdx = bytecodes[bytecodeIndex + 1];
+          int fieldIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
           byte contextIdx = bytecodes[bytecodeIndex + 2];
 
           VirtualFrame currentOrContext = frame;
@@ -509,7 +755,8 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case PUSH_BLOCK: {
-          SMethod blockMethod = (SMethod) literalsAndConstants[bytecodes[bytecodeIndex + 1]];
+          int literalIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
+          SMethod blockMethod = (SMethod) literalsAndConstants[literalIdx];
 
           stackPointer += 1;
           stack[stackPointer] = new SBlock(blockMethod,
@@ -519,7 +766,8 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case PUSH_BLOCK_NO_CTX: {
-          SMethod blockMethod = (SMethod) literalsAndConstants[bytecodes[bytecodeIndex + 1]];
+          int literalIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
+          SMethod blockMethod = (SMethod) literalsAndConstants[literalIdx];
 
           stackPointer += 1;
           stack[stackPointer] = new SBlock(blockMethod,
@@ -529,8 +777,9 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case PUSH_CONSTANT: {
+          int literalIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
           stackPointer += 1;
-          stack[stackPointer] = literalsAndConstants[bytecodes[bytecodeIndex + 1]];
+          stack[stackPointer] = literalsAndConstants[literalIdx];
           bytecodeIndex += Bytecodes.LEN_TWO_ARGS;
           break;
         }
@@ -578,8 +827,9 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case PUSH_GLOBAL: {
+          int literalIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
           stackPointer += 1;
-          stack[stackPointer] = quickenAndExecuteGlobal(frame, bytecodeIndex);
+          stack[stackPointer] = quickenAndExecuteGlobal(frame, bytecodeIndex, literalIdx);
           bytecodeIndex += Bytecodes.LEN_TWO_ARGS;
           break;
         }
@@ -591,7 +841,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case POP_LOCAL: {
-          byte localIdx = bytecodes[bytecodeIndex + 1];
+          int localIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
           byte contextIdx = bytecodes[bytecodeIndex + 2];
 
           VirtualFrame currentOrContext = frame;
@@ -602,25 +852,27 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
           Object value = stack[stackPointer];
           stackPointer -= 1;
 
-          currentOrContext.setObject(localIdx, value);
+          writeLocal(currentOrContext, localIdx, value);
+          quickenLocalAccess(bytecodeIndex, currentOrContext, localIdx, Q_POP_LOCAL_LONG,
+              Q_POP_LOCAL_DOUBLE);
           bytecodeIndex += Bytecodes.LEN_THREE_ARGS;
           break;
         }
 
         case POP_LOCAL_0: {
-          frame.setObject(0, stack[stackPointer]);
+          writeLocal(frame, 0, stack[stackPointer]);
           stackPointer -= 1;
           bytecodeIndex += Bytecodes.LEN_NO_ARG;
           break;
         }
         case POP_LOCAL_1: {
-          frame.setObject(1, stack[stackPointer]);
+          writeLocal(frame, 1, stack[stackPointer]);
           stackPointer -= 1;
           bytecodeIndex += Bytecodes.LEN_NO_ARG;
           break;
         }
         case POP_LOCAL_2: {
-          frame.setObject(2, stack[stackPointer]);
+          writeLocal(frame, 2, stack[stackPointer]);
           stackPointer -= 1;
           bytecodeIndex += Bytecodes.LEN_NO_ARG;
           break;
@@ -642,7 +894,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case POP_FIELD: {
-          byte fieldIdx = bytecodes[bytecodeIndex + 1];
+          int fieldIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
           byte contextIdx = bytecodes[bytecodeIndex + 2];
 
           VirtualFrame currentOrContext = frame;
@@ -692,7 +944,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         case SEND: {
           try {
             CompilerDirectives.transferToInterpreterAndInvalidate();
-            byte literalIdx = bytecodes[bytecodeIndex + 1];
+            int literalIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
             SSymbol signature = (SSymbol) literalsAndConstants[literalIdx];
             int numberOfArguments = signature.getNumberOfSignatureArguments();
 
@@ -722,7 +974,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         case SUPER_SEND: {
           CompilerDirectives.transferToInterpreterAndInvalidate();
           try {
-            byte literalIdx = bytecodes[bytecodeIndex + 1];
+            int literalIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
             SSymbol signature = (SSymbol) literalsAndConstants[literalIdx];
             int numberOfArguments = signature.getNumberOfSignatureArguments();
 
@@ -799,19 +1051,15 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         case INC: {
           Object top = stack[stackPointer];
           if (top instanceof Long) {
-            try {
-              stack[stackPointer] = Math.addExact((Long) top, 1L);
-            } catch (ArithmeticException e) {
-              CompilerDirectives.transferToInterpreterAndInvalidate();
-              throw new NotYetImplementedException();
-            }
-          } else {
+            stack[stackPointer] = add(top, 1);
+          } else if (top instanceof Double) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
-            if (top instanceof Double) {
-              stack[stackPointer] = ((Double) top) + 1.0d;
-            } else {
-              throw new NotYetImplementedException();
-            }
+            bytecodesField[bytecodeIndex] = Q_INC_DOUBLE;
+            stack[stackPointer] = ((Double) top) + 1.0d;
+          } else if (top instanceof BigInteger) {
+            stack[stackPointer] = add(top, 1);
+          } else {
+            stack[stackPointer] = sendAdd(frame, bytecodeIndex, top, 1);
           }
           bytecodeIndex += Bytecodes.LEN_NO_ARG;
           break;
@@ -820,21 +1068,22 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         case DEC: {
           Object top = stack[stackPointer];
           if (top instanceof Long) {
-            stack[stackPointer] = ((Long) top) - 1;
-          } else {
+            stack[stackPointer] = add(top, -1);
+          } else if (top instanceof Double) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
-            if (top instanceof Double) {
-              stack[stackPointer] = ((Double) top) - 1.0d;
-            } else {
-              throw new NotYetImplementedException();
-            }
+            bytecodesField[bytecodeIndex] = Q_DEC_DOUBLE;
+            stack[stackPointer] = ((Double) top) - 1.0d;
+          } else if (top instanceof BigInteger) {
+            stack[stackPointer] = add(top, -1);
+          } else {
+            stack[stackPointer] = sendAdd(frame, bytecodeIndex, top, -1);
           }
           bytecodeIndex += Bytecodes.LEN_NO_ARG;
           break;
         }
 
         case INC_FIELD: {
-          byte fieldIdx = bytecodes[bytecodeIndex + 1];
+          int fieldIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
           byte contextIdx = bytecodes[bytecodeIndex + 2];
 
           VirtualFrame currentOrContext = frame;
@@ -857,7 +1106,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case INC_FIELD_PUSH: {
-          byte fieldIdx = bytecodes[bytecodeIndex + 1];
+          int fieldIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
           byte contextIdx = bytecodes[bytecodeIndex + 2];
 
           VirtualFrame currentOrContext = frame;
@@ -882,6 +1131,54 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
           break;
         }
 
+        case INC_LOCAL:
+        case DEC_LOCAL: {
+          int localIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
+          byte contextIdx = bytecodes[bytecodeIndex + 2];
+
+          VirtualFrame currentOrContext = frame;
+          if (contextIdx > 0) {
+            currentOrContext = determineContext(currentOrContext, contextIdx);
+          }
+
+          long delta = bytecode == INC_LOCAL ? 1 : -1;
+          if (!addToLocal(currentOrContext, localIdx, delta)) {
+            writeLocal(currentOrContext, localIdx, sendAdd(frame, bytecodeIndex,
+                currentOrContext.getValue(localIdx), delta));
+          }
+          bytecodeIndex += Bytecodes.LEN_THREE_ARGS;
+          break;
+        }
+
+        case INC_LOCAL_PUSH:
+        case DEC_LOCAL_PUSH: {
+          int localIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
+          byte contextIdx = bytecodes[bytecodeIndex + 2];
+
+          VirtualFrame currentOrContext = frame;
+          if (contextIdx > 0) {
+            currentOrContext = determineContext(currentOrContext, contextIdx);
+          }
+
+          long delta = bytecode == INC_LOCAL_PUSH ? 1 : -1;
+          if (!addToLocal(currentOrContext, localIdx, delta)) {
+            writeLocal(currentOrContext, localIdx, sendAdd(frame, bytecodeIndex,
+                currentOrContext.getValue(localIdx), delta));
+          }
+          stackPointer += 1;
+          stack[stackPointer] = currentOrContext.getValue(localIdx);
+          bytecodeIndex += Bytecodes.LEN_THREE_ARGS;
+          break;
+        }
+
+        case MOVE_LOCAL: {
+          byte srcIdx = bytecodes[bytecodeIndex + 1];
+          byte dstIdx = bytecodes[bytecodeIndex + 2];
+          writeLocal(frame, dstIdx, readLocal(frame, srcIdx));
+          bytecodeIndex += Bytecodes.LEN_THREE_ARGS;
+          break;
+        }
+
         case JUMP: {
           int offset = Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
           bytecodeIndex += offset;
@@ -1020,6 +1317,104 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
           break;
         }
 
+        case Q_PUSH_LOCAL_LONG: {
+          int localIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
+          byte contextIdx = bytecodes[bytecodeIndex + 2];
+
+          VirtualFrame currentOrContext = frame;
+          if (contextIdx > 0) {
+            currentOrContext = determineContext(currentOrContext, contextIdx);
+          }
+
+          stackPointer += 1;
+          stack[stackPointer] = readLongLocal(currentOrContext, localIdx);
+          bytecodeIndex += Bytecodes.LEN_THREE_ARGS;
+          break;
+        }
+
+        case Q_PUSH_LOCAL_DOUBLE: {
+          int localIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
+          byte contextIdx = bytecodes[bytecodeIndex + 2];
+
+          VirtualFrame currentOrContext = frame;
+          if (contextIdx > 0) {
+            currentOrContext = determineContext(currentOrContext, contextIdx);
+          }
+
+          stackPointer += 1;
+          stack[stackPointer] = readDoubleLocal(currentOrContext, localIdx);
+          bytecodeIndex += Bytecodes.LEN_THREE_ARGS;
+          break;
+        }
+
+        case Q_POP_LOCAL_LONG: {
+          Object value = stack[stackPointer];
+          if (!(value instanceof Long)) {
+            // POP_LOCAL turns the slot into an object slot
+            generalizeBytecode(bytecodeIndex, POP_LOCAL);
+            // keep the wideIndex for executing the POP_LOCAL
+            continue;
+          }
+
+          int localIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
+          byte contextIdx = bytecodes[bytecodeIndex + 2];
+
+          VirtualFrame currentOrContext = frame;
+          if (contextIdx > 0) {
+            currentOrContext = determineContext(currentOrContext, contextIdx);
+          }
+
+          stackPointer -= 1;
+          currentOrContext.setLong(localIdx, (Long) value);
+          bytecodeIndex += Bytecodes.LEN_THREE_ARGS;
+          break;
+        }
+
+        case Q_POP_LOCAL_DOUBLE: {
+          Object value = stack[stackPointer];
+          if (!(value instanceof Double)) {
+            // POP_LOCAL turns the slot into an object slot
+            generalizeBytecode(bytecodeIndex, POP_LOCAL);
+            // keep the wideIndex for executing the POP_LOCAL
+            continue;
+          }
+
+          int localIdx = wideIndex | Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]);
+          byte contextIdx = bytecodes[bytecodeIndex + 2];
+
+          VirtualFrame currentOrContext = frame;
+          if (contextIdx > 0) {
+            currentOrContext = determineContext(currentOrContext, contextIdx);
+          }
+
+          stackPointer -= 1;
+          currentOrContext.setDouble(localIdx, (Double) value);
+          bytecodeIndex += Bytecodes.LEN_THREE_ARGS;
+          break;
+        }
+
+        case Q_INC_DOUBLE: {
+          Object top = stack[stackPointer];
+          if (!(top instanceof Double)) {
+            generalizeBytecode(bytecodeIndex, INC);
+            break;
+          }
+          stack[stackPointer] = ((Double) top) + 1.0d;
+          bytecodeIndex += Bytecodes.LEN_NO_ARG;
+          break;
+        }
+
+        case Q_DEC_DOUBLE: {
+          Object top = stack[stackPointer];
+          if (!(top instanceof Double)) {
+            generalizeBytecode(bytecodeIndex, DEC);
+            break;
+          }
+          stack[stackPointer] = ((Double) top) - 1.0d;
+          bytecodeIndex += Bytecodes.LEN_NO_ARG;
+          break;
+        }
+
         case Q_PUSH_GLOBAL: {
           stackPointer += 1;
           stack[stackPointer] = ((GlobalNode) quickened[bytecodeIndex]).executeGeneric(frame);
@@ -1050,6 +1445,66 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
           break;
         }
 
+        case Q_SEND_UNARY: {
+          GenericMessageSendNode node = (GenericMessageSendNode) quickened[bytecodeIndex];
+
+          try {
+            stack[stackPointer] = node.executeUnary(frame, stack[stackPointer]);
+            bytecodeIndex += Bytecodes.LEN_TWO_ARGS;
+          } catch (RestartLoopException e) {
+            bytecodeIndex = 0;
+            stackPointer = -1;
+          } catch (EscapedBlockException e) {
+            CompilerDirectives.transferToInterpreter();
+            stack[stackPointer] = handleEscapedBlock(frame, e);
+            bytecodeIndex += Bytecodes.LEN_TWO_ARGS;
+          }
+          break;
+        }
+
+        case Q_SEND_BINARY: {
+          GenericMessageSendNode node = (GenericMessageSendNode) quickened[bytecodeIndex];
+          Object rcvr = stack[stackPointer - 1];
+          Object arg = stack[stackPointer];
+
+          stackPointer -= 1;
+
+          try {
+            stack[stackPointer] = node.executeBinary(frame, rcvr, arg);
+            bytecodeIndex += Bytecodes.LEN_TWO_ARGS;
+          } catch (RestartLoopException e) {
+            bytecodeIndex = 0;
+            stackPointer = -1;
+          } catch (EscapedBlockException e) {
+            CompilerDirectives.transferToInterpreter();
+            stack[stackPointer] = handleEscapedBlock(frame, e);
+            bytecodeIndex += Bytecodes.LEN_TWO_ARGS;
+          }
+          break;
+        }
+
+        case Q_SEND_TERNARY: {
+          GenericMessageSendNode node = (GenericMessageSendNode) quickened[bytecodeIndex];
+          Object rcvr = stack[stackPointer - 2];
+          Object arg1 = stack[stackPointer - 1];
+          Object arg2 = stack[stackPointer];
+
+          stackPointer -= 2;
+
+          try {
+            stack[stackPointer] = node.executeTernary(frame, rcvr, arg1, arg2);
+            bytecodeIndex += Bytecodes.LEN_TWO_ARGS;
+          } catch (RestartLoopException e) {
+            bytecodeIndex = 0;
+            stackPointer = -1;
+          } catch (EscapedBlockException e) {
+            CompilerDirectives.transferToInterpreter();
+            stack[stackPointer] = handleEscapedBlock(frame, e);
+            bytecodeIndex += Bytecodes.LEN_TWO_ARGS;
+          }
+          break;
+        }
+
         case Q_SEND_1: {
           Object rcvr = stack[stackPointer];
 
@@ -1124,9 +1579,18 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
           break;
         }
 
+        case WIDE: {
+          wideIndex = Byte.toUnsignedInt(bytecodes[bytecodeIndex + 1]) << 8;
+          bytecodeIndex += Bytecodes.LEN_TWO_ARGS;
+          // keep the wideIndex for the next bytecode
+          continue;
+        }
+
         default:
           missingBytecode(bytecode);
       }
+
+      wideIndex = 0;
     }
   }
 
@@ -1154,7 +1618,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
           try {
             result = q.executeEvaluated(frame, callArgs[0]);
           } catch (RespecializeException r) {
-            quickenBytecode(bytecodeIndex, Q_SEND, r.send);
+            quickenGenericSend(bytecodeIndex, r.send);
             result = r.send.doPreEvaluated(frame, callArgs);
           }
         } else if (numberOfArguments == 2) {
@@ -1163,7 +1627,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
           try {
             result = q.executeEvaluated(frame, callArgs[0], callArgs[1]);
           } catch (RespecializeException r) {
-            quickenBytecode(bytecodeIndex, Q_SEND, r.send);
+            quickenGenericSend(bytecodeIndex, r.send);
             result = r.send.doPreEvaluated(frame, callArgs);
           }
         } else if (numberOfArguments == 3) {
@@ -1172,7 +1636,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
           try {
             result = q.executeEvaluated(frame, callArgs[0], callArgs[1], callArgs[2]);
           } catch (RespecializeException r) {
-            quickenBytecode(bytecodeIndex, Q_SEND, r.send);
+            quickenGenericSend(bytecodeIndex, r.send);
             result = r.send.doPreEvaluated(frame, callArgs);
           }
         }
@@ -1182,7 +1646,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
     if (!done) {
       GenericMessageSendNode quick =
           MessageSendNode.createGeneric(signature, null, sourceCoord);
-      quickenBytecode(bytecodeIndex, Q_SEND, quick);
+      quickenGenericSend(bytecodeIndex, quick);
 
       result = quick.doPreEvaluated(frame, callArgs);
     }
@@ -1368,6 +1832,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
     PriorityQueue<BackJumpPatch> backJumps = new PriorityQueue<>();
 
     int i = 0;
+    boolean wide = false;
     while (i < bytecodes.length) {
       prepareBackJumpToCurrentAddress(loops, backJumps, i, mgenc);
       patchJumpToCurrentAddress(i, jumps, mgenc);
@@ -1383,7 +1848,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case PUSH_LOCAL: {
-          byte localIdx = bytecodes[i + 1];
+          int localIdx = getIndexOperand(bytecodes, i, wide);
           byte contextIdx = bytecodes[i + 2];
 
           Local local = inliner.getAdaptedLocal(localIdx, contextIdx, true);
@@ -1408,7 +1873,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case PUSH_FIELD: {
-          byte fieldIdx = bytecodes[i + 1];
+          int fieldIdx = getIndexOperand(bytecodes, i, wide);
           byte contextIdx = bytecodes[i + 2];
           emitPUSHFIELD(mgenc, fieldIdx, (byte) (contextIdx - 1));
           break;
@@ -1424,7 +1889,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
 
         case PUSH_BLOCK:
         case PUSH_BLOCK_NO_CTX: {
-          byte literalIdx = bytecodes[i + 1];
+          int literalIdx = getIndexOperand(bytecodes, i, wide);
           SMethod blockMethod = (SMethod) literalsAndConstants[literalIdx];
 
           Method blockIvk = (Method) blockMethod.getInvokable();
@@ -1440,7 +1905,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case PUSH_CONSTANT: {
-          byte literalIdx = bytecodes[i + 1];
+          int literalIdx = getIndexOperand(bytecodes, i, wide);
           Object value = literalsAndConstants[literalIdx];
           emitPUSHCONSTANT(mgenc, value, null);
           break;
@@ -1462,7 +1927,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case PUSH_GLOBAL: {
-          byte literalIdx = bytecodes[i + 1];
+          int literalIdx = getIndexOperand(bytecodes, i, wide);
           SSymbol globalName = (SSymbol) literalsAndConstants[literalIdx];
           emitPUSHGLOBAL(mgenc, globalName, null);
           break;
@@ -1474,7 +1939,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case POP_LOCAL: {
-          byte localIdx = bytecodes[i + 1];
+          int localIdx = getIndexOperand(bytecodes, i, wide);
           byte contextIdx = bytecodes[i + 2];
           Local local = inliner.getAdaptedLocal(localIdx, contextIdx, true);
           local.emitPop(mgenc);
@@ -1499,7 +1964,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case POP_FIELD: {
-          byte fieldIdx = bytecodes[i + 1];
+          int fieldIdx = getIndexOperand(bytecodes, i, wide);
           byte contextIdx = bytecodes[i + 2];
           emitPOPFIELD(mgenc, fieldIdx, (byte) (contextIdx - 1));
           break;
@@ -1511,14 +1976,14 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         }
 
         case SEND: {
-          byte literalIdx = bytecodes[i + 1];
+          int literalIdx = getIndexOperand(bytecodes, i, wide);
           SSymbol signature = (SSymbol) literalsAndConstants[literalIdx];
           emitSEND(mgenc, signature, null);
           break;
         }
 
         case SUPER_SEND: {
-          byte literalIdx = bytecodes[i + 1];
+          int literalIdx = getIndexOperand(bytecodes, i, wide);
           SSymbol signature = (SSymbol) literalsAndConstants[literalIdx];
           emitSUPERSEND(mgenc, signature, null);
           break;
@@ -1560,9 +2025,32 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
 
         case INC_FIELD:
         case INC_FIELD_PUSH: {
-          byte fieldIdx = bytecodes[i + 1];
+          int fieldIdx = getIndexOperand(bytecodes, i, wide);
+          byte contextIdx = bytecodes[i + 2];
+          emit3WithIndex(mgenc, bytecode, fieldIdx, (byte) (contextIdx - 1), 1);
+          break;
+        }
+
+        case INC_LOCAL:
+        case INC_LOCAL_PUSH:
+        case DEC_LOCAL:
+        case DEC_LOCAL_PUSH: {
+          int localIdx = getIndexOperand(bytecodes, i, wide);
           byte contextIdx = bytecodes[i + 2];
-          emit3(mgenc, bytecode, fieldIdx, (byte) (contextIdx - 1), 1);
+
+          Local local = inliner.getAdaptedLocal(localIdx, contextIdx, true);
+          int stackEffect = bytecode == INC_LOCAL || bytecode == DEC_LOCAL ? 0 : 1;
+          emit3WithIndex(mgenc, bytecode, local.getIndex(),
+              (byte) mgenc.getContextLevel(local), stackEffect);
+          break;
+        }
+
+        case MOVE_LOCAL: {
+          // the locals may end up in different contexts, so emit the unfused assignment
+          Local src = inliner.getAdaptedLocal(bytecodes[i + 1], 0, true);
+          Local dst = inliner.getAdaptedLocal(bytecodes[i + 2], 0, true);
+          src.emitPush(mgenc);
+          dst.emitPop(mgenc);
           break;
         }
 
@@ -1598,11 +2086,19 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
           break;
         }
 
+        case WIDE: {
+          // the emit* methods add a WIDE prefix again, if the new index needs one
+          wide = true;
+          i += bytecodeLength;
+          continue;
+        }
+
         default:
           throw new NotYetImplementedException(
               "Support for bytecode " + getBytecodeName(bytecode) + " has not yet been added");
       }
 
+      wide = false;
       i += bytecodeLength;
     }
 
@@ -1614,7 +2110,11 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
     final byte[] bytecodes = bytecodesField;
     final Object[] literalsAndConstants = literalsAndConstantsField;
 
+    // the adapted index operands that do not fit into the bytecodes, keyed by bytecode index
+    HashMap<Integer, int[]> widened = null;
+
     int i = 0;
+    boolean wide = false;
     while (i < bytecodes.length) {
       byte bytecode = bytecodes[i];
       final int bytecodeLength = getBytecodeLength(bytecode);
@@ -1625,14 +2125,24 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
           break;
         }
 
-        case PUSH_LOCAL: {
-          byte localIdx = bytecodes[i + 1];
+        case Q_PUSH_LOCAL_LONG:
+        case Q_PUSH_LOCAL_DOUBLE:
+          // the adapted local may have another slot kind
+          bytecodes[i] = PUSH_LOCAL;
+          // fall through
+        case PUSH_LOCAL:
+        case INC_LOCAL:
+        case INC_LOCAL_PUSH:
+        case DEC_LOCAL:
+        case DEC_LOCAL_PUSH: {
+          int localIdx = getIndexOperand(bytecodes, i, wide);
           byte contextLvl = bytecodes[i + 2];
 
           Local l =
               inliner.getAdaptedLocal(localIdx, contextLvl, requiresChangesToContextLevels);
-          if (localIdx != l.getIndex()) {
-            bytecodes[i + 1] = (byte) l.getIndex();
+          if (localIdx != l.getIndex() &&
+              !setIndexOperand(bytecodes, i, wide, l.getIndex())) {
+            widened = addWidened(widened, i, l.getIndex());
           }
 
           if (requiresChangesToContextLevels && contextLvl > inliner.contextLevel) {
@@ -1672,7 +2182,7 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
 
         case PUSH_BLOCK:
         case PUSH_BLOCK_NO_CTX: {
-          byte literalIdx = bytecodes[i + 1];
+          int literalIdx = getIndexOperand(bytecodes, i, wide);
           SMethod blockMethod = (SMethod) literalsAndConstants[literalIdx];
 
           Method blockIvk = (Method) blockMethod.getInvokable();
@@ -1696,14 +2206,20 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
           break;
         }
 
+        case Q_POP_LOCAL_LONG:
+        case Q_POP_LOCAL_DOUBLE:
+          // the adapted local may have another slot kind
+          bytecodes[i] = POP_LOCAL;
+          // fall through
         case POP_LOCAL: {
-          byte localIdx = bytecodes[i + 1];
+          int localIdx = getIndexOperand(bytecodes, i, wide);
           byte contextLvl = bytecodes[i + 2];
 
           Local l = inliner.getAdaptedLocal(
               localIdx, contextLvl, requiresChangesToContextLevels);
-          if (localIdx != l.getIndex()) {
-            bytecodes[i + 1] = (byte) l.getIndex();
+          if (localIdx != l.getIndex() &&
+              !setIndexOperand(bytecodes, i, wide, l.getIndex())) {
+            widened = addWidened(widened, i, l.getIndex());
           }
           if (requiresChangesToContextLevels && contextLvl > inliner.contextLevel) {
             byte ctx = (byte) (contextLvl - 1);
@@ -1719,6 +2235,20 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
           break;
         }
 
+        case MOVE_LOCAL: {
+          int srcIdx = adaptMoveLocalOperand(inliner, bytecodes[i + 1],
+              requiresChangesToContextLevels);
+          int dstIdx = adaptMoveLocalOperand(inliner, bytecodes[i + 2],
+              requiresChangesToContextLevels);
+          if (srcIdx <= Byte.MAX_VALUE && dstIdx <= Byte.MAX_VALUE) {
+            bytecodes[i + 1] = (byte) srcIdx;
+            bytecodes[i + 2] = (byte) dstIdx;
+          } else {
+            widened = addWidened(widened, i, srcIdx, dstIdx);
+          }
+          break;
+        }
+
         case POP_ARGUMENT: {
           adaptContextIdx(inliner, i, requiresChangesToContextLevels);
           break;
@@ -1754,7 +2284,9 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         case RETURN_FIELD_1:
         case RETURN_FIELD_2:
         case INC:
-        case DEC: {
+        case DEC:
+        case Q_INC_DOUBLE:
+        case Q_DEC_DOUBLE: {
           break;
         }
 
@@ -1787,18 +2319,172 @@ public class BytecodeLoopNode extends NoPreEvalExprNode implements ScopeReferenc
         case Q_SEND:
         case Q_SEND_1:
         case Q_SEND_2:
-        case Q_SEND_3: {
+        case Q_SEND_3:
+        case Q_SEND_UNARY:
+        case Q_SEND_BINARY:
+        case Q_SEND_TERNARY: {
           bytecodes[i] = SEND;
           break;
         }
 
+        case WIDE: {
+          wide = true;
+          i += bytecodeLength;
+          continue;
+        }
+
         default:
           throw new NotYetImplementedException(
               "Support for bytecode " + getBytecodeName(bytecode) + " has not yet been added");
       }
 
+      wide = false;
+      i += bytecodeLength;
+    }
+
+    if (widened != null) {
+      replace(withWidenedIndexes(widened));
+    }
+  }
+
+  private static HashMap<Integer, int[]> addWidened(final HashMap<Integer, int[]> widened,
+      final int bytecodeIdx, final int... indexes) {
+    HashMap<Integer, int[]> result = widened;
+    if (result == null) {
+      result = new HashMap<>();
+    }
+    result.put(bytecodeIdx, indexes);
+    return result;
+  }
+
+  /**
+   * Creates a copy of this node, in which the bytecodes that need a larger index operand than
+   * they have room for get a WIDE prefix. MOVE_LOCAL has no WIDE form, and is replaced by
+   * PUSH_LOCAL and POP_LOCAL. The jump offsets and inlined loops are adjusted to the moved
+   * bytecodes.
+   *
+   * @param widened the new index operands, keyed by the index of their bytecode
+   */
+  private BytecodeLoopNode withWidenedIndexes(final HashMap<Integer, int[]> widened) {
+    final byte[] bytecodes = bytecodesField;
+
+    // a MOVE_LOCAL becomes two bytecodes with a WIDE prefix each
+    byte[] result = new byte[bytecodes.length + widened.size() * 7];
+    int[] newIdx = new int[bytecodes.length + 1];
+    int extraStackDepth = 0;
+
+    int i = 0;
+    int n = 0;
+    while (i < bytecodes.length) {
+      byte bytecode = bytecodes[i];
+      int bytecodeLength = getBytecodeLength(bytecode);
+      newIdx[i] = n;
+
+      int[] indexes = widened.get(i);
+      if (indexes == null) {
+        System.arraycopy(bytecodes, i, result, n, bytecodeLength);
+        n += bytecodeLength;
+      } else if (bytecode == MOVE_LOCAL) {
+        n = putWithIndex(result, n, PUSH_LOCAL, indexes[0], 0);
+        n = putWithIndex(result, n, POP_LOCAL, indexes[1], 0);
+        extraStackDepth = 1;
+      } else {
+        n = putWithIndex(result, n, bytecode, indexes[0], bytecodes[i + 2]);
+      }
       i += bytecodeLength;
     }
+    newIdx[bytecodes.length] = n;
+
+    i = 0;
+    while (i < bytecodes.length) {
+      byte bytecode = bytecodes[i];
+      if (JUMP <= bytecode && bytecode <= JUMP2_BACKWARDS) {
+        int offset = getJumpOffset(bytecodes[i + 1], bytecodes[i + 2]);
+        int newOffset;
+        if (bytecode == JUMP_BACKWARDS || bytecode == JUMP2_BACKWARDS) {
+          newOffset = newIdx[i] - newIdx[i - offset];
+        } else {
+          newOffset = newIdx[i + offset] - newIdx[i];
+        }
+
+        int jumpIdx = newIdx[i];
+        if (newOffset > 0xff && bytecode < JUMP2) {
+          result[jumpIdx] = (byte) (bytecode + Bytecodes.NUM_1_BYTE_JUMP_BYTECODES);
+        }
+        result[jumpIdx + 1] = (byte) newOffset;
+        result[jumpIdx + 2] = (byte) (newOffset >> 8);
+      }
+      i += getBytecodeLength(bytecode);
+    }
+
+    BackJump[] loops = null;
+    if (inlinedLoopsField != null) {
+      loops = new BackJump[inlinedLoopsField.length];
+      for (int j = 0; j < loops.length; j++) {
+        BackJump l = inlinedLoopsField[j];
+        loops[j] = new BackJump(newIdx[l.loopBeginIdx], newIdx[l.backwardsJumpIdx]);
+      }
+    }
+
+    return new BytecodeLoopNode(Arrays.copyOf(result, n), numLocals,
+        literalsAndConstantsField, maxStackDepth + extraStackDepth, frameOnStackMarkerIndex,
+        loops).initialize(sourceCoord);
+  }
+
+  /**
+   * Puts a bytecode with an index and a context level operand into the array at n, preceded
+   * by a WIDE prefix if the index does not fit into one byte.
+   *
+   * @return the index after the bytecode
+   */
+  private static int putWithIndex(final byte[] bytecodes, final int n, final byte bytecode,
+      final int index, final byte contextLevel) {
+    int i = n;
+    if (index > Byte.MAX_VALUE) {
+      bytecodes[i] = WIDE;
+      bytecodes[i + 1] = (byte) (index >>> 8);
+      i += Bytecodes.LEN_TWO_ARGS;
+    }
+    bytecodes[i] = bytecode;
+    bytecodes[i + 1] = (byte) index;
+    bytecodes[i + 2] = contextLevel;
+    return i + Bytecodes.LEN_THREE_ARGS;
+  }
+
+  /**
+   * @return the index operand of the bytecode at i, including the high byte from its WIDE
+   *         prefix, if it has one
+   */
+  private static int getIndexOperand(final byte[] bytecodes, final int i,
+      final boolean wide) {
+    int index = Byte.toUnsignedInt(bytecodes[i + 1]);
+    if (wide) {
+      index |= Byte.toUnsignedInt(bytecodes[i - 1]) << 8;
+    }
+    return index;
+  }
+
+  /**
+   * Changes the index operand of the bytecode at i in place, which is only possible as long
+   * as the new index does not need a WIDE prefix that the bytecode does not have.
+   *
+   * @return false if the bytecode needs a WIDE prefix for the index, which is left unchanged
+   */
+  private static boolean setIndexOperand(final byte[] bytecodes, final int i,
+      final boolean wide, final int index) {
+    if (wide) {
+      bytecodes[i - 1] = (byte) (index >>> 8);
+    } else if (index > Byte.MAX_VALUE) {
+      return false;
+    }
+    bytecodes[i + 1] = (byte) index;
+    return true;
+  }
+
+  private static int adaptMoveLocalOperand(final ScopeAdaptationVisitor inliner,
+      final byte localIdx, final boolean requiresChangesToContextLevels) {
+    Local l = inliner.getAdaptedLocal(localIdx, 0, requiresChangesToContextLevels);
+    return l.getIndex();
   }
 
   private void adaptContextIdx(final ScopeAdaptationVisitor inliner, final int i,
@@ -0,0 +1,46 @@
+package trufflesom.interpreter.nodes.dispatch;
+
+import com.oracle.truffle.api.CompilerDirectives;
+
+
+/**
+ * An entry in the inline cache of a send. Entries are linked via {@link #nextInCache}
+ * and count the number of times their guard matched in the interpreter, which the
+ * adaptive inline cache uses to widen hot sites and to order entries by frequency. When
+ * dispatch statistics are collected, hits are also counted in compiled code.
+ */
+public abstract class AbstractCacheEntryNode extends AbstractDispatchNode {
+
+  @Child protected AbstractDispatchNode nextInCache;
+
+  private int hits;
+
+  protected AbstractCacheEntryNode(final AbstractDispatchNode nextInCache) {
+    this.nextInCache = nextInCache;
+  }
+
+  protected final void recordHit() {
+    if (isCountingAllCacheHits()
+        || (isAdaptiveInlineCache() && CompilerDirectives.inInterpreter())) {
+      hits += 1;
+    }
+  }
+
+  public final int getHits() {
+    return hits;
+  }
+
+  public final AbstractDispatchNode getNextInCache() {
+    return nextInCache;
+  }
+
+  /** Relink the entry, the caller is responsible for adopting the chain afterwards. */
+  final void setNextInCache(final AbstractDispatchNode next) {
+    this.nextInCache = next;
+  }
+
+  @Override
+  public final int lengthOfDispatchChain() {
+    return 1 + nextInCache.lengthOfDispatchChain();
+  }
+}
@@ -6,22 +6,16 @@ import com.oracle.truffle.api.nodes.DirectCallNode;
 
 
 public abstract class AbstractCachedDispatchNode
-    extends AbstractDispatchNode {
+    extends AbstractCacheEntryNode {
 
-  @Child protected DirectCallNode       cachedMethod;
-  @Child protected AbstractDispatchNode nextInCache;
+  @Child protected DirectCallNode cachedMethod;
 
   public AbstractCachedDispatchNode(final CallTarget methodCallTarget,
       final AbstractDispatchNode nextInCache) {
+    super(nextInCache);
     DirectCallNode cachedMethod =
         Truffle.getRuntime().createDirectCallNode(methodCallTarget);
 
     this.cachedMethod = cachedMethod;
-    this.nextInCache = nextInCache;
-  }
-
-  @Override
-  public final int lengthOfDispatchChain() {
-    return 1 + nextInCache.lengthOfDispatchChain();
   }
 }
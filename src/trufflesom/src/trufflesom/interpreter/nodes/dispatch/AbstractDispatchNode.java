@@ -1,5 +1,6 @@
 package trufflesom.interpreter.nodes.dispatch;
 
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.instrumentation.GenerateWrapper;
 import com.oracle.truffle.api.instrumentation.InstrumentableNode;
@@ -19,10 +20,76 @@ import trufflesom.vm.VmSettings;
 @GenerateWrapper
 public abstract class AbstractDispatchNode extends Node
     implements DispatchChain, InstrumentableNode, WithSource {
-  public static final int INLINE_CACHE_SIZE = 6;
+  public static final int DEFAULT_INLINE_CACHE_SIZE = 6;
+
+  @CompilationFinal private static int     inlineCacheSize        = DEFAULT_INLINE_CACHE_SIZE;
+  @CompilationFinal private static boolean adaptiveInlineCache    = false;
+  @CompilationFinal private static int     maxAdaptiveInlineCache = DEFAULT_INLINE_CACHE_SIZE;
+  @CompilationFinal private static boolean countAllCacheHits      = false;
+
+  /**
+   * Configure the inline caches, set from the language options when a context is created.
+   *
+   * @param size the number of entries before a send site is considered megamorphic
+   * @param adaptive whether hot sites with stable receivers may grow beyond {@code size},
+   *          and whether entries are ordered by their hit count
+   * @param maxAdaptiveSize the upper bound for adaptively widened caches
+   */
+  public static void configureInlineCache(final int size, final boolean adaptive,
+      final int maxAdaptiveSize) {
+    if (size < 0) {
+      throw new IllegalArgumentException("Inline cache size must not be negative, but was "
+          + size);
+    }
+    inlineCacheSize = size;
+    adaptiveInlineCache = adaptive;
+    maxAdaptiveInlineCache = Math.max(size, maxAdaptiveSize);
+  }
+
+  public static int getInlineCacheSize() {
+    return inlineCacheSize;
+  }
+
+  public static boolean isAdaptiveInlineCache() {
+    return adaptiveInlineCache;
+  }
+
+  /** Count the hits of cache entries also in compiled code, to report them per send site. */
+  public static void setCountAllCacheHits(final boolean count) {
+    countAllCacheHits = count;
+  }
+
+  public static boolean isCountingAllCacheHits() {
+    return countAllCacheHits;
+  }
+
+  /** The largest number of entries an inline cache may have in the current mode. */
+  public static int getMaxInlineCacheSize() {
+    return adaptiveInlineCache ? maxAdaptiveInlineCache : inlineCacheSize;
+  }
 
   public abstract Object executeDispatch(VirtualFrame frame, Object[] arguments);
 
+  /**
+   * Dispatches a send with only a receiver. Cache entries that do not call a method, or do
+   * not match the receiver, override it to avoid allocating the arguments array. The array
+   * cannot be avoided for a call, because it becomes the arguments of the callee's frame.
+   */
+  public Object executeUnary(final VirtualFrame frame, final Object rcvr) {
+    return executeDispatch(frame, new Object[] {rcvr});
+  }
+
+  /** Dispatches a send with one argument, see {@link #executeUnary}. */
+  public Object executeBinary(final VirtualFrame frame, final Object rcvr, final Object arg) {
+    return executeDispatch(frame, new Object[] {rcvr, arg});
+  }
+
+  /** Dispatches a send with two arguments, see {@link #executeUnary}. */
+  public Object executeTernary(final VirtualFrame frame, final Object rcvr,
+      final Object arg1, final Object arg2) {
+    return executeDispatch(frame, new Object[] {rcvr, arg1, arg2});
+  }
+
   @Override
   public boolean isInstrumentable() {
     return true;
@@ -5,22 +5,15 @@ import com.oracle.truffle.api.source.Source;
 import trufflesom.bdt.inlining.nodes.WithSource;
 
 
-public abstract class AbstractDispatchWithSource extends AbstractDispatchNode
+public abstract class AbstractDispatchWithSource extends AbstractCacheEntryNode
     implements WithSource {
   private final Source source;
 
-  @Child protected AbstractDispatchNode nextInCache;
-
   public AbstractDispatchWithSource(final Source source, final AbstractDispatchNode next) {
-    this.nextInCache = next;
+    super(next);
     this.source = source;
   }
 
-  @Override
-  public final int lengthOfDispatchChain() {
-    return 1 + nextInCache.lengthOfDispatchChain();
-  }
-
   @Override
   public final Source getSource() {
     return source;
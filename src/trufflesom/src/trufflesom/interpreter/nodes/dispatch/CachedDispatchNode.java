@@ -24,6 +24,7 @@ public final class CachedDispatchNode extends AbstractCachedDispatchNode {
     Object rcvr = arguments[0];
     try {
       if (guard.entryMatches(rcvr)) {
+        recordHit();
         return cachedMethod.call(arguments);
       } else {
         return nextInCache.executeDispatch(frame, arguments);
@@ -34,4 +35,51 @@ public final class CachedDispatchNode extends AbstractCachedDispatchNode {
           nextInCache)).executeDispatch(frame, arguments);
     }
   }
+
+  @Override
+  public Object executeUnary(final VirtualFrame frame, final Object rcvr) {
+    try {
+      if (guard.entryMatches(rcvr)) {
+        recordHit();
+        return cachedMethod.call(new Object[] {rcvr});
+      } else {
+        return nextInCache.executeUnary(frame, rcvr);
+      }
+    } catch (InvalidAssumptionException e) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      return replace(SOMNode.unwrapIfNeeded(nextInCache)).executeUnary(frame, rcvr);
+    }
+  }
+
+  @Override
+  public Object executeBinary(final VirtualFrame frame, final Object rcvr, final Object arg) {
+    try {
+      if (guard.entryMatches(rcvr)) {
+        recordHit();
+        return cachedMethod.call(new Object[] {rcvr, arg});
+      } else {
+        return nextInCache.executeBinary(frame, rcvr, arg);
+      }
+    } catch (InvalidAssumptionException e) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      return replace(SOMNode.unwrapIfNeeded(nextInCache)).executeBinary(frame, rcvr, arg);
+    }
+  }
+
+  @Override
+  public Object executeTernary(final VirtualFrame frame, final Object rcvr,
+      final Object arg1, final Object arg2) {
+    try {
+      if (guard.entryMatches(rcvr)) {
+        recordHit();
+        return cachedMethod.call(new Object[] {rcvr, arg1, arg2});
+      } else {
+        return nextInCache.executeTernary(frame, rcvr, arg1, arg2);
+      }
+    } catch (InvalidAssumptionException e) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      return replace(SOMNode.unwrapIfNeeded(nextInCache)).executeTernary(frame, rcvr, arg1,
+          arg2);
+    }
+  }
 }
@@ -13,18 +13,21 @@ import trufflesom.primitives.basics.SystemPrims.PrintStackTracePrim;
 import trufflesom.vm.Universe;
 import trufflesom.vm.VmSettings;
 import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SInvokable;
 import trufflesom.vmobjects.SSymbol;
 
 
 public final class CachedDnuNode extends AbstractCachedDispatchNode {
   private final SSymbol       selector;
   private final DispatchGuard guard;
+  private final int           numberOfArguments;
 
   public CachedDnuNode(final SClass rcvrClass, final DispatchGuard guard,
       final SSymbol selector, final AbstractDispatchNode nextInCache) {
     super(getDnuCallTarget(rcvrClass), nextInCache);
     this.selector = selector;
     this.guard = guard;
+    this.numberOfArguments = selector.getNumberOfSignatureArguments();
   }
 
   @Override
@@ -32,6 +35,7 @@ public final class CachedDnuNode extends AbstractCachedDispatchNode {
     Object rcvr = arguments[0];
     try {
       if (guard.entryMatches(rcvr)) {
+        recordHit();
         return performDnu(arguments, rcvr);
       } else {
         return nextInCache.executeDispatch(frame, arguments);
@@ -43,8 +47,11 @@ public final class CachedDnuNode extends AbstractCachedDispatchNode {
   }
 
   public static CallTarget getDnuCallTarget(final SClass rcvrClass) {
-    return rcvrClass.lookupInvokable(
-        symbolFor("doesNotUnderstand:arguments:")).getCallTarget();
+    return getDnuHandler(rcvrClass).getCallTarget();
+  }
+
+  public static SInvokable getDnuHandler(final SClass rcvrClass) {
+    return rcvrClass.lookupInvokable(symbolFor("doesNotUnderstand:arguments:"));
   }
 
   protected Object performDnu(final Object[] arguments, final Object rcvr) {
@@ -56,7 +63,7 @@ public final class CachedDnuNode extends AbstractCachedDispatchNode {
     }
 
     Object[] argsArr = new Object[] {
-        rcvr, selector, SArguments.getArgumentsWithoutReceiver(arguments)};
+        rcvr, selector, SArguments.getArgumentsWithoutReceiver(arguments, numberOfArguments)};
     return cachedMethod.call(argsArr);
   }
 }
@@ -27,6 +27,7 @@ public final class CachedExprNode extends AbstractDispatchWithSource {
     Object rcvr = arguments[0];
     try {
       if (guard.entryMatches(rcvr)) {
+        recordHit();
         return expr.doPreEvaluated(frame, arguments);
       } else {
         return nextInCache.executeDispatch(frame, arguments);
@@ -34,6 +34,7 @@ public final class CachedFieldRead extends AbstractDispatchWithSource {
       if (rcvr.getClass() == expectedClass) {
         SObject receiver = (SObject) rcvr;
         if (receiver.getObjectLayout() == expectedLayout) {
+          recordHit();
           return storage.read(receiver);
         }
       }
@@ -43,4 +44,23 @@ public final class CachedFieldRead extends AbstractDispatchWithSource {
     }
     return nextInCache.executeDispatch(frame, arguments);
   }
+
+  @Override
+  public Object executeUnary(final VirtualFrame frame, final Object rcvr) {
+    try {
+      expectedLayout.checkIsLatest();
+
+      if (rcvr.getClass() == expectedClass) {
+        SObject receiver = (SObject) rcvr;
+        if (receiver.getObjectLayout() == expectedLayout) {
+          recordHit();
+          return storage.read(receiver);
+        }
+      }
+    } catch (InvalidAssumptionException e) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      return replace(SOMNode.unwrapIfNeeded(nextInCache)).executeUnary(frame, rcvr);
+    }
+    return nextInCache.executeUnary(frame, rcvr);
+  }
 }
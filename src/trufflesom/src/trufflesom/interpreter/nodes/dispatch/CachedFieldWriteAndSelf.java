@@ -35,6 +35,7 @@ public class CachedFieldWriteAndSelf extends AbstractDispatchWithSource {
       if (rcvr.getClass() == expectedClass) {
         SObject receiver = (SObject) rcvr;
         if (receiver.getObjectLayout() == expectedLayout) {
+          recordHit();
           storage.write(receiver, value);
           return rcvr;
         }
@@ -45,4 +46,24 @@ public class CachedFieldWriteAndSelf extends AbstractDispatchWithSource {
     }
     return nextInCache.executeDispatch(frame, arguments);
   }
+
+  @Override
+  public Object executeBinary(final VirtualFrame frame, final Object rcvr, final Object arg) {
+    try {
+      expectedLayout.checkIsLatest();
+
+      if (rcvr.getClass() == expectedClass) {
+        SObject receiver = (SObject) rcvr;
+        if (receiver.getObjectLayout() == expectedLayout) {
+          recordHit();
+          storage.write(receiver, arg);
+          return rcvr;
+        }
+      }
+    } catch (InvalidAssumptionException e) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      return replace(SOMNode.unwrapIfNeeded(nextInCache)).executeBinary(frame, rcvr, arg);
+    }
+    return nextInCache.executeBinary(frame, rcvr, arg);
+  }
 }
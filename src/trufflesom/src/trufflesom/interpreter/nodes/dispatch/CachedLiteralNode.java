@@ -25,6 +25,7 @@ public class CachedLiteralNode extends AbstractDispatchWithSource {
     try {
       Object rcvr = arguments[0];
       if (guard.entryMatches(rcvr)) {
+        recordHit();
         return value;
       }
     } catch (InvalidAssumptionException e) {
@@ -33,4 +34,18 @@ public class CachedLiteralNode extends AbstractDispatchWithSource {
     }
     return nextInCache.executeDispatch(frame, arguments);
   }
+
+  @Override
+  public Object executeUnary(final VirtualFrame frame, final Object rcvr) {
+    try {
+      if (guard.entryMatches(rcvr)) {
+        recordHit();
+        return value;
+      }
+    } catch (InvalidAssumptionException e) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      return replace(SOMNode.unwrapIfNeeded(nextInCache)).executeUnary(frame, rcvr);
+    }
+    return nextInCache.executeUnary(frame, rcvr);
+  }
 }
@@ -41,15 +41,41 @@ public class CachedNewObject extends AbstractDispatchWithSource {
 
       SClass clazz = ((SClass) rcvr);
       if (clazz.getObjectLayout() == rcvrLayout) {
+        recordHit();
         if (!isLatest.isValid()) {
           CompilerDirectives.transferToInterpreterAndInvalidate();
           ObjectLayout l = newInstanceLayout = clazz.getLayoutForInstances();
           isLatest = l.getAssumption();
         }
 
-        return new SObject(clazz, newInstanceLayout);
+        return SObject.create(clazz, newInstanceLayout);
       }
     }
     return nextInCache.executeDispatch(frame, arguments);
   }
+
+  @Override
+  public Object executeUnary(final VirtualFrame frame, final Object rcvr) {
+    if (rcvr.getClass() == SClass.class) {
+      try {
+        rcvrLayout.checkIsLatest();
+      } catch (InvalidAssumptionException e) {
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        return replace(SOMNode.unwrapIfNeeded(nextInCache)).executeUnary(frame, rcvr);
+      }
+
+      SClass clazz = ((SClass) rcvr);
+      if (clazz.getObjectLayout() == rcvrLayout) {
+        recordHit();
+        if (!isLatest.isValid()) {
+          CompilerDirectives.transferToInterpreterAndInvalidate();
+          ObjectLayout l = newInstanceLayout = clazz.getLayoutForInstances();
+          isLatest = l.getAssumption();
+        }
+
+        return SObject.create(clazz, newInstanceLayout);
+      }
+    }
+    return nextInCache.executeUnary(frame, rcvr);
+  }
 }
@@ -0,0 +1,84 @@
+package trufflesom.interpreter.nodes.dispatch;
+
+import java.math.BigInteger;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.InvalidAssumptionException;
+
+import trufflesom.interpreter.nodes.SOMNode;
+import trufflesom.vm.Classes;
+import trufflesom.vmobjects.SAbstractObject;
+import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SRope;
+
+
+/**
+ * Dispatch for a selector that, according to the
+ * {@link trufflesom.vm.SelectorImplementors} index, is implemented only by
+ * {@code holder}. Every receiver that is a kind of the holder reaches the same method, so
+ * the cache entry does not need to distinguish their classes. If the holder is a root of
+ * the class hierarchy, the receiver is not checked at all.
+ */
+public final class CachedSingleImplementorNode extends AbstractCachedDispatchNode {
+
+  private final SClass     holder;
+  private final boolean    holderIsRoot;
+  private final Assumption singleImplementor;
+  private final Assumption methodsUnchanged;
+
+  private final boolean integersAreKind;
+  private final boolean doublesAreKind;
+  private final boolean stringsAreKind;
+  private final boolean trueIsKind;
+  private final boolean falseIsKind;
+
+  public CachedSingleImplementorNode(final SClass holder, final Assumption singleImplementor,
+      final CallTarget callTarget, final AbstractDispatchNode nextInCache) {
+    super(callTarget, nextInCache);
+    this.holder = holder;
+    this.holderIsRoot = !holder.hasSuperClass();
+    this.singleImplementor = singleImplementor;
+    this.methodsUnchanged = holder.getMethodsUnchangedAssumption();
+
+    this.integersAreKind = Classes.integerClass.isKindOf(holder);
+    this.doublesAreKind = Classes.doubleClass.isKindOf(holder);
+    this.stringsAreKind = Classes.stringClass.isKindOf(holder);
+    this.trueIsKind = Classes.trueClass.isKindOf(holder);
+    this.falseIsKind = Classes.falseClass.isKindOf(holder);
+  }
+
+  private boolean isKindOfHolder(final Object rcvr) {
+    if (rcvr instanceof SAbstractObject) {
+      return ((SAbstractObject) rcvr).getSOMClass().isKindOf(holder);
+    } else if (rcvr instanceof Long || rcvr instanceof BigInteger) {
+      return integersAreKind;
+    } else if (rcvr instanceof Double) {
+      return doublesAreKind;
+    } else if (rcvr instanceof String || rcvr instanceof SRope) {
+      return stringsAreKind;
+    } else if (rcvr instanceof Boolean) {
+      return (boolean) rcvr ? trueIsKind : falseIsKind;
+    }
+    return false;
+  }
+
+  @Override
+  public Object executeDispatch(final VirtualFrame frame, final Object[] arguments) {
+    try {
+      singleImplementor.check();
+      methodsUnchanged.check();
+    } catch (InvalidAssumptionException e) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      return replace(SOMNode.unwrapIfNeeded(nextInCache)).executeDispatch(frame, arguments);
+    }
+
+    if (holderIsRoot || isKindOfHolder(arguments[0])) {
+      recordHit();
+      return cachedMethod.call(arguments);
+    }
+    return nextInCache.executeDispatch(frame, arguments);
+  }
+}
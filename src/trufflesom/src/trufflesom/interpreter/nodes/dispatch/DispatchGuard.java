@@ -1,10 +1,14 @@
 package trufflesom.interpreter.nodes.dispatch;
 
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.nodes.InvalidAssumptionException;
 
 import trufflesom.interpreter.objectstorage.ObjectLayout;
+import trufflesom.vm.VmSettings;
 import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SHashTable;
 import trufflesom.vmobjects.SObject;
+import trufflesom.vmobjects.SRope;
 
 
 public abstract class DispatchGuard {
@@ -21,12 +25,25 @@ public abstract class DispatchGuard {
 
     Class<?> clazz = obj.getClass();
 
+    if (VmSettings.DispatchOnClass && obj instanceof SObject) {
+      SClass somClass = ((SObject) obj).getSOMClass();
+      return new CheckSOMClass(clazz, somClass, somClass.getMethodsUnchangedAssumption());
+    }
+
     if (clazz == SClass.class) {
       return new CheckSClass(((SClass) obj).getObjectLayout());
     }
 
-    if (clazz == SObject.class) {
-      return new CheckSObject(((SObject) obj).getObjectLayout());
+    if (obj instanceof SObject) {
+      return new CheckSObject(clazz, ((SObject) obj).getObjectLayout());
+    }
+
+    if (clazz == SHashTable.class) {
+      return new CheckSHashTable(((SHashTable) obj).getSOMClass());
+    }
+
+    if (VmSettings.RopeMinLength > 0 && (clazz == String.class || clazz == SRope.class)) {
+      return new CheckString();
     }
 
     return new CheckClass(clazz);
@@ -46,6 +63,30 @@ public abstract class DispatchGuard {
     }
   }
 
+  /** HashMap, HashSet, and their subclasses share the Java class of their instances. */
+  private static final class CheckSHashTable extends DispatchGuard {
+
+    private final SClass expected;
+
+    CheckSHashTable(final SClass expected) {
+      this.expected = expected;
+    }
+
+    @Override
+    public boolean entryMatches(final Object obj) throws InvalidAssumptionException {
+      return obj.getClass() == SHashTable.class &&
+          ((SHashTable) obj).getSOMClass() == expected;
+    }
+  }
+
+  /** Flat strings and ropes are both instances of String. */
+  private static final class CheckString extends DispatchGuard {
+    @Override
+    public boolean entryMatches(final Object obj) throws InvalidAssumptionException {
+      return obj instanceof String || obj instanceof SRope;
+    }
+  }
+
   private static final class CheckTrue extends DispatchGuard {
     @Override
     public boolean entryMatches(final Object obj) throws InvalidAssumptionException {
@@ -78,17 +119,44 @@ public abstract class DispatchGuard {
 
   private static final class CheckSObject extends DispatchGuard {
 
+    private final Class<?>     expectedClass;
     private final ObjectLayout expected;
 
-    CheckSObject(final ObjectLayout expected) {
+    CheckSObject(final Class<?> expectedClass, final ObjectLayout expected) {
+      this.expectedClass = expectedClass;
       this.expected = expected;
     }
 
     @Override
     public boolean entryMatches(final Object obj) throws InvalidAssumptionException {
       expected.checkIsLatest();
-      return obj.getClass() == SObject.class &&
+      return obj.getClass() == expectedClass &&
           ((SObject) obj).getObjectLayout() == expected;
     }
   }
+
+  /**
+   * Checks the receiver's class instead of its layout. Thus, instances of the same class
+   * with different layouts share a cache entry.
+   */
+  private static final class CheckSOMClass extends DispatchGuard {
+
+    private final Class<?>   expectedJavaClass;
+    private final SClass     expected;
+    private final Assumption methodsUnchanged;
+
+    CheckSOMClass(final Class<?> expectedJavaClass, final SClass expected,
+        final Assumption methodsUnchanged) {
+      this.expectedJavaClass = expectedJavaClass;
+      this.expected = expected;
+      this.methodsUnchanged = methodsUnchanged;
+    }
+
+    @Override
+    public boolean entryMatches(final Object obj) throws InvalidAssumptionException {
+      methodsUnchanged.check();
+      return obj.getClass() == expectedJavaClass &&
+          ((SObject) obj).getSOMClass() == expected;
+    }
+  }
 }
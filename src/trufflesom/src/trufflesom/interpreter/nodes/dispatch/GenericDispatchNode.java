@@ -1,7 +1,6 @@
 package trufflesom.interpreter.nodes.dispatch;
 
 import com.oracle.truffle.api.CallTarget;
-import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -10,6 +9,7 @@ import com.oracle.truffle.api.nodes.IndirectCallNode;
 import trufflesom.interpreter.SArguments;
 import trufflesom.primitives.reflection.ObjectPrims.ClassPrim;
 import trufflesom.primitives.reflection.ObjectPrimsFactory.ClassPrimFactory;
+import trufflesom.vm.Universe;
 import trufflesom.vmobjects.SArray;
 import trufflesom.vmobjects.SClass;
 import trufflesom.vmobjects.SInvokable;
@@ -32,7 +32,7 @@ public final class GenericDispatchNode extends AbstractDispatchNode {
   private Object dispatch(final Object[] arguments) {
     Object rcvr = arguments[0];
     SClass rcvrClass = classNode.executeEvaluated(rcvr);
-    SInvokable method = rcvrClass.lookupInvokable(selector);
+    SInvokable method = Universe.getMethodLookupCache().lookup(rcvrClass, selector);
 
     CallTarget target;
     Object[] args;
@@ -41,12 +41,10 @@ public final class GenericDispatchNode extends AbstractDispatchNode {
       target = method.getCallTarget();
       args = arguments;
     } else {
-      // TODO: actually do use node
-      CompilerDirectives.transferToInterpreter();
-      // Won't use DNU caching here, because it is already a megamorphic node
       SArray argumentsArray = SArguments.getArgumentsWithoutReceiver(arguments);
       args = new Object[] {arguments[0], selector, argumentsArray};
-      target = CachedDnuNode.getDnuCallTarget(rcvrClass);
+      SInvokable dnu = Universe.getMethodLookupCache().lookupDnuHandler(rcvrClass, selector);
+      target = dnu.getCallTarget();
     }
     return call.call(target, args);
   }
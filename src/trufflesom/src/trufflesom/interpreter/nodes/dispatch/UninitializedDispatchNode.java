@@ -2,12 +2,19 @@ package trufflesom.interpreter.nodes.dispatch;
 
 import static com.oracle.truffle.api.CompilerDirectives.transferToInterpreterAndInvalidate;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.Node;
 
 import trufflesom.bdt.primitives.nodes.PreevaluatedExpression;
 import trufflesom.interpreter.Types;
+import trufflesom.vm.SelectorImplementors;
+import trufflesom.vm.VmSettings;
 import trufflesom.vmobjects.SClass;
 import trufflesom.vmobjects.SInvokable;
 import trufflesom.vmobjects.SObject;
@@ -15,6 +22,12 @@ import trufflesom.vmobjects.SSymbol;
 
 
 public final class UninitializedDispatchNode extends AbstractDispatchNode {
+  /**
+   * In adaptive mode, a full cache is only widened when every entry matched at least this
+   * often, i.e., the site is hot and its receivers are stable, just numerous.
+   */
+  private static final int MIN_HITS_PER_ENTRY_TO_WIDEN = 100;
+
   private final SSymbol selector;
 
   public UninitializedDispatchNode(final SSymbol selector) {
@@ -34,6 +47,8 @@ public final class UninitializedDispatchNode extends AbstractDispatchNode {
     Object rcvr = arguments[0];
     assert rcvr != null;
 
+    // also with class-based guards, the cache entries for field accesses check the layout,
+    // and are built from the receiver's layout, which thus needs to be the latest one
     if (rcvr instanceof SObject) {
       SObject r = (SObject) rcvr;
       if (r.updateLayoutToMatchClass() && first != this) { // if first is this, short cut and
@@ -42,7 +57,13 @@ public final class UninitializedDispatchNode extends AbstractDispatchNode {
       }
     }
 
-    if (chainDepth < INLINE_CACHE_SIZE) {
+    boolean adaptive = isAdaptiveInlineCache();
+    if (adaptive && chainDepth > 1) {
+      first = orderByHits(first);
+    }
+
+    if (chainDepth < getInlineCacheSize()
+        || (adaptive && chainDepth < getMaxInlineCacheSize() && isHotAndStable(first))) {
       UninitializedDispatchNode newChainEnd = new UninitializedDispatchNode(selector);
       AbstractDispatchNode node = createDispatch(rcvr, selector, newChainEnd);
 
@@ -51,13 +72,66 @@ public final class UninitializedDispatchNode extends AbstractDispatchNode {
       return node;
     }
 
-    // the chain is longer than the maximum defined by INLINE_CACHE_SIZE and
+    // the chain is longer than the maximum defined by the inline cache size and
     // thus, this callsite is considered to be megaprophic, and we generalize it.
     GenericDispatchNode genericReplacement = new GenericDispatchNode(selector);
     first.replace(genericReplacement);
     return genericReplacement;
   }
 
+  private boolean isHotAndStable(final AbstractDispatchNode first) {
+    AbstractDispatchNode current = first;
+    while (current != this) {
+      if (!(current instanceof AbstractCacheEntryNode)) {
+        return false;
+      }
+      AbstractCacheEntryNode entry = (AbstractCacheEntryNode) current;
+      if (entry.getHits() < MIN_HITS_PER_ENTRY_TO_WIDEN) {
+        return false;
+      }
+      current = entry.getNextInCache();
+    }
+    return true;
+  }
+
+  /**
+   * Relink the entries of the chain so that the most frequently matched receiver is checked
+   * first. Chains with nodes that are not plain cache entries, e.g. instrumentation wrappers,
+   * are left unchanged.
+   *
+   * @return the new head of the chain
+   */
+  private AbstractDispatchNode orderByHits(final AbstractDispatchNode first) {
+    List<AbstractCacheEntryNode> entries = new ArrayList<>();
+    AbstractDispatchNode current = first;
+    while (current != this) {
+      if (!(current instanceof AbstractCacheEntryNode)) {
+        return first;
+      }
+      AbstractCacheEntryNode entry = (AbstractCacheEntryNode) current;
+      entries.add(entry);
+      current = entry.getNextInCache();
+    }
+
+    List<AbstractCacheEntryNode> ordered = new ArrayList<>(entries);
+    ordered.sort(Comparator.comparingInt(AbstractCacheEntryNode::getHits).reversed());
+    if (ordered.equals(entries)) {
+      return first;
+    }
+
+    for (int i = 0; i < ordered.size() - 1; i++) {
+      ordered.get(i).setNextInCache(ordered.get(i + 1));
+    }
+    ordered.get(ordered.size() - 1).setNextInCache(this);
+
+    AbstractCacheEntryNode newFirst = ordered.get(0);
+    if (newFirst != first) {
+      first.replace(newFirst);
+    }
+    newFirst.adoptChildren();
+    return newFirst;
+  }
+
   public static AbstractDispatchNode createDispatch(final Object rcvr, final SSymbol selector,
       final UninitializedDispatchNode newChainEnd) {
     SClass rcvrClass = Types.getClassOf(rcvr);
@@ -81,6 +155,15 @@ public final class UninitializedDispatchNode extends AbstractDispatchNode {
     }
 
     CallTarget callTarget = method.getCallTarget();
+    if (VmSettings.UseClassHierarchyAnalysis) {
+      SClass holder = method.getHolder();
+      Assumption singleImplementor =
+          SelectorImplementors.getSingleImplementorAssumption(selector, holder);
+      if (singleImplementor != null) {
+        return new CachedSingleImplementorNode(holder, singleImplementor, callTarget,
+            newChainEnd);
+      }
+    }
     return new CachedDispatchNode(guard, callTarget, newChainEnd);
   }
 
@@ -117,7 +117,7 @@ public abstract class FieldAccessorNode extends Node {
     }
 
     protected final AbstractReadFieldNode respecializedNodeOrNext(final SObject obj) {
-      if (layout.layoutForSameClass(obj.getObjectLayout())) {
+      if (layout.layoutForSameClassAndVariant(obj.getObjectLayout())) {
         return specialize(obj, "update outdated read node", nextInCache);
       } else {
         return nextInCache;
@@ -383,7 +383,7 @@ public abstract class FieldAccessorNode extends Node {
         if (hasExpectedLayout(obj)) {
           storage.writeLong(obj, value);
         } else {
-          if (layout.layoutForSameClass(obj.getObjectLayout())) {
+          if (layout.layoutForSameClassAndVariant(obj.getObjectLayout())) {
             writeAndRespecialize(obj, value, "update outdated write node", nextInCache);
           } else {
             nextInCache.write(obj, value);
@@ -406,7 +406,7 @@ public abstract class FieldAccessorNode extends Node {
       if (value instanceof Long) {
         write(obj, (long) value);
       } else {
-        if (layout.layoutForSameClass(obj.getObjectLayout())) {
+        if (layout.layoutForSameClassAndVariant(obj.getObjectLayout())) {
           writeAndRespecialize(obj, value, "update outdated read node", nextInCache);
         } else {
           nextInCache.write(obj, (long) value);
@@ -431,7 +431,7 @@ public abstract class FieldAccessorNode extends Node {
         if (hasExpectedLayout(obj)) {
           storage.writeDouble(obj, value);
         } else {
-          if (layout.layoutForSameClass(obj.getObjectLayout())) {
+          if (layout.layoutForSameClassAndVariant(obj.getObjectLayout())) {
             writeAndRespecialize(obj, value, "update outdated read node", nextInCache);
           } else {
             nextInCache.write(obj, value);
@@ -454,7 +454,7 @@ public abstract class FieldAccessorNode extends Node {
       if (value instanceof Double) {
         write(obj, (double) value);
       } else {
-        if (layout.layoutForSameClass(obj.getObjectLayout())) {
+        if (layout.layoutForSameClassAndVariant(obj.getObjectLayout())) {
           writeAndRespecialize(obj, value, "update outdated read node", nextInCache);
         } else {
           nextInCache.write(obj, (double) value);
@@ -479,7 +479,7 @@ public abstract class FieldAccessorNode extends Node {
         if (hasExpectedLayout(obj)) {
           storage.write(obj, value);
         } else {
-          if (layout.layoutForSameClass(obj.getObjectLayout())) {
+          if (layout.layoutForSameClassAndVariant(obj.getObjectLayout())) {
             writeAndRespecialize(obj, value, "update outdated read node", nextInCache);
           } else {
             nextInCache.write(obj, value);
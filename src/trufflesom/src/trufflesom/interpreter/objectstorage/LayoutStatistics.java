@@ -0,0 +1,56 @@
+package trufflesom.interpreter.objectstorage;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import trufflesom.vm.Universe;
+
+
+/**
+ * Counts how often objects with an outdated layout are encountered, and how many objects
+ * were migrated eagerly. This allows us to judge whether lazy or eager migration works
+ * better for a workload. The report is enabled with -Dsom.layoutStatistics=true.
+ */
+public final class LayoutStatistics {
+  private static long staleLayoutHits;
+  private static long eagerlyMigratedObjects;
+  private static long startTime = System.nanoTime();
+
+  private LayoutStatistics() {}
+
+  public static void reset() {
+    staleLayoutHits = 0;
+    eagerlyMigratedObjects = 0;
+    startTime = System.nanoTime();
+  }
+
+  public static void recordStaleLayoutHit() {
+    staleLayoutHits += 1;
+  }
+
+  public static void recordEagerMigration() {
+    eagerlyMigratedObjects += 1;
+  }
+
+  public static long getStaleLayoutHits() {
+    return staleLayoutHits;
+  }
+
+  public static long getEagerlyMigratedObjects() {
+    return eagerlyMigratedObjects;
+  }
+
+  public static double getStaleLayoutHitsPerSecond() {
+    double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+    if (seconds <= 0) {
+      return 0;
+    }
+    return staleLayoutHits / seconds;
+  }
+
+  @TruffleBoundary
+  public static void report() {
+    Universe.errorPrintln("[layouts] stale layout hits: " + staleLayoutHits + " ("
+        + String.format("%.1f", getStaleLayoutHitsPerSecond()) + "/s), eagerly migrated: "
+        + eagerlyMigratedObjects);
+  }
+}
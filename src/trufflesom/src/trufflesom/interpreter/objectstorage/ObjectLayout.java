@@ -1,7 +1,12 @@
 package trufflesom.interpreter.objectstorage;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
 import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.nodes.InvalidAssumptionException;
 
@@ -17,19 +22,82 @@ public final class ObjectLayout {
   private final int primitiveStorageLocationsUsed;
   private final int objectStorageLocationsUsed;
   private final int totalNumberOfStorageLocations;
+  private final int numberOfInlinePrimFields;
+  private final int numberOfInlineObjFields;
 
   private final StorageLocation[] storageLocations;
   private final Class<?>[]        storageTypes;
 
+  /**
+   * The layout from which this one was derived for another SObject variant, or this layout
+   * itself. The primary layout is the one of the class and keeps the derived layouts. Only
+   * SClass objects, which have no inline fields, use a derived layout.
+   */
+  private final ObjectLayout primary;
+
+  /** The layouts derived from this primary layout, keyed by variant. */
+  private HashMap<Integer, ObjectLayout> variants;
+
+  /** The successors of this layout, keyed by field index and field type. */
+  private HashMap<Long, ObjectLayout> transitions;
+
+  /**
+   * All layouts reached by transitions from the first layout of a class, keyed by their
+   * field types. Instances that initialize fields in different orders thus converge on the
+   * same layouts.
+   */
+  private final HashMap<List<Class<?>>, ObjectLayout> layoutsByFieldTypes;
+
+  /**
+   * Create the first layout of a class. All instances of the class use the SObject variant
+   * selected by the number of declared fields, which any field may use as primitive or as
+   * object field. Later layouts of the class keep the variant, so that a dispatch guard sees
+   * a single layout per class.
+   */
   public ObjectLayout(final int numberOfFields, final SClass forClass) {
-    this(new Class<?>[numberOfFields], forClass);
+    this(numberOfFields, forClass, SObject.getNumberOfInlineFieldsFor(numberOfFields),
+        SObject.getNumberOfInlineFieldsFor(numberOfFields));
+  }
+
+  /**
+   * @param numberOfInlinePrimFields with numberOfInlineObjFields, determines the SObject
+   *          variant used for instances
+   */
+  public ObjectLayout(final int numberOfFields, final SClass forClass,
+      final int numberOfInlinePrimFields, final int numberOfInlineObjFields) {
+    this(new Class<?>[numberOfFields], forClass, numberOfInlinePrimFields,
+        numberOfInlineObjFields, Truffle.getRuntime().createAssumption(), null,
+        new HashMap<>());
   }
 
-  public ObjectLayout(final Class<?>[] knownFieldTypes, final SClass forClass) {
+  /**
+   * Get the layout with the given field types and the same variant as this one. A layout
+   * that is still valid is reused, otherwise a new one is created.
+   */
+  private ObjectLayout successor(final Class<?>[] knownFieldTypes) {
+    List<Class<?>> key = Arrays.asList(knownFieldTypes);
+    ObjectLayout successor = layoutsByFieldTypes.get(key);
+    if (successor == null || !successor.isValid()) {
+      successor = new ObjectLayout(knownFieldTypes, forClass, numberOfInlinePrimFields,
+          numberOfInlineObjFields, Truffle.getRuntime().createAssumption(), null,
+          layoutsByFieldTypes);
+      layoutsByFieldTypes.put(key, successor);
+    }
+    return successor;
+  }
+
+  private ObjectLayout(final Class<?>[] knownFieldTypes, final SClass forClass,
+      final int numberOfInlinePrimFields, final int numberOfInlineObjFields,
+      final Assumption latestLayoutForClass, final ObjectLayout primary,
+      final HashMap<List<Class<?>>, ObjectLayout> layoutsByFieldTypes) {
     CompilerAsserts.neverPartOfCompilation("Layouts should not be created in compiled code");
 
     this.forClass = forClass;
-    this.latestLayoutForClass = Truffle.getRuntime().createAssumption();
+    this.numberOfInlinePrimFields = numberOfInlinePrimFields;
+    this.numberOfInlineObjFields = numberOfInlineObjFields;
+    this.latestLayoutForClass = latestLayoutForClass;
+    this.primary = primary == null ? this : primary;
+    this.layoutsByFieldTypes = layoutsByFieldTypes;
 
     storageTypes = knownFieldTypes;
     totalNumberOfStorageLocations = knownFieldTypes.length;
@@ -43,13 +111,16 @@ public final class ObjectLayout {
 
       StorageLocation storage;
       if (type == Long.class) {
-        storage = StorageLocation.createForLong(i, nextFreePrimIdx);
+        storage = StorageLocation.createForLong(i, nextFreePrimIdx, numberOfInlinePrimFields,
+            numberOfInlineObjFields);
         nextFreePrimIdx++;
       } else if (type == Double.class) {
-        storage = StorageLocation.createForDouble(i, nextFreePrimIdx);
+        storage = StorageLocation.createForDouble(i, nextFreePrimIdx,
+            numberOfInlinePrimFields, numberOfInlineObjFields);
         nextFreePrimIdx++;
       } else if (type == Object.class) {
-        storage = StorageLocation.createForObject(nextFreeObjIdx);
+        storage = StorageLocation.createForObject(nextFreeObjIdx, numberOfInlinePrimFields,
+            numberOfInlineObjFields);
         nextFreeObjIdx++;
       } else {
         assert type == null;
@@ -63,6 +134,44 @@ public final class ObjectLayout {
     objectStorageLocationsUsed = nextFreeObjIdx;
   }
 
+  /**
+   * Objects whose variant differs from the one of their class's layout, i.e., SClass objects
+   * as instances of a metaclass, use a layout with the same field types that is derived for
+   * their variant. It shares the assumption of this layout, and is thus invalidated with it.
+   *
+   * @return a layout with the same field types for the given variant
+   */
+  public ObjectLayout forVariant(final int numInlinePrimFields,
+      final int numInlineObjFields) {
+    if (numInlinePrimFields == numberOfInlinePrimFields
+        && numInlineObjFields == numberOfInlineObjFields) {
+      return this;
+    }
+    return primary.getOrCreateVariant(numInlinePrimFields, numInlineObjFields);
+  }
+
+  @TruffleBoundary
+  private ObjectLayout getOrCreateVariant(final int numInlinePrimFields,
+      final int numInlineObjFields) {
+    if (numInlinePrimFields == numberOfInlinePrimFields
+        && numInlineObjFields == numberOfInlineObjFields) {
+      return this;
+    }
+
+    if (variants == null) {
+      variants = new HashMap<>();
+    }
+
+    int key = numInlinePrimFields * (SObject.MAX_INLINE_FIELDS + 1) + numInlineObjFields;
+    ObjectLayout variant = variants.get(key);
+    if (variant == null) {
+      variant = new ObjectLayout(storageTypes, forClass, numInlinePrimFields,
+          numInlineObjFields, latestLayoutForClass, this, layoutsByFieldTypes);
+      variants.put(key, variant);
+    }
+    return variant;
+  }
+
   public boolean isValid() {
     return latestLayoutForClass.isValid();
   }
@@ -75,9 +184,14 @@ public final class ObjectLayout {
     return latestLayoutForClass;
   }
 
-  public boolean layoutForSameClass(final ObjectLayout other) {
-    // TODO: think we don't need this with new guard logic
-    return forClass == other.forClass;
+  /**
+   * @return true if the other layout is for the same class and the same SObject variant,
+   *         i.e., it is an earlier or later version of this layout
+   */
+  public boolean layoutForSameClassAndVariant(final ObjectLayout other) {
+    return forClass == other.forClass
+        && numberOfInlinePrimFields == other.numberOfInlinePrimFields
+        && numberOfInlineObjFields == other.numberOfInlineObjFields;
   }
 
   public boolean layoutForSameClass(final SClass clazz) {
@@ -88,6 +202,14 @@ public final class ObjectLayout {
     return storageTypes.length;
   }
 
+  public int getNumberOfInlinePrimFields() {
+    return numberOfInlinePrimFields;
+  }
+
+  public int getNumberOfInlineObjFields() {
+    return numberOfInlineObjFields;
+  }
+
   public ObjectLayout withGeneralizedField(final long fieldIndex) {
     return withGeneralizedField((int) fieldIndex);
   }
@@ -100,13 +222,79 @@ public final class ObjectLayout {
     if (storageTypes[fieldIndex] == Object.class) {
       return this;
     } else {
-      assert storageTypes[fieldIndex] != Object.class;
-      Class<?>[] withGeneralizedField = storageTypes.clone();
-      withGeneralizedField[fieldIndex] = Object.class;
+      return transitionTo(fieldIndex, Object.class);
+    }
+  }
+
+  /**
+   * @return a layout that stores all fields, including the not yet written ones, as
+   *         objects, and thus will not need any further transitions
+   */
+  public ObjectLayout withAllFieldsGeneralized() {
+    if (isAllFieldsGeneralized()) {
+      return this;
+    }
 
-      latestLayoutForClass.invalidate();
-      return new ObjectLayout(withGeneralizedField, forClass);
+    Class<?>[] generalized = new Class<?>[storageTypes.length];
+    Arrays.fill(generalized, Object.class);
+
+    ObjectLayout successor = successor(generalized);
+    latestLayoutForClass.invalidate();
+    return successor;
+  }
+
+  public boolean isAllFieldsGeneralized() {
+    for (Class<?> type : storageTypes) {
+      if (type != Object.class) {
+        return false;
+      }
     }
+    return true;
+  }
+
+  /**
+   * A transition invalidates this layout, because the class continues with the successor.
+   * The successor is kept, so that repeating the transition, e.g., from an instance that
+   * still has this layout, yields the same layout.
+   */
+  @TruffleBoundary
+  private ObjectLayout transitionTo(final int fieldIndex, final Class<?> type) {
+    if (transitions == null) {
+      transitions = new HashMap<>();
+    }
+
+    long key = transitionKey(fieldIndex, type);
+    ObjectLayout successor = transitions.get(key);
+    if (successor == null || !successor.isValid()) {
+      Class<?>[] types = storageTypes.clone();
+      types[fieldIndex] = type;
+      successor = successor(types);
+      transitions.put(key, successor);
+    }
+
+    latestLayoutForClass.invalidate();
+    return successor;
+  }
+
+  private static long transitionKey(final int fieldIndex, final Class<?> type) {
+    int typeTag;
+    if (type == Long.class) {
+      typeTag = 0;
+    } else if (type == Double.class) {
+      typeTag = 1;
+    } else {
+      assert type == Object.class;
+      typeTag = 2;
+    }
+    return ((long) fieldIndex << 2) | typeTag;
+  }
+
+  /**
+   * @return true if an instance already wrote the field, i.e., a write with a different type
+   *         generalizes it
+   */
+  public boolean isFieldInitialized(final long fieldIndex) {
+    return storageTypes[(int) fieldIndex] != null;
   }
 
   public ObjectLayout withInitializedField(final long fieldIndex, final Class<?> type) {
@@ -122,13 +310,11 @@ public final class ObjectLayout {
   private ObjectLayout withInitializedField(final int fieldIndex, final Class<?> type) {
     if (storageTypes[fieldIndex] == type) {
       return this;
+    } else if (storageTypes[fieldIndex] != null) {
+      // an instance with an outdated layout initialized the field with a different type
+      return withGeneralizedField(fieldIndex);
     } else {
-      assert storageTypes[fieldIndex] == null;
-      Class<?>[] withInitializedField = storageTypes.clone();
-      withInitializedField[fieldIndex] = type;
-
-      latestLayoutForClass.invalidate();
-      return new ObjectLayout(withInitializedField, forClass);
+      return transitionTo(fieldIndex, type);
     }
   }
 
@@ -141,15 +327,24 @@ public final class ObjectLayout {
   }
 
   public int getNumberOfUsedExtendedObjectStorageLocations() {
-    int requiredExtensionFields = objectStorageLocationsUsed - SObject.NUM_OBJECT_FIELDS;
+    int requiredExtensionFields = objectStorageLocationsUsed - numberOfInlineObjFields;
     if (requiredExtensionFields < 0) {
       return 0;
     }
     return requiredExtensionFields;
   }
 
+  public int getNumberOfExtendedPrimitiveUsedMapWords() {
+    int beyondBasicMap = primitiveStorageLocationsUsed - SObject.PRIMITIVE_USED_MAP_BITS;
+    if (beyondBasicMap <= 0) {
+      return 0;
+    }
+    return (beyondBasicMap + SObject.PRIMITIVE_USED_MAP_BITS - 1)
+        / SObject.PRIMITIVE_USED_MAP_BITS;
+  }
+
   public int getNumberOfUsedExtendedPrimStorageLocations() {
-    int requiredExtensionFields = primitiveStorageLocationsUsed - SObject.NUM_PRIMITIVE_FIELDS;
+    int requiredExtensionFields = primitiveStorageLocationsUsed - numberOfInlinePrimFields;
     if (requiredExtensionFields < 0) {
       return 0;
     }
@@ -2,126 +2,122 @@ package trufflesom.interpreter.objectstorage;
 
 import java.lang.reflect.Field;
 
-import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 import sun.misc.Unsafe;
 import trufflesom.vmobjects.SObject;
+import trufflesom.vmobjects.SObject.SObjectP0O2;
+import trufflesom.vmobjects.SObject.SObjectP0O4;
+import trufflesom.vmobjects.SObject.SObjectP0O8;
+import trufflesom.vmobjects.SObject.SObjectP2O0;
+import trufflesom.vmobjects.SObject.SObjectP2O2;
+import trufflesom.vmobjects.SObject.SObjectP2O4;
+import trufflesom.vmobjects.SObject.SObjectP2O8;
+import trufflesom.vmobjects.SObject.SObjectP4O0;
+import trufflesom.vmobjects.SObject.SObjectP4O2;
+import trufflesom.vmobjects.SObject.SObjectP4O4;
+import trufflesom.vmobjects.SObject.SObjectP4O8;
+import trufflesom.vmobjects.SObject.SObjectP8O0;
+import trufflesom.vmobjects.SObject.SObjectP8O2;
+import trufflesom.vmobjects.SObject.SObjectP8O4;
+import trufflesom.vmobjects.SObject.SObjectP8O8;
 
 
 public class StorageAnalyzer {
   private static final Unsafe unsafe = UnsafeUtil.load();
 
-  private static final long SMO_PRIM_FIELD_1_OFFSET = getFieldOffset("primField1");
-  private static final long SMO_PRIM_FIELD_2_OFFSET = getFieldOffset("primField2");
-  private static final long SMO_PRIM_FIELD_3_OFFSET = getFieldOffset("primField3");
-  private static final long SMO_PRIM_FIELD_4_OFFSET = getFieldOffset("primField4");
-  private static final long SMO_PRIM_FIELD_5_OFFSET = getFieldOffset("primField5");
-  private static final long SMO_FIELD_1_OFFSET      = getFieldOffset("field1");
-  private static final long SMO_FIELD_2_OFFSET      = getFieldOffset("field2");
-  private static final long SMO_FIELD_3_OFFSET      = getFieldOffset("field3");
-  private static final long SMO_FIELD_4_OFFSET      = getFieldOffset("field4");
-  private static final long SMO_FIELD_5_OFFSET      = getFieldOffset("field5");
-
-  @CompilationFinal(
-      dimensions = 1) private static final DirectObjectAccessor[]                  objAccessors  =
-          new DirectObjectAccessor[SObject.NUM_OBJECT_FIELDS];
-  @CompilationFinal(
-      dimensions = 1) private static final DirectPrimitiveAccessor[]               primAccessors =
-          new DirectPrimitiveAccessor[SObject.NUM_PRIMITIVE_FIELDS];
-
-  private static long getFieldOffset(final String fieldName) {
-    try {
-      Field field = SObject.class.getDeclaredField(fieldName);
-      return unsafe.objectFieldOffset(field);
-    } catch (NoSuchFieldException | SecurityException e) {
-      throw new RuntimeException(e);
+  /** The numbers of inline fields of one kind that an SObject variant can have. */
+  private static final int[] INLINE_FIELD_COUNTS = {0, 2, 4, SObject.MAX_INLINE_FIELDS};
+
+  /** The SObject variants, indexed by their number of inline primitive and object fields. */
+  private static final Class<?>[][] variants = {
+      {SObject.class, SObjectP0O2.class, SObjectP0O4.class, SObjectP0O8.class},
+      {SObjectP2O0.class, SObjectP2O2.class, SObjectP2O4.class, SObjectP2O8.class},
+      {SObjectP4O0.class, SObjectP4O2.class, SObjectP4O4.class, SObjectP4O8.class},
+      {SObjectP8O0.class, SObjectP8O2.class, SObjectP8O4.class, SObjectP8O8.class}};
+
+  private static long[][][] primOffsets;
+  private static long[][][] objOffsets;
+
+  /**
+   * The inline fields are declared in a hierarchy of SObject variants. We search from the
+   * variant upwards to find the class that declares the field.
+   */
+  private static long getFieldOffset(final Class<?> variant, final String fieldName) {
+    Class<?> cls = variant;
+    while (cls != SObject.class) {
+      try {
+        Field field = cls.getDeclaredField(fieldName);
+        return unsafe.objectFieldOffset(field);
+      } catch (NoSuchFieldException e) {
+        cls = cls.getSuperclass();
+      } catch (SecurityException e) {
+        throw new RuntimeException(e);
+      }
     }
+    throw new RuntimeException(
+        "Field " + fieldName + " not found in SObject variant " + variant.getSimpleName());
   }
 
   /**
-   * Initialize field accessors with the offsets in the S*Object classes.
+   * Initialize the offsets of the inline fields in all SObject variants.
    */
   @TruffleBoundary
   public static void initAccessors() {
-    if (objAccessors[0] != null) {
+    if (primOffsets != null) {
       return;
     }
 
-    initObjectAccessors();
-    initPrimitiveAccessors();
-  }
+    long[][][] prims = new long[variants.length][][];
+    long[][][] objs = new long[variants.length][][];
 
-  private static void initObjectAccessors() {
-    objAccessors[0] = new DirectObjectAccessor(SMO_FIELD_1_OFFSET);
-    objAccessors[1] = new DirectObjectAccessor(SMO_FIELD_2_OFFSET);
-    objAccessors[2] = new DirectObjectAccessor(SMO_FIELD_3_OFFSET);
-    objAccessors[3] = new DirectObjectAccessor(SMO_FIELD_4_OFFSET);
-    objAccessors[4] = new DirectObjectAccessor(SMO_FIELD_5_OFFSET);
-  }
+    for (int p = 0; p < variants.length; p++) {
+      prims[p] = new long[variants[p].length][];
+      objs[p] = new long[variants[p].length][];
 
-  private static void initPrimitiveAccessors() {
-    primAccessors[0] = new DirectPrimitiveAccessor(SMO_PRIM_FIELD_1_OFFSET);
-    primAccessors[1] = new DirectPrimitiveAccessor(SMO_PRIM_FIELD_2_OFFSET);
-    primAccessors[2] = new DirectPrimitiveAccessor(SMO_PRIM_FIELD_3_OFFSET);
-    primAccessors[3] = new DirectPrimitiveAccessor(SMO_PRIM_FIELD_4_OFFSET);
-    primAccessors[4] = new DirectPrimitiveAccessor(SMO_PRIM_FIELD_5_OFFSET);
-  }
-
-  public static final class DirectObjectAccessor {
-    private final long fieldOffset;
-
-    private DirectObjectAccessor(final long fieldOffset) {
-      this.fieldOffset = fieldOffset;
+      for (int o = 0; o < variants[p].length; o++) {
+        prims[p][o] = getFieldOffsets(variants[p][o], "primField", INLINE_FIELD_COUNTS[p]);
+        objs[p][o] = getFieldOffsets(variants[p][o], "field", INLINE_FIELD_COUNTS[o]);
+      }
     }
 
-    public long getFieldOffset() {
-      return fieldOffset;
-    }
-
-    public Object read(final SObject obj) {
-      return unsafe.getObject(obj, fieldOffset);
-    }
-
-    public void write(final SObject obj, final Object value) {
-      assert value != null;
-      unsafe.putObject(obj, fieldOffset, value);
-    }
+    objOffsets = objs;
+    primOffsets = prims;
   }
 
-  public static final class DirectPrimitiveAccessor {
-    private final long offset;
-
-    private DirectPrimitiveAccessor(final long fieldOffset) {
-      offset = fieldOffset;
-    }
-
-    public long getFieldOffset() {
-      return offset;
-    }
-
-    public long readLong(final SObject obj) {
-      return unsafe.getLong(obj, offset);
-    }
-
-    public double readDouble(final SObject obj) {
-      return unsafe.getDouble(obj, offset);
-    }
-
-    public void write(final SObject obj, final long value) {
-      unsafe.putLong(obj, offset, value);
+  private static long[] getFieldOffsets(final Class<?> variant, final String prefix,
+      final int numFields) {
+    long[] offsets = new long[numFields];
+    for (int i = 0; i < numFields; i++) {
+      offsets[i] = getFieldOffset(variant, prefix + (i + 1));
     }
+    return offsets;
+  }
 
-    public void write(final SObject obj, final double value) {
-      unsafe.putDouble(obj, offset, value);
+  private static int getVariantIndex(final int numberOfInlineFields) {
+    for (int i = 0; i < INLINE_FIELD_COUNTS.length; i++) {
+      if (INLINE_FIELD_COUNTS[i] == numberOfInlineFields) {
+        return i;
+      }
     }
+    throw new IllegalArgumentException(
+        "No SObject variant with " + numberOfInlineFields + " inline fields");
   }
 
-  public static long getPrimitiveFieldOffset(final int primField) {
-    return primAccessors[primField].getFieldOffset();
+  public static long getPrimitiveFieldOffset(final int numberOfInlinePrimFields,
+      final int numberOfInlineObjFields, final int primField) {
+    CompilerAsserts.neverPartOfCompilation("StorageAnalyzer");
+    initAccessors();
+    return primOffsets[getVariantIndex(numberOfInlinePrimFields)][getVariantIndex(
+        numberOfInlineObjFields)][primField];
   }
 
-  public static long getObjectFieldOffset(final int fieldIndex) {
-    return objAccessors[fieldIndex].getFieldOffset();
+  public static long getObjectFieldOffset(final int numberOfInlinePrimFields,
+      final int numberOfInlineObjFields, final int fieldIndex) {
+    CompilerAsserts.neverPartOfCompilation("StorageAnalyzer");
+    initAccessors();
+    return objOffsets[getVariantIndex(numberOfInlinePrimFields)][getVariantIndex(
+        numberOfInlineObjFields)][fieldIndex];
   }
 }
@@ -42,32 +42,46 @@ public abstract class StorageLocation {
     void writeDouble(SObject obj, double value);
   }
 
+  /**
+   * The numbers of inline primitive and object fields identify the SObject variant for which
+   * the location is created.
+   */
   public static StorageLocation createForLong(final long fieldIndex,
-      final int primFieldIndex) {
+      final int primFieldIndex, final int numberOfInlinePrimFields,
+      final int numberOfInlineObjFields) {
     CompilerAsserts.neverPartOfCompilation("StorageLocation");
-    if (primFieldIndex < SObject.NUM_PRIMITIVE_FIELDS) {
-      return new LongDirectStoreLocation(fieldIndex, primFieldIndex);
+    if (primFieldIndex < numberOfInlinePrimFields) {
+      return new LongDirectStoreLocation(fieldIndex, primFieldIndex,
+          StorageAnalyzer.getPrimitiveFieldOffset(
+              numberOfInlinePrimFields, numberOfInlineObjFields, primFieldIndex));
     } else {
-      return new LongArrayStoreLocation(fieldIndex, primFieldIndex);
+      return new LongArrayStoreLocation(fieldIndex, primFieldIndex, numberOfInlinePrimFields);
     }
   }
 
   public static StorageLocation createForDouble(final long fieldIndex,
-      final int primFieldIndex) {
+      final int primFieldIndex, final int numberOfInlinePrimFields,
+      final int numberOfInlineObjFields) {
     CompilerAsserts.neverPartOfCompilation("StorageLocation");
-    if (primFieldIndex < SObject.NUM_PRIMITIVE_FIELDS) {
-      return new DoubleDirectStoreLocation(fieldIndex, primFieldIndex);
+    if (primFieldIndex < numberOfInlinePrimFields) {
+      return new DoubleDirectStoreLocation(fieldIndex, primFieldIndex,
+          StorageAnalyzer.getPrimitiveFieldOffset(
+              numberOfInlinePrimFields, numberOfInlineObjFields, primFieldIndex));
     } else {
-      return new DoubleArrayStoreLocation(fieldIndex, primFieldIndex);
+      return new DoubleArrayStoreLocation(fieldIndex, primFieldIndex,
+          numberOfInlinePrimFields);
     }
   }
 
-  public static StorageLocation createForObject(final int objFieldIndex) {
+  public static StorageLocation createForObject(final int objFieldIndex,
+      final int numberOfInlinePrimFields, final int numberOfInlineObjFields) {
     CompilerAsserts.neverPartOfCompilation("StorageLocation");
-    if (objFieldIndex < SObject.NUM_PRIMITIVE_FIELDS) {
-      return new ObjectDirectStorageLocation(objFieldIndex);
+    if (objFieldIndex < numberOfInlineObjFields) {
+      return new ObjectDirectStorageLocation(objFieldIndex,
+          StorageAnalyzer.getObjectFieldOffset(
+              numberOfInlinePrimFields, numberOfInlineObjFields, objFieldIndex));
     } else {
-      return new ObjectArrayStorageLocation(objFieldIndex);
+      return new ObjectArrayStorageLocation(objFieldIndex, numberOfInlineObjFields);
     }
   }
 
@@ -160,9 +174,9 @@ public abstract class StorageLocation {
       extends AbstractObjectStorageLocation {
     private final long fieldOffset;
 
-    protected ObjectDirectStorageLocation(final int fieldIndex) {
+    protected ObjectDirectStorageLocation(final int fieldIndex, final long fieldOffset) {
       super(fieldIndex);
-      fieldOffset = StorageAnalyzer.getObjectFieldOffset(fieldIndex);
+      this.fieldOffset = fieldOffset;
     }
 
     @Override
@@ -193,9 +207,10 @@ public abstract class StorageLocation {
       extends AbstractObjectStorageLocation {
     private final int extensionIndex;
 
-    public ObjectArrayStorageLocation(final int fieldIndex) {
+    public ObjectArrayStorageLocation(final int fieldIndex,
+        final int numberOfInlineObjFields) {
       super(fieldIndex);
-      extensionIndex = fieldIndex - SObject.NUM_OBJECT_FIELDS;
+      extensionIndex = fieldIndex - numberOfInlineObjFields;
     }
 
     @Override
@@ -225,37 +240,43 @@ public abstract class StorageLocation {
   }
 
   protected abstract static class PrimitiveStorageLocation extends StorageLocation {
-    protected final int mask;
+    protected final long mask;
 
     protected PrimitiveStorageLocation(final long fieldIndex, final int primField) {
       super(fieldIndex);
       mask = SObject.getPrimitiveFieldMask(primField);
     }
 
-    @Override
-    public final boolean isSet(final SObject obj) {
-      return obj.isPrimitiveSet(mask);
-    }
-
-    protected final void markAsSet(final SObject obj) {
-      obj.markPrimAsSet(mask);
-    }
+    protected abstract void markAsSet(SObject obj);
   }
 
   protected abstract static class PrimitiveDirectStoreLocation
       extends PrimitiveStorageLocation {
     protected final long fieldMemoryOffset;
 
-    protected PrimitiveDirectStoreLocation(final long fieldIndex, final int primField) {
+    protected PrimitiveDirectStoreLocation(final long fieldIndex, final int primField,
+        final long fieldMemoryOffset) {
       super(fieldIndex, primField);
-      this.fieldMemoryOffset = StorageAnalyzer.getPrimitiveFieldOffset(primField);
+      assert SObject.getPrimitiveUsedMapIndex(primField) == -1;
+      this.fieldMemoryOffset = fieldMemoryOffset;
+    }
+
+    @Override
+    public final boolean isSet(final SObject obj) {
+      return obj.isPrimitiveSet(mask);
+    }
+
+    @Override
+    protected final void markAsSet(final SObject obj) {
+      obj.markPrimAsSet(mask);
     }
   }
 
   public static final class DoubleDirectStoreLocation extends PrimitiveDirectStoreLocation
       implements DoubleStorageLocation {
-    public DoubleDirectStoreLocation(final long fieldIndex, final int primField) {
-      super(fieldIndex, primField);
+    public DoubleDirectStoreLocation(final long fieldIndex, final int primField,
+        final long fieldMemoryOffset) {
+      super(fieldIndex, primField, fieldMemoryOffset);
     }
 
     @Override
@@ -319,8 +340,9 @@ public abstract class StorageLocation {
   protected static final class LongDirectStoreLocation extends PrimitiveDirectStoreLocation
       implements LongStorageLocation {
 
-    public LongDirectStoreLocation(final long fieldIndex, final int primField) {
-      super(fieldIndex, primField);
+    public LongDirectStoreLocation(final long fieldIndex, final int primField,
+        final long fieldMemoryOffset) {
+      super(fieldIndex, primField, fieldMemoryOffset);
     }
 
     @Override
@@ -391,17 +413,40 @@ public abstract class StorageLocation {
   public abstract static class PrimitiveArrayStoreLocation extends PrimitiveStorageLocation {
     protected final int extensionIndex;
 
-    public PrimitiveArrayStoreLocation(final long fieldIndex, final int primField) {
+    /** Index into the extended primitive used map, or -1 for the basic map. */
+    protected final int usedMapIndex;
+
+    public PrimitiveArrayStoreLocation(final long fieldIndex, final int primField,
+        final int numberOfInlinePrimFields) {
       super(fieldIndex, primField);
-      extensionIndex = primField - SObject.NUM_PRIMITIVE_FIELDS;
+      extensionIndex = primField - numberOfInlinePrimFields;
+      usedMapIndex = SObject.getPrimitiveUsedMapIndex(primField);
       assert extensionIndex >= 0;
     }
+
+    @Override
+    public final boolean isSet(final SObject obj) {
+      if (usedMapIndex == -1) {
+        return obj.isPrimitiveSet(mask);
+      }
+      return obj.isExtendedPrimitiveSet(usedMapIndex, mask);
+    }
+
+    @Override
+    protected final void markAsSet(final SObject obj) {
+      if (usedMapIndex == -1) {
+        obj.markPrimAsSet(mask);
+      } else {
+        obj.markExtendedPrimAsSet(usedMapIndex, mask);
+      }
+    }
   }
 
   public static final class LongArrayStoreLocation extends PrimitiveArrayStoreLocation
       implements LongStorageLocation {
-    public LongArrayStoreLocation(final long fieldIndex, final int primField) {
-      super(fieldIndex, primField);
+    public LongArrayStoreLocation(final long fieldIndex, final int primField,
+        final int numberOfInlinePrimFields) {
+      super(fieldIndex, primField, numberOfInlinePrimFields);
     }
 
     @Override
@@ -473,8 +518,9 @@ public abstract class StorageLocation {
 
   public static final class DoubleArrayStoreLocation extends PrimitiveArrayStoreLocation
       implements DoubleStorageLocation {
-    public DoubleArrayStoreLocation(final long fieldIndex, final int primField) {
-      super(fieldIndex, primField);
+    public DoubleArrayStoreLocation(final long fieldIndex, final int primField,
+        final int numberOfInlinePrimFields) {
+      super(fieldIndex, primField, numberOfInlinePrimFields);
     }
 
     @Override
@@ -85,11 +85,14 @@ import trufflesom.primitives.arithmetic.RemainderPrimFactory;
 import trufflesom.primitives.arithmetic.SinPrimFactory;
 import trufflesom.primitives.arithmetic.SqrtPrimFactory;
 import trufflesom.primitives.arithmetic.SubtractionPrimFactory;
+import trufflesom.primitives.arrays.ArrayBulkPrimsFactory;
+import trufflesom.primitives.arrays.ArrayIterationPrimsFactory;
 import trufflesom.primitives.arrays.AtPrimFactory;
 import trufflesom.primitives.arrays.AtPutPrimFactory;
 import trufflesom.primitives.arrays.CopyPrimFactory;
 import trufflesom.primitives.arrays.DoIndexesPrimFactory;
 import trufflesom.primitives.arrays.DoPrimFactory;
+import trufflesom.primitives.arrays.GrowableArrayPrimsFactory;
 import trufflesom.primitives.arrays.NewPrimFactory;
 import trufflesom.primitives.arrays.PutAllNodeFactory;
 import trufflesom.primitives.basics.AsStringPrimFactory;
@@ -105,6 +108,7 @@ import trufflesom.primitives.basics.StringPrimsFactory;
 import trufflesom.primitives.basics.SystemPrimsFactory;
 import trufflesom.primitives.basics.UnequalUnequalPrimFactory;
 import trufflesom.primitives.basics.UnequalsPrimFactory;
+import trufflesom.primitives.collections.HashTablePrimsFactory;
 import trufflesom.primitives.reflection.ClassPrimsFactory;
 import trufflesom.primitives.reflection.GlobalPrimFactory;
 import trufflesom.primitives.reflection.HasGlobalPrimFactory;
@@ -248,6 +252,10 @@ public final class Primitives extends PrimitiveLoader<ExpressionNode, SSymbol> {
     addAll(allFactories, ClassPrimsFactory.getFactories());
     addAll(allFactories, MethodPrimsFactory.getFactories());
     addAll(allFactories, ObjectPrimsFactory.getFactories());
+    addAll(allFactories, GrowableArrayPrimsFactory.getFactories());
+    addAll(allFactories, ArrayIterationPrimsFactory.getFactories());
+    addAll(allFactories, ArrayBulkPrimsFactory.getFactories());
+    addAll(allFactories, HashTablePrimsFactory.getFactories());
 
     add(allFactories, AdditionPrimFactory.getInstance());
     add(allFactories, BitXorPrimFactory.getInstance());
@@ -101,12 +101,12 @@ public abstract class AdditionPrim extends ArithmeticPrim {
   @Specialization
   @TruffleBoundary
   public static final SSymbol doSSymbol(final SSymbol left, final SSymbol right) {
-    return SymbolTable.symbolFor(left.getString() + right.getString());
+    return SymbolTable.dynamicSymbolFor(left.getString() + right.getString());
   }
 
   @Specialization
   @TruffleBoundary
   public static final SSymbol doSSymbol(final SSymbol left, final String right) {
-    return SymbolTable.symbolFor(left.getString() + right);
+    return SymbolTable.dynamicSymbolFor(left.getString() + right);
   }
 }
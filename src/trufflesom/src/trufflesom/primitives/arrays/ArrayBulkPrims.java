@@ -0,0 +1,477 @@
+package trufflesom.primitives.arrays;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+
+import trufflesom.bdt.primitives.Primitive;
+import trufflesom.interpreter.nodes.nary.BinaryMsgExprNode;
+import trufflesom.interpreter.nodes.nary.QuaternaryMsgExprNode;
+import trufflesom.interpreter.nodes.nary.TernaryMsgExprNode;
+import trufflesom.vm.SymbolTable;
+import trufflesom.vm.constants.Nil;
+import trufflesom.vmobjects.SAbstractObject;
+import trufflesom.vmobjects.SArray;
+import trufflesom.vmobjects.SArray.GrowableArray;
+import trufflesom.vmobjects.SSymbol;
+
+
+/**
+ * Primitives that operate on ranges of an array at once, instead of going element by element
+ * through {@link AtPrim} and {@link AtPutPrim}. Indexes are 1-based and ranges are inclusive,
+ * as on the Smalltalk level.
+ */
+public final class ArrayBulkPrims {
+
+  @GenerateNodeFactory
+  @Primitive(selector = "copyFrom:to:", receiverType = SArray.class)
+  public abstract static class CopyFromToPrim extends TernaryMsgExprNode {
+    @Override
+    public SSymbol getSelector() {
+      return SymbolTable.symbolFor("copyFrom:to:");
+    }
+
+    /** The range may be empty, i.e., from is then to + 1. */
+    protected static final boolean isInRange(final SArray receiver, final long from,
+        final long to) {
+      return from >= 1 && to <= receiver.getLength() && from <= to + 1;
+    }
+
+    @Specialization(guards = {"receiver.isEmptyType()", "isInRange(receiver, from, to)"})
+    public static final SArray doEmptyArray(final SArray receiver, final long from,
+        final long to) {
+      return new SArray(to - from + 1);
+    }
+
+    @Specialization(guards = {"receiver.isObjectType()", "isInRange(receiver, from, to)"})
+    public static final SArray doObjectArray(final SArray receiver, final long from,
+        final long to) {
+      return SArray.create(
+          Arrays.copyOfRange(receiver.getObjectStorage(), (int) from - 1, (int) to));
+    }
+
+    @Specialization(guards = {"receiver.isLongType()", "isInRange(receiver, from, to)"})
+    public static final SArray doLongArray(final SArray receiver, final long from,
+        final long to) {
+      return SArray.create(
+          Arrays.copyOfRange(receiver.getLongStorage(), (int) from - 1, (int) to));
+    }
+
+    @Specialization(guards = {"receiver.isDoubleType()", "isInRange(receiver, from, to)"})
+    public static final SArray doDoubleArray(final SArray receiver, final long from,
+        final long to) {
+      return SArray.create(
+          Arrays.copyOfRange(receiver.getDoubleStorage(), (int) from - 1, (int) to));
+    }
+
+    @Specialization(guards = {"receiver.isBooleanType()", "isInRange(receiver, from, to)"})
+    public static final SArray doBooleanArray(final SArray receiver, final long from,
+        final long to) {
+      return SArray.create(
+          Arrays.copyOfRange(receiver.getBooleanStorage(), (int) from - 1, (int) to));
+    }
+
+    @Specialization(guards = {"receiver.isByteType()", "isInRange(receiver, from, to)"})
+    public static final SArray doByteArray(final SArray receiver, final long from,
+        final long to) {
+      return SArray.create(
+          Arrays.copyOfRange(receiver.getByteStorage(), (int) from - 1, (int) to));
+    }
+
+    @Specialization(guards = {"receiver.isIntType()", "isInRange(receiver, from, to)"})
+    public static final SArray doIntArray(final SArray receiver, final long from,
+        final long to) {
+      return SArray.create(
+          Arrays.copyOfRange(receiver.getIntStorage(), (int) from - 1, (int) to));
+    }
+
+    @Specialization(guards = {"receiver.isCharType()", "isInRange(receiver, from, to)"})
+    public static final SArray doCharArray(final SArray receiver, final long from,
+        final long to) {
+      return SArray.create(
+          Arrays.copyOfRange(receiver.getCharStorage(), (int) from - 1, (int) to));
+    }
+
+    @Specialization(guards = "isInRange(receiver, from, to)")
+    public static final SArray doGenericArray(final SArray receiver, final long from,
+        final long to) {
+      Object[] result = new Object[(int) (to - from + 1)];
+      for (int i = 0; i < result.length; i++) {
+        result[i] = receiver.getElement(from - 1 + i);
+      }
+      return SArray.create(result);
+    }
+
+    @Specialization(guards = "!isInRange(receiver, from, to)")
+    public static final Object doOutOfRange(final SArray receiver, final long from,
+        final long to) {
+      return sendRangeError(receiver, from, to);
+    }
+  }
+
+  private static Object sendRangeError(final SArray receiver, final long from,
+      final long to) {
+    return SAbstractObject.sendError(receiver, "Range " + from + " to " + to
+        + " is out of bounds for an array of length " + receiver.getLength());
+  }
+
+  /**
+   * Copies the elements of the source array into the given range of the receiver. Typed
+   * sources are copied into an OBJECT receiver by boxing only the copied elements, without
+   * generalizing the source.
+   */
+  @GenerateNodeFactory
+  @Primitive(selector = "replaceFrom:to:with:", receiverType = SArray.class)
+  public abstract static class ReplaceFromToWithPrim extends QuaternaryMsgExprNode {
+    @Override
+    public SSymbol getSelector() {
+      return SymbolTable.symbolFor("replaceFrom:to:with:");
+    }
+
+    /** The source has to provide an element for each index of the range. */
+    protected static final boolean isInRange(final SArray receiver, final long start,
+        final long stop, final SArray src) {
+      return CopyFromToPrim.isInRange(receiver, start, stop) &&
+          src.getLength() >= stop - start + 1;
+    }
+
+    @Specialization(guards = {"receiver.isObjectType()", "src.isObjectType()",
+        "isInRange(receiver, start, stop, src)"})
+    public static final SArray doObjectFromObject(final SArray receiver, final long start,
+        final long stop, final SArray src) {
+      receiver.ensureOwnStorage();
+      System.arraycopy(src.getObjectStorage(), 0, receiver.getObjectStorage(),
+          (int) start - 1, (int) (stop - start + 1));
+      return receiver;
+    }
+
+    @Specialization(guards = {"receiver.isLongType()", "src.isLongType()",
+        "isInRange(receiver, start, stop, src)"})
+    public static final SArray doLongFromLong(final SArray receiver, final long start,
+        final long stop, final SArray src) {
+      receiver.ensureOwnStorage();
+      System.arraycopy(src.getLongStorage(), 0, receiver.getLongStorage(),
+          (int) start - 1, (int) (stop - start + 1));
+      return receiver;
+    }
+
+    @Specialization(guards = {"receiver.isDoubleType()", "src.isDoubleType()",
+        "isInRange(receiver, start, stop, src)"})
+    public static final SArray doDoubleFromDouble(final SArray receiver, final long start,
+        final long stop, final SArray src) {
+      receiver.ensureOwnStorage();
+      System.arraycopy(src.getDoubleStorage(), 0, receiver.getDoubleStorage(),
+          (int) start - 1, (int) (stop - start + 1));
+      return receiver;
+    }
+
+    @Specialization(guards = {"receiver.isBooleanType()", "src.isBooleanType()",
+        "isInRange(receiver, start, stop, src)"})
+    public static final SArray doBooleanFromBoolean(final SArray receiver, final long start,
+        final long stop, final SArray src) {
+      receiver.ensureOwnStorage();
+      System.arraycopy(src.getBooleanStorage(), 0, receiver.getBooleanStorage(),
+          (int) start - 1, (int) (stop - start + 1));
+      return receiver;
+    }
+
+    @Specialization(guards = {"receiver.isObjectType()", "src.isLongType()",
+        "isInRange(receiver, start, stop, src)"})
+    public static final SArray doObjectFromLong(final SArray receiver, final long start,
+        final long stop, final SArray src) {
+      receiver.ensureOwnStorage();
+      Object[] dest = receiver.getObjectStorage();
+      long[] s = src.getLongStorage();
+      int offset = (int) start - 1;
+      for (int i = 0; i < stop - start + 1; i++) {
+        dest[offset + i] = s[i];
+      }
+      return receiver;
+    }
+
+    @Specialization(guards = {"receiver.isObjectType()", "src.isDoubleType()",
+        "isInRange(receiver, start, stop, src)"})
+    public static final SArray doObjectFromDouble(final SArray receiver, final long start,
+        final long stop, final SArray src) {
+      receiver.ensureOwnStorage();
+      Object[] dest = receiver.getObjectStorage();
+      double[] s = src.getDoubleStorage();
+      int offset = (int) start - 1;
+      for (int i = 0; i < stop - start + 1; i++) {
+        dest[offset + i] = s[i];
+      }
+      return receiver;
+    }
+
+    @Specialization(guards = {"receiver.isObjectType()", "src.isBooleanType()",
+        "isInRange(receiver, start, stop, src)"})
+    public static final SArray doObjectFromBoolean(final SArray receiver, final long start,
+        final long stop, final SArray src) {
+      receiver.ensureOwnStorage();
+      Object[] dest = receiver.getObjectStorage();
+      boolean[] s = src.getBooleanStorage();
+      int offset = (int) start - 1;
+      for (int i = 0; i < stop - start + 1; i++) {
+        dest[offset + i] = s[i];
+      }
+      return receiver;
+    }
+
+    @Specialization(guards = {"receiver.isObjectType()", "src.isEmptyType()",
+        "isInRange(receiver, start, stop, src)"})
+    public static final SArray doObjectFromEmpty(final SArray receiver, final long start,
+        final long stop, final SArray src) {
+      receiver.ensureOwnStorage();
+      Arrays.fill(receiver.getObjectStorage(), (int) start - 1, (int) stop, Nil.nilObject);
+      return receiver;
+    }
+
+    @Specialization(replaces = {"doObjectFromObject", "doLongFromLong", "doDoubleFromDouble",
+        "doBooleanFromBoolean", "doObjectFromLong", "doObjectFromDouble",
+        "doObjectFromBoolean", "doObjectFromEmpty"},
+        guards = "isInRange(receiver, start, stop, src)")
+    public static final SArray doGeneric(final SArray receiver, final long start,
+        final long stop, final SArray src) {
+      // read all elements first, src and receiver may be the same array
+      Object[] values = new Object[(int) (stop - start + 1)];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = src.getElement(i);
+      }
+
+      if (receiver.isGrowableType()) {
+        GrowableArray dest = receiver.getGrowableStorage();
+        for (int i = 0; i < values.length; i++) {
+          dest.set(start - 1 + i, values[i]);
+        }
+      } else {
+        System.arraycopy(values, 0, receiver.transitionToObject(), (int) start - 1,
+            values.length);
+      }
+      return receiver;
+    }
+
+    @Specialization(guards = "!isInRange(receiver, start, stop, src)")
+    public static final Object doOutOfRange(final SArray receiver, final long start,
+        final long stop, final SArray src) {
+      if (!CopyFromToPrim.isInRange(receiver, start, stop)) {
+        return sendRangeError(receiver, start, stop);
+      }
+      return SAbstractObject.sendError(receiver, "Range " + start + " to " + stop
+          + " needs more elements than the " + src.getLength() + " of the source");
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(selector = "from:to:put:", receiverType = SArray.class)
+  public abstract static class FromToPutPrim extends QuaternaryMsgExprNode {
+    @Override
+    public SSymbol getSelector() {
+      return SymbolTable.symbolFor("from:to:put:");
+    }
+
+    protected static final boolean valueIsNil(final Object value) {
+      return value == Nil.nilObject;
+    }
+
+    protected static final boolean isInRange(final SArray receiver, final long from,
+        final long to) {
+      return CopyFromToPrim.isInRange(receiver, from, to);
+    }
+
+    @Specialization(guards = {"receiver.isEmptyType()", "valueIsNil(value)",
+        "isInRange(receiver, from, to)"})
+    public static final Object doEmptyWithNil(final SArray receiver, final long from,
+        final long to, final Object value) {
+      return value;
+    }
+
+    @Specialization(guards = {"receiver.isLongType()", "isInRange(receiver, from, to)"})
+    public static final long doLong(final SArray receiver, final long from,
+        final long to, final long value) {
+      receiver.ensureOwnStorage();
+      Arrays.fill(receiver.getLongStorage(), (int) from - 1, (int) to, value);
+      return value;
+    }
+
+    @Specialization(guards = {"receiver.isDoubleType()", "isInRange(receiver, from, to)"})
+    public static final double doDouble(final SArray receiver, final long from,
+        final long to, final double value) {
+      receiver.ensureOwnStorage();
+      Arrays.fill(receiver.getDoubleStorage(), (int) from - 1, (int) to, value);
+      return value;
+    }
+
+    @Specialization(guards = {"receiver.isBooleanType()", "isInRange(receiver, from, to)"})
+    public static final boolean doBoolean(final SArray receiver, final long from,
+        final long to, final boolean value) {
+      receiver.ensureOwnStorage();
+      Arrays.fill(receiver.getBooleanStorage(), (int) from - 1, (int) to, value);
+      return value;
+    }
+
+    @Specialization(guards = {"receiver.isObjectType()", "isInRange(receiver, from, to)"})
+    public static final Object doObject(final SArray receiver, final long from,
+        final long to, final Object value) {
+      receiver.ensureOwnStorage();
+      Arrays.fill(receiver.getObjectStorage(), (int) from - 1, (int) to, value);
+      return value;
+    }
+
+    @Specialization(replaces = {"doLong", "doDouble", "doBoolean", "doObject"},
+        guards = "isInRange(receiver, from, to)")
+    public static final Object doGeneric(final SArray receiver, final long from,
+        final long to, final Object value) {
+      if (receiver.isGrowableType()) {
+        GrowableArray dest = receiver.getGrowableStorage();
+        for (long i = from - 1; i < to; i++) {
+          dest.set(i, value);
+        }
+      } else {
+        Arrays.fill(receiver.transitionToObject(), (int) from - 1, (int) to, value);
+      }
+      return value;
+    }
+
+    @Specialization(guards = "!isInRange(receiver, from, to)")
+    public static final Object doOutOfRange(final SArray receiver, final long from,
+        final long to, final Object value) {
+      return sendRangeError(receiver, from, to);
+    }
+  }
+
+  /**
+   * Returns the 1-based index of the first element equal to the value, or nil. Only the
+   * numeric and boolean cases are handled here, because their equality cannot be redefined
+   * in SOM. For all others, the send is done as usual.
+   */
+  @GenerateNodeFactory
+  @Primitive(selector = "indexOf:", receiverType = SArray.class)
+  public abstract static class IndexOfPrim extends BinaryMsgExprNode {
+    @Override
+    public SSymbol getSelector() {
+      return SymbolTable.symbolFor("indexOf:");
+    }
+
+    @Specialization(guards = "receiver.isLongType()")
+    public static final Object doLong(final SArray receiver, final long value) {
+      long[] storage = receiver.getLongStorage();
+      for (int i = 0; i < storage.length; i++) {
+        if (storage[i] == value) {
+          return (long) i + 1;
+        }
+      }
+      return Nil.nilObject;
+    }
+
+    @Specialization(guards = "receiver.isLongType()")
+    public static final Object doLong(final SArray receiver, final double value) {
+      long[] storage = receiver.getLongStorage();
+      for (int i = 0; i < storage.length; i++) {
+        if (storage[i] == value) {
+          return (long) i + 1;
+        }
+      }
+      return Nil.nilObject;
+    }
+
+    @Specialization(guards = "receiver.isDoubleType()")
+    public static final Object doDouble(final SArray receiver, final double value) {
+      double[] storage = receiver.getDoubleStorage();
+      for (int i = 0; i < storage.length; i++) {
+        if (storage[i] == value) {
+          return (long) i + 1;
+        }
+      }
+      return Nil.nilObject;
+    }
+
+    @Specialization(guards = "receiver.isDoubleType()")
+    public static final Object doDouble(final SArray receiver, final long value) {
+      double[] storage = receiver.getDoubleStorage();
+      for (int i = 0; i < storage.length; i++) {
+        if (storage[i] == value) {
+          return (long) i + 1;
+        }
+      }
+      return Nil.nilObject;
+    }
+
+    @Specialization(guards = "receiver.isBooleanType()")
+    public static final Object doBoolean(final SArray receiver, final boolean value) {
+      boolean[] storage = receiver.getBooleanStorage();
+      for (int i = 0; i < storage.length; i++) {
+        if (storage[i] == value) {
+          return (long) i + 1;
+        }
+      }
+      return Nil.nilObject;
+    }
+  }
+
+  /**
+   * Compares the elements of two arrays. As for {@link IndexOfPrim}, only the numeric and
+   * boolean cases are handled directly.
+   */
+  @GenerateNodeFactory
+  @Primitive(selector = "hasEqualElements:", receiverType = SArray.class)
+  public abstract static class HasEqualElementsPrim extends BinaryMsgExprNode {
+    @Override
+    public SSymbol getSelector() {
+      return SymbolTable.symbolFor("hasEqualElements:");
+    }
+
+    @Specialization(guards = {"receiver.isLongType()", "other.isLongType()"})
+    public static final boolean doLong(final SArray receiver, final SArray other) {
+      return Arrays.equals(receiver.getLongStorage(), other.getLongStorage());
+    }
+
+    @Specialization(guards = {"receiver.isBooleanType()", "other.isBooleanType()"})
+    public static final boolean doBoolean(final SArray receiver, final SArray other) {
+      return Arrays.equals(receiver.getBooleanStorage(), other.getBooleanStorage());
+    }
+
+    @Specialization(guards = {"receiver.isDoubleType()", "other.isDoubleType()"})
+    public static final boolean doDouble(final SArray receiver, final SArray other) {
+      // not Arrays.equals(), which compares bit patterns and not the values as = does
+      double[] a = receiver.getDoubleStorage();
+      double[] b = other.getDoubleStorage();
+      if (a.length != b.length) {
+        return false;
+      }
+      for (int i = 0; i < a.length; i++) {
+        if (a[i] != b[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Specialization(guards = {"receiver.isLongType()", "other.isDoubleType()"})
+    public static final boolean doLongDouble(final SArray receiver, final SArray other) {
+      return equalValues(receiver.getLongStorage(), other.getDoubleStorage());
+    }
+
+    @Specialization(guards = {"receiver.isDoubleType()", "other.isLongType()"})
+    public static final boolean doDoubleLong(final SArray receiver, final SArray other) {
+      return equalValues(other.getLongStorage(), receiver.getDoubleStorage());
+    }
+
+    @Specialization(guards = {"receiver.isEmptyType()", "other.isEmptyType()"})
+    public static final boolean doEmpty(final SArray receiver, final SArray other) {
+      return receiver.getEmptyStorage() == other.getEmptyStorage();
+    }
+
+    private static boolean equalValues(final long[] a, final double[] b) {
+      if (a.length != b.length) {
+        return false;
+      }
+      for (int i = 0; i < a.length; i++) {
+        if (a[i] != b[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,585 @@
+package trufflesom.primitives.arrays;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.dsl.UnsupportedSpecializationException;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.profiles.InlinedBranchProfile;
+
+import trufflesom.bdt.primitives.Primitive;
+import trufflesom.interpreter.Invokable;
+import trufflesom.interpreter.nodes.nary.BinaryMsgExprNode;
+import trufflesom.interpreter.nodes.nary.TernaryMsgExprNode;
+import trufflesom.primitives.basics.BlockPrims.ValueOnePrim;
+import trufflesom.primitives.basics.BlockPrims.ValueTwoPrim;
+import trufflesom.primitives.basics.BlockPrimsFactory.ValueOnePrimFactory;
+import trufflesom.primitives.basics.BlockPrimsFactory.ValueTwoPrimFactory;
+import trufflesom.vm.SymbolTable;
+import trufflesom.vmobjects.SArray;
+import trufflesom.vmobjects.SArray.GrowableArray;
+import trufflesom.vmobjects.SBlock;
+import trufflesom.vmobjects.SSymbol;
+
+
+/**
+ * Iteration primitives in the style of {@link DoPrim}. Each has a loop per storage strategy
+ * that reads the elements without going through the generic element access, and falls back
+ * to a generic loop when the block causes a strategy transition of the receiver.
+ */
+public final class ArrayIterationPrims {
+
+  @GenerateNodeFactory
+  @Primitive(selector = "collect:", receiverType = SArray.class)
+  public abstract static class CollectPrim extends BinaryMsgExprNode {
+    @Child private ValueOnePrim block = ValueOnePrimFactory.create(null, null);
+
+    @Override
+    public SSymbol getSelector() {
+      return SymbolTable.symbolFor("collect:");
+    }
+
+    @Specialization(guards = "arr.isObjectType()")
+    public final SArray doObjectArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      Object[] storage = arr.getObjectStorage();
+      GrowableArray result = GrowableArray.createUninitialized(storage.length);
+      int i = SArray.FIRST_IDX;
+      try {
+        for (; i < storage.length; i++) {
+          result.append(this.block.executeEvaluated(frame, block, storage[i]));
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            i = collectRemaining(frame, arr, block, i + 1, result);
+            break;
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, i);
+        }
+      }
+      return SArray.createFixed(result);
+    }
+
+    @Specialization(guards = "arr.isLongType()")
+    public final SArray doLongArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      long[] storage = arr.getLongStorage();
+      GrowableArray result = GrowableArray.createUninitialized(storage.length);
+      int i = SArray.FIRST_IDX;
+      try {
+        for (; i < storage.length; i++) {
+          result.append(this.block.executeEvaluated(frame, block, storage[i]));
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            i = collectRemaining(frame, arr, block, i + 1, result);
+            break;
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, i);
+        }
+      }
+      return SArray.createFixed(result);
+    }
+
+    @Specialization(guards = "arr.isDoubleType()")
+    public final SArray doDoubleArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      double[] storage = arr.getDoubleStorage();
+      GrowableArray result = GrowableArray.createUninitialized(storage.length);
+      int i = SArray.FIRST_IDX;
+      try {
+        for (; i < storage.length; i++) {
+          result.append(this.block.executeEvaluated(frame, block, storage[i]));
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            i = collectRemaining(frame, arr, block, i + 1, result);
+            break;
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, i);
+        }
+      }
+      return SArray.createFixed(result);
+    }
+
+    @Specialization(guards = "arr.isBooleanType()")
+    public final SArray doBooleanArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      boolean[] storage = arr.getBooleanStorage();
+      GrowableArray result = GrowableArray.createUninitialized(storage.length);
+      int i = SArray.FIRST_IDX;
+      try {
+        for (; i < storage.length; i++) {
+          result.append(this.block.executeEvaluated(frame, block, storage[i]));
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            i = collectRemaining(frame, arr, block, i + 1, result);
+            break;
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, i);
+        }
+      }
+      return SArray.createFixed(result);
+    }
+
+    @Specialization(guards = {"!arr.isObjectType()", "!arr.isLongType()",
+        "!arr.isDoubleType()", "!arr.isBooleanType()"})
+    public final SArray doGenericArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block) {
+      GrowableArray result = GrowableArray.createUninitialized(arr.getLength());
+      int i = SArray.FIRST_IDX;
+      try {
+        i = collectRemaining(frame, arr, block, i, result);
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, i);
+        }
+      }
+      return SArray.createFixed(result);
+    }
+
+    private int collectRemaining(final VirtualFrame frame, final SArray arr,
+        final SBlock block, final int start, final GrowableArray result) {
+      int i = start;
+      for (; i < arr.getLength(); i++) {
+        result.append(this.block.executeEvaluated(frame, block, arr.getElement(i)));
+      }
+      return i;
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(selector = "select:", receiverType = SArray.class)
+  public abstract static class SelectPrim extends BinaryMsgExprNode {
+    @Child private ValueOnePrim block = ValueOnePrimFactory.create(null, null);
+
+    @Override
+    public SSymbol getSelector() {
+      return SymbolTable.symbolFor("select:");
+    }
+
+    @Specialization(guards = "arr.isObjectType()")
+    public final SArray doObjectArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      Object[] storage = arr.getObjectStorage();
+      GrowableArray result = GrowableArray.createUninitialized(storage.length);
+      int i = SArray.FIRST_IDX;
+      try {
+        for (; i < storage.length; i++) {
+          Object e = storage[i];
+          if (isSelected(this.block.executeEvaluated(frame, block, e))) {
+            result.append(e);
+          }
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            i = selectRemaining(frame, arr, block, i + 1, result);
+            break;
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, i);
+        }
+      }
+      return SArray.createFixed(result);
+    }
+
+    @Specialization(guards = "arr.isLongType()")
+    public final SArray doLongArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      long[] storage = arr.getLongStorage();
+      GrowableArray result = new GrowableArray(new long[storage.length], 0);
+      int i = SArray.FIRST_IDX;
+      try {
+        for (; i < storage.length; i++) {
+          long e = storage[i];
+          if (isSelected(this.block.executeEvaluated(frame, block, e))) {
+            result.appendLong(e);
+          }
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            i = selectRemaining(frame, arr, block, i + 1, result);
+            break;
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, i);
+        }
+      }
+      return SArray.createFixed(result);
+    }
+
+    @Specialization(guards = "arr.isDoubleType()")
+    public final SArray doDoubleArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      double[] storage = arr.getDoubleStorage();
+      GrowableArray result = new GrowableArray(new double[storage.length], 0);
+      int i = SArray.FIRST_IDX;
+      try {
+        for (; i < storage.length; i++) {
+          double e = storage[i];
+          if (isSelected(this.block.executeEvaluated(frame, block, e))) {
+            result.appendDouble(e);
+          }
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            i = selectRemaining(frame, arr, block, i + 1, result);
+            break;
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, i);
+        }
+      }
+      return SArray.createFixed(result);
+    }
+
+    @Specialization(guards = "arr.isBooleanType()")
+    public final SArray doBooleanArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      boolean[] storage = arr.getBooleanStorage();
+      GrowableArray result = new GrowableArray(new boolean[storage.length], 0);
+      int i = SArray.FIRST_IDX;
+      try {
+        for (; i < storage.length; i++) {
+          boolean e = storage[i];
+          if (isSelected(this.block.executeEvaluated(frame, block, e))) {
+            result.appendBoolean(e);
+          }
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            i = selectRemaining(frame, arr, block, i + 1, result);
+            break;
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, i);
+        }
+      }
+      return SArray.createFixed(result);
+    }
+
+    @Specialization(guards = {"!arr.isObjectType()", "!arr.isLongType()",
+        "!arr.isDoubleType()", "!arr.isBooleanType()"})
+    public final SArray doGenericArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block) {
+      GrowableArray result = GrowableArray.createUninitialized(arr.getLength());
+      int i = SArray.FIRST_IDX;
+      try {
+        i = selectRemaining(frame, arr, block, i, result);
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, i);
+        }
+      }
+      return SArray.createFixed(result);
+    }
+
+    private int selectRemaining(final VirtualFrame frame, final SArray arr,
+        final SBlock block, final int start, final GrowableArray result) {
+      int i = start;
+      for (; i < arr.getLength(); i++) {
+        Object e = arr.getElement(i);
+        if (isSelected(this.block.executeEvaluated(frame, block, e))) {
+          result.append(e);
+        }
+      }
+      return i;
+    }
+
+    private boolean isSelected(final Object blockResult) {
+      if (blockResult instanceof Boolean) {
+        return (boolean) blockResult;
+      }
+      CompilerDirectives.transferToInterpreter();
+      // same as for an inlined #ifTrue:, the condition has to be a boolean
+      throw new UnsupportedSpecializationException(this, new Node[] {block}, blockResult);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(selector = "inject:into:", receiverType = SArray.class)
+  public abstract static class InjectIntoPrim extends TernaryMsgExprNode {
+    @Child private ValueTwoPrim block = ValueTwoPrimFactory.create(null, null, null);
+
+    @Override
+    public SSymbol getSelector() {
+      return SymbolTable.symbolFor("inject:into:");
+    }
+
+    @Specialization(guards = "arr.isObjectType()")
+    public final Object doObjectArray(final SArray arr, final Object initial,
+        final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      Object[] storage = arr.getObjectStorage();
+      Object acc = initial;
+      int i = SArray.FIRST_IDX;
+      try {
+        for (; i < storage.length; i++) {
+          acc = this.block.executeEvaluated(block, acc, storage[i]);
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            return injectRemaining(arr, block, i + 1, acc);
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, i);
+        }
+      }
+      return acc;
+    }
+
+    @Specialization(guards = "arr.isLongType()")
+    public final Object doLongArray(final SArray arr, final Object initial,
+        final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      long[] storage = arr.getLongStorage();
+      Object acc = initial;
+      int i = SArray.FIRST_IDX;
+      try {
+        for (; i < storage.length; i++) {
+          acc = this.block.executeEvaluated(block, acc, storage[i]);
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            return injectRemaining(arr, block, i + 1, acc);
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, i);
+        }
+      }
+      return acc;
+    }
+
+    @Specialization(guards = "arr.isDoubleType()")
+    public final Object doDoubleArray(final SArray arr, final Object initial,
+        final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      double[] storage = arr.getDoubleStorage();
+      Object acc = initial;
+      int i = SArray.FIRST_IDX;
+      try {
+        for (; i < storage.length; i++) {
+          acc = this.block.executeEvaluated(block, acc, storage[i]);
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            return injectRemaining(arr, block, i + 1, acc);
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, i);
+        }
+      }
+      return acc;
+    }
+
+    @Specialization(guards = "arr.isBooleanType()")
+    public final Object doBooleanArray(final SArray arr, final Object initial,
+        final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      boolean[] storage = arr.getBooleanStorage();
+      Object acc = initial;
+      int i = SArray.FIRST_IDX;
+      try {
+        for (; i < storage.length; i++) {
+          acc = this.block.executeEvaluated(block, acc, storage[i]);
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            return injectRemaining(arr, block, i + 1, acc);
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, i);
+        }
+      }
+      return acc;
+    }
+
+    @Specialization(guards = {"!arr.isObjectType()", "!arr.isLongType()",
+        "!arr.isDoubleType()", "!arr.isBooleanType()"})
+    public final Object doGenericArray(final SArray arr, final Object initial,
+        final SBlock block) {
+      try {
+        return injectRemaining(arr, block, SArray.FIRST_IDX, initial);
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, arr.getLength());
+        }
+      }
+    }
+
+    private Object injectRemaining(final SArray arr, final SBlock block, final int start,
+        final Object initial) {
+      Object acc = initial;
+      for (int i = start; i < arr.getLength(); i++) {
+        acc = this.block.executeEvaluated(block, acc, arr.getElement(i));
+      }
+      return acc;
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(selector = "reverseDo:", receiverType = SArray.class)
+  public abstract static class ReverseDoPrim extends BinaryMsgExprNode {
+    @Child private ValueOnePrim block = ValueOnePrimFactory.create(null, null);
+
+    @Override
+    public SSymbol getSelector() {
+      return SymbolTable.symbolFor("reverseDo:");
+    }
+
+    @Specialization(guards = "arr.isObjectType()")
+    public final SArray doObjectArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      Object[] storage = arr.getObjectStorage();
+      int i = storage.length - 1;
+      try {
+        for (; i >= SArray.FIRST_IDX; i--) {
+          this.block.executeEvaluated(frame, block, storage[i]);
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            i = reverseDoRemaining(frame, arr, block, i - 1);
+            break;
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, storage.length - 1 - i);
+        }
+      }
+      return arr;
+    }
+
+    @Specialization(guards = "arr.isLongType()")
+    public final SArray doLongArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      long[] storage = arr.getLongStorage();
+      int i = storage.length - 1;
+      try {
+        for (; i >= SArray.FIRST_IDX; i--) {
+          this.block.executeEvaluated(frame, block, storage[i]);
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            i = reverseDoRemaining(frame, arr, block, i - 1);
+            break;
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, storage.length - 1 - i);
+        }
+      }
+      return arr;
+    }
+
+    @Specialization(guards = "arr.isDoubleType()")
+    public final SArray doDoubleArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      double[] storage = arr.getDoubleStorage();
+      int i = storage.length - 1;
+      try {
+        for (; i >= SArray.FIRST_IDX; i--) {
+          this.block.executeEvaluated(frame, block, storage[i]);
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            i = reverseDoRemaining(frame, arr, block, i - 1);
+            break;
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, storage.length - 1 - i);
+        }
+      }
+      return arr;
+    }
+
+    @Specialization(guards = "arr.isBooleanType()")
+    public final SArray doBooleanArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block,
+        @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
+      boolean[] storage = arr.getBooleanStorage();
+      int i = storage.length - 1;
+      try {
+        for (; i >= SArray.FIRST_IDX; i--) {
+          this.block.executeEvaluated(frame, block, storage[i]);
+          if (!arr.hasStorage(storage)) {
+            strategyChanged.enter(this);
+            i = reverseDoRemaining(frame, arr, block, i - 1);
+            break;
+          }
+        }
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, storage.length - 1 - i);
+        }
+      }
+      return arr;
+    }
+
+    @Specialization(guards = {"!arr.isObjectType()", "!arr.isLongType()",
+        "!arr.isDoubleType()", "!arr.isBooleanType()"})
+    public final SArray doGenericArray(final VirtualFrame frame,
+        final SArray arr, final SBlock block) {
+      int length = arr.getLength();
+      int i = length - 1;
+      try {
+        i = reverseDoRemaining(frame, arr, block, i);
+      } finally {
+        if (CompilerDirectives.inInterpreter()) {
+          Invokable.reportLoopCount(this, length - 1 - i);
+        }
+      }
+      return arr;
+    }
+
+    /**
+     * Generic loop, which reads the strategy and length of the array for every element.
+     * If the array shrinks, it continues with the new last element.
+     *
+     * @return the index before the last visited element
+     */
+    private int reverseDoRemaining(final VirtualFrame frame, final SArray arr,
+        final SBlock block, final int start) {
+      int i = start;
+      for (; i >= SArray.FIRST_IDX; i--) {
+        i = Math.min(i, arr.getLength() - 1);
+        if (i < SArray.FIRST_IDX) {
+          break;
+        }
+        this.block.executeEvaluated(frame, block, arr.getElement(i));
+      }
+      return i;
+    }
+  }
+}
@@ -51,4 +51,50 @@ public abstract class AtPrim extends BinaryMsgExprNode {
   public static final boolean doBooleanSArray(final SArray receiver, final long idx) {
     return receiver.getBooleanStorage()[(int) idx - 1];
   }
+
+  @Specialization(guards = "receiver.isByteType()")
+  public static final long doByteSArray(final SArray receiver, final long idx) {
+    return Byte.toUnsignedInt(receiver.getByteStorage()[(int) idx - 1]);
+  }
+
+  @Specialization(guards = "receiver.isIntType()")
+  public static final long doIntSArray(final SArray receiver, final long idx) {
+    return receiver.getIntStorage()[(int) idx - 1];
+  }
+
+  @Specialization(guards = "receiver.isCharType()")
+  public static final Object doCharSArray(final SArray receiver, final long idx) {
+    return SArray.charToString(receiver.getCharStorage()[(int) idx - 1]);
+  }
+
+  @Specialization(guards = "receiver.isSparseType()")
+  public static final Object doSparseSArray(final SArray receiver, final long idx) {
+    return receiver.getSparseStorage().get(idx - 1);
+  }
+
+  @Specialization(guards = "receiver.isCopyOnWriteType()")
+  public static final Object doCopyOnWriteSArray(final SArray receiver, final long idx) {
+    return receiver.getElement(idx - 1);
+  }
+
+  @Specialization(guards = "receiver.isGrowableLongType()")
+  public static final long doGrowableLongSArray(final SArray receiver, final long idx) {
+    return receiver.getGrowableStorage().getLong(idx - 1);
+  }
+
+  @Specialization(guards = "receiver.isGrowableDoubleType()")
+  public static final double doGrowableDoubleSArray(final SArray receiver, final long idx) {
+    return receiver.getGrowableStorage().getDouble(idx - 1);
+  }
+
+  @Specialization(guards = "receiver.isGrowableBooleanType()")
+  public static final boolean doGrowableBooleanSArray(final SArray receiver,
+      final long idx) {
+    return receiver.getGrowableStorage().getBoolean(idx - 1);
+  }
+
+  @Specialization(guards = "receiver.isGrowableType()")
+  public static final Object doGrowableSArray(final SArray receiver, final long idx) {
+    return receiver.getGrowableStorage().get(idx - 1);
+  }
 }
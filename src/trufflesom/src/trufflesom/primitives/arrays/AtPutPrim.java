@@ -3,16 +3,20 @@ package trufflesom.primitives.arrays;
 import java.util.Arrays;
 
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
 
 import trufflesom.bdt.primitives.Primitive;
 import trufflesom.interpreter.nodes.nary.TernaryExpressionNode;
+import trufflesom.vm.VmSettings;
 import trufflesom.vm.constants.Nil;
 import trufflesom.vmobjects.SArray;
 import trufflesom.vmobjects.SArray.PartiallyEmptyArray;
 
 
 @GenerateNodeFactory
+@ImportStatic(SArray.class)
 @Primitive(className = "Array", primitive = "at:put:", selector = "at:put:",
     receiverType = SArray.class, inParser = false)
 public abstract class AtPutPrim extends TernaryExpressionNode {
@@ -43,6 +47,17 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
         !(value instanceof Boolean);
   }
 
+  protected static final boolean valueIsCompactChar(final Object value) {
+    return VmSettings.UseCompactArrays && SArray.isCharValue(value);
+  }
+
+  @Specialization(guards = {"receiver.isSparseCandidate()", "valueIsNotNil(value)"})
+  public static final Object doEmptyToSparseSArray(final SArray receiver, final long index,
+      final Object value) {
+    receiver.transitionFromEmptyToSparseWith(index - 1, value);
+    return value;
+  }
+
   @Specialization(guards = {"receiver.isEmptyType()"})
   public static final long doEmptySArray(final SArray receiver, final long index,
       final long value) {
@@ -76,6 +91,17 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
     return value;
   }
 
+  @Specialization(guards = {"receiver.isEmptyType()", "valueIsCompactChar(value)"})
+  public static final Object doEmptySArrayWithChar(final SArray receiver, final long index,
+      final String value) {
+    long idx = index - 1;
+    assert idx >= 0;
+    assert idx < receiver.getEmptyStorage();
+
+    receiver.transitionFromEmptyToPartiallyEmptyWithChar(idx, value);
+    return value;
+  }
+
   @Specialization(guards = {"receiver.isEmptyType()", "valueIsNotNil(value)",
       "valueNotLongDoubleBoolean(value)"})
   public static final Object doEmptySArray(final SArray receiver, final long index,
@@ -150,6 +176,13 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
     return value;
   }
 
+  @Specialization(guards = {"receiver.isPartiallyEmptyType()", "valueIsCompactChar(value)"})
+  public static final Object doPartiallyEmptySArrayWithChar(final SArray receiver,
+      final long index, final String value) {
+    setAndPossiblyTransition(receiver, index, value, PartiallyEmptyArray.Type.CHAR);
+    return value;
+  }
+
   @Specialization(guards = {"receiver.isPartiallyEmptyType()", "valueIsNotNil(value)"})
   public static final Object doPartiallyEmptySArray(final SArray receiver,
       final long index, final Object value) {
@@ -161,6 +194,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   public static final Object doObjectSArray(final SArray receiver, final long index,
       final Object value) {
     long idx = index - 1;
+    receiver.ensureOwnStorage();
     receiver.getObjectStorage()[(int) idx] = value;
     return value;
   }
@@ -169,6 +203,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   public static final Object doObjectSArray(final SArray receiver, final long index,
       final long value) {
     long idx = index - 1;
+    receiver.ensureOwnStorage();
     receiver.getLongStorage()[(int) idx] = value;
     return value;
   }
@@ -189,6 +224,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   public static final Object doDoubleSArray(final SArray receiver, final long index,
       final double value) {
     long idx = index - 1;
+    receiver.ensureOwnStorage();
     receiver.getDoubleStorage()[(int) idx] = value;
     return value;
   }
@@ -209,6 +245,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   public static final Object doBooleanSArray(final SArray receiver, final long index,
       final boolean value) {
     long idx = index - 1;
+    receiver.ensureOwnStorage();
     receiver.getBooleanStorage()[(int) idx] = value;
     return value;
   }
@@ -225,6 +262,111 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
     return transitionAndSet(receiver, index, value, newStorage);
   }
 
+  @Specialization(guards = {"receiver.isByteType()", "isByteValue(value)"})
+  public static final long doByteSArray(final SArray receiver, final long index,
+      final long value) {
+    receiver.ensureOwnStorage();
+    receiver.getByteStorage()[(int) index - 1] = (byte) value;
+    return value;
+  }
+
+  @Specialization(guards = {"receiver.isByteType()", "!isByteValue(value)"})
+  public static final long doByteSArrayOverflow(final SArray receiver, final long index,
+      final long value) {
+    if (SArray.isIntValue(value)) {
+      receiver.transitionFromByteToInt()[(int) index - 1] = (int) value;
+    } else {
+      receiver.transitionToLong()[(int) index - 1] = value;
+    }
+    return value;
+  }
+
+  @Specialization(guards = {"receiver.isByteType()", "valueIsNotLong(value)"})
+  public static final Object doByteSArray(final SArray receiver, final long index,
+      final Object value) {
+    receiver.transitionToObject()[(int) index - 1] = value;
+    return value;
+  }
+
+  @Specialization(guards = {"receiver.isIntType()", "isIntValue(value)"})
+  public static final long doIntSArray(final SArray receiver, final long index,
+      final long value) {
+    receiver.ensureOwnStorage();
+    receiver.getIntStorage()[(int) index - 1] = (int) value;
+    return value;
+  }
+
+  @Specialization(guards = {"receiver.isIntType()", "!isIntValue(value)"})
+  public static final long doIntSArrayOverflow(final SArray receiver, final long index,
+      final long value) {
+    receiver.transitionToLong()[(int) index - 1] = value;
+    return value;
+  }
+
+  @Specialization(guards = {"receiver.isIntType()", "valueIsNotLong(value)"})
+  public static final Object doIntSArray(final SArray receiver, final long index,
+      final Object value) {
+    receiver.transitionToObject()[(int) index - 1] = value;
+    return value;
+  }
+
+  @Specialization(guards = {"receiver.isCharType()", "isCharValue(value)"})
+  public static final Object doCharSArray(final SArray receiver, final long index,
+      final String value) {
+    receiver.ensureOwnStorage();
+    receiver.getCharStorage()[(int) index - 1] = value.charAt(0);
+    return value;
+  }
+
+  @Specialization(guards = {"receiver.isCharType()", "!isCharValue(value)"})
+  public static final Object doCharSArray(final SArray receiver, final long index,
+      final Object value) {
+    receiver.transitionToObject()[(int) index - 1] = value;
+    return value;
+  }
+
+  @Specialization(guards = "receiver.isSparseType()")
+  public static final Object doSparseSArray(final SArray receiver, final long index,
+      final Object value) {
+    receiver.setSparse(index - 1, value);
+    return value;
+  }
+
+  @Specialization(guards = "receiver.isCopyOnWriteType()")
+  public final Object doCopyOnWriteSArray(final VirtualFrame frame, final SArray receiver,
+      final long index, final Object value) {
+    receiver.materializeCopyOnWrite();
+    return executeEvaluated(frame, receiver, index, value);
+  }
+
+  @Specialization(guards = "receiver.isGrowableLongType()")
+  public static final long doGrowableSArray(final SArray receiver, final long index,
+      final long value) {
+    receiver.getGrowableStorage().setLong(index - 1, value);
+    return value;
+  }
+
+  @Specialization(guards = "receiver.isGrowableDoubleType()")
+  public static final double doGrowableSArray(final SArray receiver, final long index,
+      final double value) {
+    receiver.getGrowableStorage().setDouble(index - 1, value);
+    return value;
+  }
+
+  @Specialization(guards = "receiver.isGrowableBooleanType()")
+  public static final boolean doGrowableSArray(final SArray receiver, final long index,
+      final boolean value) {
+    receiver.getGrowableStorage().setBoolean(index - 1, value);
+    return value;
+  }
+
+  @Specialization(guards = "receiver.isGrowableType()")
+  public static final Object doGrowableSArray(final SArray receiver, final long index,
+      final Object value) {
+    receiver.getGrowableStorage().set(index - 1, value);
+    return value;
+  }
+
   private static Object transitionAndSet(final SArray receiver, final long index,
       final Object value,
       final Object[] newStorage) {
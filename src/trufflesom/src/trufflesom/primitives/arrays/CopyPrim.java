@@ -11,6 +11,11 @@ import trufflesom.vmobjects.SArray;
 @GenerateNodeFactory
 @Primitive(className = "Array", primitive = "copy")
 public abstract class CopyPrim extends UnaryExpressionNode {
+  @Specialization(guards = "receiver.isCopyOnWriteCandidate()")
+  public final SArray doCopyOnWrite(final SArray receiver) {
+    return receiver.copyOnWrite();
+  }
+
   @Specialization(guards = "receiver.isEmptyType()")
   public final SArray doEmptyArray(final SArray receiver) {
     return new SArray(receiver.getEmptyStorage());
@@ -41,4 +46,29 @@ public abstract class CopyPrim extends UnaryExpressionNode {
   public final SArray doBooleanArray(final SArray receiver) {
     return SArray.create(receiver.getBooleanStorage().clone());
   }
+
+  @Specialization(guards = "receiver.isByteType()")
+  public final SArray doByteArray(final SArray receiver) {
+    return SArray.create(receiver.getByteStorage().clone());
+  }
+
+  @Specialization(guards = "receiver.isIntType()")
+  public final SArray doIntArray(final SArray receiver) {
+    return SArray.create(receiver.getIntStorage().clone());
+  }
+
+  @Specialization(guards = "receiver.isCharType()")
+  public final SArray doCharArray(final SArray receiver) {
+    return SArray.create(receiver.getCharStorage().clone());
+  }
+
+  @Specialization(guards = "receiver.isSparseType()")
+  public final SArray doSparseArray(final SArray receiver) {
+    return new SArray(receiver.getSparseStorage().copy());
+  }
+
+  @Specialization(guards = "receiver.isGrowableType()")
+  public final SArray doGrowableArray(final SArray receiver) {
+    return new SArray(receiver.getGrowableStorage().copy());
+  }
 }
@@ -1,12 +1,12 @@
 package trufflesom.primitives.arrays;
 
-import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
-import com.oracle.truffle.api.nodes.Node;
-import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.profiles.InlinedBranchProfile;
 
 import trufflesom.bdt.primitives.Primitive;
 import trufflesom.interpreter.Invokable;
@@ -20,10 +20,17 @@ import trufflesom.vmobjects.SArray.PartiallyEmptyArray;
 import trufflesom.vmobjects.SBlock;
 import trufflesom.vmobjects.SSymbol;
 
-
+/**
+ * Iterates over the elements of an array, reading them directly from the strategy's storage.
+ *
+ * <p>
+ * The block may change the array while it is iterated. When a strategy transition replaces
+ * the storage, the loop continues on the generic path, which reads the current storage and
+ * length for every element, the same way the SOM-level implementation of do: would.
+ */
 @GenerateNodeFactory
 @Primitive(className = "Array", primitive = "do:", selector = "do:",
-    receiverType = SArray.class, disabled = true)
+    receiverType = SArray.class)
 public abstract class DoPrim extends BinaryMsgExprNode {
   @Child private ValueOnePrim block = ValueOnePrimFactory.create(null, null);
 
@@ -34,18 +41,22 @@ public abstract class DoPrim extends BinaryMsgExprNode {
 
   @Specialization(guards = "arr.isEmptyType()")
   public final SArray doEmptyArray(final VirtualFrame frame,
-      final SArray arr, final SBlock block) {
+      final SArray arr, final SBlock block,
+      @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
     int length = arr.getEmptyStorage();
+    int i = SArray.FIRST_IDX;
     try {
-      if (SArray.FIRST_IDX < length) {
-        this.block.executeEvaluated(frame, block, Nil.nilObject);
-      }
-      for (long i = SArray.FIRST_IDX + 1; i < length; i++) {
+      for (; i < length; i++) {
         this.block.executeEvaluated(frame, block, Nil.nilObject);
+        if (!arr.isEmptyType()) {
+          strategyChanged.enter(this);
+          i = doRemaining(frame, arr, block, i + 1);
+          break;
+        }
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(length);
+        Invokable.reportLoopCount(this, i);
       }
     }
     return arr;
@@ -53,19 +64,23 @@ public abstract class DoPrim extends BinaryMsgExprNode {
 
   @Specialization(guards = "arr.isPartiallyEmptyType()")
   public final SArray doPartiallyEmptyArray(final VirtualFrame frame,
-      final SArray arr, final SBlock block) {
+      final SArray arr, final SBlock block,
+      @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
     PartiallyEmptyArray storage = arr.getPartiallyEmptyStorage();
     int length = storage.getLength();
+    int i = SArray.FIRST_IDX;
     try {
-      if (SArray.FIRST_IDX < length) {
-        this.block.executeEvaluated(frame, block, storage.get(SArray.FIRST_IDX));
-      }
-      for (long i = SArray.FIRST_IDX + 1; i < length; i++) {
+      for (; i < length; i++) {
         this.block.executeEvaluated(frame, block, storage.get(i));
+        if (!arr.hasStorage(storage)) {
+          strategyChanged.enter(this);
+          i = doRemaining(frame, arr, block, i + 1);
+          break;
+        }
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(length);
+        Invokable.reportLoopCount(this, i);
       }
     }
     return arr;
@@ -73,19 +88,22 @@ public abstract class DoPrim extends BinaryMsgExprNode {
 
   @Specialization(guards = "arr.isObjectType()")
   public final SArray doObjectArray(final VirtualFrame frame,
-      final SArray arr, final SBlock block) {
+      final SArray arr, final SBlock block,
+      @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
     Object[] storage = arr.getObjectStorage();
-    int length = storage.length;
+    int i = SArray.FIRST_IDX;
     try {
-      if (SArray.FIRST_IDX < length) {
-        this.block.executeEvaluated(frame, block, storage[SArray.FIRST_IDX]);
-      }
-      for (long i = SArray.FIRST_IDX + 1; i < length; i++) {
-        this.block.executeEvaluated(frame, block, storage[(int) i]);
+      for (; i < storage.length; i++) {
+        this.block.executeEvaluated(frame, block, storage[i]);
+        if (!arr.hasStorage(storage)) {
+          strategyChanged.enter(this);
+          i = doRemaining(frame, arr, block, i + 1);
+          break;
+        }
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(length);
+        Invokable.reportLoopCount(this, i);
       }
     }
     return arr;
@@ -93,19 +111,22 @@ public abstract class DoPrim extends BinaryMsgExprNode {
 
   @Specialization(guards = "arr.isLongType()")
   public final SArray doLongArray(final VirtualFrame frame,
-      final SArray arr, final SBlock block) {
+      final SArray arr, final SBlock block,
+      @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
     long[] storage = arr.getLongStorage();
-    int length = storage.length;
+    int i = SArray.FIRST_IDX;
     try {
-      if (SArray.FIRST_IDX < length) {
-        this.block.executeEvaluated(frame, block, storage[SArray.FIRST_IDX]);
-      }
-      for (long i = SArray.FIRST_IDX + 1; i < length; i++) {
-        this.block.executeEvaluated(frame, block, storage[(int) i]);
+      for (; i < storage.length; i++) {
+        this.block.executeEvaluated(frame, block, storage[i]);
+        if (!arr.hasStorage(storage)) {
+          strategyChanged.enter(this);
+          i = doRemaining(frame, arr, block, i + 1);
+          break;
+        }
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(length);
+        Invokable.reportLoopCount(this, i);
       }
     }
     return arr;
@@ -113,19 +134,22 @@ public abstract class DoPrim extends BinaryMsgExprNode {
 
   @Specialization(guards = "arr.isDoubleType()")
   public final SArray doDoubleArray(final VirtualFrame frame,
-      final SArray arr, final SBlock block) {
+      final SArray arr, final SBlock block,
+      @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
     double[] storage = arr.getDoubleStorage();
-    int length = storage.length;
+    int i = SArray.FIRST_IDX;
     try {
-      if (SArray.FIRST_IDX < length) {
-        this.block.executeEvaluated(frame, block, storage[SArray.FIRST_IDX]);
-      }
-      for (long i = SArray.FIRST_IDX + 1; i < length; i++) {
-        this.block.executeEvaluated(frame, block, storage[(int) i]);
+      for (; i < storage.length; i++) {
+        this.block.executeEvaluated(frame, block, storage[i]);
+        if (!arr.hasStorage(storage)) {
+          strategyChanged.enter(this);
+          i = doRemaining(frame, arr, block, i + 1);
+          break;
+        }
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(length);
+        Invokable.reportLoopCount(this, i);
       }
     }
     return arr;
@@ -133,36 +157,54 @@ public abstract class DoPrim extends BinaryMsgExprNode {
 
   @Specialization(guards = "arr.isBooleanType()")
   public final SArray doBooleanArray(final VirtualFrame frame,
-      final SArray arr, final SBlock block) {
+      final SArray arr, final SBlock block,
+      @Shared("strategyChanged") @Cached final InlinedBranchProfile strategyChanged) {
     boolean[] storage = arr.getBooleanStorage();
-    int length = storage.length;
+    int i = SArray.FIRST_IDX;
     try {
-      if (SArray.FIRST_IDX < length) {
-        this.block.executeEvaluated(frame, block, storage[SArray.FIRST_IDX]);
-      }
-      for (long i = SArray.FIRST_IDX + 1; i < length; i++) {
-        this.block.executeEvaluated(frame, block, storage[(int) i]);
+      for (; i < storage.length; i++) {
+        this.block.executeEvaluated(frame, block, storage[i]);
+        if (!arr.hasStorage(storage)) {
+          strategyChanged.enter(this);
+          i = doRemaining(frame, arr, block, i + 1);
+          break;
+        }
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(length);
+        Invokable.reportLoopCount(this, i);
       }
     }
     return arr;
   }
 
-  protected final void reportLoopCount(final long count) {
-    if (count == 0) {
-      return;
+  @Specialization(guards = {"!arr.isEmptyType()", "!arr.isPartiallyEmptyType()",
+      "!arr.isObjectType()", "!arr.isLongType()", "!arr.isDoubleType()",
+      "!arr.isBooleanType()"})
+  public final SArray doGenericArray(final VirtualFrame frame,
+      final SArray arr, final SBlock block) {
+    int i = SArray.FIRST_IDX;
+    try {
+      i = doRemaining(frame, arr, block, i);
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, i);
+      }
     }
+    return arr;
+  }
 
-    CompilerAsserts.neverPartOfCompilation("reportLoopCount");
-    Node current = getParent();
-    while (current != null && !(current instanceof RootNode)) {
-      current = current.getParent();
-    }
-    if (current != null) {
-      ((Invokable) current).propagateLoopCountThroughoutLexicalScope(count);
+  /**
+   * Generic loop, which reads the strategy and length of the array for every element.
+   *
+   * @return the index after the last element
+   */
+  private int doRemaining(final VirtualFrame frame, final SArray arr, final SBlock block,
+      final int start) {
+    int i = start;
+    for (; i < arr.getLength(); i++) {
+      this.block.executeEvaluated(frame, block, arr.getElement(i));
     }
+    return i;
   }
 }
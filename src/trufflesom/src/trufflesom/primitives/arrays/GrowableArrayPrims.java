@@ -0,0 +1,106 @@
+package trufflesom.primitives.arrays;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+
+import trufflesom.bdt.primitives.Primitive;
+import trufflesom.interpreter.nodes.nary.BinaryMsgExprNode;
+import trufflesom.interpreter.nodes.nary.UnaryMsgExprNode;
+import trufflesom.vm.SymbolTable;
+import trufflesom.vmobjects.SAbstractObject;
+import trufflesom.vmobjects.SArray;
+import trufflesom.vmobjects.SArray.GrowableArray;
+import trufflesom.vmobjects.SSymbol;
+
+
+/**
+ * Primitives to grow and shrink arrays at their end. The first use transitions an array to
+ * the GROWABLE strategy, which keeps a capacity separate from the array's size so that
+ * appends are amortized O(1), and long, double, and boolean elements remain unboxed.
+ */
+public final class GrowableArrayPrims {
+
+  @GenerateNodeFactory
+  @Primitive(selector = "append:", receiverType = SArray.class, inParser = false)
+  public abstract static class AppendPrim extends BinaryMsgExprNode {
+    @Override
+    public SSymbol getSelector() {
+      return SymbolTable.symbolFor("append:");
+    }
+
+    @Specialization(guards = "receiver.isGrowableLongType()")
+    public static final long doLong(final SArray receiver, final long value) {
+      receiver.getGrowableStorage().appendLong(value);
+      return value;
+    }
+
+    @Specialization(guards = "receiver.isGrowableDoubleType()")
+    public static final double doDouble(final SArray receiver, final double value) {
+      receiver.getGrowableStorage().appendDouble(value);
+      return value;
+    }
+
+    @Specialization(guards = "receiver.isGrowableBooleanType()")
+    public static final boolean doBoolean(final SArray receiver, final boolean value) {
+      receiver.getGrowableStorage().appendBoolean(value);
+      return value;
+    }
+
+    @Specialization(guards = "receiver.isGrowableType()")
+    public static final Object doGrowable(final SArray receiver, final Object value) {
+      receiver.getGrowableStorage().append(value);
+      return value;
+    }
+
+    @Specialization(guards = "!receiver.isGrowableType()")
+    public static final Object doFixed(final SArray receiver, final Object value) {
+      receiver.transitionToGrowable(0).append(value);
+      return value;
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(selector = "removeLast", receiverType = SArray.class, inParser = false)
+  public abstract static class RemoveLastPrim extends UnaryMsgExprNode {
+    @Override
+    public SSymbol getSelector() {
+      return SymbolTable.symbolFor("removeLast");
+    }
+
+    @Specialization(guards = "receiver.isGrowableType()")
+    public static final Object doGrowable(final SArray receiver) {
+      GrowableArray arr = receiver.getGrowableStorage();
+      if (arr.getSize() == 0) {
+        return SAbstractObject.sendError(receiver, "Cannot remove from an empty array");
+      }
+      return arr.removeLast();
+    }
+
+    @Specialization(guards = "!receiver.isGrowableType()")
+    public static final Object doFixed(final SArray receiver) {
+      receiver.transitionToGrowable(0);
+      return doGrowable(receiver);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(selector = "ensureCapacity:", receiverType = SArray.class, inParser = false)
+  public abstract static class EnsureCapacityPrim extends BinaryMsgExprNode {
+    @Override
+    public SSymbol getSelector() {
+      return SymbolTable.symbolFor("ensureCapacity:");
+    }
+
+    @Specialization
+    public static final Object doSArray(final SArray receiver, final long capacity) {
+      if (capacity < 0 || capacity > GrowableArray.MAX_CAPACITY) {
+        CompilerDirectives.transferToInterpreter();
+        return SAbstractObject.sendError(receiver,
+            "Capacity " + capacity + " is not between 0 and " + GrowableArray.MAX_CAPACITY);
+      }
+      receiver.transitionToGrowable((int) capacity);
+      return receiver;
+    }
+  }
+}
@@ -1,14 +1,11 @@
 package trufflesom.primitives.arrays;
 
-import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.dsl.Fallback;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
-import com.oracle.truffle.api.nodes.Node;
-import com.oracle.truffle.api.nodes.RootNode;
 
 import trufflesom.bdt.primitives.Primitive;
 import trufflesom.interpreter.Invokable;
@@ -20,12 +17,12 @@ import trufflesom.primitives.basics.LengthPrimFactory;
 import trufflesom.vm.SymbolTable;
 import trufflesom.vm.constants.Nil;
 import trufflesom.vmobjects.SArray;
+import trufflesom.vmobjects.SArray.GrowableArray;
 import trufflesom.vmobjects.SBlock;
 import trufflesom.vmobjects.SObject;
 
-
 @GenerateNodeFactory
-@Primitive(className = "Array", primitive = "putAll:", selector = "putAll:", disabled = true,
+@Primitive(className = "Array", primitive = "putAll:", selector = "putAll:",
     extraChild = LengthPrimFactory.class)
 @NodeChild(value = "length", type = LengthPrim.class, executeWith = "receiver")
 public abstract class PutAllNode extends BinaryExpressionNode {
@@ -56,88 +53,29 @@ public abstract class PutAllNode extends BinaryExpressionNode {
     return rcvr;
   }
 
-  private void evalBlockForRemaining(final VirtualFrame frame,
-      final SBlock block, final long length, final Object[] storage) {
-    for (int i = SArray.FIRST_IDX + 1; i < length; i++) {
-      storage[i] = this.block.executeEvaluated(frame, block);
-    }
-  }
-
-  private void evalBlockForRemaining(final VirtualFrame frame,
-      final SBlock block, final long length, final long[] storage) {
-    for (int i = SArray.FIRST_IDX + 1; i < length; i++) {
-      storage[i] = (long) this.block.executeEvaluated(frame, block);
-    }
-  }
-
-  private void evalBlockForRemaining(final VirtualFrame frame,
-      final SBlock block, final long length, final double[] storage) {
-    for (int i = SArray.FIRST_IDX + 1; i < length; i++) {
-      storage[i] = (double) this.block.executeEvaluated(frame, block);
-    }
-  }
-
-  private void evalBlockForRemaining(final VirtualFrame frame,
-      final SBlock block, final long length, final boolean[] storage) {
-    for (int i = SArray.FIRST_IDX + 1; i < length; i++) {
-      storage[i] = (boolean) this.block.executeEvaluated(frame, block);
-    }
-  }
-
   @Specialization
   public SArray doPutEvalBlock(final VirtualFrame frame, final SArray rcvr,
       final SBlock block, final long length) {
     if (length <= 0) {
       return rcvr;
     }
-    // TODO: this version does not handle the case that a subsequent value is not of the
-    // expected type...
+
+    // the first result determines the storage type, and a later result that does not fit
+    // generalizes it, which keeps the values unboxed as long as they are of the same type
+    GrowableArray values = GrowableArray.createUninitialized((int) length);
     try {
-      Object result = this.block.executeEvaluated(frame, block);
-      if (result instanceof Long) {
-        long[] newStorage = new long[(int) length];
-        newStorage[0] = (long) result;
-        evalBlockForRemaining(frame, block, length, newStorage);
-        rcvr.transitionTo(newStorage);
-      } else if (result instanceof Double) {
-        double[] newStorage = new double[(int) length];
-        newStorage[0] = (double) result;
-        evalBlockForRemaining(frame, block, length, newStorage);
-        rcvr.transitionTo(newStorage);
-      } else if (result instanceof Boolean) {
-        boolean[] newStorage = new boolean[(int) length];
-        newStorage[0] = (boolean) result;
-        evalBlockForRemaining(frame, block, length, newStorage);
-        rcvr.transitionTo(newStorage);
-      } else {
-        Object[] newStorage = new Object[(int) length];
-        newStorage[0] = result;
-        evalBlockForRemaining(frame, block, length, newStorage);
-        rcvr.transitionTo(newStorage);
+      for (int i = SArray.FIRST_IDX; i < length; i++) {
+        values.append(this.block.executeEvaluated(frame, block));
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(length);
+        Invokable.reportLoopCount(this, values.getSize());
       }
     }
+    rcvr.transitionTo(values.toFixedStorage());
     return rcvr;
   }
 
-  protected final void reportLoopCount(final long count) {
-    if (count == 0) {
-      return;
-    }
-
-    CompilerAsserts.neverPartOfCompilation("reportLoopCount");
-    Node current = getParent();
-    while (current != null && !(current instanceof RootNode)) {
-      current = current.getParent();
-    }
-    if (current != null) {
-      ((Invokable) current).propagateLoopCountThroughoutLexicalScope(count);
-    }
-  }
-
   @Specialization
   public SArray doPutLong(final SArray rcvr, final long value,
       final long length) {
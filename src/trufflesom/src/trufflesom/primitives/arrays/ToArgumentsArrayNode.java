@@ -13,6 +13,7 @@ import com.oracle.truffle.api.instrumentation.ProbeNode;
 import trufflesom.interpreter.nodes.NoPreEvalExprNode;
 import trufflesom.vm.constants.Nil;
 import trufflesom.vmobjects.SArray;
+import trufflesom.vmobjects.SArray.GrowableArray;
 
 
 @GenerateNodeFactory
@@ -98,6 +99,65 @@ public abstract class ToArgumentsArrayNode extends NoPreEvalExprNode {
     return args;
   }
 
+  @Specialization(guards = "somArray.isByteType()")
+  public final Object[] doByteArray(final SArray somArray,
+      final Object rcvr) {
+    byte[] arr = somArray.getByteStorage();
+    Object[] args = new Object[arr.length + 1];
+    args[0] = rcvr;
+    for (int i = 0; i < arr.length; i++) {
+      args[i + 1] = (long) Byte.toUnsignedInt(arr[i]);
+    }
+    return args;
+  }
+
+  @Specialization(guards = "somArray.isIntType()")
+  public final Object[] doIntArray(final SArray somArray,
+      final Object rcvr) {
+    int[] arr = somArray.getIntStorage();
+    Object[] args = new Object[arr.length + 1];
+    args[0] = rcvr;
+    for (int i = 0; i < arr.length; i++) {
+      args[i + 1] = (long) arr[i];
+    }
+    return args;
+  }
+
+  @Specialization(guards = "somArray.isCharType()")
+  public final Object[] doCharArray(final SArray somArray,
+      final Object rcvr) {
+    char[] arr = somArray.getCharStorage();
+    Object[] args = new Object[arr.length + 1];
+    args[0] = rcvr;
+    for (int i = 0; i < arr.length; i++) {
+      args[i + 1] = SArray.charToString(arr[i]);
+    }
+    return args;
+  }
+
+  @Specialization(guards = "somArray.isSparseType() || somArray.isCopyOnWriteType()")
+  public final Object[] doGenericArray(final SArray somArray,
+      final Object rcvr) {
+    Object[] args = new Object[somArray.getLength() + 1];
+    args[0] = rcvr;
+    for (int i = 0; i < args.length - 1; i++) {
+      args[i + 1] = somArray.getElement(i);
+    }
+    return args;
+  }
+
+  @Specialization(guards = "somArray.isGrowableType()")
+  public final Object[] doGrowableArray(final SArray somArray,
+      final Object rcvr) {
+    GrowableArray arr = somArray.getGrowableStorage();
+    Object[] args = new Object[arr.getSize() + 1];
+    args[0] = rcvr;
+    for (int i = 0; i < arr.getSize(); i++) {
+      args[i + 1] = arr.get(i);
+    }
+    return args;
+  }
+
   @Override
   public WrapperNode createWrapper(final ProbeNode probe) {
     return new ToArgumentsArrayNodeWrapper(this, probe);
@@ -10,6 +10,7 @@ import trufflesom.bdt.primitives.Primitive;
 import trufflesom.interpreter.nodes.nary.BinaryMsgExprNode;
 import trufflesom.vm.SymbolTable;
 import trufflesom.vmobjects.SObject;
+import trufflesom.vmobjects.SRope;
 import trufflesom.vmobjects.SSymbol;
 
 
@@ -55,6 +56,11 @@ public abstract class EqualsPrim extends BinaryMsgExprNode {
     return false;
   }
 
+  @Specialization
+  public static final boolean doLong(final long left, final SRope right) {
+    return false;
+  }
+
   @Specialization
   public static final boolean doLong(final long left, final SObject right) {
     return false;
@@ -98,6 +104,11 @@ public abstract class EqualsPrim extends BinaryMsgExprNode {
     return receiver.equals(argument);
   }
 
+  @Specialization
+  public static final boolean doString(final String receiver, final SRope argument) {
+    return argument.sameCharsAs(receiver);
+  }
+
   @Specialization
   public static final boolean doString(final String receiver, final SSymbol argument) {
     return receiver.equals(argument.getString());
@@ -123,6 +134,11 @@ public abstract class EqualsPrim extends BinaryMsgExprNode {
     return receiver.getString().equals(argument);
   }
 
+  @Specialization
+  public static final boolean doSSymbol(final SSymbol receiver, final SRope argument) {
+    return argument.sameCharsAs(receiver);
+  }
+
   @Specialization
   public static final boolean doSSymbol(final SSymbol receiver, final long argument) {
     return false;
@@ -132,4 +148,9 @@ public abstract class EqualsPrim extends BinaryMsgExprNode {
   public static final boolean doSSymbol(final SSymbol receiver, final SObject argument) {
     return false;
   }
+
+  @Specialization
+  public static final boolean doRope(final SRope receiver, final Object argument) {
+    return receiver.sameCharsAs(argument);
+  }
 }
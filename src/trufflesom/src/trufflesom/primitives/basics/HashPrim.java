@@ -7,6 +7,7 @@ import com.oracle.truffle.api.dsl.Specialization;
 import trufflesom.bdt.primitives.Primitive;
 import trufflesom.interpreter.nodes.nary.UnaryExpressionNode;
 import trufflesom.vmobjects.SAbstractObject;
+import trufflesom.vmobjects.SRope;
 import trufflesom.vmobjects.SSymbol;
 
 
@@ -19,6 +20,11 @@ public abstract class HashPrim extends UnaryExpressionNode {
     return receiver.hashCode();
   }
 
+  @Specialization
+  public final long doRope(final SRope receiver) {
+    return doString(receiver.flatten());
+  }
+
   @Specialization
   @TruffleBoundary
   public final long doSSymbol(final SSymbol receiver) {
@@ -26,8 +32,7 @@ public abstract class HashPrim extends UnaryExpressionNode {
   }
 
   @Specialization
-  @TruffleBoundary
   public final long doSAbstractObject(final SAbstractObject receiver) {
-    return receiver.hashCode();
+    return receiver.getIdentityHash();
   }
 }
@@ -21,6 +21,7 @@ import trufflesom.vm.Classes;
 import trufflesom.vm.SymbolTable;
 import trufflesom.vmobjects.SArray;
 import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SRope;
 import trufflesom.vmobjects.SSymbol;
 
 
@@ -124,6 +125,11 @@ public abstract class IntegerPrims {
     public static final Object doSymbol(final SClass receiver, final SSymbol argument) {
       return doString(receiver, argument.getString());
     }
+
+    @Specialization(guards = "receiver == integerClass")
+    public static final Object doRope(final SClass receiver, final SRope argument) {
+      return doString(receiver, argument.flatten());
+    }
   }
 
   @GenerateNodeFactory
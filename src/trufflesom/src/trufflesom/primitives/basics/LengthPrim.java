@@ -9,6 +9,7 @@ import com.oracle.truffle.api.instrumentation.ProbeNode;
 import trufflesom.bdt.primitives.Primitive;
 import trufflesom.interpreter.nodes.nary.UnaryExpressionNode;
 import trufflesom.vmobjects.SArray;
+import trufflesom.vmobjects.SRope;
 import trufflesom.vmobjects.SSymbol;
 
 
@@ -16,8 +17,8 @@ import trufflesom.vmobjects.SSymbol;
 @GenerateWrapper
 @Primitive(className = "Array", primitive = "length")
 @Primitive(className = "String", primitive = "length")
-@Primitive(selector = "length", receiverType = {String.class, SArray.class, SSymbol.class},
-    inParser = false)
+@Primitive(selector = "length",
+    receiverType = {String.class, SRope.class, SArray.class, SSymbol.class}, inParser = false)
 public abstract class LengthPrim extends UnaryExpressionNode {
 
   @Specialization(guards = "receiver.isEmptyType()")
@@ -50,8 +51,43 @@ public abstract class LengthPrim extends UnaryExpressionNode {
     return receiver.getBooleanStorage().length;
   }
 
+  @Specialization(guards = "receiver.isByteType()")
+  public static final long doByteSArray(final SArray receiver) {
+    return receiver.getByteStorage().length;
+  }
+
+  @Specialization(guards = "receiver.isIntType()")
+  public static final long doIntSArray(final SArray receiver) {
+    return receiver.getIntStorage().length;
+  }
+
+  @Specialization(guards = "receiver.isCharType()")
+  public static final long doCharSArray(final SArray receiver) {
+    return receiver.getCharStorage().length;
+  }
+
+  @Specialization(guards = "receiver.isSparseType()")
+  public static final long doSparseSArray(final SArray receiver) {
+    return receiver.getSparseStorage().getLength();
+  }
+
+  @Specialization(guards = "receiver.isCopyOnWriteType()")
+  public static final long doCopyOnWriteSArray(final SArray receiver) {
+    return receiver.getLength();
+  }
+
+  @Specialization(guards = "receiver.isGrowableType()")
+  public static final long doGrowableSArray(final SArray receiver) {
+    return receiver.getGrowableStorage().getSize();
+  }
+
   public abstract long executeEvaluated(VirtualFrame frame, SArray receiver);
 
+  @Specialization
+  public static final long doRope(final SRope receiver) {
+    return receiver.length();
+  }
+
   @Specialization
   public static final long doString(final String receiver) {
     return receiver.length();
@@ -25,12 +25,12 @@ public abstract class NewObjectPrim extends UnaryExpressionNode {
       guards = "layout.layoutForSameClass(receiver)", limit = "LIMIT")
   public final SAbstractObject doCached(final SClass receiver,
       @Cached("receiver.getLayoutForInstances()") final ObjectLayout layout) {
-    return new SObject(receiver, layout);
+    return SObject.create(receiver, layout);
   }
 
   @Specialization(replaces = "doCached")
   public final SAbstractObject doUncached(final SClass receiver) {
-    return new SObject(receiver);
+    return SObject.create(receiver);
   }
 
   @Override
@@ -1,7 +1,5 @@
 package trufflesom.primitives.basics;
 
-import static trufflesom.vm.SymbolTable.symbolFor;
-
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -13,7 +11,9 @@ import trufflesom.interpreter.nodes.nary.BinaryMsgExprNode;
 import trufflesom.interpreter.nodes.nary.TernaryExpressionNode;
 import trufflesom.interpreter.nodes.nary.UnaryExpressionNode;
 import trufflesom.vm.SymbolTable;
+import trufflesom.vm.constants.Characters;
 import trufflesom.vmobjects.SAbstractObject;
+import trufflesom.vmobjects.SRope;
 import trufflesom.vmobjects.SSymbol;
 
 
@@ -28,33 +28,54 @@ public class StringPrims {
     }
 
     @Specialization
-    @TruffleBoundary
-    public static final String doString(final String receiver, final String argument) {
-      return receiver + argument;
+    public static final Object doRope(final SRope receiver, final SRope argument) {
+      return SRope.concat(receiver, argument);
     }
 
     @Specialization
-    @TruffleBoundary
-    public static final String doString(final String receiver, final SSymbol argument) {
-      return receiver + argument.getString();
+    public static final Object doRope(final SRope receiver, final String argument) {
+      return SRope.concat(receiver, argument);
     }
 
     @Specialization
-    @TruffleBoundary
-    public static final String doSSymbol(final SSymbol receiver, final String argument) {
-      return receiver.getString() + argument;
+    public static final Object doRope(final SRope receiver, final SSymbol argument) {
+      return SRope.concat(receiver, argument.getString());
     }
 
     @Specialization
-    @TruffleBoundary
-    public static final String doSSymbol(final SSymbol receiver, final SSymbol argument) {
-      return receiver.getString() + argument.getString();
+    public static final Object doString(final String receiver, final SRope argument) {
+      return SRope.concat(receiver, argument);
+    }
+
+    @Specialization
+    public static final Object doSSymbol(final SSymbol receiver, final SRope argument) {
+      return SRope.concat(receiver.getString(), argument);
+    }
+
+    @Specialization
+    public static final Object doString(final String receiver, final String argument) {
+      return SRope.concat(receiver, argument);
+    }
+
+    @Specialization
+    public static final Object doString(final String receiver, final SSymbol argument) {
+      return SRope.concat(receiver, argument.getString());
+    }
+
+    @Specialization
+    public static final Object doSSymbol(final SSymbol receiver, final String argument) {
+      return SRope.concat(receiver.getString(), argument);
+    }
+
+    @Specialization
+    public static final Object doSSymbol(final SSymbol receiver, final SSymbol argument) {
+      return SRope.concat(receiver.getString(), argument.getString());
     }
   }
 
   @TruffleBoundary
-  private static String substring(final String str, final int start, final int end) {
-    return str.substring(start, end);
+  private static char charAt(final String str, final int index) {
+    return str.charAt(index);
   }
 
   @GenerateNodeFactory
@@ -69,27 +90,29 @@ public class StringPrims {
     }
 
     @Specialization
-    public final String doString(final String receiver, final long idx) {
+    public final String doRope(final SRope receiver, final long idx) {
       int index = (int) idx;
       if (0 < index && index <= receiver.length()) {
-        return substring(receiver, index - 1, index);
+        return Characters.charToString(receiver.charAt(index - 1));
       }
+      return indexOutOfBounds();
+    }
 
-      if (!branchTaken) {
-        CompilerDirectives.transferToInterpreterAndInvalidate();
-        branchTaken = true;
+    @Specialization
+    public final String doString(final String receiver, final long idx) {
+      int index = (int) idx;
+      if (0 < index && index <= receiver.length()) {
+        return Characters.charToString(charAt(receiver, index - 1));
       }
-      return "Error - index out of bounds";
+      return indexOutOfBounds();
     }
 
     @Specialization
     public final String doSSymbol(final SSymbol receiver, final long idx) {
-      int index = (int) idx;
-      String s = receiver.getString();
-      if (0 < index && index <= s.length()) {
-        return substring(s, index - 1, index);
-      }
+      return doString(receiver.getString(), idx);
+    }
 
+    private String indexOutOfBounds() {
       if (!branchTaken) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
         branchTaken = true;
@@ -98,12 +121,58 @@ public class StringPrims {
     }
   }
 
+  /** Answers the character code at the index, without allocating a string for it. */
+  @GenerateNodeFactory
+  @Primitive(selector = "charCodeAt:",
+      receiverType = {String.class, SRope.class, SSymbol.class}, inParser = false)
+  public abstract static class CharCodeAtPrim extends BinaryMsgExprNode {
+
+    @Override
+    public SSymbol getSelector() {
+      return SymbolTable.symbolFor("charCodeAt:");
+    }
+
+    protected static final boolean inBounds(final long idx, final int length) {
+      return 0 < idx && idx <= length;
+    }
+
+    @Specialization(guards = "inBounds(idx, receiver.length())")
+    public static final long doRope(final SRope receiver, final long idx) {
+      return receiver.charAt((int) idx - 1);
+    }
+
+    @Specialization(guards = "inBounds(idx, receiver.length())")
+    public static final long doString(final String receiver, final long idx) {
+      return charAt(receiver, (int) idx - 1);
+    }
+
+    @Specialization(guards = "inBounds(idx, receiver.getString().length())")
+    public static final long doSSymbol(final SSymbol receiver, final long idx) {
+      return charAt(receiver.getString(), (int) idx - 1);
+    }
+
+    protected static final boolean isString(final Object receiver) {
+      return receiver instanceof String || receiver instanceof SRope
+          || receiver instanceof SSymbol;
+    }
+
+    @Specialization(guards = "isString(receiver)")
+    public static final String doOutOfBounds(final Object receiver, final long idx) {
+      return "Error - index out of bounds";
+    }
+  }
+
   @GenerateNodeFactory
   @Primitive(className = "String", primitive = "asSymbol")
   public abstract static class AsSymbolPrim extends UnaryExpressionNode {
     @Specialization
     public final SAbstractObject doString(final String receiver) {
-      return symbolFor(receiver);
+      return SymbolTable.dynamicSymbolFor(receiver);
+    }
+
+    @Specialization
+    public final SAbstractObject doRope(final SRope receiver) {
+      return doString(receiver.flatten());
     }
 
     @Specialization
@@ -116,19 +185,30 @@ public class StringPrims {
   @Primitive(className = "String", primitive = "primSubstringFrom:to:")
   public abstract static class SubstringPrim extends TernaryExpressionNode {
     @Specialization
-    public static final String doString(final String receiver, final long start,
+    public static final Object doRope(final SRope receiver, final long start,
         final long end) {
-      try {
-        return substring(receiver, (int) start - 1, (int) end);
-      } catch (StringIndexOutOfBoundsException e) {
-        return "Error - index out of bounds";
-      }
+      return substring(receiver, start, end);
     }
 
     @Specialization
-    public static final String doSSymbol(final SSymbol receiver, final long start,
+    public static final Object doString(final String receiver, final long start,
         final long end) {
-      return doString(receiver.getString(), start, end);
+      return substring(receiver, start, end);
+    }
+
+    @Specialization
+    public static final Object doSSymbol(final SSymbol receiver, final long start,
+        final long end) {
+      return substring(receiver.getString(), start, end);
+    }
+
+    /** Long substrings are views on the characters of the receiver, see {@link SRope}. */
+    private static Object substring(final Object receiver, final long start, final long end) {
+      try {
+        return SRope.substring(receiver, (int) start - 1, (int) end);
+      } catch (StringIndexOutOfBoundsException e) {
+        return "Error - index out of bounds";
+      }
     }
   }
 
@@ -166,6 +246,11 @@ public class StringPrims {
     public static final boolean doSSymbol(final SSymbol receiver) {
       return doString(receiver.getString());
     }
+
+    @Specialization
+    public static final boolean doRope(final SRope receiver) {
+      return doString(receiver.flatten());
+    }
   }
 
   @GenerateNodeFactory
@@ -202,6 +287,11 @@ public class StringPrims {
     public static final boolean doSSymbol(final SSymbol receiver) {
       return doString(receiver.getString());
     }
+
+    @Specialization
+    public static final boolean doRope(final SRope receiver) {
+      return doString(receiver.flatten());
+    }
   }
 
   @GenerateNodeFactory
@@ -238,5 +328,10 @@ public class StringPrims {
     public static final boolean doSSymbol(final SSymbol receiver) {
       return doString(receiver.getString());
     }
+
+    @Specialization
+    public static final boolean doRope(final SRope receiver) {
+      return doString(receiver.flatten());
+    }
   }
 }
@@ -0,0 +1,319 @@
+package trufflesom.primitives.collections;
+
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+
+import trufflesom.bdt.primitives.Primitive;
+import trufflesom.interpreter.nodes.nary.BinaryExpressionNode;
+import trufflesom.interpreter.nodes.nary.TernaryExpressionNode;
+import trufflesom.interpreter.nodes.nary.UnaryExpressionNode;
+import trufflesom.vm.constants.Nil;
+import trufflesom.vmobjects.SAbstractObject;
+import trufflesom.vmobjects.SArray;
+import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SHashTable;
+import trufflesom.vmobjects.SSymbol;
+
+
+/**
+ * Primitives of the HashMap and HashSet classes, which keep their entries in a
+ * {@link SHashTable}. The operations specialize on integer keys as long as the table stores
+ * them unboxed, and otherwise on string keys, on symbol keys, which are equal to strings
+ * with the same characters, and on keys that are compared by identity.
+ */
+public abstract class HashTablePrims {
+
+  /** An SHashTable has no field storage, so subclasses cannot declare fields. */
+  protected static final boolean hasNoFields(final SClass clazz) {
+    return clazz.getNumberOfInstanceFields() == 0;
+  }
+
+  protected static final Object rejectFields(final SClass clazz) {
+    return SAbstractObject.sendError(clazz,
+        clazz.getName().getString() + " cannot be instantiated, because it declares fields");
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "HashMap", primitive = "new", classSide = true)
+  public abstract static class NewMapPrim extends UnaryExpressionNode {
+    @Specialization(guards = "hasNoFields(receiver)")
+    public static final SHashTable doSClass(final SClass receiver) {
+      return new SHashTable(receiver, true);
+    }
+
+    @Specialization(guards = "!hasNoFields(receiver)")
+    public static final Object doWithFields(final SClass receiver) {
+      return rejectFields(receiver);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "HashSet", primitive = "new", classSide = true)
+  public abstract static class NewSetPrim extends UnaryExpressionNode {
+    @Specialization(guards = "hasNoFields(receiver)")
+    public static final SHashTable doSClass(final SClass receiver) {
+      return new SHashTable(receiver, false);
+    }
+
+    @Specialization(guards = "!hasNoFields(receiver)")
+    public static final Object doWithFields(final SClass receiver) {
+      return rejectFields(receiver);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "HashMap", primitive = "at:")
+  public abstract static class AtPrim extends BinaryExpressionNode {
+    @Specialization(guards = "receiver.hasLongKeys()")
+    public static final Object doLong(final SHashTable receiver, final long key) {
+      return receiver.getLong(key);
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final Object doString(final SHashTable receiver, final String key) {
+      return receiver.getString(key);
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final Object doSymbol(final SHashTable receiver, final SSymbol key) {
+      return receiver.getSymbol(key);
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final Object doIdentity(final SHashTable receiver,
+        final SAbstractObject key) {
+      return receiver.getIdentity(key);
+    }
+
+    @Specialization
+    public static final Object doObject(final SHashTable receiver, final Object key) {
+      return receiver.get(key);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "HashMap", primitive = "at:put:")
+  public abstract static class AtPutPrim extends TernaryExpressionNode {
+    @Specialization(guards = "receiver.hasLongKeys()")
+    public static final Object doLong(final SHashTable receiver, final long key,
+        final Object value) {
+      receiver.putLong(key, value);
+      return value;
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final Object doString(final SHashTable receiver, final String key,
+        final Object value) {
+      receiver.putString(key, value);
+      return value;
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final Object doSymbol(final SHashTable receiver, final SSymbol key,
+        final Object value) {
+      receiver.putSymbol(key, value);
+      return value;
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final Object doIdentity(final SHashTable receiver,
+        final SAbstractObject key, final Object value) {
+      receiver.putIdentity(key, value);
+      return value;
+    }
+
+    @Specialization
+    public static final Object doObject(final SHashTable receiver, final Object key,
+        final Object value) {
+      receiver.put(key, value);
+      return value;
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "HashSet", primitive = "add:")
+  public abstract static class AddPrim extends BinaryExpressionNode {
+    @Specialization(guards = "receiver.hasLongKeys()")
+    public static final long doLong(final SHashTable receiver, final long key) {
+      receiver.putLong(key, null);
+      return key;
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final String doString(final SHashTable receiver, final String key) {
+      receiver.putString(key, null);
+      return key;
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final SSymbol doSymbol(final SHashTable receiver, final SSymbol key) {
+      receiver.putSymbol(key, null);
+      return key;
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final SAbstractObject doIdentity(final SHashTable receiver,
+        final SAbstractObject key) {
+      receiver.putIdentity(key, null);
+      return key;
+    }
+
+    @Specialization
+    public static final Object doObject(final SHashTable receiver, final Object key) {
+      receiver.put(key, null);
+      return key;
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "HashMap", primitive = "containsKey:")
+  @Primitive(className = "HashSet", primitive = "contains:")
+  public abstract static class ContainsPrim extends BinaryExpressionNode {
+    @Specialization(guards = "receiver.hasLongKeys()")
+    public static final boolean doLong(final SHashTable receiver, final long key) {
+      return receiver.containsLong(key);
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final boolean doString(final SHashTable receiver, final String key) {
+      return receiver.containsString(key);
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final boolean doSymbol(final SHashTable receiver, final SSymbol key) {
+      return receiver.containsSymbol(key);
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final boolean doIdentity(final SHashTable receiver,
+        final SAbstractObject key) {
+      return receiver.containsIdentity(key);
+    }
+
+    @Specialization
+    public static final boolean doObject(final SHashTable receiver, final Object key) {
+      return receiver.contains(key);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "HashMap", primitive = "removeKey:")
+  public abstract static class RemoveKeyPrim extends BinaryExpressionNode {
+    @Specialization(guards = "receiver.hasLongKeys()")
+    public static final Object doLong(final SHashTable receiver, final long key) {
+      return receiver.removeLong(key);
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final Object doString(final SHashTable receiver, final String key) {
+      return receiver.removeString(key);
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final Object doSymbol(final SHashTable receiver, final SSymbol key) {
+      return receiver.removeSymbol(key);
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final Object doIdentity(final SHashTable receiver,
+        final SAbstractObject key) {
+      return receiver.removeIdentity(key);
+    }
+
+    @Specialization
+    public static final Object doObject(final SHashTable receiver, final Object key) {
+      return receiver.remove(key);
+    }
+  }
+
+  /** Removes the element from the set, and returns it, or nil if it was not in the set. */
+  @GenerateNodeFactory
+  @Primitive(className = "HashSet", primitive = "remove:")
+  public abstract static class RemovePrim extends BinaryExpressionNode {
+    @Specialization(guards = "receiver.hasLongKeys()")
+    public static final Object doLong(final SHashTable receiver, final long key) {
+      if (receiver.containsLong(key)) {
+        receiver.removeLong(key);
+        return key;
+      }
+      return Nil.nilObject;
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final Object doString(final SHashTable receiver, final String key) {
+      if (receiver.containsString(key)) {
+        receiver.removeString(key);
+        return key;
+      }
+      return Nil.nilObject;
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final Object doSymbol(final SHashTable receiver, final SSymbol key) {
+      if (receiver.containsSymbol(key)) {
+        receiver.removeSymbol(key);
+        return key;
+      }
+      return Nil.nilObject;
+    }
+
+    @Specialization(guards = "!receiver.hasLongKeys()")
+    public static final Object doIdentity(final SHashTable receiver,
+        final SAbstractObject key) {
+      if (receiver.containsIdentity(key)) {
+        receiver.removeIdentity(key);
+        return key;
+      }
+      return Nil.nilObject;
+    }
+
+    @Specialization
+    public static final Object doObject(final SHashTable receiver, final Object key) {
+      if (receiver.contains(key)) {
+        receiver.remove(key);
+        return key;
+      }
+      return Nil.nilObject;
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "HashMap", primitive = "size")
+  @Primitive(className = "HashSet", primitive = "size")
+  public abstract static class SizePrim extends UnaryExpressionNode {
+    @Specialization
+    public static final long doSHashTable(final SHashTable receiver) {
+      return receiver.size();
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "HashMap", primitive = "keys")
+  @Primitive(className = "HashSet", primitive = "asArray")
+  public abstract static class KeysPrim extends UnaryExpressionNode {
+    @Specialization
+    public static final SArray doSHashTable(final SHashTable receiver) {
+      return receiver.getKeys();
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "HashMap", primitive = "values")
+  public abstract static class ValuesPrim extends UnaryExpressionNode {
+    @Specialization
+    public static final SArray doSHashTable(final SHashTable receiver) {
+      return receiver.getValues();
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "HashMap", primitive = "removeAll")
+  @Primitive(className = "HashSet", primitive = "removeAll")
+  public abstract static class RemoveAllPrim extends UnaryExpressionNode {
+    @Specialization
+    public static final SHashTable doSHashTable(final SHashTable receiver) {
+      receiver.clear();
+      return receiver;
+    }
+  }
+}
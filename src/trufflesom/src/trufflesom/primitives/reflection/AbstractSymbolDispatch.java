@@ -3,6 +3,7 @@ package trufflesom.primitives.reflection;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.NeverDefault;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -21,19 +22,20 @@ import trufflesom.bdt.source.SourceCoordinate;
 import trufflesom.interpreter.Types;
 import trufflesom.interpreter.nodes.AbstractMessageSendNode;
 import trufflesom.interpreter.nodes.MessageSendNode;
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode;
 import trufflesom.primitives.arrays.ToArgumentsArrayNode;
 import trufflesom.primitives.arrays.ToArgumentsArrayNodeFactory;
 import trufflesom.tools.nodestats.Tags.AnyNode;
+import trufflesom.vm.Universe;
 import trufflesom.vmobjects.SArray;
 import trufflesom.vmobjects.SInvokable;
 import trufflesom.vmobjects.SSymbol;
 
 
 @GenerateWrapper
+@ImportStatic(AbstractDispatchNode.class)
 public abstract class AbstractSymbolDispatch extends Node
     implements WithSource, InstrumentableNode {
-  public static final int INLINE_CACHE_SIZE = 6;
-
   private final long sourceCoord;
 
   public AbstractSymbolDispatch(final long coord) {
@@ -102,7 +104,7 @@ public abstract class AbstractSymbolDispatch extends Node
     return false;
   }
 
-  @Specialization(limit = "INLINE_CACHE_SIZE",
+  @Specialization(limit = "getInlineCacheSize()",
       guards = {"selector == cachedSelector", "argsArr == null"})
   public Object doCachedWithoutArgArr(final VirtualFrame frame,
       final Object receiver, final SSymbol selector, final Object argsArr,
@@ -114,7 +116,7 @@ public abstract class AbstractSymbolDispatch extends Node
     return realCachedSend.doPreEvaluated(frame, arguments);
   }
 
-  @Specialization(limit = "INLINE_CACHE_SIZE", guards = "selector == cachedSelector")
+  @Specialization(limit = "getInlineCacheSize()", guards = "selector == cachedSelector")
   public Object doCached(final VirtualFrame frame,
       final Object receiver, final SSymbol selector, final SArray argsArr,
       @Cached("selector") final SSymbol cachedSelector,
@@ -130,7 +132,8 @@ public abstract class AbstractSymbolDispatch extends Node
   @Specialization(replaces = "doCachedWithoutArgArr", guards = "argsArr == null")
   public Object doUncached(final Object receiver, final SSymbol selector, final Object argsArr,
       @Shared("indirect") @Cached final IndirectCallNode call) {
-    SInvokable invokable = Types.getClassOf(receiver).lookupInvokable(selector);
+    SInvokable invokable =
+        Universe.getMethodLookupCache().lookup(Types.getClassOf(receiver), selector);
 
     Object[] arguments = {receiver};
 
@@ -142,7 +145,8 @@ public abstract class AbstractSymbolDispatch extends Node
   public Object doUncached(final Object receiver, final SSymbol selector, final SArray argsArr,
       @Shared("indirect") @Cached final IndirectCallNode call,
       @Shared("arg") @Cached("createArgArrayNode()") final ToArgumentsArrayNode toArgArray) {
-    SInvokable invokable = Types.getClassOf(receiver).lookupInvokable(selector);
+    SInvokable invokable =
+        Universe.getMethodLookupCache().lookup(Types.getClassOf(receiver), selector);
 
     Object[] arguments = toArgArray.executedEvaluated(null, argsArr, receiver);
 
@@ -9,6 +9,7 @@ import com.oracle.truffle.api.nodes.Node;
 import trufflesom.bdt.primitives.Primitive;
 import trufflesom.interpreter.nodes.GlobalNode;
 import trufflesom.interpreter.nodes.GlobalNode.UninitializedGlobalReadWithoutErrorNode;
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode;
 import trufflesom.interpreter.nodes.nary.BinaryExpressionNode;
 import trufflesom.vm.Globals;
 import trufflesom.vm.constants.Nil;
@@ -28,8 +29,6 @@ public abstract class GlobalPrim extends BinaryExpressionNode {
   }
 
   private abstract static class GetGlobalNode extends Node {
-    protected static final int INLINE_CACHE_SIZE = 6;
-
     public abstract Object getGlobal(VirtualFrame frame, SSymbol argument);
   }
 
@@ -47,7 +46,7 @@ public abstract class GlobalPrim extends BinaryExpressionNode {
 
     @TruffleBoundary
     private GetGlobalNode specialize(final SSymbol argument) {
-      if (depth < INLINE_CACHE_SIZE) {
+      if (depth < AbstractDispatchNode.getInlineCacheSize()) {
         return replace(new CachedGetGlobal(argument, depth));
       } else {
         GetGlobalNode head = this;
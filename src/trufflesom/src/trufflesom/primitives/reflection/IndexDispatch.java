@@ -6,6 +6,7 @@ import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.nodes.Node;
 
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode;
 import trufflesom.interpreter.nodes.dispatch.DispatchChain;
 import trufflesom.interpreter.objectstorage.FieldAccessorNode;
 import trufflesom.interpreter.objectstorage.FieldAccessorNode.AbstractReadFieldNode;
@@ -16,8 +17,6 @@ import trufflesom.vmobjects.SObject;
 
 
 public abstract class IndexDispatch extends Node implements DispatchChain {
-  public static final int INLINE_CACHE_SIZE = 6;
-
   public static IndexDispatch create() {
     return new UninitializedDispatchNode(0);
   }
@@ -48,7 +47,7 @@ public abstract class IndexDispatch extends Node implements DispatchChain {
     private IndexDispatch specialize(final SClass clazz, final int index, final boolean read) {
       transferToInterpreterAndInvalidate();
 
-      if (depth < INLINE_CACHE_SIZE) {
+      if (depth < AbstractDispatchNode.getInlineCacheSize()) {
         IndexDispatch uninit = new UninitializedDispatchNode(depth + 1);
         IndexDispatch specialized;
         if (read) {
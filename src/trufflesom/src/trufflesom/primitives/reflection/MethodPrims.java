@@ -2,6 +2,7 @@ package trufflesom.primitives.reflection;
 
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -53,6 +54,7 @@ public final class MethodPrims {
   @NodeChild(value = "argArr", type = ToArgumentsArrayNode.class,
       executeWith = {"somArr", "target"})
   @Primitive(selector = "invokeOn:with:", extraChild = ToArgumentsArrayNodeFactory.class)
+  @ImportStatic(AbstractDispatchNode.class)
   public abstract static class InvokeOnPrim extends EagerlySpecializableNode {
 
     public abstract Object executeEvaluated(VirtualFrame frame, SInvokable receiver,
@@ -65,7 +67,7 @@ public final class MethodPrims {
     }
 
     @Specialization(guards = "receiver == cachedReceiver",
-        limit = "" + AbstractDispatchNode.INLINE_CACHE_SIZE)
+        limit = "getInlineCacheSize()")
     public static final Object doCached(
         final SInvokable receiver, final Object target, final SArray somArr,
         final Object[] argArr,
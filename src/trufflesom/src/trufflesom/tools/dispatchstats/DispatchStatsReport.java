@@ -0,0 +1,120 @@
+package trufflesom.tools.dispatchstats;
+
+import java.util.List;
+import java.util.Map.Entry;
+
+import trufflesom.tools.dispatchstats.SendSite.CacheEntry;
+import trufflesom.vmobjects.SClass;
+
+
+public class DispatchStatsReport {
+
+  private static void reportSummary(final List<SendSite> sites, final long lookupCacheHits,
+      final long lookupCacheMisses, final StringBuilder builder, final String indent) {
+    int monomorphic = 0;
+    int polymorphic = 0;
+    int megamorphic = 0;
+
+    for (SendSite s : sites) {
+      if (s.isGeneric()) {
+        megamorphic += 1;
+      } else if (s.getNumberOfReceiverClasses() > 1) {
+        polymorphic += 1;
+      } else {
+        monomorphic += 1;
+      }
+    }
+
+    builder.append(indent);
+    builder.append("summary:\n");
+    appendField(builder, indent + indent, "sites", sites.size());
+    appendField(builder, indent + indent, "monomorphic", monomorphic);
+    appendField(builder, indent + indent, "polymorphic", polymorphic);
+    appendField(builder, indent + indent, "megamorphic", megamorphic);
+    appendField(builder, indent + indent, "lookup-cache-hits", lookupCacheHits);
+    appendField(builder, indent + indent, "lookup-cache-misses", lookupCacheMisses);
+  }
+
+  private static void reportSite(final SendSite site, final StringBuilder builder,
+      final String indent) {
+    String fieldIndent = indent + indent + "  ";
+
+    builder.append(indent);
+    builder.append(indent);
+    builder.append("- selector: ");
+    appendQuoted(builder, site.selector);
+    builder.append('\n');
+
+    builder.append(fieldIndent);
+    builder.append("location: ");
+    appendQuoted(builder, site.location);
+    builder.append('\n');
+
+    appendField(builder, fieldIndent, "activations", site.activations);
+    appendField(builder, fieldIndent, "receiver-classes", site.getNumberOfReceiverClasses());
+    appendField(builder, fieldIndent, "chain-length", site.entries.size());
+    builder.append(fieldIndent);
+    builder.append("generic: ");
+    builder.append(site.isGeneric());
+    builder.append('\n');
+
+    builder.append(fieldIndent);
+    builder.append("receivers:\n");
+    for (Entry<SClass, Long> e : site.getReceiverClassesByCount()) {
+      builder.append(fieldIndent);
+      builder.append("  - { class: ");
+      appendQuoted(builder, e.getKey().getName().getString());
+      builder.append(", count: ");
+      builder.append(e.getValue());
+      builder.append(" }\n");
+    }
+
+    long totalHits = site.getTotalHits();
+    builder.append(fieldIndent);
+    builder.append("entries:\n");
+    for (CacheEntry e : site.entries) {
+      builder.append(fieldIndent);
+      builder.append("  - { node: ");
+      builder.append(e.nodeType);
+      builder.append(", hits: ");
+      builder.append(e.hits);
+      builder.append(", hit-rate: ");
+      builder.append(totalHits == 0 ? 0.0 : (double) e.hits / totalHits);
+      builder.append(" }\n");
+    }
+  }
+
+  private static void appendField(final StringBuilder builder, final String indent,
+      final String name, final long value) {
+    builder.append(indent);
+    builder.append(name);
+    builder.append(": ");
+    builder.append(value);
+    builder.append('\n');
+  }
+
+  private static void appendQuoted(final StringBuilder builder, final String value) {
+    builder.append('"');
+    builder.append(value.replace("\\", "\\\\").replace("\"", "\\\""));
+    builder.append('"');
+  }
+
+  public static String createReport(final List<SendSite> sites, final long lookupCacheHits,
+      final long lookupCacheMisses) {
+    StringBuilder builder = new StringBuilder();
+
+    builder.append("# Dispatch Statistics Report\n");
+    builder.append("report:\n");
+
+    reportSummary(sites, lookupCacheHits, lookupCacheMisses, builder, "  ");
+
+    builder.append('\n');
+
+    builder.append("  sites:\n");
+    for (SendSite s : sites) {
+      reportSite(s, builder, "  ");
+    }
+
+    return builder.toString();
+  }
+}
@@ -0,0 +1,111 @@
+package trufflesom.tools.dispatchstats;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.options.OptionDescriptors;
+
+import com.oracle.truffle.api.instrumentation.EventContext;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNodeFactory;
+import com.oracle.truffle.api.instrumentation.Instrumenter;
+import com.oracle.truffle.api.instrumentation.SourceSectionFilter;
+import com.oracle.truffle.api.instrumentation.TruffleInstrument;
+import com.oracle.truffle.api.instrumentation.TruffleInstrument.Registration;
+
+import trufflesom.interpreter.nodes.AbstractMessageSendNode;
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode;
+import trufflesom.tools.nodestats.Tags.AnyNode;
+import trufflesom.vm.MethodLookupCache;
+
+
+/**
+ * The {@link DispatchStatsTool} is a Truffle instrumentation tool that reports for each
+ * send site how polymorphic it is, i.e., the receiver classes it saw, the length of its
+ * dispatch chain, the hits per cache entry, and whether it went megamorphic. It also
+ * reports the hits and misses of the {@link MethodLookupCache}.
+ */
+@Registration(name = "Dispatch Statistics", id = DispatchStatsTool.ID, version = "0.1",
+    services = {DispatchStatsTool.class})
+public class DispatchStatsTool extends TruffleInstrument {
+
+  public static final String ID = "dispatchstats";
+
+  private final List<SendSiteProfile> sendSites;
+
+  public DispatchStatsTool() {
+    sendSites = new ArrayList<>();
+  }
+
+  @Override
+  protected void onCreate(final Env env) {
+    if (env.getOptions().get(DispatchStatsCLI.ENABLED)) {
+      AbstractDispatchNode.setCountAllCacheHits(true);
+      MethodLookupCache.setCountHits(true);
+      instrumentSendSites(env.getInstrumenter());
+    }
+
+    env.registerService(this);
+  }
+
+  private void instrumentSendSites(final Instrumenter instrumenter) {
+    SourceSectionFilter forAnyNode =
+        SourceSectionFilter.newBuilder().tagIs(AnyNode.class).build();
+
+    ExecutionEventNodeFactory factory = (final EventContext ctx) -> {
+      if (!(ctx.getInstrumentedNode() instanceof AbstractMessageSendNode)) {
+        return null;
+      }
+      SendSiteProfile profile = new SendSiteProfile(ctx);
+      sendSites.add(profile);
+      return profile;
+    };
+
+    instrumenter.attachExecutionEventFactory(forAnyNode, forAnyNode, factory);
+  }
+
+  @Override
+  protected void onDispose(final Env env) {
+    if (env.getOptions().get(DispatchStatsCLI.ENABLED)) {
+      String outputFile = env.getOptions().get(DispatchStatsCLI.OUTPUT_FILE);
+      reportStatistics(outputFile);
+    }
+  }
+
+  @Override
+  protected OptionDescriptors getOptionDescriptors() {
+    return new DispatchStatsCLIOptionDescriptors();
+  }
+
+  private void reportStatistics(final String outputFile) {
+    List<SendSite> sites = SendSite.fromProfiles(sendSites);
+
+    println("[ds] Dispatch Statistics");
+    println("[ds] -------------------\n");
+    println("[ds] Output File:          " + outputFile);
+    println("[ds] Number of Send Sites: " + sites.size());
+    println("[ds] Megamorphic Sites:    "
+        + sites.stream().filter(s -> s.isGeneric()).count());
+    println("[ds] Lookup Cache Hits:    " + MethodLookupCache.getHits());
+    println("[ds] Lookup Cache Misses:  " + MethodLookupCache.getMisses());
+
+    String report = DispatchStatsReport.createReport(sites, MethodLookupCache.getHits(),
+        MethodLookupCache.getMisses());
+    Path reportPath = Paths.get(outputFile);
+
+    try {
+      Files.write(reportPath, report.getBytes());
+    } catch (IOException e) {
+      throw new RuntimeException("Could not write Dispatch Statistics: " + e);
+    }
+  }
+
+  public static void println(final String msg) {
+    // Checkstyle: stop
+    System.out.println(msg);
+    // Checkstyle: resume
+  }
+}
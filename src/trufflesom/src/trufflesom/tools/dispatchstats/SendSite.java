@@ -0,0 +1,135 @@
+package trufflesom.tools.dispatchstats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.source.SourceSection;
+
+import trufflesom.interpreter.nodes.GenericMessageSendNode;
+import trufflesom.interpreter.nodes.SOMNode;
+import trufflesom.interpreter.nodes.dispatch.AbstractCacheEntryNode;
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode;
+import trufflesom.interpreter.nodes.dispatch.GenericDispatchNode;
+import trufflesom.vmobjects.SClass;
+
+
+/**
+ * A snapshot of the dispatch state of a send site at the end of execution.
+ */
+public final class SendSite implements Comparable<SendSite> {
+
+  public static final class CacheEntry {
+    public final String nodeType;
+    public final int    hits;
+
+    CacheEntry(final String nodeType, final int hits) {
+      this.nodeType = nodeType;
+      this.hits = hits;
+    }
+  }
+
+  public final String selector;
+  public final String location;
+  public final long   activations;
+
+  public final List<CacheEntry>  entries;
+  public final Map<SClass, Long> receiverClasses;
+
+  private final boolean generic;
+
+  private SendSite(final String selector, final String location, final long activations,
+      final List<CacheEntry> entries, final boolean generic,
+      final Map<SClass, Long> receiverClasses) {
+    this.selector = selector;
+    this.location = location;
+    this.activations = activations;
+    this.entries = entries;
+    this.generic = generic;
+    this.receiverClasses = receiverClasses;
+  }
+
+  /**
+   * Creates snapshots for all profiled sites that were executed and still dispatch
+   * dynamically, i.e., that were not replaced by a specialized primitive.
+   */
+  public static List<SendSite> fromProfiles(final List<SendSiteProfile> profiles) {
+    List<SendSite> sites = new ArrayList<>();
+    for (SendSiteProfile p : profiles) {
+      Node node = p.getContext().getInstrumentedNode();
+      if (p.getActivations() == 0 || !(node instanceof GenericMessageSendNode)) {
+        continue;
+      }
+
+      GenericMessageSendNode send = (GenericMessageSendNode) node;
+      List<CacheEntry> entries = new ArrayList<>();
+      boolean generic = false;
+
+      AbstractDispatchNode d = SOMNode.unwrapIfNeeded(send.getDispatchChain());
+      while (d instanceof AbstractCacheEntryNode) {
+        AbstractCacheEntryNode e = (AbstractCacheEntryNode) d;
+        entries.add(new CacheEntry(e.getClass().getSimpleName(), e.getHits()));
+        d = SOMNode.unwrapIfNeeded(e.getNextInCache());
+      }
+      if (d instanceof GenericDispatchNode) {
+        generic = true;
+      }
+
+      sites.add(new SendSite(send.getInvocationIdentifier().getString(),
+          formatLocation(p.getContext().getInstrumentedSourceSection()),
+          p.getActivations(), entries, generic, p.getReceiverClasses()));
+    }
+
+    Collections.sort(sites);
+    return sites;
+  }
+
+  private static String formatLocation(final SourceSection section) {
+    if (section == null) {
+      return "unknown";
+    }
+    return section.getSource().getName() + ":" + section.getStartLine() + ":"
+        + section.getStartColumn();
+  }
+
+  public boolean isGeneric() {
+    return generic;
+  }
+
+  public int getNumberOfReceiverClasses() {
+    return receiverClasses.size();
+  }
+
+  public long getTotalHits() {
+    long sum = 0;
+    for (CacheEntry e : entries) {
+      sum += e.hits;
+    }
+    return sum;
+  }
+
+  public List<Entry<SClass, Long>> getReceiverClassesByCount() {
+    List<Entry<SClass, Long>> result = new ArrayList<>(receiverClasses.entrySet());
+    result.sort((a, b) -> {
+      int c = Long.compare(b.getValue(), a.getValue());
+      if (c != 0) {
+        return c;
+      }
+      return a.getKey().getName().getString().compareTo(b.getKey().getName().getString());
+    });
+    return result;
+  }
+
+  /** Most frequently executed sites first. */
+  @Override
+  public int compareTo(final SendSite o) {
+    int c = Long.compare(o.activations, activations);
+    if (c != 0) {
+      return c;
+    }
+    return location.compareTo(o.location);
+  }
+}
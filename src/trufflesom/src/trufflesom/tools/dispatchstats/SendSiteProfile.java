@@ -0,0 +1,59 @@
+package trufflesom.tools.dispatchstats;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.instrumentation.EventContext;
+import com.oracle.truffle.api.instrumentation.ExecutionEventNode;
+
+import trufflesom.interpreter.Types;
+import trufflesom.vmobjects.SClass;
+
+
+/**
+ * Counts the activations of a send site and the classes of the receivers it saw.
+ */
+public class SendSiteProfile extends ExecutionEventNode {
+  private final EventContext context;
+
+  private final Map<SClass, Long> receiverClasses;
+
+  private long activations;
+
+  public SendSiteProfile(final EventContext context) {
+    this.context = context;
+    this.receiverClasses = new HashMap<>();
+  }
+
+  public EventContext getContext() {
+    return context;
+  }
+
+  public long getActivations() {
+    return activations;
+  }
+
+  public Map<SClass, Long> getReceiverClasses() {
+    return receiverClasses;
+  }
+
+  @Override
+  protected void onEnter(final VirtualFrame frame) {
+    activations += 1;
+  }
+
+  @Override
+  protected void onInputValue(final VirtualFrame frame, final EventContext inputContext,
+      final int inputIndex, final Object inputValue) {
+    if (inputIndex == 0) {
+      recordReceiver(inputValue);
+    }
+  }
+
+  @TruffleBoundary
+  private void recordReceiver(final Object receiver) {
+    receiverClasses.merge(Types.getClassOf(receiver), 1L, Long::sum);
+  }
+}
@@ -104,6 +104,7 @@ public class Classes {
     Arrays.fill(blockClasses, null);
 
     Globals.reset();
+    SelectorImplementors.reset();
     Universe.reset();
   }
 }
@@ -0,0 +1,125 @@
+package trufflesom.vm;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import trufflesom.interpreter.nodes.dispatch.CachedDnuNode;
+import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SInvokable;
+import trufflesom.vmobjects.SSymbol;
+
+
+/**
+ * A direct-mapped cache from (class, selector) to the method found by
+ * {@link SClass#lookupInvokable(SSymbol)}. Each universe has its own, see
+ * {@link Universe#getMethodLookupCache()}.
+ *
+ * <p>
+ * It is used by megamorphic send sites, which would otherwise do a hash lookup, and
+ * possibly a walk of the superclass chain, on every send. When the methods or the
+ * superclass of a class change, the entries of the class and its subclasses are removed.
+ *
+ * <p>
+ * Failed lookups are cached as well, together with the #doesNotUnderstand:arguments:
+ * handler of the class, so that megamorphic sites that send to proxy-like objects do not
+ * walk the whole superclass chain on every send.
+ */
+public final class MethodLookupCache {
+  private static final int SIZE = 4096;
+  private static final int MASK = SIZE - 1;
+
+  private final SClass[]     classes   = new SClass[SIZE];
+  private final SSymbol[]    selectors = new SSymbol[SIZE];
+  private final SInvokable[] methods   = new SInvokable[SIZE];
+  private final SInvokable[] dnus      = new SInvokable[SIZE];
+
+  /** Enabled by the DispatchStatsTool to report the hit rate of the cache. */
+  private static boolean countHits;
+
+  private static long hits;
+  private static long misses;
+
+  @TruffleBoundary
+  public SInvokable lookup(final SClass clazz, final SSymbol selector) {
+    int idx = (clazz.getLookupHash() ^ selector.getLookupHash()) & MASK;
+
+    if (classes[idx] == clazz && selectors[idx] == selector) {
+      if (countHits) {
+        hits += 1;
+      }
+      return methods[idx];
+    }
+
+    if (countHits) {
+      misses += 1;
+    }
+
+    SInvokable method = clazz.lookupInvokable(selector);
+    classes[idx] = clazz;
+    selectors[idx] = selector;
+    methods[idx] = method;
+    dnus[idx] = method == null ? CachedDnuNode.getDnuHandler(clazz) : null;
+    return method;
+  }
+
+  /**
+   * @return the #doesNotUnderstand:arguments: handler for a selector that is not
+   *         understood by instances of {@code clazz}
+   */
+  @TruffleBoundary
+  public SInvokable lookupDnuHandler(final SClass clazz, final SSymbol selector) {
+    int idx = (clazz.getLookupHash() ^ selector.getLookupHash()) & MASK;
+
+    if (classes[idx] == clazz && selectors[idx] == selector && dnus[idx] != null) {
+      return dnus[idx];
+    }
+
+    SInvokable dnu = CachedDnuNode.getDnuHandler(clazz);
+    classes[idx] = clazz;
+    selectors[idx] = selector;
+    methods[idx] = null;
+    dnus[idx] = dnu;
+    return dnu;
+  }
+
+  /** Removes the entries of {@code clazz} and of its subclasses. */
+  @TruffleBoundary
+  public void invalidate(final SClass clazz) {
+    for (int i = 0; i < SIZE; i++) {
+      if (classes[i] != null && inheritsFrom(classes[i], clazz)) {
+        classes[i] = null;
+        selectors[i] = null;
+        methods[i] = null;
+        dnus[i] = null;
+      }
+    }
+  }
+
+  /**
+   * Walks the superclass chain instead of using {@link SClass#isKindOf(SClass)}, because
+   * the chain may still change while classes are loaded.
+   */
+  private static boolean inheritsFrom(final SClass clazz, final SClass superclass) {
+    SClass current = clazz;
+    while (current != superclass) {
+      if (!current.hasSuperClass()) {
+        return false;
+      }
+      current = (SClass) current.getSuperClass();
+    }
+    return true;
+  }
+
+  public static void setCountHits(final boolean count) {
+    countHits = count;
+    hits = 0;
+    misses = 0;
+  }
+
+  public static long getHits() {
+    return hits;
+  }
+
+  public static long getMisses() {
+    return misses;
+  }
+}
@@ -0,0 +1,72 @@
+package trufflesom.vm;
+
+import java.util.HashMap;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
+
+import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SSymbol;
+
+
+/**
+ * Index from selectors to the classes that define a method for them.
+ *
+ * <p>
+ * As long as a selector is implemented by a single class, a send of it can only ever
+ * reach that one method, or fail with a #doesNotUnderstand:. Sends can then skip
+ * distinguishing receiver classes, guarded by an assumption that is invalidated once a
+ * second class defines the selector.
+ */
+public final class SelectorImplementors {
+  private static final HashMap<SSymbol, Implementors> implementors = new HashMap<>();
+
+  private SelectorImplementors() {}
+
+  @TruffleBoundary
+  public static void register(final SClass holder, final SSymbol selector) {
+    Implementors impl = implementors.get(selector);
+    if (impl == null) {
+      implementors.put(selector, new Implementors(selector, holder));
+    } else {
+      impl.add(holder);
+    }
+  }
+
+  /**
+   * @return an assumption that {@code holder} remains the only class implementing
+   *         {@code selector}, or {@code null} if it is not the only one
+   */
+  @TruffleBoundary
+  public static Assumption getSingleImplementorAssumption(final SSymbol selector,
+      final SClass holder) {
+    Implementors impl = implementors.get(selector);
+    if (impl == null || impl.single != holder) {
+      return null;
+    }
+    return impl.singleImplementor;
+  }
+
+  public static void reset() {
+    implementors.clear();
+  }
+
+  private static final class Implementors {
+    private SClass           single;
+    private final Assumption singleImplementor;
+
+    Implementors(final SSymbol selector, final SClass holder) {
+      this.single = holder;
+      this.singleImplementor = Truffle.getRuntime().createAssumption(
+          "single implementor of #" + selector.getString());
+    }
+
+    void add(final SClass holder) {
+      if (single != holder && single != null) {
+        single = null;
+        singleImplementor.invalidate();
+      }
+    }
+  }
+}
@@ -77,7 +77,7 @@ public final class Shell {
         // If success
         if (myClass != null) {
           // Create and push a new instance of our class on the stack
-          myObject = new SObject(myClass);
+          myObject = SObject.create(myClass);
 
           // Lookup the run: method
           SInvokable shellMethod = myClass.lookupInvokable(symbolFor("run:"));
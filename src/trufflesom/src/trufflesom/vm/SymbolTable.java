@@ -1,6 +1,8 @@
 package trufflesom.vm;
 
-import java.util.HashMap;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
@@ -8,8 +10,22 @@ import trufflesom.bdt.basic.IdProvider;
 import trufflesom.vmobjects.SSymbol;
 
 
+/**
+ * Maps strings to their unique symbols.
+ *
+ * <p>
+ * Looking up an existing symbol does not lock, and does not need a String, see
+ * {@link #symbolFor(char[], int, int)}. Only adding a new symbol locks the table. Entries
+ * are immutable, so that a lookup that races with an insertion either sees the complete
+ * new entry, or misses it and retries with the lock held.
+ */
 public class SymbolTable {
-  private static final HashMap<String, SSymbol> symbolTable;
+  private static final int INITIAL_CAPACITY = 4096;
+
+  private static volatile AtomicReferenceArray<Entry> buckets;
+
+  /** Number of entries, including the ones of collected weak symbols. Guarded by the lock. */
+  private static int numEntries;
 
   public static final SSymbol symNil;
   public static final SSymbol symTrue;
@@ -37,22 +53,205 @@ public class SymbolTable {
     }
   }
 
+  private static final class Entry {
+    private final int    hash;
+    private final String string;
+    private final Entry  next;
+
+    /** The SSymbol, or a WeakReference to it. */
+    private final Object symbol;
+
+    Entry(final String string, final Object symbol, final Entry next) {
+      this.hash = string.hashCode();
+      this.string = string;
+      this.symbol = symbol;
+      this.next = next;
+    }
+
+    /** @return the symbol, or null if it was weak and collected */
+    @SuppressWarnings("unchecked")
+    SSymbol get() {
+      if (symbol instanceof SSymbol) {
+        return (SSymbol) symbol;
+      }
+      return ((WeakReference<SSymbol>) symbol).get();
+    }
+
+    boolean isWeak() {
+      return symbol instanceof WeakReference;
+    }
+
+    boolean matches(final char[] chars, final int offset, final int length) {
+      if (string.length() != length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if (string.charAt(i) != chars[offset + i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static int hashOf(final char[] chars, final int offset, final int length) {
+    // same as String.hashCode()
+    int h = 0;
+    for (int i = 0; i < length; i++) {
+      h = 31 * h + chars[offset + i];
+    }
+    return h;
+  }
+
+  private static int indexFor(final int hash, final int numBuckets) {
+    return (hash ^ (hash >>> 16)) & (numBuckets - 1);
+  }
+
+  private static SSymbol lookup(final String string) {
+    int hash = string.hashCode();
+    AtomicReferenceArray<Entry> b = buckets;
+    for (Entry e = b.get(indexFor(hash, b.length())); e != null; e = e.next) {
+      if (e.hash == hash && e.string.equals(string)) {
+        return e.get();
+      }
+    }
+    return null;
+  }
+
   @TruffleBoundary
   public static SSymbol symbolFor(final String string) {
-    String interned = string.intern();
-    // Lookup the symbol in the symbol table
-    SSymbol result = symbolTable.get(interned);
+    SSymbol result = lookup(string);
+    if (result != null) {
+      return result;
+    }
+    return add(string, false);
+  }
+
+  /**
+   * Looks up the symbol for the characters, and only allocates a String for it if the symbol
+   * does not exist yet.
+   */
+  @TruffleBoundary
+  public static SSymbol symbolFor(final char[] chars, final int offset, final int length) {
+    int hash = hashOf(chars, offset, length);
+    AtomicReferenceArray<Entry> b = buckets;
+    for (Entry e = b.get(indexFor(hash, b.length())); e != null; e = e.next) {
+      if (e.hash == hash && e.matches(chars, offset, length)) {
+        SSymbol result = e.get();
+        if (result != null) {
+          return result;
+        }
+        break;
+      }
+    }
+    return add(new String(chars, offset, length), false);
+  }
+
+  /**
+   * Returns the symbol for a string created at run time. With
+   * {@link VmSettings#UseWeakSymbols}, a new symbol is only held weakly by the table.
+   */
+  @TruffleBoundary
+  public static SSymbol dynamicSymbolFor(final String string) {
+    SSymbol result = lookup(string);
     if (result != null) {
       return result;
     }
+    return add(string, VmSettings.UseWeakSymbols);
+  }
+
+  private static synchronized SSymbol add(final String string, final boolean weak) {
+    AtomicReferenceArray<Entry> b = buckets;
+    int idx = indexFor(string.hashCode(), b.length());
+    Entry head = b.get(idx);
+
+    // another thread may have added it since the lookup, or a weak entry may need to be
+    // replaced, because it was collected, or because the symbol is now needed strongly
+    Entry existing = null;
+    for (Entry e = head; e != null; e = e.next) {
+      if (e.string.equals(string)) {
+        existing = e;
+        break;
+      }
+    }
+
+    SSymbol result = existing == null ? null : existing.get();
+    if (result != null && (weak || !existing.isWeak())) {
+      return result;
+    }
+
+    if (result == null) {
+      result = new SSymbol(string);
+    }
+    Object symbol = weak ? new WeakReference<>(result) : result;
+
+    if (existing == null) {
+      numEntries += 1;
+    }
+    b.set(idx, new Entry(string, symbol, withoutCollected(head, existing)));
 
-    result = new SSymbol(interned);
-    symbolTable.put(interned, result);
+    if (numEntries > b.length()) {
+      resize();
+    }
+    return result;
+  }
+
+  /** @return copy of the chain without the given entry and entries of collected symbols */
+  private static Entry withoutCollected(final Entry head, final Entry removed) {
+    // the chain after the last dropped entry stays as it is, and can be shared
+    Entry lastDropped = null;
+    for (Entry e = head; e != null; e = e.next) {
+      if (e == removed || e.get() == null) {
+        lastDropped = e;
+      }
+    }
+    if (lastDropped == null) {
+      return head;
+    }
+
+    ArrayList<Entry> kept = new ArrayList<>();
+    for (Entry e = head; e != lastDropped; e = e.next) {
+      if (e == removed) {
+        continue;
+      }
+      if (e.get() == null) {
+        numEntries -= 1;
+      } else {
+        kept.add(e);
+      }
+    }
+    if (lastDropped != removed) {
+      numEntries -= 1;
+    }
+
+    // chains can be long, so copy the kept entries in a loop instead of recursing
+    Entry result = lastDropped.next;
+    for (int i = kept.size() - 1; i >= 0; i--) {
+      Entry e = kept.get(i);
+      result = new Entry(e.string, e.symbol, result);
+    }
     return result;
   }
 
+  private static void resize() {
+    AtomicReferenceArray<Entry> old = buckets;
+    AtomicReferenceArray<Entry> b = new AtomicReferenceArray<>(old.length() * 2);
+    int count = 0;
+    for (int i = 0; i < old.length(); i++) {
+      for (Entry e = old.get(i); e != null; e = e.next) {
+        if (e.get() != null) {
+          int idx = indexFor(e.hash, b.length());
+          b.set(idx, new Entry(e.string, e.symbol, b.get(idx)));
+          count += 1;
+        }
+      }
+    }
+    numEntries = count;
+    buckets = b;
+  }
+
   static {
-    symbolTable = new HashMap<>();
+    buckets = new AtomicReferenceArray<>(INITIAL_CAPACITY);
 
     symNil = symbolFor("nil");
     symTrue = symbolFor("true");
@@ -50,6 +50,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.StringTokenizer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
@@ -98,6 +99,11 @@ public final class Universe {
   @CompilationFinal private static SObject systemObject;
   @CompilationFinal private static SClass  systemClass;
 
+  private static final int           IDENTITY_HASH_INCREMENT = 0x9E3779B9;
+  private static final AtomicInteger lastIdentityHash        = new AtomicInteger();
+
+  private static MethodLookupCache methodLookupCache = new MethodLookupCache();
+
   public static void setSourceCompiler(final SourcecodeCompiler compiler,
       final boolean needsToSucceed) {
     // this will cause headaches when we need to debug this
@@ -114,6 +120,26 @@ public final class Universe {
     objectSystemInitialized = false;
     systemClass = null;
     systemObject = null;
+    lastIdentityHash.set(0);
+    methodLookupCache = new MethodLookupCache();
+  }
+
+  public static MethodLookupCache getMethodLookupCache() {
+    return methodLookupCache;
+  }
+
+  /**
+   * Identity hashes are handed out from a Weyl sequence with the golden ratio, which spreads
+   * consecutive hashes over all bits. Since the increment is odd, the sequence only reaches 0
+   * again after 2^32 steps, and 0 is skipped because it marks an unassigned hash.
+   */
+  @TruffleBoundary
+  public static int nextIdentityHash() {
+    int hash = lastIdentityHash.addAndGet(IDENTITY_HASH_INCREMENT);
+    if (hash == 0) {
+      hash = lastIdentityHash.addAndGet(IDENTITY_HASH_INCREMENT);
+    }
+    return hash;
   }
 
   public static void callerNeedsToBeOptimized(final String msg) {
@@ -361,7 +387,7 @@ public final class Universe {
 
     // Load the system class and create an instance of it
     systemClass = loadClass(symbolFor("System"));
-    systemObject = new SObject(systemClass);
+    systemObject = SObject.create(systemClass);
 
     // Put special objects into the dictionary of globals
     setGlobal("nil", nilObject);
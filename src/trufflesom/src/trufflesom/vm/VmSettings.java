@@ -9,6 +9,70 @@ public class VmSettings {
 
   public static final boolean UseInstrumentation;
 
+  /**
+   * Number of fields of a class that may be generalized from a primitive type to Object
+   * before its instances store all fields as objects, to avoid further invalidation of
+   * compiled code. The first write of a field does not count as a generalization.
+   */
+  public static final int MaxFieldGeneralizations;
+
+  /**
+   * Migrate all instances of a class when its layout changes, instead of updating them
+   * lazily when they are encountered.
+   */
+  public static final boolean EagerLayoutMigration;
+  public static final boolean PrintLayoutStatistics;
+
+  /**
+   * Guard cached dispatches on the receiver's class and method dictionary instead of on
+   * its object layout. Field accesses still check the layout themselves.
+   */
+  public static final boolean DispatchOnClass;
+
+  /**
+   * Dispatch sends of selectors implemented by a single class without distinguishing
+   * receiver classes, as long as no other class defines the selector.
+   */
+  public static final boolean UseClassHierarchyAnalysis;
+
+  /**
+   * Store arrays of small integers and of single-character strings in byte[], int[], and
+   * char[] instead of long[] and Object[].
+   */
+  public static final boolean UseCompactArrays;
+
+  /**
+   * Minimal length of an empty array to store its elements in pages allocated on the first
+   * write, instead of in a dense array. 0 disables sparse arrays.
+   */
+  public static final int SparseArrayMinLength;
+
+  /**
+   * Minimal length of an array for a copy to share its storage until the first write.
+   * 0 disables copy-on-write.
+   */
+  public static final int CopyOnWriteMinLength;
+
+  /**
+   * Minimal length of the result of concatenate: to keep the concatenated strings in a rope
+   * instead of copying them into a new string, and of a substring to share the characters of
+   * the original string. 0 disables ropes.
+   */
+  public static final int RopeMinLength;
+
+  /**
+   * Hold symbols created at run time, for instance by asSymbol, only weakly in the symbol
+   * table, so that they can be collected once they are not used anymore.
+   */
+  public static final boolean UseWeakSymbols;
+
+  /**
+   * Let the bytecode compiler fuse frequently executed bytecode sequences into
+   * superinstructions. Candidates are reported with {@link #PrintBytecodeNgrams}.
+   */
+  public static final boolean UseSuperinstructions;
+  public static final boolean PrintBytecodeNgrams;
+
   static {
     String val = System.getProperty("som.interp", "AST").toUpperCase();
     UseAstInterp = "AST".equals(val);
@@ -24,9 +88,50 @@ public class VmSettings {
 
     val = System.getProperty("polyglot.nodestats", "false");
     String val2 = System.getProperty("polyglot.coverage", "false");
-    UseInstrumentation = "true".equals(val) || "true".equals(val2);
+    String val3 = System.getProperty("polyglot.dispatchstats", "false");
+    UseInstrumentation = "true".equals(val) || "true".equals(val2) || "true".equals(val3);
 
     val = System.getProperty("som.printStackTraceOnDNU", "false");
     PrintStackTraceOnDNU = "true".equals(val);
+
+    val = System.getProperty("som.maxFieldGeneralizations", "8");
+    MaxFieldGeneralizations = Integer.parseInt(val);
+
+    val = System.getProperty("som.eagerLayoutMigration", "false");
+    EagerLayoutMigration = "true".equals(val);
+
+    val = System.getProperty("som.layoutStatistics", "false");
+    PrintLayoutStatistics = "true".equals(val);
+
+    val = System.getProperty("som.dispatchGuard", "layout").toLowerCase();
+    DispatchOnClass = "class".equals(val);
+    if (!DispatchOnClass && !"layout".equals(val)) {
+      throw new IllegalStateException("The Java property -Dsom.dispatchGuard=" + val
+          + " was set, which is not supported. Only the values layout and class are supported.");
+    }
+
+    val = System.getProperty("som.cha", "false");
+    UseClassHierarchyAnalysis = "true".equals(val);
+
+    val = System.getProperty("som.compactArrays", "false");
+    UseCompactArrays = "true".equals(val);
+
+    val = System.getProperty("som.sparseArrayMinLength", "0");
+    SparseArrayMinLength = Integer.parseInt(val);
+
+    val = System.getProperty("som.copyOnWriteMinLength", "0");
+    CopyOnWriteMinLength = Integer.parseInt(val);
+
+    val = System.getProperty("som.ropeMinLength", "0");
+    RopeMinLength = Integer.parseInt(val);
+
+    val = System.getProperty("som.weakSymbols", "false");
+    UseWeakSymbols = "true".equals(val);
+
+    val = System.getProperty("som.superinstructions", "false");
+    UseSuperinstructions = "true".equals(val);
+
+    val = System.getProperty("som.bytecodeNgrams", "false");
+    PrintBytecodeNgrams = "true".equals(val);
   }
 }
@@ -0,0 +1,33 @@
+package trufflesom.vm.constants;
+
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+
+/**
+ * SOM has no characters, so charAt: and the arrays of characters answer strings of length 1.
+ * For the Latin-1 characters, these strings are preallocated, so that code iterating over
+ * strings does not allocate one per character.
+ */
+public final class Characters {
+  @CompilationFinal(dimensions = 1) private static final String[] singleCharStrings;
+
+  static {
+    singleCharStrings = new String[256];
+    for (int i = 0; i < singleCharStrings.length; i++) {
+      singleCharStrings[i] = String.valueOf((char) i);
+    }
+  }
+
+  public static String charToString(final char value) {
+    if (value < singleCharStrings.length) {
+      return singleCharStrings[value];
+    }
+    return newString(value);
+  }
+
+  @TruffleBoundary
+  private static String newString(final char value) {
+    return String.valueOf(value);
+  }
+}
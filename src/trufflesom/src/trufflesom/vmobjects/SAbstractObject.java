@@ -11,13 +11,36 @@ import com.oracle.truffle.api.library.ExportLibrary;
 import com.oracle.truffle.api.library.ExportMessage;
 
 import trufflesom.interpreter.Types;
+import trufflesom.vm.Universe;
 
 
 @ExportLibrary(InteropLibrary.class)
 public abstract class SAbstractObject implements TruffleObject {
 
+  /**
+   * Identity hash of the object, 0 until it is first requested. The field makes each object
+   * 4 bytes larger, or fills the alignment padding some layouts have anyway.
+   */
+  private int identityHash;
+
   public abstract SClass getSOMClass();
 
+  /**
+   * Unlike {@link System#identityHashCode(Object)}, the hash is assigned on the first request
+   * and afterwards read from a plain field, which the compiler can optimize like any other
+   * field read.
+   *
+   * @return a hash that does not change during the lifetime of the object
+   */
+  public final int getIdentityHash() {
+    int hash = identityHash;
+    if (hash == 0) {
+      hash = Universe.nextIdentityHash();
+      identityHash = hash;
+    }
+    return hash;
+  }
+
   @Override
   public String toString() {
     CompilerAsserts.neverPartOfCompilation();
@@ -45,6 +68,17 @@ public abstract class SAbstractObject implements TruffleObject {
     return send("unknownGlobal:", arguments);
   }
 
+  /**
+   * Report an error in a primitive the same way as SOM code does, by sending #error: to
+   * the receiver.
+   */
+  @TruffleBoundary
+  @InliningCutoff
+  public static final Object sendError(final Object receiver, final String message) {
+    Object[] arguments = {receiver, message};
+    return send("error:", arguments);
+  }
+
   @TruffleBoundary
   @InliningCutoff
   public static final Object sendEscapedBlock(final Object receiver, final SBlock block) {
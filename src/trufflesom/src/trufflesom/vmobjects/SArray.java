@@ -3,8 +3,11 @@ package trufflesom.vmobjects;
 import java.util.Arrays;
 
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 import trufflesom.vm.Classes;
+import trufflesom.vm.VmSettings;
+import trufflesom.vm.constants.Characters;
 import trufflesom.vm.constants.Nil;
 
 
@@ -24,7 +27,7 @@ public final class SArray extends SAbstractObject {
   }
 
   public static SArray create(final long[] values) {
-    return new SArray(values);
+    return new SArray(createNarrowestInteger(values, values.length));
   }
 
   public static SArray create(final double[] values) {
@@ -35,12 +38,41 @@ public final class SArray extends SAbstractObject {
     return new SArray(values);
   }
 
+  public static SArray create(final byte[] values) {
+    return new SArray(values);
+  }
+
+  public static SArray create(final int[] values) {
+    return new SArray(values);
+  }
+
+  public static SArray create(final char[] values) {
+    return new SArray(values);
+  }
+
   public static SArray create(final int length) {
     return new SArray(length);
   }
 
+  /**
+   * Creates an array with a fixed-size copy of the elements of the given growable array,
+   * keeping long, double, and boolean elements unboxed.
+   */
+  public static SArray createFixed(final GrowableArray values) {
+    if (values.getSize() == 0) {
+      return new SArray(0);
+    }
+    return new SArray(values.toFixedStorage());
+  }
+
   private Object storage;
 
+  /**
+   * Storage that copies of this array share in a {@link CopyOnWriteArray}. As long as it is
+   * the storage of this array, this array must not write to it in place.
+   */
+  private Object sharedWithCopies;
+
   public int getEmptyStorage() {
     assert isEmptyType();
     return (int) storage;
@@ -71,6 +103,36 @@ public final class SArray extends SAbstractObject {
     return (boolean[]) storage;
   }
 
+  public byte[] getByteStorage() {
+    assert isByteType();
+    return (byte[]) storage;
+  }
+
+  public int[] getIntStorage() {
+    assert isIntType();
+    return (int[]) storage;
+  }
+
+  public char[] getCharStorage() {
+    assert isCharType();
+    return (char[]) storage;
+  }
+
+  public GrowableArray getGrowableStorage() {
+    assert isGrowableType();
+    return (GrowableArray) storage;
+  }
+
+  public SparseArray getSparseStorage() {
+    assert isSparseType();
+    return (SparseArray) storage;
+  }
+
+  public CopyOnWriteArray getCopyOnWriteStorage() {
+    assert isCopyOnWriteType();
+    return (CopyOnWriteArray) storage;
+  }
+
   public boolean isEmptyType() {
     return storage.getClass() == Integer.class;
   }
@@ -95,6 +157,163 @@ public final class SArray extends SAbstractObject {
     return storage.getClass() == boolean[].class;
   }
 
+  /** Integers in the range 0..255, stored unsigned in a byte[]. */
+  public boolean isByteType() {
+    return storage.getClass() == byte[].class;
+  }
+
+  /** Integers in the 32-bit range. */
+  public boolean isIntType() {
+    return storage.getClass() == int[].class;
+  }
+
+  /** Strings of a single character. */
+  public boolean isCharType() {
+    return storage.getClass() == char[].class;
+  }
+
+  public boolean isGrowableType() {
+    return storage.getClass() == GrowableArray.class;
+  }
+
+  public boolean isSparseType() {
+    return storage.getClass() == SparseArray.class;
+  }
+
+  /** Storage shared with copies of the array until the first write to either of them. */
+  public boolean isCopyOnWriteType() {
+    return storage.getClass() == CopyOnWriteArray.class;
+  }
+
+  /** Whether the first non-nil element makes this array sparse instead of partially empty. */
+  public boolean isSparseCandidate() {
+    return VmSettings.SparseArrayMinLength > 0 && isEmptyType() &&
+        getEmptyStorage() >= VmSettings.SparseArrayMinLength;
+  }
+
+  /** Whether a copy of this array is to share the storage until the first write. */
+  public boolean isCopyOnWriteCandidate() {
+    if (VmSettings.CopyOnWriteMinLength == 0) {
+      return false;
+    }
+    Class<?> c = storage.getClass();
+    boolean plainArray = c == Object[].class || c == long[].class || c == double[].class ||
+        c == boolean[].class || c == byte[].class || c == int[].class || c == char[].class;
+    return (plainArray || c == CopyOnWriteArray.class) &&
+        getLength() >= VmSettings.CopyOnWriteMinLength;
+  }
+
+  public static boolean isByteValue(final long value) {
+    return 0 <= value && value <= 255;
+  }
+
+  public static boolean isIntValue(final long value) {
+    return value == (int) value;
+  }
+
+  public static boolean isCharValue(final Object value) {
+    return value instanceof String && ((String) value).length() == 1;
+  }
+
+  public static String charToString(final char value) {
+    return Characters.charToString(value);
+  }
+
+  public boolean isGrowableLongType() {
+    return isGrowableType() && ((GrowableArray) storage).isLongType();
+  }
+
+  public boolean isGrowableDoubleType() {
+    return isGrowableType() && ((GrowableArray) storage).isDoubleType();
+  }
+
+  public boolean isGrowableBooleanType() {
+    return isGrowableType() && ((GrowableArray) storage).isBooleanType();
+  }
+
+  /**
+   * @return true if the storage was not replaced by a strategy transition since it was read
+   */
+  public boolean hasStorage(final Object expected) {
+    return storage == expected;
+  }
+
+  /**
+   * Number of elements independent of the strategy. This is meant for generic paths only,
+   * fast paths should use the strategy-specific storage instead.
+   */
+  public int getLength() {
+    Object s = storage;
+    if (s.getClass() == CopyOnWriteArray.class) {
+      s = ((CopyOnWriteArray) s).shared;
+    }
+    return lengthOf(s);
+  }
+
+  /**
+   * Element at the given 0-based index independent of the strategy, boxing primitive values.
+   * This is meant for generic paths only.
+   */
+  public Object getElement(final long idx) {
+    Object s = storage;
+    if (s.getClass() == CopyOnWriteArray.class) {
+      s = ((CopyOnWriteArray) s).shared;
+    }
+    return elementOf(s, idx);
+  }
+
+  private static int lengthOf(final Object storage) {
+    Class<?> c = storage.getClass();
+    if (c == Integer.class) {
+      return (int) storage;
+    } else if (c == PartiallyEmptyArray.class) {
+      return ((PartiallyEmptyArray) storage).getLength();
+    } else if (c == long[].class) {
+      return ((long[]) storage).length;
+    } else if (c == double[].class) {
+      return ((double[]) storage).length;
+    } else if (c == boolean[].class) {
+      return ((boolean[]) storage).length;
+    } else if (c == byte[].class) {
+      return ((byte[]) storage).length;
+    } else if (c == int[].class) {
+      return ((int[]) storage).length;
+    } else if (c == char[].class) {
+      return ((char[]) storage).length;
+    } else if (c == GrowableArray.class) {
+      return ((GrowableArray) storage).getSize();
+    } else if (c == SparseArray.class) {
+      return ((SparseArray) storage).getLength();
+    }
+    return ((Object[]) storage).length;
+  }
+
+  private static Object elementOf(final Object storage, final long idx) {
+    Class<?> c = storage.getClass();
+    if (c == Integer.class) {
+      return Nil.nilObject;
+    } else if (c == PartiallyEmptyArray.class) {
+      return ((PartiallyEmptyArray) storage).get(idx);
+    } else if (c == long[].class) {
+      return ((long[]) storage)[(int) idx];
+    } else if (c == double[].class) {
+      return ((double[]) storage)[(int) idx];
+    } else if (c == boolean[].class) {
+      return ((boolean[]) storage)[(int) idx];
+    } else if (c == byte[].class) {
+      return (long) Byte.toUnsignedInt(((byte[]) storage)[(int) idx]);
+    } else if (c == int[].class) {
+      return (long) ((int[]) storage)[(int) idx];
+    } else if (c == char[].class) {
+      return charToString(((char[]) storage)[(int) idx]);
+    } else if (c == GrowableArray.class) {
+      return ((GrowableArray) storage).get(idx);
+    } else if (c == SparseArray.class) {
+      return ((SparseArray) storage).get(idx);
+    }
+    return ((Object[]) storage)[(int) idx];
+  }
+
   /**
    * Creates and empty array, using the EMPTY strategy.
    *
@@ -131,6 +350,118 @@ public final class SArray extends SAbstractObject {
     fromEmptyToParticalWithType(PartiallyEmptyArray.Type.BOOLEAN, idx, val);
   }
 
+  public void transitionFromEmptyToSparseWith(final long idx, final Object val) {
+    SparseArray arr = new SparseArray(getEmptyStorage());
+    arr.set(idx, val);
+    storage = arr;
+  }
+
+  /** Sets the element, and transitions to a dense OBJECT array once many are set. */
+  public void setSparse(final long idx, final Object val) {
+    SparseArray arr = getSparseStorage();
+    arr.set(idx, val);
+    if (arr.isDense()) {
+      storage = arr.toObjectArray();
+    }
+  }
+
+  /**
+   * Returns a copy of this array in O(1), by letting both arrays share the storage until
+   * the first write to either of them. The storage of this array stays as it is, only the
+   * copy wraps it into a {@link CopyOnWriteArray}.
+   */
+  public SArray copyOnWrite() {
+    assert isCopyOnWriteCandidate();
+    if (isCopyOnWriteType()) {
+      return new SArray(storage);
+    }
+    sharedWithCopies = storage;
+    return new SArray(new CopyOnWriteArray(storage));
+  }
+
+  /** Gives this array its own copy of the shared storage, before writing to it. */
+  public void materializeCopyOnWrite() {
+    storage = cloneStorage(getCopyOnWriteStorage().shared);
+  }
+
+  /**
+   * Must be called before writing in place to the storage of a fixed-size array. If copies
+   * of this array share the storage, this array continues with its own copy of it.
+   */
+  public void ensureOwnStorage() {
+    if (storage == sharedWithCopies) {
+      stopSharingStorage();
+    }
+  }
+
+  @TruffleBoundary
+  private void stopSharingStorage() {
+    storage = cloneStorage(storage);
+    sharedWithCopies = null;
+  }
+
+  private static Object cloneStorage(final Object storage) {
+    Class<?> c = storage.getClass();
+    if (c == long[].class) {
+      return ((long[]) storage).clone();
+    } else if (c == double[].class) {
+      return ((double[]) storage).clone();
+    } else if (c == boolean[].class) {
+      return ((boolean[]) storage).clone();
+    } else if (c == byte[].class) {
+      return ((byte[]) storage).clone();
+    } else if (c == int[].class) {
+      return ((int[]) storage).clone();
+    } else if (c == char[].class) {
+      return ((char[]) storage).clone();
+    }
+    return ((Object[]) storage).clone();
+  }
+
+  public void transitionFromEmptyToPartiallyEmptyWithChar(final long idx, final String val) {
+    assert isCharValue(val);
+    fromEmptyToParticalWithType(PartiallyEmptyArray.Type.CHAR, idx, val);
+  }
+
+  /**
+   * Transition from the BYTE or INT strategy to LONG, for values that do not fit anymore.
+   *
+   * @return the new storage
+   */
+  public long[] transitionToLong() {
+    long[] arr;
+    if (isByteType()) {
+      byte[] s = getByteStorage();
+      arr = new long[s.length];
+      for (int i = 0; i < s.length; i++) {
+        arr[i] = Byte.toUnsignedInt(s[i]);
+      }
+    } else {
+      int[] s = getIntStorage();
+      arr = new long[s.length];
+      for (int i = 0; i < s.length; i++) {
+        arr[i] = s[i];
+      }
+    }
+    storage = arr;
+    return arr;
+  }
+
+  /**
+   * Transition from the BYTE strategy to INT, for values outside of 0..255.
+   *
+   * @return the new storage
+   */
+  public int[] transitionFromByteToInt() {
+    byte[] s = getByteStorage();
+    int[] arr = new int[s.length];
+    for (int i = 0; i < s.length; i++) {
+      arr[i] = Byte.toUnsignedInt(s[i]);
+    }
+    storage = arr;
+    return arr;
+  }
+
   public void transitionToEmpty(final long length) {
     storage = (int) length;
   }
@@ -146,9 +477,19 @@ public final class SArray extends SAbstractObject {
   }
 
   public void transitionToLongWithAll(final long length, final long val) {
-    long[] arr = new long[(int) length];
-    Arrays.fill(arr, val);
-    storage = arr;
+    if (VmSettings.UseCompactArrays && isByteValue(val)) {
+      byte[] arr = new byte[(int) length];
+      Arrays.fill(arr, (byte) val);
+      storage = arr;
+    } else if (VmSettings.UseCompactArrays && isIntValue(val)) {
+      int[] arr = new int[(int) length];
+      Arrays.fill(arr, (int) val);
+      storage = arr;
+    } else {
+      long[] arr = new long[(int) length];
+      Arrays.fill(arr, val);
+      storage = arr;
+    }
   }
 
   public void transitionToDoubleWithAll(final long length, final double val) {
@@ -181,6 +522,81 @@ public final class SArray extends SAbstractObject {
     return storage;
   }
 
+  /**
+   * Uses the narrowest of byte[], int[], and long[] that fits all values, if compact arrays
+   * are enabled.
+   */
+  private static Object createNarrowestInteger(final Object[] arr) {
+    if (!VmSettings.UseCompactArrays) {
+      return createLong(arr);
+    }
+
+    boolean allBytes = true;
+    boolean allInts = true;
+    for (Object o : arr) {
+      long v = (long) o;
+      allBytes = allBytes && isByteValue(v);
+      allInts = allInts && isIntValue(v);
+    }
+
+    if (allBytes) {
+      byte[] storage = new byte[arr.length];
+      for (int i = 0; i < arr.length; i++) {
+        storage[i] = (byte) (long) arr[i];
+      }
+      return storage;
+    } else if (allInts) {
+      int[] storage = new int[arr.length];
+      for (int i = 0; i < arr.length; i++) {
+        storage[i] = (int) (long) arr[i];
+      }
+      return storage;
+    }
+    return createLong(arr);
+  }
+
+  /**
+   * Uses the narrowest of byte[], int[], and long[] that fits the first {@code length}
+   * values, if compact arrays are enabled.
+   */
+  private static Object createNarrowestInteger(final long[] arr, final int length) {
+    if (VmSettings.UseCompactArrays) {
+      boolean allBytes = true;
+      boolean allInts = true;
+      for (int i = 0; i < length; i++) {
+        allBytes = allBytes && isByteValue(arr[i]);
+        allInts = allInts && isIntValue(arr[i]);
+      }
+
+      if (allBytes) {
+        byte[] storage = new byte[length];
+        for (int i = 0; i < length; i++) {
+          storage[i] = (byte) arr[i];
+        }
+        return storage;
+      } else if (allInts) {
+        int[] storage = new int[length];
+        for (int i = 0; i < length; i++) {
+          storage[i] = (int) arr[i];
+        }
+        return storage;
+      }
+    }
+
+    if (arr.length == length) {
+      return arr;
+    }
+    return Arrays.copyOf(arr, length);
+  }
+
+  private static char[] createChar(final Object[] arr) {
+    char[] storage = new char[arr.length];
+    for (int i = 0; i < arr.length; i++) {
+      storage[i] = ((String) arr[i]).charAt(0);
+    }
+    return storage;
+  }
+
   private static boolean[] createBoolean(final Object[] arr) {
     boolean[] storage = new boolean[arr.length];
     for (int i = 0; i < arr.length; i++) {
@@ -199,24 +615,506 @@ public final class SArray extends SAbstractObject {
 
     if (arr.isFull()) {
       if (arr.type == PartiallyEmptyArray.Type.LONG) {
-        storage = createLong(arr.getStorage());
+        storage = createNarrowestInteger(arr.getStorage());
       } else if (arr.type == PartiallyEmptyArray.Type.DOUBLE) {
         storage = createDouble(arr.getStorage());
       } else if (arr.type == PartiallyEmptyArray.Type.BOOLEAN) {
         storage = createBoolean(arr.getStorage());
+      } else if (arr.type == PartiallyEmptyArray.Type.CHAR) {
+        storage = createChar(arr.getStorage());
       } else {
         storage = arr.getStorage();
       }
     }
   }
 
+  /**
+   * Transition a fixed-size array to the OBJECT strategy, boxing primitive values.
+   *
+   * @return the new storage
+   */
+  public Object[] transitionToObject() {
+    assert !isGrowableType();
+    if (isCopyOnWriteType()) {
+      materializeCopyOnWrite();
+    }
+
+    Object[] arr;
+    if (isObjectType()) {
+      ensureOwnStorage();
+      return getObjectStorage();
+    } else if (isSparseType()) {
+      arr = getSparseStorage().toObjectArray();
+    } else if (isEmptyType()) {
+      arr = new Object[getEmptyStorage()];
+      Arrays.fill(arr, Nil.nilObject);
+    } else if (isPartiallyEmptyType()) {
+      arr = getPartiallyEmptyStorage().getStorage();
+    } else {
+      int length = getLength();
+      arr = new Object[length];
+      for (int i = 0; i < length; i++) {
+        arr[i] = getElement(i);
+      }
+    }
+    storage = arr;
+    return arr;
+  }
+
+  /**
+   * Transition to the GROWABLE strategy, keeping the elements, and for long, double, and
+   * boolean arrays also their unboxed representation.
+   */
+  public GrowableArray transitionToGrowable(final int minCapacity) {
+    if (isGrowableType()) {
+      GrowableArray arr = getGrowableStorage();
+      arr.ensureCapacity(minCapacity);
+      return arr;
+    }
+    if (isCopyOnWriteType()) {
+      materializeCopyOnWrite();
+    }
+
+    GrowableArray arr;
+    if (isEmptyType()) {
+      int length = getEmptyStorage();
+      if (length == 0) {
+        arr = new GrowableArray(new long[minCapacity], 0);
+      } else {
+        Object[] s = new Object[Math.max(length, minCapacity)];
+        Arrays.fill(s, Nil.nilObject);
+        arr = new GrowableArray(s, length);
+      }
+    } else if (isPartiallyEmptyType()) {
+      Object[] s = getPartiallyEmptyStorage().getStorage();
+      arr = new GrowableArray(Arrays.copyOf(s, Math.max(s.length, minCapacity)), s.length);
+    } else if (isLongType()) {
+      long[] s = getLongStorage();
+      arr = new GrowableArray(Arrays.copyOf(s, Math.max(s.length, minCapacity)), s.length);
+    } else if (isDoubleType()) {
+      double[] s = getDoubleStorage();
+      arr = new GrowableArray(Arrays.copyOf(s, Math.max(s.length, minCapacity)), s.length);
+    } else if (isBooleanType()) {
+      boolean[] s = getBooleanStorage();
+      arr = new GrowableArray(Arrays.copyOf(s, Math.max(s.length, minCapacity)), s.length);
+    } else if (isByteType() || isIntType()) {
+      long[] s = transitionToLong();
+      arr = new GrowableArray(Arrays.copyOf(s, Math.max(s.length, minCapacity)), s.length);
+    } else if (isCharType() || isSparseType()) {
+      Object[] s = transitionToObject();
+      arr = new GrowableArray(Arrays.copyOf(s, Math.max(s.length, minCapacity)), s.length);
+    } else {
+      Object[] s = getObjectStorage();
+      arr = new GrowableArray(Arrays.copyOf(s, Math.max(s.length, minCapacity)), s.length);
+    }
+    storage = arr;
+    return arr;
+  }
+
+  /**
+   * Storage for arrays that grow and shrink at their end. The backing array has a capacity
+   * that is separate from the logical size, and is one of long[], double[], boolean[], or
+   * Object[]. As long as all elements are of the same primitive type, they stay unboxed.
+   */
+  public static final class GrowableArray {
+    private static final int MIN_CAPACITY = 8;
+
+    /** The largest array size that the JVM can allocate reliably. */
+    public static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    /** Store of arrays whose storage type is not yet decided by a first element. */
+    private static final Object[] UNINITIALIZED = new Object[0];
+
+    private Object store;
+    private int    size;
+
+    /** The capacity to allocate for an uninitialized store on the first append. */
+    private int initialCapacity;
+
+    public GrowableArray(final Object store, final int size) {
+      this.store = store;
+      this.size = size;
+    }
+
+    /**
+     * Create an empty array whose storage type is chosen by the first appended element, so
+     * that long, double, and boolean elements are not boxed.
+     */
+    public static GrowableArray createUninitialized(final int capacity) {
+      GrowableArray arr = new GrowableArray(UNINITIALIZED, 0);
+      arr.initialCapacity = capacity;
+      return arr;
+    }
+
+    private GrowableArray(final GrowableArray old) {
+      if (old.store instanceof long[]) {
+        store = ((long[]) old.store).clone();
+      } else if (old.store instanceof double[]) {
+        store = ((double[]) old.store).clone();
+      } else if (old.store instanceof boolean[]) {
+        store = ((boolean[]) old.store).clone();
+      } else if (old.store == UNINITIALIZED) {
+        store = UNINITIALIZED;
+      } else {
+        store = ((Object[]) old.store).clone();
+      }
+      size = old.size;
+      initialCapacity = old.initialCapacity;
+    }
+
+    public int getSize() {
+      return size;
+    }
+
+    public boolean isLongType() {
+      return store.getClass() == long[].class;
+    }
+
+    public boolean isDoubleType() {
+      return store.getClass() == double[].class;
+    }
+
+    public boolean isBooleanType() {
+      return store.getClass() == boolean[].class;
+    }
+
+    private int checkIndex(final long idx) {
+      if (idx < 0 || idx >= size) {
+        CompilerDirectives.transferToInterpreter();
+        throw new ArrayIndexOutOfBoundsException(
+            "Index " + (idx + 1) + " out of bounds for size " + size);
+      }
+      return (int) idx;
+    }
+
+    public long getLong(final long idx) {
+      return ((long[]) store)[checkIndex(idx)];
+    }
+
+    public double getDouble(final long idx) {
+      return ((double[]) store)[checkIndex(idx)];
+    }
+
+    public boolean getBoolean(final long idx) {
+      return ((boolean[]) store)[checkIndex(idx)];
+    }
+
+    /** Generic, possibly boxing access. */
+    public Object get(final long idx) {
+      int i = checkIndex(idx);
+      if (store instanceof long[]) {
+        return ((long[]) store)[i];
+      } else if (store instanceof double[]) {
+        return ((double[]) store)[i];
+      } else if (store instanceof boolean[]) {
+        return ((boolean[]) store)[i];
+      }
+      return ((Object[]) store)[i];
+    }
+
+    public void setLong(final long idx, final long value) {
+      ((long[]) store)[checkIndex(idx)] = value;
+    }
+
+    public void setDouble(final long idx, final double value) {
+      ((double[]) store)[checkIndex(idx)] = value;
+    }
+
+    public void setBoolean(final long idx, final boolean value) {
+      ((boolean[]) store)[checkIndex(idx)] = value;
+    }
+
+    /** Generic set, which generalizes the storage if the value does not fit. */
+    public void set(final long idx, final Object value) {
+      int i = checkIndex(idx);
+      if (store instanceof long[] && value instanceof Long) {
+        ((long[]) store)[i] = (long) value;
+      } else if (store instanceof double[] && value instanceof Double) {
+        ((double[]) store)[i] = (double) value;
+      } else if (store instanceof boolean[] && value instanceof Boolean) {
+        ((boolean[]) store)[i] = (boolean) value;
+      } else {
+        generalizeToObject();
+        ((Object[]) store)[i] = value;
+      }
+    }
+
+    public void appendLong(final long value) {
+      long[] s = (long[]) store;
+      if (size == s.length) {
+        s = Arrays.copyOf(s, grownCapacity(size + 1));
+        store = s;
+      }
+      s[size] = value;
+      size += 1;
+    }
+
+    public void appendDouble(final double value) {
+      double[] s = (double[]) store;
+      if (size == s.length) {
+        s = Arrays.copyOf(s, grownCapacity(size + 1));
+        store = s;
+      }
+      s[size] = value;
+      size += 1;
+    }
+
+    public void appendBoolean(final boolean value) {
+      boolean[] s = (boolean[]) store;
+      if (size == s.length) {
+        s = Arrays.copyOf(s, grownCapacity(size + 1));
+        store = s;
+      }
+      s[size] = value;
+      size += 1;
+    }
+
+    /**
+     * Generic append. An empty array adopts the type of the first value, otherwise the
+     * storage is generalized if the value does not fit.
+     */
+    public void append(final Object value) {
+      if (store == UNINITIALIZED) {
+        store = newStoreFor(value, initialCapacity);
+      } else if (size == 0) {
+        int capacity = capacity();
+        if (value instanceof Long) {
+          store = isLongType() ? store : new long[capacity];
+        } else if (value instanceof Double) {
+          store = isDoubleType() ? store : new double[capacity];
+        } else if (value instanceof Boolean) {
+          store = isBooleanType() ? store : new boolean[capacity];
+        } else if (!(store instanceof Object[])) {
+          store = new Object[capacity];
+        }
+      }
+
+      if (isLongType() && value instanceof Long) {
+        appendLong((long) value);
+      } else if (isDoubleType() && value instanceof Double) {
+        appendDouble((double) value);
+      } else if (isBooleanType() && value instanceof Boolean) {
+        appendBoolean((boolean) value);
+      } else {
+        generalizeToObject();
+        Object[] s = (Object[]) store;
+        if (size == s.length) {
+          s = Arrays.copyOf(s, grownCapacity(size + 1));
+          store = s;
+        }
+        s[size] = value;
+        size += 1;
+      }
+    }
+
+    private static Object newStoreFor(final Object value, final int capacity) {
+      if (value instanceof Long) {
+        return new long[capacity];
+      } else if (value instanceof Double) {
+        return new double[capacity];
+      } else if (value instanceof Boolean) {
+        return new boolean[capacity];
+      }
+      return new Object[capacity];
+    }
+
+    public Object removeLast() {
+      // the primitive reports the error for empty arrays
+      assert size > 0;
+      Object last = get(size - 1);
+      size -= 1;
+      if (store instanceof Object[]) {
+        // don't keep the removed object alive
+        ((Object[]) store)[size] = null;
+      }
+      return last;
+    }
+
+    public void ensureCapacity(final int minCapacity) {
+      if (store == UNINITIALIZED) {
+        initialCapacity = Math.max(initialCapacity, minCapacity);
+      } else if (minCapacity > capacity()) {
+        resize(minCapacity);
+      }
+    }
+
+    private int capacity() {
+      if (store instanceof long[]) {
+        return ((long[]) store).length;
+      } else if (store instanceof double[]) {
+        return ((double[]) store).length;
+      } else if (store instanceof boolean[]) {
+        return ((boolean[]) store).length;
+      }
+      return ((Object[]) store).length;
+    }
+
+    private int grownCapacity(final int minCapacity) {
+      long doubled = Math.min(MAX_CAPACITY, capacity() * 2L);
+      return (int) Math.max(Math.max(MIN_CAPACITY, doubled), minCapacity);
+    }
+
+    private void resize(final int capacity) {
+      if (store instanceof long[]) {
+        store = Arrays.copyOf((long[]) store, capacity);
+      } else if (store instanceof double[]) {
+        store = Arrays.copyOf((double[]) store, capacity);
+      } else if (store instanceof boolean[]) {
+        store = Arrays.copyOf((boolean[]) store, capacity);
+      } else {
+        store = Arrays.copyOf((Object[]) store, capacity);
+      }
+    }
+
+    private void generalizeToObject() {
+      if (store instanceof Object[]) {
+        return;
+      }
+      Object[] s = new Object[capacity()];
+      for (int i = 0; i < size; i++) {
+        s[i] = get(i);
+      }
+      store = s;
+    }
+
+    public GrowableArray copy() {
+      return new GrowableArray(this);
+    }
+
+    /** Copy of the elements in a backing array of exactly the logical size. */
+    public Object toFixedStorage() {
+      if (store instanceof long[]) {
+        Object fixed = createNarrowestInteger((long[]) store, size);
+        return fixed == store ? ((long[]) store).clone() : fixed;
+      } else if (store instanceof double[]) {
+        return Arrays.copyOf((double[]) store, size);
+      } else if (store instanceof boolean[]) {
+        return Arrays.copyOf((boolean[]) store, size);
+      }
+      return Arrays.copyOf((Object[]) store, size);
+    }
+  }
+
+  /**
+   * Storage for large arrays that are mostly nil. The elements are kept in pages, which are
+   * allocated on the first write of a non-nil element into them.
+   */
+  public static final class SparseArray {
+    private static final int PAGE_BITS = 6;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /** When more elements than this fraction are non-nil, dense storage is cheaper. */
+    private static final int DENSE_FRACTION = 4;
+
+    private final Object[][] pages;
+    private final int        length;
+    private int              nonNilElements;
+
+    public SparseArray(final int length) {
+      this.length = length;
+      this.pages = new Object[(length + PAGE_SIZE - 1) >>> PAGE_BITS][];
+    }
+
+    private SparseArray(final SparseArray old) {
+      length = old.length;
+      nonNilElements = old.nonNilElements;
+      pages = new Object[old.pages.length][];
+      for (int i = 0; i < pages.length; i++) {
+        if (old.pages[i] != null) {
+          pages[i] = old.pages[i].clone();
+        }
+      }
+    }
+
+    public int getLength() {
+      return length;
+    }
+
+    public Object get(final long idx) {
+      if (idx < 0 || idx >= length) {
+        CompilerDirectives.transferToInterpreter();
+        throw new ArrayIndexOutOfBoundsException(
+            "Index " + (idx + 1) + " out of bounds for length " + length);
+      }
+      Object[] page = pages[(int) (idx >>> PAGE_BITS)];
+      if (page == null) {
+        return Nil.nilObject;
+      }
+      return page[(int) (idx & PAGE_MASK)];
+    }
+
+    public void set(final long idx, final Object value) {
+      if (idx < 0 || idx >= length) {
+        CompilerDirectives.transferToInterpreter();
+        throw new ArrayIndexOutOfBoundsException(
+            "Index " + (idx + 1) + " out of bounds for length " + length);
+      }
+      int pageIdx = (int) (idx >>> PAGE_BITS);
+      Object[] page = pages[pageIdx];
+      if (page == null) {
+        if (value == Nil.nilObject) {
+          return;
+        }
+        page = new Object[PAGE_SIZE];
+        Arrays.fill(page, Nil.nilObject);
+        pages[pageIdx] = page;
+      }
+
+      int i = (int) (idx & PAGE_MASK);
+      if (page[i] == Nil.nilObject) {
+        if (value != Nil.nilObject) {
+          nonNilElements += 1;
+        }
+      } else if (value == Nil.nilObject) {
+        nonNilElements -= 1;
+      }
+      page[i] = value;
+    }
+
+    public boolean isDense() {
+      return nonNilElements > length / DENSE_FRACTION;
+    }
+
+    public Object[] toObjectArray() {
+      Object[] arr = new Object[length];
+      for (int p = 0; p < pages.length; p++) {
+        int start = p << PAGE_BITS;
+        int end = Math.min(start + PAGE_SIZE, length);
+        if (pages[p] == null) {
+          Arrays.fill(arr, start, end, Nil.nilObject);
+        } else {
+          System.arraycopy(pages[p], 0, arr, start, end - start);
+        }
+      }
+      return arr;
+    }
+
+    public SparseArray copy() {
+      return new SparseArray(this);
+    }
+  }
+
+  /**
+   * Storage of an array that was copied, shared by the original and the copy. Neither may
+   * write to it, but each gets its own copy on the first write.
+   */
+  public static final class CopyOnWriteArray {
+    private final Object shared;
+
+    CopyOnWriteArray(final Object shared) {
+      assert shared.getClass() != CopyOnWriteArray.class;
+      this.shared = shared;
+    }
+  }
+
   public static final class PartiallyEmptyArray {
     private final Object[] arr;
     private int            emptyElements;
     private Type           type;
 
     public enum Type {
-      EMPTY, PARTIAL_EMPTY, LONG, DOUBLE, BOOLEAN, OBJECT;
+      EMPTY, PARTIAL_EMPTY, LONG, DOUBLE, BOOLEAN, CHAR, OBJECT;
     }
 
     public PartiallyEmptyArray(final Type type, final int length,
@@ -279,21 +1177,17 @@ public final class SArray extends SAbstractObject {
 
   /**
    * For internal use only, specifically, for SClass.
-   * There we now, it is either empty, or of OBJECT type.
+   * The array may have any strategy, because SOM code can copy it.
    *
    * @param value
    */
   public SArray copyAndExtendWith(final Object value) {
-    Object[] newArr;
-    if (isEmptyType()) {
-      newArr = new Object[] {value};
-    } else {
-      // if this is not true, this method is used in a wrong context
-      assert isObjectType();
-      Object[] s = getObjectStorage();
-      newArr = Arrays.copyOf(s, s.length + 1);
-      newArr[s.length] = value;
+    int length = getLength();
+    Object[] newArr = new Object[length + 1];
+    for (int i = 0; i < length; i++) {
+      newArr[i] = getElement(i);
     }
+    newArr[length] = value;
     return new SArray(newArr);
   }
 
@@ -303,6 +1197,6 @@ public final class SArray extends SAbstractObject {
   }
 
   public Object debugGetObject(final int i) {
-    return ((Object[]) storage)[i];
+    return getElement(i);
   }
 }
@@ -26,21 +26,31 @@ package trufflesom.vmobjects;
 
 import static com.oracle.truffle.api.CompilerDirectives.transferToInterpreterAndInvalidate;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.source.SourceSection;
 
 import trufflesom.compiler.Field;
+import trufflesom.interpreter.objectstorage.LayoutStatistics;
 import trufflesom.interpreter.objectstorage.ObjectLayout;
 import trufflesom.vm.Classes;
+import trufflesom.vm.MethodLookupCache;
+import trufflesom.vm.SelectorImplementors;
+import trufflesom.vm.Universe;
+import trufflesom.vm.VmSettings;
 import trufflesom.vm.constants.Nil;
 
 
@@ -68,6 +78,7 @@ public final class SClass extends SObject {
   public void resetSystemClass() {
     invokablesTable = null;
     superclass = Nil.nilObject;
+    resetSuperclassDisplay();
     layoutForInstances = new ObjectLayout(0, this);
     setClass(new SClass(0));
     getSOMClass().setClass(Classes.metaclassClass);
@@ -76,6 +87,7 @@ public final class SClass extends SObject {
   public void resetMetaclassClass() {
     invokablesTable = null;
     superclass = Nil.nilObject;
+    resetSuperclassDisplay();
     layoutForInstances = new ObjectLayout(0, this);
     setClass(new SClass(0));
     getSOMClass().setClass(this);
@@ -88,6 +100,58 @@ public final class SClass extends SObject {
   public void setSuperClass(final SClass value) {
     transferToInterpreterAndInvalidate();
     superclass = value;
+    resetSuperclassDisplay();
+    Universe.getMethodLookupCache().invalidate(this);
+  }
+
+  /**
+   * A subclass computes its display from the display of its superclass. Thus, if this class
+   * has no display yet, no subclass has one either, and only otherwise, the displays of all
+   * classes need to be recomputed.
+   */
+  private void resetSuperclassDisplay() {
+    if (superclassDisplay != null) {
+      superclassDisplaysValid.invalidate();
+      superclassDisplaysValid = createSuperclassDisplaysAssumption();
+    }
+    superclassDisplay = null;
+  }
+
+  private static Assumption createSuperclassDisplaysAssumption() {
+    return Truffle.getRuntime().createAssumption("superclass displays valid");
+  }
+
+  /**
+   * @return whether this class is {@code other} or one of its subclasses
+   */
+  public boolean isKindOf(final SClass other) {
+    SClass[] display = getSuperclassDisplay();
+    int depth = other.getSuperclassDisplay().length - 1;
+    return depth < display.length && display[depth] == other;
+  }
+
+  /**
+   * The display lists all superclasses from the root down to this class, so that a
+   * subclass test is a single array access. It is computed lazily, since superclasses
+   * are set while classes are loaded, before any code of their subclasses runs. When a class
+   * with a display gets a new superclass, the displays of its subclasses are stale, too,
+   * which is why all displays depend on a shared assumption.
+   */
+  private SClass[] getSuperclassDisplay() {
+    if (superclassDisplay == null || !superclassDisplayValid.isValid()) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      SClass[] display;
+      if (hasSuperClass()) {
+        SClass[] superDisplay = ((SClass) superclass).getSuperclassDisplay();
+        display = Arrays.copyOf(superDisplay, superDisplay.length + 1);
+      } else {
+        display = new SClass[1];
+      }
+      display[display.length - 1] = this;
+      superclassDisplayValid = superclassDisplaysValid;
+      superclassDisplay = display;
+    }
+    return superclassDisplay;
   }
 
   public boolean hasSuperClass() {
@@ -162,6 +226,7 @@ public final class SClass extends SObject {
     this.hasPrimitives = hasPrimitives;
 
     transferToInterpreterAndInvalidate();
+    invalidateMethods();
     if (value == null || value.isEmpty()) {
       assert invokablesTable == null;
       return;
@@ -172,6 +237,7 @@ public final class SClass extends SObject {
     // Make sure this class is the holder of all invokables
     for (SInvokable i : invokablesTable.values()) {
       i.setHolder(this);
+      SelectorImplementors.register(this, i.getSignature());
     }
   }
 
@@ -236,14 +302,37 @@ public final class SClass extends SObject {
 
     value.setHolder(this);
     invokablesTable.put(value.getSignature(), value);
+    SelectorImplementors.register(this, value.getSignature());
+    invalidateMethods();
+  }
+
+  /**
+   * @return a hash used to index the {@link MethodLookupCache}
+   */
+  public int getLookupHash() {
+    return lookupHash;
+  }
+
+  /**
+   * @return an assumption that is invalidated when the methods of this class change
+   */
+  public Assumption getMethodsUnchangedAssumption() {
+    return methodsUnchanged;
+  }
+
+  private void invalidateMethods() {
+    Universe.getMethodLookupCache().invalidate(this);
+    methodsUnchanged.invalidate();
+    methodsUnchanged = Truffle.getRuntime().createAssumption("methods unchanged");
   }
 
   public SSymbol getInstanceFieldName(final int index) {
-    return (SSymbol) instanceFields.getObjectStorage()[index];
+    // the array is accessible from SOM, and copying it may change its strategy
+    return (SSymbol) instanceFields.getElement(index);
   }
 
   public int getNumberOfInstanceFields() {
-    return instanceFields.getObjectStorage().length;
+    return instanceFields.getLength();
   }
 
   public boolean hasPrimitives() {
@@ -256,23 +345,70 @@ public final class SClass extends SObject {
 
   public ObjectLayout updateInstanceLayoutWithInitializedField(final long index,
       final Class<?> type) {
-    ObjectLayout updated = layoutForInstances.withInitializedField(index, type);
+    // an outdated instance may initialize a field with a type that conflicts with the layout
+    boolean generalizes = layoutForInstances.isFieldInitialized(index);
+    return updateInstanceLayout(layoutForInstances.withInitializedField(index, type),
+        generalizes);
+  }
 
+  public ObjectLayout updateInstanceLayoutWithGeneralizedField(final long index) {
+    return updateInstanceLayout(layoutForInstances.withGeneralizedField(index), true);
+  }
+
+  private ObjectLayout updateInstanceLayout(final ObjectLayout updated,
+      final boolean generalizes) {
     if (updated != layoutForInstances) {
       CompilerDirectives.transferToInterpreterAndInvalidate();
-      layoutForInstances = updated;
+      if (generalizes) {
+        numberOfFieldGeneralizations += 1;
+      }
+
+      if (numberOfFieldGeneralizations >= VmSettings.MaxFieldGeneralizations) {
+        // the layout keeps changing, stop specializing the fields
+        layoutForInstances = updated.withAllFieldsGeneralized();
+      } else {
+        layoutForInstances = updated;
+      }
+
+      if (VmSettings.EagerLayoutMigration) {
+        migrateInstances();
+      }
     }
     return layoutForInstances;
   }
 
-  public ObjectLayout updateInstanceLayoutWithGeneralizedField(final long index) {
-    ObjectLayout updated = layoutForInstances.withGeneralizedField(index);
+  @TruffleBoundary
+  public void registerInstance(final SObject obj) {
+    if (instances == null) {
+      instances = new ArrayList<>();
+    }
 
-    if (updated != layoutForInstances) {
-      CompilerDirectives.transferToInterpreterAndInvalidate();
-      layoutForInstances = updated;
+    if (instances.size() >= compactInstancesAt) {
+      instances.removeIf(ref -> ref.get() == null);
+      compactInstancesAt = Math.max(MIN_INSTANCES_BEFORE_COMPACTION, instances.size() * 2);
     }
-    return layoutForInstances;
+    instances.add(new WeakReference<>(obj));
+  }
+
+  private void migrateInstances() {
+    if (instances == null) {
+      return;
+    }
+
+    instances.removeIf(ref -> {
+      SObject obj = ref.get();
+      if (obj == null) {
+        return true;
+      }
+      if (obj.migrateToLayoutOfClass() && VmSettings.PrintLayoutStatistics) {
+        LayoutStatistics.recordEagerMigration();
+      }
+      return false;
+    });
+  }
+
+  public int getNumberOfFieldGeneralizations() {
+    return numberOfFieldGeneralizations;
   }
 
   @Override
@@ -290,4 +426,26 @@ public final class SClass extends SObject {
   @CompilationFinal(dimensions = 1) private Field[] instanceFieldDefinitions;
 
   @CompilationFinal private ObjectLayout layoutForInstances;
+
+  @CompilationFinal(dimensions = 1) private SClass[] superclassDisplay;
+
+  @CompilationFinal private Assumption superclassDisplayValid;
+
+  private static Assumption superclassDisplaysValid = createSuperclassDisplaysAssumption();
+
+  private int numberOfFieldGeneralizations;
+
+  private static final AtomicInteger nextLookupHash = new AtomicInteger();
+
+  private final int lookupHash = nextLookupHash.getAndIncrement() * 0x9E3779B9;
+
+  @CompilationFinal private Assumption methodsUnchanged =
+      Truffle.getRuntime().createAssumption("methods unchanged");
+
+  private static final int MIN_INSTANCES_BEFORE_COMPACTION = 1024;
+
+  /** Weak references to all instances, only used for eager layout migration. */
+  private ArrayList<WeakReference<SObject>> instances;
+  private int                               compactInstancesAt =
+      MIN_INSTANCES_BEFORE_COMPACTION;
 }
@@ -0,0 +1,547 @@
+package trufflesom.vmobjects;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import trufflesom.vm.constants.Nil;
+
+
+/**
+ * Hash table of the HashMap and HashSet classes, whose operations are primitives.
+ *
+ * <p>
+ * The table uses open addressing with linear probing, and removes entries by shifting
+ * the following entries back, so that it does not need tombstones. As long as all keys are
+ * integers, they are stored unboxed in a long[]. The first key of another kind generalizes
+ * the table to an Object[].
+ *
+ * <p>
+ * Numbers, strings, symbols, and booleans are compared by value, all other keys by identity,
+ * which corresponds to = for objects that do not redefine it. Numbers are compared as with
+ * SOM's =, i.e., 1 and 1.0 are the same key, and so are 0.0 and -0.0, while NaN is not equal
+ * to any key. For this, doubles with an integer value are stored as integer keys. As with
+ * SOM's = and hashcode, a symbol is the same key as the string with the same characters.
+ */
+public final class SHashTable extends SAbstractObject {
+  private static final int INITIAL_CAPACITY = 8;
+
+  private final SClass  clazz;
+  private final boolean hasValues;
+
+  /** Keys while all keys are integers, null after the table was generalized. */
+  private long[]    longKeys;
+  private boolean[] used;
+
+  /** Keys after the table was generalized, null marks an empty slot. */
+  private Object[] keys;
+
+  /** Values, or null for sets. */
+  private Object[] values;
+
+  private int size;
+
+  public SHashTable(final SClass clazz, final boolean hasValues) {
+    this.clazz = clazz;
+    this.hasValues = hasValues;
+    this.longKeys = new long[INITIAL_CAPACITY];
+    this.used = new boolean[INITIAL_CAPACITY];
+    this.values = hasValues ? new Object[INITIAL_CAPACITY] : null;
+  }
+
+  @Override
+  public SClass getSOMClass() {
+    return clazz;
+  }
+
+  public boolean hasLongKeys() {
+    return keys == null;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  private static int mix(final int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private static int hashOf(final long key) {
+    return mix(Long.hashCode(key));
+  }
+
+  private static int hashOf(final SAbstractObject key) {
+    return mix(key.getIdentityHash());
+  }
+
+  private static int hashOf(final Object key) {
+    if (key instanceof Long) {
+      return hashOf((long) key);
+    } else if (key instanceof SSymbol) {
+      return hashOfString(((SSymbol) key).getString());
+    } else if (key instanceof SAbstractObject) {
+      return hashOf((SAbstractObject) key);
+    } else if (key instanceof Double || key instanceof String || key instanceof Boolean ||
+        key instanceof BigInteger) {
+      return mix(key.hashCode());
+    }
+    return mix(System.identityHashCode(key));
+  }
+
+  /**
+   * Ropes are equal to the flat strings with the same characters, and doubles with an
+   * integer value are equal to the integer.
+   */
+  private static Object normalizeKey(final Object key) {
+    if (key instanceof SRope) {
+      return ((SRope) key).flatten();
+    } else if (key instanceof Double) {
+      double d = (double) key;
+      if (d >= -0x1p63 && d < 0x1p63 && d == Math.rint(d)) {
+        return (long) d;
+      }
+    }
+    return key;
+  }
+
+  private static boolean keyEquals(final Object a, final Object b) {
+    if (a == b) {
+      return !(a instanceof Double) || !Double.isNaN((double) a);
+    }
+    if (a instanceof Double) {
+      // after normalization, only doubles can be equal to doubles, NaN is never equal
+      return b instanceof Double && (double) a == (double) b;
+    }
+    if (a instanceof String) {
+      return stringEquals(b, (String) a);
+    } else if (a instanceof SSymbol) {
+      return stringEquals(b, ((SSymbol) a).getString());
+    }
+    return (a instanceof Long || a instanceof Boolean || a instanceof BigInteger) &&
+        a.equals(b);
+  }
+
+  @TruffleBoundary
+  private static int hashOfString(final String key) {
+    return mix(key.hashCode());
+  }
+
+  /** Strings and symbols with the same characters are equal. */
+  @TruffleBoundary
+  private static boolean stringEquals(final Object a, final String b) {
+    if (a instanceof SSymbol) {
+      return b.equals(((SSymbol) a).getString());
+    }
+    return b.equals(a);
+  }
+
+  private int capacity() {
+    return hasLongKeys() ? longKeys.length : keys.length;
+  }
+
+  /** @return the slot of the key, or -(slot + 1) of the empty slot where it would go */
+  private int findLong(final long key) {
+    int mask = longKeys.length - 1;
+    int i = hashOf(key) & mask;
+    while (used[i]) {
+      if (longKeys[i] == key) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return -(i + 1);
+  }
+
+  /** @return the slot of the key, or -(slot + 1) of the empty slot where it would go */
+  private int findIdentity(final SAbstractObject key) {
+    assert !(key instanceof SSymbol) : "symbols are compared by their string";
+    int mask = keys.length - 1;
+    int i = hashOf(key) & mask;
+    while (keys[i] != null) {
+      if (keys[i] == key) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return -(i + 1);
+  }
+
+  /** @return the slot of the key, or -(slot + 1) of the empty slot where it would go */
+  private int findString(final String key) {
+    int mask = keys.length - 1;
+    int i = hashOfString(key) & mask;
+    while (keys[i] != null) {
+      if (stringEquals(keys[i], key)) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return -(i + 1);
+  }
+
+  /** @return the slot of the key, or -(slot + 1) of the empty slot where it would go */
+  private int findObject(final Object key) {
+    int mask = keys.length - 1;
+    int i = hashOf(key) & mask;
+    while (keys[i] != null) {
+      if (keyEquals(keys[i], key)) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return -(i + 1);
+  }
+
+  private Object valueAt(final int slot) {
+    return hasValues ? values[slot] : Nil.nilObject;
+  }
+
+  private Object valueOrNil(final int slot) {
+    return slot >= 0 ? valueAt(slot) : Nil.nilObject;
+  }
+
+  public Object getLong(final long key) {
+    assert hasLongKeys();
+    int slot = findLong(key);
+    return slot >= 0 ? valueAt(slot) : Nil.nilObject;
+  }
+
+  /**
+   * Lookup of a key that is compared by identity, without the generic comparison of
+   * {@link #get}. Only for tables that were generalized. Symbols are compared by their
+   * string, see {@link #getSymbol}.
+   */
+  public Object getIdentity(final SAbstractObject key) {
+    assert !hasLongKeys();
+    return valueOrNil(findIdentity(key));
+  }
+
+  /** Lookup of a string key, see {@link #getIdentity}. */
+  public Object getString(final String key) {
+    assert !hasLongKeys();
+    return valueOrNil(findString(key));
+  }
+
+  /** Lookup of a symbol key, which is equal to the string with the same characters. */
+  public Object getSymbol(final SSymbol key) {
+    assert !hasLongKeys();
+    return valueOrNil(findString(key.getString()));
+  }
+
+  @TruffleBoundary
+  public Object get(final Object rawKey) {
+    Object key = normalizeKey(rawKey);
+    if (hasLongKeys()) {
+      return key instanceof Long ? getLong((long) key) : Nil.nilObject;
+    }
+    return valueOrNil(findObject(key));
+  }
+
+  public boolean containsLong(final long key) {
+    assert hasLongKeys();
+    return findLong(key) >= 0;
+  }
+
+  public boolean containsIdentity(final SAbstractObject key) {
+    assert !hasLongKeys();
+    return findIdentity(key) >= 0;
+  }
+
+  public boolean containsString(final String key) {
+    assert !hasLongKeys();
+    return findString(key) >= 0;
+  }
+
+  public boolean containsSymbol(final SSymbol key) {
+    assert !hasLongKeys();
+    return findString(key.getString()) >= 0;
+  }
+
+  @TruffleBoundary
+  public boolean contains(final Object rawKey) {
+    Object key = normalizeKey(rawKey);
+    if (hasLongKeys()) {
+      return key instanceof Long && containsLong((long) key);
+    }
+    return findObject(key) >= 0;
+  }
+
+  public void putLong(final long key, final Object value) {
+    assert hasLongKeys();
+    int slot = findLong(key);
+    if (slot < 0) {
+      if (needsToGrow()) {
+        grow();
+        slot = findLong(key);
+      }
+      slot = -(slot + 1);
+      longKeys[slot] = key;
+      used[slot] = true;
+      size += 1;
+    }
+    if (hasValues) {
+      values[slot] = value;
+    }
+  }
+
+  public void putIdentity(final SAbstractObject key, final Object value) {
+    assert !hasLongKeys();
+    putAt(findIdentity(key), key, value);
+  }
+
+  public void putString(final String key, final Object value) {
+    assert !hasLongKeys();
+    putAt(findString(key), key, value);
+  }
+
+  public void putSymbol(final SSymbol key, final Object value) {
+    assert !hasLongKeys();
+    putAt(findString(key.getString()), key, value);
+  }
+
+  @TruffleBoundary
+  public void put(final Object rawKey, final Object value) {
+    Object key = normalizeKey(rawKey);
+    if (hasLongKeys()) {
+      if (key instanceof Long) {
+        putLong((long) key, value);
+        return;
+      }
+      generalizeKeys();
+    }
+    putAt(findObject(key), key, value);
+  }
+
+  /** @param found the result of the lookup of the normalized key */
+  private void putAt(final int found, final Object key, final Object value) {
+    int slot = found;
+    if (slot < 0) {
+      if (needsToGrow()) {
+        grow();
+        slot = findObject(key);
+      }
+      slot = -(slot + 1);
+      keys[slot] = key;
+      size += 1;
+    }
+    if (hasValues) {
+      values[slot] = value;
+    }
+  }
+
+  /** @return the value of the removed entry, or nil if there was none */
+  public Object removeLong(final long key) {
+    assert hasLongKeys();
+    int slot = findLong(key);
+    if (slot < 0) {
+      return Nil.nilObject;
+    }
+    Object value = valueAt(slot);
+    removeSlot(slot);
+    return value;
+  }
+
+  /** @return the value of the removed entry, or nil if there was none */
+  public Object removeIdentity(final SAbstractObject key) {
+    assert !hasLongKeys();
+    return removeAt(findIdentity(key));
+  }
+
+  /** @return the value of the removed entry, or nil if there was none */
+  public Object removeString(final String key) {
+    assert !hasLongKeys();
+    return removeAt(findString(key));
+  }
+
+  /** @return the value of the removed entry, or nil if there was none */
+  public Object removeSymbol(final SSymbol key) {
+    assert !hasLongKeys();
+    return removeAt(findString(key.getString()));
+  }
+
+  /** @return the value of the removed entry, or nil if there was none */
+  @TruffleBoundary
+  public Object remove(final Object rawKey) {
+    Object key = normalizeKey(rawKey);
+    if (hasLongKeys()) {
+      return key instanceof Long ? removeLong((long) key) : Nil.nilObject;
+    }
+    return removeAt(findObject(key));
+  }
+
+  private Object removeAt(final int slot) {
+    if (slot < 0) {
+      return Nil.nilObject;
+    }
+    Object value = valueAt(slot);
+    removeSlot(slot);
+    return value;
+  }
+
+  /**
+   * Empties the slot, and moves back the following entries of the probe sequence, which
+   * would otherwise not be found anymore.
+   */
+  private void removeSlot(final int slot) {
+    int mask = capacity() - 1;
+    int hole = slot;
+    int i = (slot + 1) & mask;
+    while (isUsed(i)) {
+      int home = homeOf(i) & mask;
+      // move the entry into the hole if its home is not in (hole, i]
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        moveSlot(i, hole);
+        hole = i;
+      }
+      i = (i + 1) & mask;
+    }
+    clearSlot(hole);
+    size -= 1;
+  }
+
+  private boolean isUsed(final int slot) {
+    return hasLongKeys() ? used[slot] : keys[slot] != null;
+  }
+
+  private int homeOf(final int slot) {
+    return hasLongKeys() ? hashOf(longKeys[slot]) : hashOf(keys[slot]);
+  }
+
+  private void moveSlot(final int from, final int to) {
+    if (hasLongKeys()) {
+      longKeys[to] = longKeys[from];
+      used[to] = true;
+    } else {
+      keys[to] = keys[from];
+    }
+    if (hasValues) {
+      values[to] = values[from];
+    }
+  }
+
+  private void clearSlot(final int slot) {
+    if (hasLongKeys()) {
+      used[slot] = false;
+    } else {
+      keys[slot] = null;
+    }
+    if (hasValues) {
+      values[slot] = null;
+    }
+  }
+
+  private boolean needsToGrow() {
+    // keep the load factor at or below 3/4
+    return (size + 1) * 4 > capacity() * 3;
+  }
+
+  @TruffleBoundary
+  private void grow() {
+    rehash(capacity() * 2, !hasLongKeys());
+  }
+
+  @TruffleBoundary
+  private void generalizeKeys() {
+    rehash(capacity(), true);
+  }
+
+  private void rehash(final int capacity, final boolean objectKeys) {
+    long[] oldLongKeys = longKeys;
+    boolean[] oldUsed = used;
+    Object[] oldKeys = keys;
+    Object[] oldValues = values;
+
+    if (objectKeys) {
+      keys = new Object[capacity];
+      longKeys = null;
+      used = null;
+    } else {
+      longKeys = new long[capacity];
+      used = new boolean[capacity];
+    }
+    values = hasValues ? new Object[capacity] : null;
+    size = 0;
+
+    if (oldKeys == null) {
+      for (int i = 0; i < oldLongKeys.length; i++) {
+        if (oldUsed[i]) {
+          if (objectKeys) {
+            put(oldLongKeys[i], hasValues ? oldValues[i] : null);
+          } else {
+            putLong(oldLongKeys[i], hasValues ? oldValues[i] : null);
+          }
+        }
+      }
+    } else {
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != null) {
+          put(oldKeys[i], hasValues ? oldValues[i] : null);
+        }
+      }
+    }
+  }
+
+  /** @return the keys in an array, which stores them unboxed if they are all integers */
+  @TruffleBoundary
+  public SArray getKeys() {
+    if (size == 0) {
+      return new SArray(0);
+    }
+
+    if (hasLongKeys()) {
+      long[] result = new long[size];
+      int j = 0;
+      for (int i = 0; i < longKeys.length; i++) {
+        if (used[i]) {
+          result[j] = longKeys[i];
+          j += 1;
+        }
+      }
+      return SArray.create(result);
+    }
+
+    Object[] result = new Object[size];
+    int j = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) {
+        result[j] = keys[i];
+        j += 1;
+      }
+    }
+    return SArray.create(result);
+  }
+
+  /** @return the values in the same order as {@link #getKeys()} */
+  @TruffleBoundary
+  public SArray getValues() {
+    assert hasValues;
+    if (size == 0) {
+      return new SArray(0);
+    }
+
+    Object[] result = new Object[size];
+    int j = 0;
+    for (int i = 0; i < values.length; i++) {
+      if (isUsed(i)) {
+        result[j] = values[i];
+        j += 1;
+      }
+    }
+    return SArray.create(result);
+  }
+
+  @TruffleBoundary
+  public void clear() {
+    if (hasLongKeys()) {
+      Arrays.fill(used, false);
+    } else {
+      Arrays.fill(keys, null);
+    }
+    if (hasValues) {
+      Arrays.fill(values, null);
+    }
+    size = 0;
+  }
+}
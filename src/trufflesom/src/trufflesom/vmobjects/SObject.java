@@ -33,9 +33,11 @@ import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
 
+import trufflesom.interpreter.objectstorage.LayoutStatistics;
 import trufflesom.interpreter.objectstorage.ObjectLayout;
 import trufflesom.interpreter.objectstorage.StorageLocation;
 import trufflesom.interpreter.objectstorage.StorageLocation.AbstractObjectStorageLocation;
+import trufflesom.vm.VmSettings;
 import trufflesom.vm.constants.Nil;
 
 
@@ -43,20 +45,17 @@ public class SObject extends SAbstractObject {
 
   @CompilationFinal protected SClass clazz;
 
-  public static final int NUM_PRIMITIVE_FIELDS = 5;
-  public static final int NUM_OBJECT_FIELDS    = 5;
+  /**
+   * The largest number of primitive fields, and of object fields, that is stored directly
+   * in an object. Fields beyond this are stored in the extension arrays.
+   */
+  public static final int MAX_INLINE_FIELDS = 8;
 
-  protected long primField1;
-  protected long primField2;
-  protected long primField3;
-  protected long primField4;
-  protected long primField5;
-
-  protected Object field1;
-  protected Object field2;
-  protected Object field3;
-  protected Object field4;
-  protected Object field5;
+  /**
+   * Number of primitive storage locations tracked by {@link #primitiveUsedMap}. The
+   * locations beyond are tracked by the {@link #extendedPrimitiveUsedMap}.
+   */
+  public static final int PRIMITIVE_USED_MAP_BITS = 64;
 
   @CompilationFinal(dimensions = 0) protected long[]   extensionPrimFields;
   @CompilationFinal(dimensions = 0) protected Object[] extensionObjFields;
@@ -65,24 +64,27 @@ public class SObject extends SAbstractObject {
   // to know in case the layout changed that we can update the instances lazily
   @CompilationFinal private ObjectLayout objectLayout;
 
-  private int primitiveUsedMap;
+  private long primitiveUsedMap;
+
+  @CompilationFinal(dimensions = 0) protected long[] extendedPrimitiveUsedMap;
 
-  public SObject(final SClass instanceClass) {
+  protected SObject(final SClass instanceClass) {
     clazz = instanceClass;
     setLayoutInitially(instanceClass.getLayoutForInstances());
   }
 
-  public SObject(final SClass instanceClass, final ObjectLayout layout) {
+  protected SObject(final SClass instanceClass, final ObjectLayout layout) {
     clazz = instanceClass;
     setLayoutInitially(layout);
   }
 
   protected SObject(final int numFields) {
-    setLayoutInitially(new ObjectLayout(numFields, null));
+    setLayoutInitially(new ObjectLayout(numFields, null, 0, 0));
   }
 
-  private void setLayoutInitially(final ObjectLayout layout) {
-    field1 = field2 = field3 = field4 = field5 = Nil.nilObject;
+  private void setLayoutInitially(final ObjectLayout layoutForClass) {
+    ObjectLayout layout = forThisVariant(layoutForClass);
+    setInlineFields(Nil.nilObject, 0);
 
     objectLayout = layout;
     // Can't check this cheaply
@@ -91,12 +93,39 @@ public class SObject extends SAbstractObject {
 
     extensionPrimFields = getExtendedPrimStorage(layout);
     extensionObjFields = getExtendedObjectStorage(layout);
+    extendedPrimitiveUsedMap = getExtendedPrimitiveUsedMap(layout);
   }
 
   public final int getNumberOfFields() {
     return objectLayout.getNumberOfFields();
   }
 
+  /**
+   * @return the number of primitive fields stored directly in this object
+   */
+  public int getNumberOfInlinePrimFields() {
+    return 0;
+  }
+
+  /**
+   * @return the number of object fields stored directly in this object
+   */
+  public int getNumberOfInlineObjFields() {
+    return 0;
+  }
+
+  /**
+   * An object cannot change its variant. When the layout of its class asks for a different
+   * number of inline fields, the object uses an equivalent layout for its own variant.
+   */
+  private ObjectLayout forThisVariant(final ObjectLayout layout) {
+    return layout.forVariant(getNumberOfInlinePrimFields(), getNumberOfInlineObjFields());
+  }
+
+  protected void setInlineFields(final Object objValue, final long primValue) {
+    // the basic object does not have any inline fields
+  }
+
   public final ObjectLayout getObjectLayout() {
     // TODO: should I really remove it, or should I update the layout?
     // assert clazz.getLayoutForInstances() == objectLayout;
@@ -129,6 +158,14 @@ public class SObject extends SAbstractObject {
     return new long[numExtFields];
   }
 
+  private long[] getExtendedPrimitiveUsedMap(final ObjectLayout layout) {
+    int numWords = layout.getNumberOfExtendedPrimitiveUsedMapWords();
+    if (numWords == 0) {
+      return null;
+    }
+    return new long[numWords];
+  }
+
   private Object[] getExtendedObjectStorage(final ObjectLayout layout) {
     int numExtFields = layout.getNumberOfUsedExtendedObjectStorageLocations();
     if (numExtFields == 0) {
@@ -154,8 +191,7 @@ public class SObject extends SAbstractObject {
 
   @ExplodeLoop
   private void setAllFields(final Object[] fieldValues) {
-    field1 = field2 = field3 = field4 = field5 = null;
-    primField1 = primField2 = primField3 = primField4 = primField5 = Long.MIN_VALUE;
+    setInlineFields(null, Long.MIN_VALUE);
 
     assert fieldValues.length == objectLayout.getNumberOfFields();
 
@@ -169,7 +205,21 @@ public class SObject extends SAbstractObject {
   }
 
   public final boolean updateLayoutToMatchClass() {
-    ObjectLayout layoutAtClass = clazz.getLayoutForInstances();
+    if (migrateToLayoutOfClass()) {
+      if (VmSettings.PrintLayoutStatistics) {
+        LayoutStatistics.recordStaleLayoutHit();
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Update the object to the latest layout of its class, without counting it as a hit on a
+   * stale layout. This is used for the eager migration of instances.
+   */
+  public final boolean migrateToLayoutOfClass() {
+    ObjectLayout layoutAtClass = forThisVariant(clazz.getLayoutForInstances());
     assert layoutAtClass.getNumberOfFields() == objectLayout.getNumberOfFields();
 
     if (objectLayout != layoutAtClass) {
@@ -190,6 +240,7 @@ public class SObject extends SAbstractObject {
     objectLayout = layout;
 
     primitiveUsedMap = 0;
+    extendedPrimitiveUsedMap = getExtendedPrimitiveUsedMap(layout);
     extensionPrimFields = getExtendedPrimStorage(layout);
     extensionObjFields = getExtendedObjectStorage(layout);
 
@@ -198,21 +249,25 @@ public class SObject extends SAbstractObject {
 
   protected final void updateLayoutWithInitializedField(final long index,
       final Class<?> type) {
-    ObjectLayout layout = clazz.updateInstanceLayoutWithInitializedField(index, type);
-
-    assert objectLayout != layout;
+    ObjectLayout layout =
+        forThisVariant(clazz.updateInstanceLayoutWithInitializedField(index, type));
     assert layout.getNumberOfFields() == objectLayout.getNumberOfFields();
 
-    setLayoutAndTransferFields(layout);
+    // with eager migration, the class may have already updated this object
+    if (objectLayout != layout) {
+      setLayoutAndTransferFields(layout);
+    }
   }
 
   protected final void updateLayoutWithGeneralizedField(final long index) {
-    ObjectLayout layout = clazz.updateInstanceLayoutWithGeneralizedField(index);
-
-    assert objectLayout != layout;
+    ObjectLayout layout =
+        forThisVariant(clazz.updateInstanceLayoutWithGeneralizedField(index));
     assert layout.getNumberOfFields() == objectLayout.getNumberOfFields();
 
-    setLayoutAndTransferFields(layout);
+    // with eager migration, the class may have already updated this object
+    if (objectLayout != layout) {
+      setLayoutAndTransferFields(layout);
+    }
   }
 
   @Override
@@ -228,20 +283,155 @@ public class SObject extends SAbstractObject {
     return new SObject(numFields);
   }
 
-  public static int getPrimitiveFieldMask(final int fieldIndex) {
-    assert 0 <= fieldIndex && fieldIndex < 32; // this limits the number of object fields for
-                                               // the moment...
-    return 1 << fieldIndex;
+  public static SObject create(final SClass instanceClass) {
+    return create(instanceClass, instanceClass.getLayoutForInstances());
+  }
+
+  /**
+   * Allocate an object of the SObject variant that has as many inline primitive and object
+   * fields as the given layout expects.
+   */
+  public static SObject create(final SClass instanceClass, final ObjectLayout layout) {
+    SObject obj;
+    switch (layout.getNumberOfInlinePrimFields()) {
+      case 0:
+        obj = createWithoutInlinePrims(instanceClass, layout);
+        break;
+      case 2:
+        obj = createWith2InlinePrims(instanceClass, layout);
+        break;
+      case 4:
+        obj = createWith4InlinePrims(instanceClass, layout);
+        break;
+      case MAX_INLINE_FIELDS:
+        obj = createWith8InlinePrims(instanceClass, layout);
+        break;
+      default:
+        throw unknownVariant(layout);
+    }
+
+    if (VmSettings.EagerLayoutMigration) {
+      instanceClass.registerInstance(obj);
+    }
+    return obj;
+  }
+
+  private static SObject createWithoutInlinePrims(final SClass instanceClass,
+      final ObjectLayout layout) {
+    switch (layout.getNumberOfInlineObjFields()) {
+      case 0:
+        return new SObject(instanceClass, layout);
+      case 2:
+        return new SObjectP0O2(instanceClass, layout);
+      case 4:
+        return new SObjectP0O4(instanceClass, layout);
+      case MAX_INLINE_FIELDS:
+        return new SObjectP0O8(instanceClass, layout);
+      default:
+        throw unknownVariant(layout);
+    }
+  }
+
+  private static SObject createWith2InlinePrims(final SClass instanceClass,
+      final ObjectLayout layout) {
+    switch (layout.getNumberOfInlineObjFields()) {
+      case 0:
+        return new SObjectP2O0(instanceClass, layout);
+      case 2:
+        return new SObjectP2O2(instanceClass, layout);
+      case 4:
+        return new SObjectP2O4(instanceClass, layout);
+      case MAX_INLINE_FIELDS:
+        return new SObjectP2O8(instanceClass, layout);
+      default:
+        throw unknownVariant(layout);
+    }
+  }
+
+  private static SObject createWith4InlinePrims(final SClass instanceClass,
+      final ObjectLayout layout) {
+    switch (layout.getNumberOfInlineObjFields()) {
+      case 0:
+        return new SObjectP4O0(instanceClass, layout);
+      case 2:
+        return new SObjectP4O2(instanceClass, layout);
+      case 4:
+        return new SObjectP4O4(instanceClass, layout);
+      case MAX_INLINE_FIELDS:
+        return new SObjectP4O8(instanceClass, layout);
+      default:
+        throw unknownVariant(layout);
+    }
+  }
+
+  private static SObject createWith8InlinePrims(final SClass instanceClass,
+      final ObjectLayout layout) {
+    switch (layout.getNumberOfInlineObjFields()) {
+      case 0:
+        return new SObjectP8O0(instanceClass, layout);
+      case 2:
+        return new SObjectP8O2(instanceClass, layout);
+      case 4:
+        return new SObjectP8O4(instanceClass, layout);
+      case MAX_INLINE_FIELDS:
+        return new SObjectP8O8(instanceClass, layout);
+      default:
+        throw unknownVariant(layout);
+    }
+  }
+
+  private static IllegalArgumentException unknownVariant(final ObjectLayout layout) {
+    CompilerDirectives.transferToInterpreter();
+    return new IllegalArgumentException("No SObject variant with "
+        + layout.getNumberOfInlinePrimFields() + " primitive and "
+        + layout.getNumberOfInlineObjFields() + " object inline fields");
+  }
+
+  /**
+   * Select the number of inline fields of each kind, primitive and object, for the instances
+   * of a class with the given number of fields.
+   */
+  public static int getNumberOfInlineFieldsFor(final int numberOfFields) {
+    if (numberOfFields == 0) {
+      return 0;
+    } else if (numberOfFields <= 2) {
+      return 2;
+    } else if (numberOfFields <= 4) {
+      return 4;
+    }
+    return MAX_INLINE_FIELDS;
+  }
+
+  public static long getPrimitiveFieldMask(final int primField) {
+    assert 0 <= primField;
+    return 1L << (primField % PRIMITIVE_USED_MAP_BITS);
+  }
+
+  /**
+   * @return the index into the extended primitive used map, or -1 if the primitive field is
+   *         tracked by the basic map
+   */
+  public static int getPrimitiveUsedMapIndex(final int primField) {
+    assert 0 <= primField;
+    return primField / PRIMITIVE_USED_MAP_BITS - 1;
   }
 
-  public final boolean isPrimitiveSet(final int mask) {
+  public final boolean isPrimitiveSet(final long mask) {
     return (primitiveUsedMap & mask) != 0;
   }
 
-  public final void markPrimAsSet(final int mask) {
+  public final void markPrimAsSet(final long mask) {
     primitiveUsedMap |= mask;
   }
 
+  public final boolean isExtendedPrimitiveSet(final int usedMapIndex, final long mask) {
+    return (extendedPrimitiveUsedMap[usedMapIndex] & mask) != 0;
+  }
+
+  public final void markExtendedPrimAsSet(final int usedMapIndex, final long mask) {
+    extendedPrimitiveUsedMap[usedMapIndex] |= mask;
+  }
+
   private StorageLocation getLocation(final long index) {
     StorageLocation location = objectLayout.getStorageLocation(index);
     assert location != null;
@@ -298,4 +488,326 @@ public class SObject extends SAbstractObject {
     }
     return "a " + clazz.getName().getString();
   }
+
+  /*
+   * The variants are named after the number of their inline primitive and object fields,
+   * e.g., SObjectP2O4 has two primitive and four object fields. SObject itself is the
+   * variant without inline fields. Variants with the same number of primitive fields
+   * extend each other, but the field offsets still differ between variants. Thus, the
+   * StorageLocations of a layout are specific to one variant, see
+   * {@link ObjectLayout#forVariant(int, int)}.
+   */
+
+  public static class SObjectP0O2 extends SObject {
+    protected Object field1;
+    protected Object field2;
+
+    protected SObjectP0O2(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlineObjFields() {
+      return 2;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      field1 = field2 = objValue;
+    }
+  }
+
+  public static class SObjectP0O4 extends SObjectP0O2 {
+    protected Object field3;
+    protected Object field4;
+
+    protected SObjectP0O4(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlineObjFields() {
+      return 4;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      super.setInlineFields(objValue, primValue);
+      field3 = field4 = objValue;
+    }
+  }
+
+  public static class SObjectP0O8 extends SObjectP0O4 {
+    protected Object field5;
+    protected Object field6;
+    protected Object field7;
+    protected Object field8;
+
+    protected SObjectP0O8(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlineObjFields() {
+      return MAX_INLINE_FIELDS;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      super.setInlineFields(objValue, primValue);
+      field5 = field6 = field7 = field8 = objValue;
+    }
+  }
+
+  public static class SObjectP2O0 extends SObject {
+    protected long primField1;
+    protected long primField2;
+
+    protected SObjectP2O0(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlinePrimFields() {
+      return 2;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      primField1 = primField2 = primValue;
+    }
+  }
+
+  public static class SObjectP2O2 extends SObjectP2O0 {
+    protected Object field1;
+    protected Object field2;
+
+    protected SObjectP2O2(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlineObjFields() {
+      return 2;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      super.setInlineFields(objValue, primValue);
+      field1 = field2 = objValue;
+    }
+  }
+
+  public static class SObjectP2O4 extends SObjectP2O2 {
+    protected Object field3;
+    protected Object field4;
+
+    protected SObjectP2O4(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlineObjFields() {
+      return 4;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      super.setInlineFields(objValue, primValue);
+      field3 = field4 = objValue;
+    }
+  }
+
+  public static class SObjectP2O8 extends SObjectP2O4 {
+    protected Object field5;
+    protected Object field6;
+    protected Object field7;
+    protected Object field8;
+
+    protected SObjectP2O8(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlineObjFields() {
+      return MAX_INLINE_FIELDS;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      super.setInlineFields(objValue, primValue);
+      field5 = field6 = field7 = field8 = objValue;
+    }
+  }
+
+  public static class SObjectP4O0 extends SObject {
+    protected long primField1;
+    protected long primField2;
+    protected long primField3;
+    protected long primField4;
+
+    protected SObjectP4O0(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlinePrimFields() {
+      return 4;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      primField1 = primField2 = primField3 = primField4 = primValue;
+    }
+  }
+
+  public static class SObjectP4O2 extends SObjectP4O0 {
+    protected Object field1;
+    protected Object field2;
+
+    protected SObjectP4O2(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlineObjFields() {
+      return 2;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      super.setInlineFields(objValue, primValue);
+      field1 = field2 = objValue;
+    }
+  }
+
+  public static class SObjectP4O4 extends SObjectP4O2 {
+    protected Object field3;
+    protected Object field4;
+
+    protected SObjectP4O4(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlineObjFields() {
+      return 4;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      super.setInlineFields(objValue, primValue);
+      field3 = field4 = objValue;
+    }
+  }
+
+  public static class SObjectP4O8 extends SObjectP4O4 {
+    protected Object field5;
+    protected Object field6;
+    protected Object field7;
+    protected Object field8;
+
+    protected SObjectP4O8(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlineObjFields() {
+      return MAX_INLINE_FIELDS;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      super.setInlineFields(objValue, primValue);
+      field5 = field6 = field7 = field8 = objValue;
+    }
+  }
+
+  public static class SObjectP8O0 extends SObject {
+    protected long primField1;
+    protected long primField2;
+    protected long primField3;
+    protected long primField4;
+    protected long primField5;
+    protected long primField6;
+    protected long primField7;
+    protected long primField8;
+
+    protected SObjectP8O0(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlinePrimFields() {
+      return MAX_INLINE_FIELDS;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      primField1 = primField2 = primField3 = primField4 = primValue;
+      primField5 = primField6 = primField7 = primField8 = primValue;
+    }
+  }
+
+  public static class SObjectP8O2 extends SObjectP8O0 {
+    protected Object field1;
+    protected Object field2;
+
+    protected SObjectP8O2(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlineObjFields() {
+      return 2;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      super.setInlineFields(objValue, primValue);
+      field1 = field2 = objValue;
+    }
+  }
+
+  public static class SObjectP8O4 extends SObjectP8O2 {
+    protected Object field3;
+    protected Object field4;
+
+    protected SObjectP8O4(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlineObjFields() {
+      return 4;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      super.setInlineFields(objValue, primValue);
+      field3 = field4 = objValue;
+    }
+  }
+
+  public static class SObjectP8O8 extends SObjectP8O4 {
+    protected Object field5;
+    protected Object field6;
+    protected Object field7;
+    protected Object field8;
+
+    protected SObjectP8O8(final SClass instanceClass, final ObjectLayout layout) {
+      super(instanceClass, layout);
+    }
+
+    @Override
+    public int getNumberOfInlineObjFields() {
+      return MAX_INLINE_FIELDS;
+    }
+
+    @Override
+    protected void setInlineFields(final Object objValue, final long primValue) {
+      super.setInlineFields(objValue, primValue);
+      field5 = field6 = field7 = field8 = objValue;
+    }
+  }
 }
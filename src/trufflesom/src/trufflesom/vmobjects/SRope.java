@@ -0,0 +1,215 @@
+package trufflesom.vmobjects;
+
+import java.util.ArrayDeque;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+
+import trufflesom.vm.VmSettings;
+
+
+/**
+ * String built by concatenate:, which keeps the concatenated parts until the characters are
+ * needed, so that repeated concatenation does not copy the string built so far each time.
+ * A rope can also be a substring, which shares the characters of the string it was taken
+ * from.
+ *
+ * <p>
+ * Ropes only exist when {@link VmSettings#RopeMinLength} is set. The primitives of String
+ * have explicit specializations for them, which flatten the rope once and then reuse the
+ * flat string, so that nodes that never see a rope do not check for one. For interop, a
+ * rope is a string.
+ */
+@ExportLibrary(InteropLibrary.class)
+public final class SRope implements TruffleObject {
+
+  /**
+   * String or SRope, the string a substring was taken from, or the flat string once the
+   * rope was flattened.
+   */
+  private Object left;
+
+  /** String or SRope, null for substrings and once the rope was flattened. */
+  private Object right;
+
+  /** Start of a substring in {@link #left}. */
+  private int offset;
+
+  private final int length;
+
+  private SRope(final Object left, final Object right, final int length) {
+    this.left = left;
+    this.right = right;
+    this.length = length;
+  }
+
+  private SRope(final String base, final int offset, final int length) {
+    this.left = base;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  public int length() {
+    return length;
+  }
+
+  private static int lengthOf(final Object str) {
+    if (str instanceof String) {
+      return ((String) str).length();
+    }
+    return ((SRope) str).length;
+  }
+
+  /**
+   * @param left a String or SRope
+   * @param right a String or SRope
+   * @return a rope if the result is long enough, otherwise a flat string
+   */
+  @TruffleBoundary
+  public static Object concat(final Object left, final Object right) {
+    int length = lengthOf(left) + lengthOf(right);
+    if (VmSettings.RopeMinLength > 0 && length >= VmSettings.RopeMinLength) {
+      return new SRope(left, right, length);
+    }
+    return flatten(left).concat(flatten(right));
+  }
+
+  /**
+   * A substring is only a view if it keeps at least half of the characters of the string it
+   * is taken from alive, so that a small substring does not retain a large string.
+   *
+   * @param str a String or SRope
+   * @return a view on the characters from begin to end of str, or a flat string
+   * @throws StringIndexOutOfBoundsException if begin or end are not within str
+   */
+  @TruffleBoundary
+  public static Object substring(final Object str, final int begin, final int end) {
+    String base;
+    int baseOffset;
+    if (str instanceof String) {
+      base = (String) str;
+      baseOffset = 0;
+    } else if (((SRope) str).right == null) {
+      base = (String) ((SRope) str).left;
+      baseOffset = ((SRope) str).offset;
+    } else {
+      base = ((SRope) str).flatten();
+      baseOffset = 0;
+    }
+
+    int length = lengthOf(str);
+    if (begin < 0 || end > length || begin > end) {
+      throw new StringIndexOutOfBoundsException(
+          "begin " + begin + ", end " + end + ", length " + length);
+    }
+
+    int subLength = end - begin;
+    if (subLength == base.length()) {
+      return base;
+    }
+    if (VmSettings.RopeMinLength > 0 && subLength >= VmSettings.RopeMinLength
+        && subLength * 2 >= base.length()) {
+      return new SRope(base, baseOffset + begin, subLength);
+    }
+    return base.substring(baseOffset + begin, baseOffset + end);
+  }
+
+  /**
+   * @param other any SOM value
+   * @return whether other is a string, rope, or symbol with the same characters
+   */
+  @TruffleBoundary
+  public boolean sameCharsAs(final Object other) {
+    if (other instanceof SSymbol) {
+      return flatten().equals(((SSymbol) other).getString());
+    }
+    if (other instanceof String || other instanceof SRope) {
+      return lengthOf(other) == length && flatten().equals(flatten(other));
+    }
+    return false;
+  }
+
+  @TruffleBoundary
+  public char charAt(final int index) {
+    if (index < 0 || index >= length) {
+      throw new StringIndexOutOfBoundsException(index);
+    }
+    if (right == null) {
+      return ((String) left).charAt(offset + index);
+    }
+    return flatten().charAt(index);
+  }
+
+  private static String flatten(final Object str) {
+    if (str instanceof String) {
+      return (String) str;
+    }
+    return ((SRope) str).flatten();
+  }
+
+  public String flatten() {
+    if (right == null) {
+      String base = (String) left;
+      if (base.length() == length) {
+        return base;
+      }
+      return flattenSubstring();
+    }
+    return flattenParts();
+  }
+
+  @TruffleBoundary
+  private String flattenSubstring() {
+    String result = ((String) left).substring(offset, offset + length);
+    left = result;
+    offset = 0;
+    return result;
+  }
+
+  @TruffleBoundary
+  private String flattenParts() {
+    StringBuilder sb = new StringBuilder(length);
+
+    // ropes built by repeated concatenation are deep, so do not recurse
+    ArrayDeque<Object> parts = new ArrayDeque<>();
+    parts.push(this);
+    while (!parts.isEmpty()) {
+      Object part = parts.pop();
+      if (part instanceof String) {
+        sb.append((String) part);
+      } else {
+        SRope rope = (SRope) part;
+        if (rope.right == null) {
+          sb.append((String) rope.left, rope.offset, rope.offset + rope.length);
+        } else {
+          parts.push(rope.right);
+          parts.push(rope.left);
+        }
+      }
+    }
+
+    String result = sb.toString();
+    left = result;
+    right = null;
+    offset = 0;
+    return result;
+  }
+
+  @ExportMessage
+  public boolean isString() {
+    return true;
+  }
+
+  @ExportMessage
+  public String asString() {
+    return flatten();
+  }
+
+  @Override
+  public String toString() {
+    return flatten();
+  }
+}
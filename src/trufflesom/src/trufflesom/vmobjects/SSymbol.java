@@ -30,11 +30,13 @@ import trufflesom.vm.Classes;
 public final class SSymbol extends SAbstractObject {
   private final String string;
   private final int    numberOfSignatureArguments;
+  private final int    lookupHash;
 
   public SSymbol(final String value) {
     super();
     string = value;
     numberOfSignatureArguments = determineNumberOfSignatureArguments();
+    lookupHash = value.hashCode();
   }
 
   @Override
@@ -79,6 +81,13 @@ public final class SSymbol extends SAbstractObject {
     return numberOfSignatureArguments;
   }
 
+  /**
+   * @return a hash used to index the {@link trufflesom.vm.MethodLookupCache}
+   */
+  public int getLookupHash() {
+    return lookupHash;
+  }
+
   private boolean isBinarySignature() {
     // Check the individual characters of the string
     for (char c : string.toCharArray()) {
@@ -1,12 +1,14 @@
 package trufflesom.compiler;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import org.junit.Test;
 
 import com.oracle.truffle.api.source.Source;
 
 import trufflesom.interpreter.SomLanguage;
+import trufflesom.vm.SymbolTable;
 
 
 public class LexerTests {
@@ -39,6 +41,18 @@ public class LexerTests {
     assertEquals(1, s.getColumnNumber(startIndex));
   }
 
+  @Test
+  public void testTextAsSymbol() {
+    Lexer l = init("Foo = ( at: index put: value = () )");
+    l.getSym();
+    assertSame(SymbolTable.symbolFor("Foo"), l.getTextAsSymbol());
+
+    l.getSym();
+    l.getSym();
+    l.getSym();
+    assertSame(SymbolTable.symbolFor("at:"), l.getTextAsSymbol());
+  }
+
   @Test
   public void testSecondToken() {
     Lexer l = init("Foo = ()");
@@ -0,0 +1,78 @@
+package trufflesom.intepreter.bc;
+
+import static org.junit.Assert.assertEquals;
+import static trufflesom.interpreter.bc.Bytecodes.DUP;
+import static trufflesom.interpreter.bc.Bytecodes.INC;
+import static trufflesom.interpreter.bc.Bytecodes.JUMP_BACKWARDS;
+import static trufflesom.interpreter.bc.Bytecodes.POP_LOCAL;
+import static trufflesom.interpreter.bc.Bytecodes.PUSH_LOCAL;
+import static trufflesom.interpreter.bc.Bytecodes.Q_INC_DOUBLE;
+import static trufflesom.interpreter.bc.Bytecodes.Q_POP_LOCAL_LONG;
+import static trufflesom.interpreter.bc.Bytecodes.Q_PUSH_LOCAL_LONG;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import trufflesom.interpreter.bc.BytecodeNgramStatistics;
+import trufflesom.interpreter.bc.Bytecodes;
+
+
+public class BytecodeNgramStatisticsTests {
+
+  private long history;
+  private int  bytecodeIndex;
+
+  @Before
+  public void setUp() {
+    BytecodeNgramStatistics.reset();
+    history = BytecodeNgramStatistics.START;
+    bytecodeIndex = 0;
+  }
+
+  /** Executes the bytecodes as a straight-line sequence. */
+  private void execute(final byte... bytecodes) {
+    for (byte bc : bytecodes) {
+      history = BytecodeNgramStatistics.record(history, bytecodeIndex, bc);
+      bytecodeIndex += Bytecodes.getBytecodeLength(bc);
+    }
+  }
+
+  private void jumpTo(final int index) {
+    bytecodeIndex = index;
+  }
+
+  @Test
+  public void testCountsSequence() {
+    execute(PUSH_LOCAL, INC, DUP, POP_LOCAL);
+
+    assertEquals(4, BytecodeNgramStatistics.getExecutedBytecodes());
+    assertEquals(1, BytecodeNgramStatistics.getCount(PUSH_LOCAL, INC));
+    assertEquals(1, BytecodeNgramStatistics.getCount(INC, DUP));
+    assertEquals(1, BytecodeNgramStatistics.getCount(DUP, POP_LOCAL));
+    assertEquals(1, BytecodeNgramStatistics.getCount(PUSH_LOCAL, INC, DUP));
+    assertEquals(1, BytecodeNgramStatistics.getCount(INC, DUP, POP_LOCAL));
+    assertEquals(0, BytecodeNgramStatistics.getCount(PUSH_LOCAL, DUP));
+  }
+
+  @Test
+  public void testJumpStartsNewSequence() {
+    execute(PUSH_LOCAL, INC, JUMP_BACKWARDS);
+    jumpTo(0);
+    execute(PUSH_LOCAL, INC, JUMP_BACKWARDS);
+
+    assertEquals(6, BytecodeNgramStatistics.getExecutedBytecodes());
+    assertEquals(2, BytecodeNgramStatistics.getCount(PUSH_LOCAL, INC));
+    assertEquals(2, BytecodeNgramStatistics.getCount(INC, JUMP_BACKWARDS));
+    assertEquals(0, BytecodeNgramStatistics.getCount(JUMP_BACKWARDS, PUSH_LOCAL));
+    assertEquals(0, BytecodeNgramStatistics.getCount(INC, JUMP_BACKWARDS, PUSH_LOCAL));
+  }
+
+  @Test
+  public void testQuickenedBytecodesCountAsEmittedOnes() {
+    execute(Q_PUSH_LOCAL_LONG, Q_INC_DOUBLE, DUP, Q_POP_LOCAL_LONG);
+
+    assertEquals(1, BytecodeNgramStatistics.getCount(PUSH_LOCAL, INC, DUP));
+    assertEquals(1, BytecodeNgramStatistics.getCount(DUP, POP_LOCAL));
+    assertEquals(0, BytecodeNgramStatistics.getCount(DUP, Q_POP_LOCAL_LONG));
+  }
+}
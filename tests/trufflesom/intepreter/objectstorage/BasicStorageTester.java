@@ -4,11 +4,13 @@ import java.util.Arrays;
 
 import org.junit.Ignore;
 
+import trufflesom.interpreter.objectstorage.ObjectLayout;
 import trufflesom.interpreter.objectstorage.StorageAnalyzer;
 import trufflesom.interpreter.objectstorage.StorageLocation;
 import trufflesom.vm.Universe;
 import trufflesom.vm.constants.Nil;
 import trufflesom.vmobjects.SObject;
+import trufflesom.vmobjects.SObject.SObjectP8O8;
 
 
 @Ignore // Make sure JUnit doesn't fail, but ignores our custom test
@@ -16,13 +18,17 @@ public class BasicStorageTester {
 
   private static boolean someAssertionsFailed = false;
 
-  private static final class STestObject extends SObject {
+  private static final int NUM_INLINE = SObject.MAX_INLINE_FIELDS;
+
+  private static final class STestObject extends SObjectP8O8 {
 
     STestObject(final int numFields) {
-      super(numFields);
+      super(null, new ObjectLayout(numFields, null, NUM_INLINE, NUM_INLINE));
 
-      this.extensionObjFields = new Object[numFields - SObject.NUM_OBJECT_FIELDS];
-      this.extensionPrimFields = new long[numFields - SObject.NUM_PRIMITIVE_FIELDS];
+      this.extensionObjFields = new Object[numFields - NUM_INLINE];
+      this.extensionPrimFields = new long[numFields - NUM_INLINE];
+      this.extendedPrimitiveUsedMap =
+          new long[numFields / SObject.PRIMITIVE_USED_MAP_BITS];
 
       Arrays.fill(this.extensionObjFields, Nil.nilObject);
     }
@@ -70,21 +76,21 @@ public class BasicStorageTester {
   }
 
   private static void testDirectStorage() {
-    SObject obj = new STestObject(5);
+    SObject obj = new STestObject(NUM_INLINE);
     Universe.println("\nStart testDirectStorage");
     Universe.println("\nLong Fields");
-    for (int i = 0; i < SObject.NUM_PRIMITIVE_FIELDS; i++) {
+    for (int i = 0; i < NUM_INLINE; i++) {
       testLong(obj, i, i).debugPrint(obj);
     }
 
-    obj = new STestObject(5);
+    obj = new STestObject(NUM_INLINE);
     Universe.println("\nDouble Fields");
-    for (int i = 0; i < SObject.NUM_PRIMITIVE_FIELDS; i++) {
+    for (int i = 0; i < NUM_INLINE; i++) {
       testDouble(obj, i, i).debugPrint(obj);
     }
 
     Universe.println("\nObject Fields");
-    for (int i = 0; i < SObject.NUM_PRIMITIVE_FIELDS; i++) {
+    for (int i = 0; i < NUM_INLINE; i++) {
       testObject(obj, i, i).debugPrint(obj);
     }
 
@@ -92,7 +98,7 @@ public class BasicStorageTester {
   }
 
   private static void testDirectDouble(final SObject obj) {
-    StorageLocation sl = StorageLocation.createForDouble(0, 0);
+    StorageLocation sl = StorageLocation.createForDouble(0, 0, NUM_INLINE, NUM_INLINE);
     assertIsInitiallyNil(obj, sl);
 
     sl.write(obj, 5.5);
@@ -104,7 +110,7 @@ public class BasicStorageTester {
   }
 
   private static void testDirectLong(final SObject obj) {
-    StorageLocation sl = StorageLocation.createForLong(1, 1);
+    StorageLocation sl = StorageLocation.createForLong(1, 1, NUM_INLINE, NUM_INLINE);
     assertIsInitiallyNil(obj, sl);
 
     sl.write(obj, 32L);
@@ -116,7 +122,7 @@ public class BasicStorageTester {
   }
 
   private static void testDirectObject(final SObject obj) {
-    StorageLocation sl = StorageLocation.createForObject(2);
+    StorageLocation sl = StorageLocation.createForObject(2, NUM_INLINE, NUM_INLINE);
     assertIsInitiallyNil(obj, sl);
 
     sl.write(obj, obj);
@@ -128,7 +134,7 @@ public class BasicStorageTester {
   }
 
   private static void testExtDouble(final SObject obj) {
-    StorageLocation sl = StorageLocation.createForDouble(0, 10);
+    StorageLocation sl = StorageLocation.createForDouble(0, 20, NUM_INLINE, NUM_INLINE);
     assertIsInitiallyNil(obj, sl);
 
     sl.write(obj, 5.5);
@@ -139,7 +145,7 @@ public class BasicStorageTester {
   }
 
   private static void testExtLong(final SObject obj) {
-    StorageLocation sl = StorageLocation.createForLong(1, 11);
+    StorageLocation sl = StorageLocation.createForLong(1, 21, NUM_INLINE, NUM_INLINE);
     assertIsInitiallyNil(obj, sl);
 
     sl.write(obj, 32L);
@@ -150,7 +156,7 @@ public class BasicStorageTester {
   }
 
   private static void testExtObject(final SObject obj) {
-    StorageLocation sl = StorageLocation.createForObject(12);
+    StorageLocation sl = StorageLocation.createForObject(22, NUM_INLINE, NUM_INLINE);
     assertIsInitiallyNil(obj, sl);
 
     sl.write(obj, obj);
@@ -162,7 +168,7 @@ public class BasicStorageTester {
 
   private static StorageLocation testDouble(final SObject obj, final int idx,
       final double value) {
-    StorageLocation sl = StorageLocation.createForDouble(idx, idx);
+    StorageLocation sl = StorageLocation.createForDouble(idx, idx, NUM_INLINE, NUM_INLINE);
     assertIsInitiallyNil(obj, sl);
 
     sl.write(obj, value);
@@ -174,7 +180,7 @@ public class BasicStorageTester {
   }
 
   private static StorageLocation testLong(final SObject obj, final int idx, final long value) {
-    StorageLocation sl = StorageLocation.createForLong(idx, idx);
+    StorageLocation sl = StorageLocation.createForLong(idx, idx, NUM_INLINE, NUM_INLINE);
     assertIsInitiallyNil(obj, sl);
 
     sl.write(obj, value);
@@ -187,7 +193,7 @@ public class BasicStorageTester {
 
   private static StorageLocation testObject(final SObject obj, final int idx,
       final Object value) {
-    StorageLocation sl = StorageLocation.createForObject(idx);
+    StorageLocation sl = StorageLocation.createForObject(idx, NUM_INLINE, NUM_INLINE);
     assertIsInitiallyNil(obj, sl);
 
     sl.write(obj, value);
@@ -0,0 +1,184 @@
+package trufflesom.intepreter.objectstorage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import trufflesom.interpreter.objectstorage.ObjectLayout;
+import trufflesom.interpreter.objectstorage.StorageLocation;
+import trufflesom.interpreter.objectstorage.StorageLocation.LongArrayStoreLocation;
+import trufflesom.interpreter.objectstorage.StorageLocation.LongStorageLocation;
+import trufflesom.vm.VmSettings;
+import trufflesom.vm.constants.Nil;
+import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SObject;
+
+
+public class ObjectLayoutTests {
+
+  private static ObjectLayout layoutWithLongs(final int numFields, final int numLongs) {
+    ObjectLayout layout = new ObjectLayout(numFields, null);
+    for (int i = 0; i < numFields; i++) {
+      layout = layout.withInitializedField(i, i < numLongs ? Long.class : String.class);
+    }
+    return layout;
+  }
+
+  @Test
+  public void testVariantIsSelectedByDeclaredFieldCount() {
+    ObjectLayout layout = new ObjectLayout(9, null);
+    assertEquals(SObject.MAX_INLINE_FIELDS, layout.getNumberOfInlinePrimFields());
+    assertEquals(SObject.MAX_INLINE_FIELDS, layout.getNumberOfInlineObjFields());
+
+    layout = new ObjectLayout(3, null);
+    assertEquals(4, layout.getNumberOfInlinePrimFields());
+    assertEquals(4, layout.getNumberOfInlineObjFields());
+
+    layout = new ObjectLayout(0, null);
+    assertEquals(0, layout.getNumberOfInlinePrimFields());
+    assertEquals(0, layout.getNumberOfInlineObjFields());
+  }
+
+  @Test
+  public void testTransitionsKeepVariant() {
+    ObjectLayout layout = layoutWithLongs(9, 5);
+    assertEquals(SObject.MAX_INLINE_FIELDS, layout.getNumberOfInlinePrimFields());
+    assertEquals(SObject.MAX_INLINE_FIELDS, layout.getNumberOfInlineObjFields());
+    assertEquals(0, layout.getNumberOfUsedExtendedPrimStorageLocations());
+    assertEquals(0, layout.getNumberOfUsedExtendedObjectStorageLocations());
+
+    layout = layoutWithLongs(3, 3).withAllFieldsGeneralized();
+    assertEquals(4, layout.getNumberOfInlinePrimFields());
+    assertEquals(4, layout.getNumberOfInlineObjFields());
+  }
+
+  @Test
+  public void testInstancesShareLayoutOfClass() {
+    SClass clazz = new SClass(3);
+    SObject first = SObject.create(clazz);
+    first.setField(0, 1L);
+    first.setField(1, "a");
+
+    SObject second = SObject.create(clazz);
+    assertSame(clazz.getLayoutForInstances(), first.getObjectLayout());
+    assertSame(first.getObjectLayout(), second.getObjectLayout());
+  }
+
+  @Test
+  public void testIdenticalTransitionsResultInSameLayout() {
+    ObjectLayout layout = new ObjectLayout(3, null);
+    ObjectLayout withLong = layout.withInitializedField(0, Long.class);
+
+    assertNotSame(layout, withLong);
+    assertFalse(layout.isValid());
+    assertSame(withLong, layout.withInitializedField(0, Long.class));
+    assertSame(withLong.withGeneralizedField(0), withLong.withGeneralizedField(0));
+  }
+
+  @Test
+  public void testTransitionsInDifferentOrderConverge() {
+    ObjectLayout layout = new ObjectLayout(3, null);
+    ObjectLayout longFirst = layout.withInitializedField(0, Long.class);
+    ObjectLayout doubleFirst = layout.withInitializedField(1, Double.class);
+
+    ObjectLayout both = longFirst.withInitializedField(1, Double.class);
+    assertSame(both, doubleFirst.withInitializedField(0, Long.class));
+    assertTrue(both.isValid());
+  }
+
+  @Test
+  public void testDerivedLayoutForOtherVariant() {
+    ObjectLayout layout = layoutWithLongs(9, 5);
+    ObjectLayout derived = layout.forVariant(0, SObject.MAX_INLINE_FIELDS);
+
+    assertNotSame(layout, derived);
+    assertSame(derived, layout.forVariant(0, SObject.MAX_INLINE_FIELDS));
+    assertSame(derived, derived.forVariant(0, SObject.MAX_INLINE_FIELDS));
+    assertSame(layout, derived.forVariant(8, 8));
+
+    assertEquals(layout.getNumberOfFields(), derived.getNumberOfFields());
+    assertEquals(5, derived.getNumberOfUsedExtendedPrimStorageLocations());
+    assertTrue(derived.getStorageLocation(0) instanceof LongArrayStoreLocation);
+
+    assertTrue(derived.isValid());
+    layout.invalidate();
+    assertFalse(derived.isValid());
+  }
+
+  @Test
+  public void testObjectUsesLayoutOfItsVariant() {
+    ObjectLayout derived = layoutWithLongs(9, 5).forVariant(2, 4);
+    SObject obj = SObject.create(null, derived);
+
+    assertEquals(2, obj.getNumberOfInlinePrimFields());
+    assertEquals(4, obj.getNumberOfInlineObjFields());
+    assertSame(derived, obj.getObjectLayout());
+
+    for (int i = 0; i < 9; i++) {
+      StorageLocation location = derived.getStorageLocation(i);
+      location.write(obj, i < 5 ? (Object) (long) i : "f" + i);
+    }
+    for (int i = 0; i < 9; i++) {
+      assertEquals(i < 5 ? (Object) (long) i : "f" + i, obj.getField(i));
+    }
+  }
+
+  @Test
+  public void testUsedMapBeyond64Fields() {
+    ObjectLayout layout = layoutWithLongs(100, 100);
+    SObject obj = SObject.create(null, layout);
+    StorageLocation low = layout.getStorageLocation(3);
+    StorageLocation high = layout.getStorageLocation(67);
+
+    high.write(obj, 67L);
+    assertSame(Nil.nilObject, low.read(obj));
+    assertEquals(67L, high.read(obj));
+
+    low.write(obj, 3L);
+    assertEquals(3L, low.read(obj));
+    assertEquals(67L, high.read(obj));
+  }
+
+  @Test
+  public void testFirstWritesDoNotGeneralize() {
+    int numFields = VmSettings.MaxFieldGeneralizations + 4;
+    SClass clazz = new SClass(numFields);
+    SObject obj = SObject.create(clazz);
+    for (int i = 0; i < numFields; i++) {
+      obj.setField(i, (long) i);
+    }
+
+    assertEquals(0, clazz.getNumberOfFieldGeneralizations());
+    ObjectLayout layout = clazz.getLayoutForInstances();
+    assertFalse(layout.isAllFieldsGeneralized());
+    assertTrue(layout.getStorageLocation(numFields - 1) instanceof LongStorageLocation);
+
+    obj.setField(0, "generalized");
+    assertEquals(1, clazz.getNumberOfFieldGeneralizations());
+    assertEquals("generalized", obj.getField(0));
+    assertEquals((long) numFields - 1, obj.getField(numFields - 1));
+  }
+
+  @Test
+  public void testRepeatedGeneralizationsStoreAllFieldsAsObjects() {
+    int numFields = VmSettings.MaxFieldGeneralizations;
+    SClass clazz = new SClass(numFields);
+    SObject obj = SObject.create(clazz);
+    for (int i = 0; i < numFields; i++) {
+      obj.setField(i, (long) i);
+    }
+    for (int i = 0; i < numFields; i++) {
+      obj.setField(i, "f" + i);
+    }
+
+    assertEquals(numFields, clazz.getNumberOfFieldGeneralizations());
+    assertTrue(clazz.getLayoutForInstances().isAllFieldsGeneralized());
+    for (int i = 0; i < numFields; i++) {
+      assertEquals("f" + i, obj.getField(i));
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package trufflesom.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.graalvm.polyglot.PolyglotException;
+import org.junit.Test;
+
+
+public class ArrayBulkTests extends SomSourceTestSetup {
+
+  private static final String BULK = String.join("\n",
+      "Bulk = (",
+      "  ----",
+      "  longs = ( | arr |",
+      "    arr := Array new: 5.",
+      "    1 to: 5 do: [:i | arr at: i put: i * 10 ].",
+      "    ^ arr )",
+      "  sum: arr = ( ^ arr inject: 0 into: [:acc :e | acc + e ] )",
+      "  copyLongs = ( ^ self sum: (self longs copyFrom: 2 to: 4) )",
+      "  copyEmptyRange = ( ^ (self longs copyFrom: 3 to: 2) length )",
+      "  copyFromEmptyArray = ( ^ ((Array new: 5) copyFrom: 2 to: 3) length )",
+      "  replaceWithDoubles = ( | arr |",
+      "    arr := self longs.",
+      "    arr replaceFrom: 2 to: 3 with: ((Array new: 2) putAll: 0.5; yourself).",
+      "    ^ (arr at: 2) + (arr at: 3) + (arr at: 4) )",
+      "  replaceBeyondEnd = ( ^ self longs replaceFrom: 4 to: 6 with: self longs )",
+      "  replaceFromShortSource = ( ^ self longs replaceFrom: 2 to: 4 with: (Array new: 2) )",
+      "  fillBeforeStart = ( ^ self longs from: 0 to: 2 put: 7 )",
+      "  fillReversedRange = ( ^ self longs from: 4 to: 2 put: 7 )",
+      "  fillRange = ( | arr |",
+      "    arr := self longs.",
+      "    arr from: 1 to: 3 put: 7.",
+      "    ^ self sum: arr )",
+      "  indexOfPresent = ( ^ self longs indexOf: 30 )",
+      "  indexOfAbsent = ( ^ (self longs indexOf: 31) isNil )",
+      "  indexOfDouble = ( ^ self longs indexOf: 40.0 )",
+      "  equalElements = ( ^ self longs hasEqualElements: self longs )",
+      ")");
+
+  private static long eval(final String selector) {
+    return evalClassMethod("Bulk", BULK, selector).asLong();
+  }
+
+  @Test
+  public void testCopyFromTo() {
+    assertEquals(20 + 30 + 40, eval("copyLongs"));
+    assertEquals(0, eval("copyEmptyRange"));
+    assertEquals(2, eval("copyFromEmptyArray"));
+  }
+
+  @Test
+  public void testReplaceFromToWith() {
+    assertEquals(0.5 + 0.5 + 40,
+        evalClassMethod("Bulk", BULK, "replaceWithDoubles").asDouble(), 0.0);
+  }
+
+  @Test
+  public void testFromToPut() {
+    assertEquals(3 * 7 + 40 + 50, eval("fillRange"));
+  }
+
+  private static void assertOutOfRangeFails(final String selector) {
+    try {
+      eval(selector);
+      fail(selector + " must fail with an error, and not write outside of the array");
+    } catch (PolyglotException e) {
+      // expected, the primitive sends #error:
+    }
+  }
+
+  @Test
+  public void testReplaceFromToWithOutOfRange() {
+    assertOutOfRangeFails("replaceBeyondEnd");
+    assertOutOfRangeFails("replaceFromShortSource");
+  }
+
+  @Test
+  public void testFromToPutOutOfRange() {
+    assertOutOfRangeFails("fillBeforeStart");
+    assertOutOfRangeFails("fillReversedRange");
+  }
+
+  @Test
+  public void testIndexOf() {
+    assertEquals(3, eval("indexOfPresent"));
+    assertEquals(4, eval("indexOfDouble"));
+    assertTrue(evalClassMethod("Bulk", BULK, "indexOfAbsent").asBoolean());
+  }
+
+  @Test
+  public void testHasEqualElements() {
+    assertTrue(evalClassMethod("Bulk", BULK, "equalElements").asBoolean());
+  }
+}
@@ -0,0 +1,120 @@
+package trufflesom.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.graalvm.polyglot.PolyglotException;
+import org.junit.Test;
+
+
+public class ArrayIterationTests extends SomSourceTestSetup {
+
+  private static final String ITERATION = String.join("\n",
+      "Iteration = (",
+      "  ----",
+      "  sum: arr = ( ^ arr inject: 0 into: [:acc :e | acc + e ] )",
+      "  collectLongs = ( ^ self sum: ((Array new: 100) putAll: 3; collect: [:e | e * 2 ]) )",
+      "  collectMixed = ( | arr |",
+      "    arr := (Array new: 3) putAll: 1; yourself.",
+      "    arr := arr collect: [:e | e = 1 ifTrue: [ 'str' ] ifFalse: [ e ] ].",
+      "    ^ (arr at: 1) length + arr length )",
+      "  selectLongs = ( | arr |",
+      "    arr := Array new: 10.",
+      "    1 to: 10 do: [:i | arr at: i put: i ].",
+      "    ^ self sum: (arr select: [:e | e > 5 ]) )",
+      "  selectAfterTransition = ( | arr |",
+      "    arr := Array new: 4.",
+      "    1 to: 4 do: [:i | arr at: i put: i ].",
+      "    ^ (arr select: [:e | arr at: 4 put: 4.5. e < 3 ]) length )",
+      "  reverseDo = ( | arr result |",
+      "    arr := Array new: 3.",
+      "    1 to: 3 do: [:i | arr at: i put: i ].",
+      "    result := 0.",
+      "    arr reverseDo: [:e | result := result * 10 + e ].",
+      "    ^ result )",
+      "  nonLocalReturn = ( | arr |",
+      "    arr := Array new: 5.",
+      "    1 to: 5 do: [:i | arr at: i put: i * 1.5 ].",
+      "    arr do: [:e | e > 4 ifTrue: [ ^ e ] ].",
+      "    ^ 0 )",
+      "  selectWithNonBoolean = ( ^ (Array new: 2) select: [:e | 1 ] )",
+      "  doEmpty = ( | count |",
+      "    count := 0.",
+      "    (Array new: 3) do: [:e | e isNil ifTrue: [ count := count + 1 ] ].",
+      "    ^ count )",
+      "  doEmptyAfterWrite = ( | arr result |",
+      "    arr := Array new: 3.",
+      "    result := 0.",
+      "    arr do: [:e | arr at: 3 put: 7. e isNil ifFalse: [ result := e ] ].",
+      "    ^ result )",
+      "  doPartiallyEmpty = ( | arr sum |",
+      "    arr := Array new: 4.",
+      "    arr at: 2 put: 5.",
+      "    sum := 0.",
+      "    arr do: [:e | e isNil ifFalse: [ sum := sum + e ] ].",
+      "    ^ sum )",
+      "  doPartiallyEmptyUntilFull = ( | arr sum |",
+      "    arr := Array new: 2.",
+      "    arr at: 1 put: 5.",
+      "    sum := 0.",
+      "    arr do: [:e | arr at: 2 put: 6. sum := sum + e ].",
+      "    ^ sum )",
+      ")");
+
+  private static long eval(final String selector) {
+    return evalClassMethod("Iteration", ITERATION, selector).asLong();
+  }
+
+  @Test
+  public void testCollectLongs() {
+    assertEquals(600, eval("collectLongs"));
+  }
+
+  @Test
+  public void testCollectGeneralizesResult() {
+    assertEquals(3 + 3, eval("collectMixed"));
+  }
+
+  @Test
+  public void testSelectLongs() {
+    assertEquals(6 + 7 + 8 + 9 + 10, eval("selectLongs"));
+  }
+
+  @Test
+  public void testSelectContinuesAfterStrategyChange() {
+    assertEquals(2, eval("selectAfterTransition"));
+  }
+
+  @Test
+  public void testReverseDo() {
+    assertEquals(321, eval("reverseDo"));
+  }
+
+  @Test
+  public void testDoOnEmptyArray() {
+    assertEquals(3, eval("doEmpty"));
+    assertEquals(7, eval("doEmptyAfterWrite"));
+  }
+
+  @Test
+  public void testDoOnPartiallyEmptyArray() {
+    assertEquals(5, eval("doPartiallyEmpty"));
+    assertEquals(5 + 6, eval("doPartiallyEmptyUntilFull"));
+  }
+
+  @Test
+  public void testNonLocalReturnFromDo() {
+    assertEquals(4.5,
+        evalClassMethod("Iteration", ITERATION, "nonLocalReturn").asDouble(), 0.0);
+  }
+
+  @Test
+  public void testSelectWithNonBooleanResultFails() {
+    try {
+      evalClassMethod("Iteration", ITERATION, "selectWithNonBoolean");
+      fail("select: must not treat a non-Boolean block result as false");
+    } catch (PolyglotException e) {
+      // expected, same as for an inlined #ifTrue:
+    }
+  }
+}
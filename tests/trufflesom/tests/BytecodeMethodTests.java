@@ -1,12 +1,19 @@
 package trufflesom.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 import static trufflesom.vm.SymbolTable.symSelf;
 import static trufflesom.vm.SymbolTable.symbolFor;
 
+import java.util.Arrays;
+
+import org.graalvm.polyglot.Value;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.oracle.truffle.api.frame.FrameSlotKind;
 import com.oracle.truffle.api.source.Source;
 
 import trufflesom.bdt.basic.ProgramDefinitionError;
@@ -14,9 +21,13 @@ import trufflesom.bdt.source.SourceCoordinate;
 import trufflesom.compiler.ClassGenerationContext;
 import trufflesom.compiler.ParserBc;
 import trufflesom.compiler.bc.BytecodeMethodGenContext;
+import trufflesom.interpreter.Method;
 import trufflesom.interpreter.SomLanguage;
 import trufflesom.interpreter.bc.Bytecodes;
 import trufflesom.interpreter.nodes.bc.BytecodeLoopNode;
+import trufflesom.vm.Globals;
+import trufflesom.vm.VmSettings;
+import trufflesom.vmobjects.SClass;
 import trufflesom.vmobjects.SInvokable.SMethod;
 
 
@@ -1136,4 +1147,334 @@ public class BytecodeMethodTests extends BytecodeTestSetup {
     returnField(3, new BC(Bytecodes.PUSH_FIELD, 3));
     returnField(4, new BC(Bytecodes.PUSH_FIELD, 4));
   }
+
+  @Test
+  public void testWideLiteralIndex() {
+    StringBuilder source = new StringBuilder("test = ( ");
+    for (int i = 0; i < 130; i += 1) {
+      source.append("#lit").append(i).append(". ");
+    }
+    source.append("^ #lit129 )");
+    byte[] bytecodes = methodToBytecodes(source.toString());
+
+    check(Arrays.copyOfRange(bytecodes, bytecodes.length - 5, bytecodes.length),
+        new BC(Bytecodes.WIDE, 0),
+        new BC(Bytecodes.PUSH_CONSTANT, 129),
+        Bytecodes.RETURN_LOCAL);
+  }
+
+  @Test
+  public void testWideLocalIndex() {
+    StringBuilder source = new StringBuilder("test = ( | ");
+    for (int i = 0; i < 130; i += 1) {
+      source.append("l").append(i).append(' ');
+    }
+    source.append("| l129 := 1. ^ l129 )");
+    byte[] bytecodes = methodToBytecodes(source.toString());
+
+    assertEquals(14, bytecodes.length);
+    check(bytecodes,
+        Bytecodes.PUSH_1,
+        Bytecodes.DUP,
+        new BC(Bytecodes.WIDE, 0),
+        new BC(Bytecodes.POP_LOCAL, 129, 0),
+        Bytecodes.POP,
+        new BC(Bytecodes.WIDE, 0),
+        new BC(Bytecodes.PUSH_LOCAL, 129, 0),
+        Bytecodes.RETURN_LOCAL);
+  }
+
+  /**
+   * The local x of the inlined block ends up beyond the 130 locals of the method. Thus, the
+   * nested block, which is adapted in place, needs a WIDE prefix to access it, which moves
+   * its bytecodes and the jumps of its loop.
+   */
+  @Test
+  public void testWideLocalIndexAfterInliningIntoMethodWithManyLocals() {
+    StringBuilder source = new StringBuilder("ManyLocals = (\n  ----\n  run = ( | ");
+    for (int i = 0; i < 130; i += 1) {
+      source.append("l").append(i).append(' ');
+    }
+    source.append("|\n");
+    source.append("    l129 := 3.\n");
+    source.append("    ^ true ifTrue: [ | x | x := l129.\n");
+    source.append("      [ | sum | sum := 0.\n");
+    source.append("        [ x > 0 ] whileTrue: [ sum := sum + x. x := x - 1 ].\n");
+    source.append("        sum ] value ] )\n)");
+
+    assertEquals(6,
+        SomSourceTestSetup.evalClassMethod("ManyLocals", source.toString(), "run").asLong());
+  }
+
+  /**
+   * The class-side methods store: inc: and dec: are called with values of different types,
+   * which quickens and generalizes their bytecodes. The tests need the bytecode interpreter,
+   * and {@code mx tests-junit} runs them with -Dsom.interp=BC.
+   */
+  private static final String TYPED_LOCALS = String.join("\n",
+      "TypedLocals = (",
+      "  ----",
+      "  store: v = ( | a b c d | d := v. ^ d )",
+      "  inc: v = ( ^ v + 1 )",
+      "  dec: v = ( ^ v - 1 )",
+      "  longs = ( ^ (self store: 1) + (self store: 2) )",
+      "  doubles = ( ^ (self store: 1.5) + (self store: 2.5) )",
+      "  longThenDouble = ( ^ (self store: 1) + (self store: 2.5) )",
+      "  doubleThenLong = ( ^ (self store: 1.5) + (self store: 2) )",
+      "  longThenDoubleThenObject = (",
+      "    ^ (self store: 1) + (self store: 2.5) + (self store: 'abc') length )",
+      "  incDoubles = ( ^ (self inc: 1.5) + (self inc: 2.5) )",
+      "  incDoubleThenLong = ( ^ (self inc: 1.5) + (self inc: 2) )",
+      "  decDoubles = ( ^ (self dec: 1.5) + (self dec: 2.5) )",
+      "  decDoubleThenLong = ( ^ (self dec: 1.5) + (self dec: 2) )",
+      ")");
+
+  private static double evalTypedLocals(final String selector) {
+    assumeTrue(VmSettings.UseBcInterp);
+    Value result = SomSourceTestSetup.evalClassMethod("TypedLocals", TYPED_LOCALS, selector);
+    return result.asDouble();
+  }
+
+  private Method typedLocalsMethod(final String selector) {
+    SClass clazz = (SClass) Globals.getGlobal(symbolFor("TypedLocals"));
+    return (Method) clazz.getSOMClass().lookupInvokable(symbolFor(selector)).getInvokable();
+  }
+
+  private byte[] typedLocalsBytecodes(final String selector) {
+    BytecodeLoopNode body = read(typedLocalsMethod(selector), "body", BytecodeLoopNode.class);
+    return body.getBytecodeArray();
+  }
+
+  private static boolean contains(final byte[] bytecodes, final byte bytecode) {
+    for (int i = 0; i < bytecodes.length; i += Bytecodes.getBytecodeLength(bytecodes[i])) {
+      if (bytecodes[i] == bytecode) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Checks the first bytecode of store:, which writes d, and the kind of the slot of d. */
+  private void checkStore(final byte popLocal, final FrameSlotKind kind) {
+    byte[] bytecodes = typedLocalsBytecodes("store:");
+    check(bytecodes, Bytecodes.PUSH_ARG1, new BC(popLocal, 3, 0));
+
+    FrameSlotKind actual = typedLocalsMethod("store:").getFrameDescriptor().getSlotKind(3);
+    assertEquals(kind, actual);
+  }
+
+  @Test
+  public void testLongLocalIsQuickened() {
+    assertEquals(3.0, evalTypedLocals("longs"), 0.0);
+    checkStore(Bytecodes.Q_POP_LOCAL_LONG, FrameSlotKind.Long);
+    assertTrue(contains(typedLocalsBytecodes("store:"), Bytecodes.Q_PUSH_LOCAL_LONG));
+  }
+
+  @Test
+  public void testDoubleLocalIsQuickened() {
+    assertEquals(4.0, evalTypedLocals("doubles"), 0.0);
+    checkStore(Bytecodes.Q_POP_LOCAL_DOUBLE, FrameSlotKind.Double);
+    assertTrue(contains(typedLocalsBytecodes("store:"), Bytecodes.Q_PUSH_LOCAL_DOUBLE));
+  }
+
+  @Test
+  public void testLongLocalGeneralizesOnDouble() {
+    assertEquals(3.5, evalTypedLocals("longThenDouble"), 0.0);
+    checkStore(Bytecodes.POP_LOCAL, FrameSlotKind.Object);
+  }
+
+  @Test
+  public void testDoubleLocalGeneralizesOnLong() {
+    assertEquals(3.5, evalTypedLocals("doubleThenLong"), 0.0);
+    checkStore(Bytecodes.POP_LOCAL, FrameSlotKind.Object);
+  }
+
+  @Test
+  public void testLocalGeneralizesOnObject() {
+    assertEquals(1 + 2.5 + 3, evalTypedLocals("longThenDoubleThenObject"), 0.0);
+    checkStore(Bytecodes.POP_LOCAL, FrameSlotKind.Object);
+  }
+
+  @Test
+  public void testIncQuickensOnDouble() {
+    assertEquals(2.5 + 3.5, evalTypedLocals("incDoubles"), 0.0);
+    assertTrue(contains(typedLocalsBytecodes("inc:"), Bytecodes.Q_INC_DOUBLE));
+  }
+
+  @Test
+  public void testIncGeneralizesOnLong() {
+    assertEquals(2.5 + 3, evalTypedLocals("incDoubleThenLong"), 0.0);
+    byte[] bytecodes = typedLocalsBytecodes("inc:");
+    assertTrue(contains(bytecodes, Bytecodes.INC));
+    assertFalse(contains(bytecodes, Bytecodes.Q_INC_DOUBLE));
+  }
+
+  @Test
+  public void testDecQuickensOnDouble() {
+    assertEquals(0.5 + 1.5, evalTypedLocals("decDoubles"), 0.0);
+    assertTrue(contains(typedLocalsBytecodes("dec:"), Bytecodes.Q_DEC_DOUBLE));
+  }
+
+  @Test
+  public void testDecGeneralizesOnLong() {
+    assertEquals(0.5 + 1, evalTypedLocals("decDoubleThenLong"), 0.0);
+    byte[] bytecodes = typedLocalsBytecodes("dec:");
+    assertTrue(contains(bytecodes, Bytecodes.DEC));
+    assertFalse(contains(bytecodes, Bytecodes.Q_DEC_DOUBLE));
+  }
+
+  @Test
+  public void testIncLocalPushWhenValueIsUsed() {
+    byte[] bytecodes = methodToBytecodes("test = ( | i | ^ i := i + 1 )");
+
+    if (VmSettings.UseSuperinstructions) {
+      assertEquals(4, bytecodes.length);
+      check(bytecodes, new BC(Bytecodes.INC_LOCAL_PUSH, 0, 0), Bytecodes.RETURN_LOCAL);
+    } else {
+      check(bytecodes, Bytecodes.PUSH_LOCAL_0, Bytecodes.INC, Bytecodes.DUP,
+          Bytecodes.POP_LOCAL_0, Bytecodes.RETURN_LOCAL);
+    }
+  }
+
+  @Test
+  public void testDecLocalPushWhenValueIsUsed() {
+    assumeTrue(VmSettings.UseSuperinstructions);
+    byte[] bytecodes = methodToBytecodes("test = ( | a b c d | ^ d := d - 1 )");
+
+    assertEquals(4, bytecodes.length);
+    check(bytecodes, new BC(Bytecodes.DEC_LOCAL_PUSH, 3, 0), Bytecodes.RETURN_LOCAL);
+  }
+
+  @Test
+  public void testIncLocalWhenValueIsNotUsed() {
+    assumeTrue(VmSettings.UseSuperinstructions);
+    byte[] bytecodes = methodToBytecodes("test = ( | i | i := i + 1. ^ i )");
+
+    assertEquals(5, bytecodes.length);
+    check(bytecodes, new BC(Bytecodes.INC_LOCAL, 0, 0), Bytecodes.PUSH_LOCAL_0,
+        Bytecodes.RETURN_LOCAL);
+  }
+
+  /**
+   * Increments and decrements of locals give the same results as the sends of + and -,
+   * including the overflow into big integers, with and without superinstructions.
+   * {@code mx tests-junit} runs them with -Dsom.superinstructions=true.
+   */
+  private static final String INC_LOCAL = String.join("\n",
+      "IncLocal = (",
+      "  ----",
+      "  countWhile = ( | i sum |",
+      "    i := 0. sum := 0.",
+      "    [ (i := i + 1) <= 10 ] whileTrue: [ sum := sum + i ].",
+      "    ^ sum )",
+      "  decUsed = ( | i | i := 5. ^ (i := i - 1) + i )",
+      "  incDouble = ( | d | d := 1.5. ^ (d := d + 1) + d )",
+      "  incOverflow = ( | i | i := 9223372036854775807. ^ (i := i + 1) asString )",
+      "  incOverflowUnused = ( | i |",
+      "    i := 9223372036854775807. i := i + 1. ^ i asString )",
+      "  incBigInteger = ( | i |",
+      "    i := 9223372036854775807. i := i + 1. ^ (i := i + 1) asString )",
+      "  decOverflow = ( | i | i := -9223372036854775807 - 1. ^ (i := i - 1) asString )",
+      "  backToLong = ( | i | i := -9223372036854775807 - 2. ^ (i := i + 1) )",
+      ")");
+
+  private static Value evalIncLocal(final String selector) {
+    return SomSourceTestSetup.evalClassMethod("IncLocal", INC_LOCAL, selector);
+  }
+
+  @Test
+  public void testIncLocalSemantics() {
+    assertEquals(55, evalIncLocal("countWhile").asLong());
+    assertEquals(4 + 4, evalIncLocal("decUsed").asLong());
+    assertEquals(2.5 + 2.5, evalIncLocal("incDouble").asDouble(), 0.0);
+  }
+
+  @Test
+  public void testIncLocalOverflow() {
+    assertEquals("9223372036854775808", evalIncLocal("incOverflow").asString());
+    assertEquals("9223372036854775808", evalIncLocal("incOverflowUnused").asString());
+    assertEquals("9223372036854775809", evalIncLocal("incBigInteger").asString());
+    assertEquals("-9223372036854775809", evalIncLocal("decOverflow").asString());
+    assertEquals(Long.MIN_VALUE, evalIncLocal("backToLong").asLong());
+  }
+
+  /**
+   * INC and DEC, also on locals, send + and - to values that are no numbers.
+   */
+  private static final String INC_OTHER = String.join("\n",
+      "IncOther = (",
+      "  + n = ( ^ 100 + n )",
+      "  - n = ( ^ 200 - n )",
+      "  ----",
+      "  inc = ( ^ self new + 1 )",
+      "  dec = ( ^ self new - 1 )",
+      "  incLocal = ( | x | x := self new. x := x + 1. ^ x )",
+      "  decLocalUsed = ( | x | x := self new. ^ x := x - 1 )",
+      ")");
+
+  private static Value evalIncOther(final String selector) {
+    return SomSourceTestSetup.evalClassMethod("IncOther", INC_OTHER, selector);
+  }
+
+  @Test
+  public void testIncSendsPlusToOtherValues() {
+    assertEquals(101, evalIncOther("inc").asLong());
+    assertEquals(199, evalIncOther("dec").asLong());
+    assertEquals(101, evalIncOther("incLocal").asLong());
+    assertEquals(199, evalIncOther("decLocalUsed").asLong());
+  }
+
+  @Test
+  public void testMoveLocal() {
+    byte[] bytecodes = methodToBytecodes("test = ( | a b | b := a )");
+
+    if (VmSettings.UseSuperinstructions) {
+      assertEquals(4, bytecodes.length);
+      check(bytecodes, new BC(Bytecodes.MOVE_LOCAL, 0, 1), Bytecodes.RETURN_SELF);
+    } else {
+      check(bytecodes, Bytecodes.PUSH_LOCAL_0, Bytecodes.POP_LOCAL_1, Bytecodes.RETURN_SELF);
+    }
+  }
+
+  @Test
+  public void testMoveLocalWhenValueIsUsed() {
+    assumeTrue(VmSettings.UseSuperinstructions);
+    byte[] bytecodes = methodToBytecodes("test = ( | a b c d | ^ d := a )");
+
+    assertEquals(7, bytecodes.length);
+    check(bytecodes, new BC(Bytecodes.MOVE_LOCAL, 0, 3), new BC(Bytecodes.PUSH_LOCAL, 3, 0),
+        Bytecodes.RETURN_LOCAL);
+  }
+
+  @Test
+  public void testNoMoveLocalFromArgument() {
+    assumeTrue(VmSettings.UseSuperinstructions);
+    byte[] bytecodes = methodToBytecodes("test: x = ( | b | b := x )");
+
+    check(bytecodes, Bytecodes.PUSH_ARG1, Bytecodes.POP_LOCAL_0, Bytecodes.RETURN_SELF);
+  }
+
+  /**
+   * Assignments of one local to another give the same results with and without the MOVE_LOCAL
+   * superinstruction, also when the assigned value is used.
+   */
+  private static final String MOVE_LOCAL = String.join("\n",
+      "MoveLocal = (",
+      "  ----",
+      "  swap = ( | a b t | a := 1. b := 2. t := a. a := b. b := t. ^ a * 10 + b )",
+      "  used = ( | a b | a := 3. ^ (b := a) + b )",
+      "  inLoop = ( | i j sum | i := 0. sum := 0.",
+      "    [ i < 4 ] whileTrue: [ i := i + 1. j := i. sum := sum + j ].",
+      "    ^ sum )",
+      ")");
+
+  @Test
+  public void testMoveLocalSemantics() {
+    assertEquals(21,
+        SomSourceTestSetup.evalClassMethod("MoveLocal", MOVE_LOCAL, "swap").asLong());
+    assertEquals(6,
+        SomSourceTestSetup.evalClassMethod("MoveLocal", MOVE_LOCAL, "used").asLong());
+    assertEquals(10,
+        SomSourceTestSetup.evalClassMethod("MoveLocal", MOVE_LOCAL, "inLoop").asLong());
+  }
 }
@@ -0,0 +1,67 @@
+package trufflesom.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+
+/**
+ * The tests are meant to run also with -Dsom.copyOnWriteMinLength=1, which is done by
+ * {@code mx tests-junit}.
+ */
+public class CopyOnWriteTests extends SomSourceTestSetup {
+
+  private static final String COPIES = String.join("\n",
+      "Copies = (",
+      "  | a b |",
+      "  b: value = ( b := value )",
+      "  ----",
+      "  mutateBothSides = ( | arr copy |",
+      "    arr := Array new: 3.",
+      "    1 to: 3 do: [:i | arr at: i put: i ].",
+      "    copy := arr copy.",
+      "    copy at: 1 put: 10.",
+      "    arr at: 2 put: 20.",
+      "    ^ (arr at: 1) + (arr at: 2) + (arr at: 3) + (copy at: 1) + (copy at: 2) )",
+      "  copyOfCopy = ( | arr copy |",
+      "    arr := Array new: 2.",
+      "    arr at: 1 put: 'a'; at: 2 put: 'b'.",
+      "    copy := arr copy copy.",
+      "    arr at: 1 put: 'changed'.",
+      "    ^ (copy at: 1) length + (arr at: 1) length )",
+      "  copyFields = ( | fields obj |",
+      "    fields := self fields copy.",
+      "    obj := self new b: 5.",
+      "    ^ (obj instVarNamed: #b) + fields length + self fields length )",
+      "  mutateCopyOfFields = ( | fields obj |",
+      "    fields := self fields copy.",
+      "    fields at: 1 put: #c.",
+      "    obj := self new b: 7.",
+      "    ^ (obj instVarNamed: #b)",
+      "      + ((self fields at: 1) = #a ifTrue: [ 1 ] ifFalse: [ 0 ]) )",
+      ")");
+
+  private static long eval(final String selector) {
+    return evalClassMethod("Copies", COPIES, selector).asLong();
+  }
+
+  @Test
+  public void testMutateBothSidesOfCopy() {
+    assertEquals(1 + 20 + 3 + 10 + 2, eval("mutateBothSides"));
+  }
+
+  @Test
+  public void testCopyOfCopy() {
+    assertEquals(1 + 7, eval("copyOfCopy"));
+  }
+
+  @Test
+  public void testFieldLookupAfterCopyingFields() {
+    assertEquals(5 + 2 + 2, eval("copyFields"));
+  }
+
+  @Test
+  public void testMutatingCopyOfFieldsKeepsClassFields() {
+    assertEquals(7 + 1, eval("mutateCopyOfFields"));
+  }
+}
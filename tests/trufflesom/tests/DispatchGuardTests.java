@@ -0,0 +1,40 @@
+package trufflesom.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+
+/**
+ * The tests are meant to run also with -Dsom.dispatchGuard=class, which is done by
+ * {@code mx tests-junit}.
+ */
+public class DispatchGuardTests extends SomSourceTestSetup {
+
+  private static final String LAYOUT_CHANGE = String.join("\n",
+      "LayoutChange = (",
+      "  | value |",
+      "  value = ( ^ value )",
+      "  value: v = ( value := v )",
+      "  ----",
+      "  read: o = ( ^ o value )",
+      "  write: o = ( ^ o value: 'str' )",
+      "  test = ( | a b sum |",
+      "    a := self new value: 1.",
+      "    sum := 0.",
+      "    1 to: 10 do: [:i | sum := sum + (self read: a) ].",
+      "    \"the write generalizes the field while the caches in read: are active\"",
+      "    b := self new value: 2.",
+      "    self write: b.",
+      "    1 to: 10 do: [:i | sum := sum + (self read: a) + (self read: b) length ].",
+      "    self write: a.",
+      "    1 to: 10 do: [:i | sum := sum + (self read: a) length ].",
+      "    ^ sum )",
+      ")");
+
+  @Test
+  public void testLayoutChangeWithActiveFieldCaches() {
+    assertEquals(10 * 1 + 10 * (1 + 3) + 10 * 3,
+        evalClassMethod("LayoutChange", LAYOUT_CHANGE, "test").asLong());
+  }
+}
@@ -0,0 +1,40 @@
+package trufflesom.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+
+public class GrowableArrayTests extends SomSourceTestSetup {
+
+  private static final String GROWING = String.join("\n",
+      "Growing = (",
+      "  ----",
+      "  appendAndRemove = ( | arr sum |",
+      "    arr := Array new: 0.",
+      "    arr ensureCapacity: 4.",
+      "    1 to: 100 do: [:i | arr append: i ].",
+      "    sum := 0.",
+      "    [ arr length > 50 ] whileTrue: [ sum := sum + arr removeLast ].",
+      "    ^ sum + arr length )",
+      "  removeFromFixed = ( | arr |",
+      "    arr := Array new: 3.",
+      "    arr at: 3 put: 'last'.",
+      "    ^ arr removeLast length + arr length )",
+      ")");
+
+  @Test
+  public void testAppendAndRemove() {
+    long removed = 0;
+    for (long i = 51; i <= 100; i++) {
+      removed += i;
+    }
+    assertEquals(removed + 50,
+        evalClassMethod("Growing", GROWING, "appendAndRemove").asLong());
+  }
+
+  @Test
+  public void testRemoveLastFromFixedArray() {
+    assertEquals(4 + 2, evalClassMethod("Growing", GROWING, "removeFromFixed").asLong());
+  }
+}
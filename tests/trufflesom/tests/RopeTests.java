@@ -0,0 +1,77 @@
+package trufflesom.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+
+/**
+ * The tests are meant to run also with -Dsom.ropeMinLength=4, which is done by
+ * {@code mx tests-junit}.
+ */
+public class RopeTests extends SomSourceTestSetup {
+
+  private static final String ROPES = String.join("\n",
+      "Ropes = (",
+      "  ----",
+      "  build: n = ( | str |",
+      "    str := ''.",
+      "    1 to: n do: [:i | str := str concatenate: 'ab' ].",
+      "    ^ str )",
+      "  concatenation = ( ^ (self build: 1000) length )",
+      "  charAt = ( ^ ((self build: 10) charAt: 4) = 'b' )",
+      "  equality = ( | str |",
+      "    str := 'abcd' concatenate: 'efgh'.",
+      "    ^ (str = 'abcdefgh') & ('abcdefgh' = str) & (str = #abcdefgh)",
+      "      & (str = ('abcde' concatenate: 'fgh')) & (str = 'abcdefgX') not )",
+      "  hash = ( ^ ('abcd' concatenate: 'efgh') hashcode = 'abcdefgh' hashcode )",
+      "  asSymbol = ( ^ ('abcd' concatenate: 'efgh') asSymbol == #abcdefgh )",
+      "  isLetters = ( ^ ('abcd' concatenate: 'efgh') isLetters )",
+      "  fromString = ( ^ Integer fromString: ('1234' concatenate: '5678') )",
+      "  returnRope = ( ^ 'abcd' concatenate: 'efgh' )",
+      ")");
+
+  private static boolean evalBoolean(final String selector) {
+    return evalClassMethod("Ropes", ROPES, selector).asBoolean();
+  }
+
+  @Test
+  public void testRepeatedConcatenation() {
+    assertEquals(2000, evalClassMethod("Ropes", ROPES, "concatenation").asLong());
+  }
+
+  @Test
+  public void testCharAt() {
+    assertEquals(true, evalBoolean("charAt"));
+  }
+
+  @Test
+  public void testEquality() {
+    assertEquals(true, evalBoolean("equality"));
+  }
+
+  @Test
+  public void testHashOfRopeMatchesString() {
+    assertEquals(true, evalBoolean("hash"));
+  }
+
+  @Test
+  public void testAsSymbol() {
+    assertEquals(true, evalBoolean("asSymbol"));
+  }
+
+  @Test
+  public void testIsLetters() {
+    assertEquals(true, evalBoolean("isLetters"));
+  }
+
+  @Test
+  public void testIntegerFromString() {
+    assertEquals(12345678, evalClassMethod("Ropes", ROPES, "fromString").asLong());
+  }
+
+  @Test
+  public void testRopeIsStringForInterop() {
+    assertEquals("abcdefgh", evalClassMethod("Ropes", ROPES, "returnRope").asString());
+  }
+}
@@ -0,0 +1,57 @@
+package trufflesom.tests;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Context.Builder;
+import org.graalvm.polyglot.Value;
+import org.junit.Ignore;
+
+import trufflesom.Launcher;
+import trufflesom.compiler.SourcecodeCompiler.AstCompiler;
+import trufflesom.compiler.SourcecodeCompiler.BcCompiler;
+import trufflesom.interpreter.SomLanguage;
+import trufflesom.interpreter.objectstorage.StorageAnalyzer;
+import trufflesom.vm.Classes;
+import trufflesom.vm.Universe;
+import trufflesom.vm.VmSettings;
+
+
+@Ignore("provides just setup")
+public class SomSourceTestSetup {
+
+  /**
+   * Load a class from the given source, and send the selector to the class.
+   *
+   * @return the result of the class-side method
+   */
+  protected static Value evalClassMethod(final String className, final String source,
+      final String selector) {
+    Path dir;
+    try {
+      dir = Files.createTempDirectory("som-test");
+      Files.writeString(dir.resolve(className + ".som"), source);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+
+    StorageAnalyzer.initAccessors();
+    Classes.reset();
+
+    if (VmSettings.UseAstInterp) {
+      Universe.setSourceCompiler(new AstCompiler(), true);
+    } else {
+      Universe.setSourceCompiler(new BcCompiler(), true);
+    }
+
+    Builder builder = Launcher.createContextBuilder();
+    builder.option("som.CLASS_PATH", "Smalltalk:" + dir);
+    builder.option("som.TEST_CLASS", className);
+    builder.option("som.TEST_SELECTOR", selector);
+
+    Context context = builder.build();
+    return context.eval(SomLanguage.START);
+  }
+}
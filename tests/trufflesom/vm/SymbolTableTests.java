@@ -0,0 +1,151 @@
+package trufflesom.vm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import trufflesom.vmobjects.SSymbol;
+
+
+/**
+ * The tests are meant to run also with -Dsom.weakSymbols=true, which is done by
+ * {@code mx tests-junit}.
+ */
+public class SymbolTableTests {
+
+  @Test
+  public void testLookupByCharsFindsSameSymbol() {
+    SSymbol sym = SymbolTable.symbolFor("testLookupByChars");
+    char[] chars = "xxtestLookupByCharsxx".toCharArray();
+
+    assertSame(sym, SymbolTable.symbolFor(chars, 2, chars.length - 4));
+    assertSame(sym, SymbolTable.dynamicSymbolFor("testLookupByChars"));
+  }
+
+  @Test
+  public void testLookupByCharsAddsSymbol() {
+    char[] chars = "testAddedByChars".toCharArray();
+    SSymbol sym = SymbolTable.symbolFor(chars, 0, chars.length);
+
+    assertEquals("testAddedByChars", sym.getString());
+    assertSame(sym, SymbolTable.symbolFor("testAddedByChars"));
+  }
+
+  private static WeakReference<SSymbol> createDynamicSymbol(final String string) {
+    return new WeakReference<>(SymbolTable.dynamicSymbolFor(string));
+  }
+
+  private static boolean collect(final WeakReference<?> ref) {
+    for (int i = 0; i < 50 && ref.get() != null; i++) {
+      System.gc();
+    }
+    return ref.get() == null;
+  }
+
+  @Test
+  public void testWeakSymbolCanBeCollected() {
+    assumeTrue(VmSettings.UseWeakSymbols);
+
+    WeakReference<SSymbol> ref = createDynamicSymbol("testWeakSymbolCanBeCollected");
+    assumeTrue("GC did not collect the symbol", collect(ref));
+
+    SSymbol sym = SymbolTable.dynamicSymbolFor("testWeakSymbolCanBeCollected");
+    assertEquals("testWeakSymbolCanBeCollected", sym.getString());
+    assertSame(sym, SymbolTable.symbolFor("testWeakSymbolCanBeCollected"));
+  }
+
+  @Test
+  public void testSymbolFromSourceIsHeldStrongly() {
+    WeakReference<SSymbol> ref = createDynamicSymbol("testHeldStrongly");
+    SymbolTable.symbolFor("testHeldStrongly");
+
+    collect(ref);
+    assertNotNull(ref.get());
+  }
+
+  /** @return a string of 13 blocks of "Aa" or "BB", which all have the same hash code */
+  private static String collidingString(final int bits) {
+    StringBuilder sb = new StringBuilder("testCollision");
+    for (int i = 0; i < 13; i++) {
+      sb.append((bits & (1 << i)) == 0 ? "Aa" : "BB");
+    }
+    return sb.toString();
+  }
+
+  /** Updating a long chain of one bucket must not recurse over the chain. */
+  @Test
+  public void testLongChainWithSmallStack() throws Throwable {
+    Throwable[] failure = new Throwable[1];
+    Thread thread = new Thread(null, () -> {
+      try {
+        for (int i = 0; i < (1 << 13); i++) {
+          SymbolTable.dynamicSymbolFor(collidingString(i));
+        }
+        System.gc();
+        for (int i = 0; i < (1 << 13); i += 7) {
+          String string = collidingString(i);
+          assertEquals(string, SymbolTable.symbolFor(string).getString());
+        }
+      } catch (Throwable t) {
+        failure[0] = t;
+      }
+    }, "small-stack", 64 * 1024);
+    thread.start();
+    thread.join();
+
+    if (failure[0] != null) {
+      throw failure[0];
+    }
+  }
+
+  @Test
+  public void testConcurrentLookups() throws Exception {
+    int numThreads = 8;
+    int numSymbols = 2_000;
+    CyclicBarrier start = new CyclicBarrier(numThreads);
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      @SuppressWarnings("unchecked")
+      Future<SSymbol[]>[] results = new Future[numThreads];
+      for (int t = 0; t < numThreads; t++) {
+        final boolean useChars = t % 2 == 0;
+        results[t] = executor.submit(() -> {
+          start.await();
+          SSymbol[] symbols = new SSymbol[numSymbols];
+          for (int i = 0; i < numSymbols; i++) {
+            String string = "testConcurrent" + i;
+            if (useChars) {
+              char[] chars = string.toCharArray();
+              symbols[i] = SymbolTable.symbolFor(chars, 0, chars.length);
+            } else {
+              symbols[i] = SymbolTable.symbolFor(string);
+            }
+          }
+          return symbols;
+        });
+      }
+
+      SSymbol[] expected = results[0].get();
+      for (Future<SSymbol[]> result : results) {
+        SSymbol[] symbols = result.get();
+        for (int i = 0; i < numSymbols; i++) {
+          assertEquals("testConcurrent" + i, symbols[i].getString());
+          assertSame(expected[i], symbols[i]);
+        }
+      }
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+}
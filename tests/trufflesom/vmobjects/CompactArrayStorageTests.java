@@ -0,0 +1,146 @@
+package trufflesom.vmobjects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+import trufflesom.primitives.arrays.AtPutPrim;
+import trufflesom.vm.VmSettings;
+import trufflesom.vmobjects.SArray.GrowableArray;
+
+
+/**
+ * The tests for the compact strategies only run with -Dsom.compactArrays=true, which is done
+ * by {@code mx tests-junit}.
+ */
+public class CompactArrayStorageTests {
+
+  @Test
+  public void testByteWidensToIntAndLong() {
+    SArray arr = SArray.create(new byte[] {1, 2, (byte) 255});
+    assertTrue(arr.isByteType());
+
+    AtPutPrim.doByteSArray(arr, 1, 200);
+    assertTrue(arr.isByteType());
+
+    AtPutPrim.doByteSArrayOverflow(arr, 2, 1000);
+    assertTrue(arr.isIntType());
+
+    AtPutPrim.doIntSArrayOverflow(arr, 1, 1L << 40);
+    assertTrue(arr.isLongType());
+
+    assertEquals(1L << 40, arr.getElement(0));
+    assertEquals(1000L, arr.getElement(1));
+    assertEquals(255L, arr.getElement(2));
+  }
+
+  @Test
+  public void testByteWidensDirectlyToLong() {
+    SArray arr = SArray.create(new byte[] {7, 8});
+    AtPutPrim.doByteSArrayOverflow(arr, 2, -1L << 40);
+
+    assertTrue(arr.isLongType());
+    assertEquals(7L, arr.getElement(0));
+    assertEquals(-1L << 40, arr.getElement(1));
+  }
+
+  @Test
+  public void testCharGeneralizesToObject() {
+    SArray arr = SArray.create(new char[] {'a', 'b'});
+    AtPutPrim.doCharSArray(arr, 2, (Object) 42L);
+
+    assertTrue(arr.isObjectType());
+    assertEquals("a", arr.getElement(0));
+    assertEquals(42L, arr.getElement(1));
+  }
+
+  @Test
+  public void testPartiallyEmptyCharArray() {
+    assumeTrue(VmSettings.UseCompactArrays);
+
+    SArray arr = new SArray(3L);
+    AtPutPrim.doEmptySArrayWithChar(arr, 2, "b");
+    assertTrue(arr.isPartiallyEmptyType());
+
+    AtPutPrim.doPartiallyEmptySArrayWithChar(arr, 1, "a");
+    AtPutPrim.doPartiallyEmptySArrayWithChar(arr, 3, "c");
+    assertTrue(arr.isCharType());
+    assertEquals("a", arr.getElement(0));
+    assertEquals("c", arr.getElement(2));
+  }
+
+  @Test
+  public void testPartiallyEmptyCharArrayWithOtherObject() {
+    assumeTrue(VmSettings.UseCompactArrays);
+
+    SArray arr = new SArray(3L);
+    AtPutPrim.doEmptySArrayWithChar(arr, 1, "a");
+    AtPutPrim.doPartiallyEmptySArray(arr, 2, (Object) "not a char");
+
+    assertTrue(arr.isObjectType());
+    assertEquals("a", arr.getElement(0));
+    assertEquals("not a char", arr.getElement(1));
+  }
+
+  @Test
+  public void testFullIntegerArrayUsesCompactStorageOnlyWhenEnabled() {
+    SArray arr = new SArray(2L);
+    AtPutPrim.doEmptySArray(arr, 1, 3L);
+    AtPutPrim.doPartiallyEmptySArray(arr, 2, 4L);
+
+    assertEquals(VmSettings.UseCompactArrays, arr.isByteType());
+    assertEquals(!VmSettings.UseCompactArrays, arr.isLongType());
+    assertEquals(4L, arr.getElement(1));
+  }
+
+  @Test
+  public void testWideIntegersUseIntStorage() {
+    assumeTrue(VmSettings.UseCompactArrays);
+
+    SArray arr = new SArray(2L);
+    AtPutPrim.doEmptySArray(arr, 1, 3L);
+    AtPutPrim.doPartiallyEmptySArray(arr, 2, -4L);
+
+    assertTrue(arr.isIntType());
+    assertEquals(-4L, arr.getElement(1));
+  }
+
+  @Test
+  public void testLongArraysUseNarrowestStorage() {
+    assumeTrue(VmSettings.UseCompactArrays);
+
+    assertTrue(SArray.create(new long[] {1, 255}).isByteType());
+    assertTrue(SArray.create(new long[] {1, -1}).isIntType());
+    assertTrue(SArray.create(new long[] {1, 1L << 40}).isLongType());
+  }
+
+  @Test
+  public void testNewWithAllUsesNarrowestStorage() {
+    assumeTrue(VmSettings.UseCompactArrays);
+
+    SArray arr = new SArray(3L);
+    arr.transitionToLongWithAll(3, 7);
+    assertTrue(arr.isByteType());
+    assertEquals(7L, arr.getElement(2));
+
+    arr.transitionToLongWithAll(3, -7);
+    assertTrue(arr.isIntType());
+    assertEquals(-7L, arr.getElement(2));
+  }
+
+  @Test
+  public void testCollectedIntegersUseNarrowestStorage() {
+    assumeTrue(VmSettings.UseCompactArrays);
+
+    GrowableArray values = GrowableArray.createUninitialized(4);
+    values.append(3L);
+    values.append(4L);
+
+    SArray arr = SArray.createFixed(values);
+    assertTrue(arr.isByteType());
+    assertEquals(2, arr.getLength());
+    assertEquals(4L, arr.getElement(1));
+  }
+}
@@ -0,0 +1,66 @@
+package trufflesom.vmobjects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+
+public class SAbstractObjectTests {
+
+  @Test
+  public void testIdentityHashIsStable() {
+    SArray arr = SArray.create(new long[] {1, 2});
+    int hash = arr.getIdentityHash();
+
+    assertNotEquals(0, hash);
+    assertEquals(hash, arr.getIdentityHash());
+  }
+
+  @Test
+  public void testIdentityHashesAreDistinct() {
+    Set<Integer> hashes = new HashSet<>();
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(hashes.add(SArray.create(0).getIdentityHash()));
+    }
+  }
+
+  @Test
+  public void testIdentityHashesAreDistinctAcrossThreads() throws Exception {
+    int numThreads = 4;
+    int perThread = 10_000;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      @SuppressWarnings("unchecked")
+      Future<int[]>[] results = new Future[numThreads];
+      for (int t = 0; t < numThreads; t++) {
+        results[t] = executor.submit(() -> {
+          int[] hashes = new int[perThread];
+          for (int i = 0; i < perThread; i++) {
+            hashes[i] = SArray.create(0).getIdentityHash();
+          }
+          return hashes;
+        });
+      }
+
+      Set<Integer> all = new HashSet<>();
+      for (Future<int[]> result : results) {
+        for (int hash : result.get()) {
+          assertNotEquals(0, hash);
+          assertTrue(all.add(hash));
+        }
+      }
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+}
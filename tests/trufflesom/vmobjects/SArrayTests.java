@@ -0,0 +1,166 @@
+package trufflesom.vmobjects;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import trufflesom.vm.VmSettings;
+import trufflesom.vmobjects.SArray.GrowableArray;
+
+
+public class SArrayTests {
+
+  @Test
+  public void testAppendKeepsLongsUnboxed() {
+    SArray arr = SArray.create(new long[] {1, 2, 3});
+    GrowableArray growable = arr.transitionToGrowable(0);
+    for (long i = 4; i <= 100; i++) {
+      growable.append(i);
+    }
+
+    assertTrue(arr.isGrowableLongType());
+    assertEquals(100, growable.getSize());
+    assertEquals(100, arr.getLength());
+    for (long i = 0; i < 100; i++) {
+      assertEquals(i + 1, growable.getLong(i));
+    }
+  }
+
+  @Test
+  public void testAppendGeneralizesToObject() {
+    SArray arr = SArray.create(new long[] {1, 2});
+    GrowableArray growable = arr.transitionToGrowable(0);
+    growable.append("three");
+
+    assertTrue(arr.isGrowableType());
+    assertEquals(1L, growable.get(0));
+    assertEquals(2L, growable.get(1));
+    assertEquals("three", growable.get(2));
+  }
+
+  @Test
+  public void testRemoveLastUntilEmpty() {
+    SArray arr = SArray.create(new double[] {1.5, 2.5});
+    GrowableArray growable = arr.transitionToGrowable(0);
+
+    assertEquals(2.5, growable.removeLast());
+    assertEquals(1.5, growable.removeLast());
+    assertEquals(0, growable.getSize());
+
+    growable.append(true);
+    assertTrue(arr.isGrowableBooleanType());
+    assertEquals(true, growable.removeLast());
+  }
+
+  @Test
+  public void testEnsureCapacityKeepsSize() {
+    SArray arr = SArray.create(new long[] {7});
+    GrowableArray growable = arr.transitionToGrowable(1000);
+
+    assertEquals(1, growable.getSize());
+    for (long i = 1; i < 1000; i++) {
+      growable.appendLong(i);
+    }
+    assertEquals(1000, growable.getSize());
+    assertEquals(7L, growable.getLong(0));
+  }
+
+  @Test
+  public void testFixedCopyHasLogicalSize() {
+    SArray arr = SArray.create(0);
+    GrowableArray growable = arr.transitionToGrowable(16);
+    growable.append(1L);
+    growable.append(2L);
+
+    SArray fixed = SArray.createFixed(growable);
+    assertArrayEquals(new long[] {1, 2}, fixed.getLongStorage());
+  }
+
+  @Test
+  public void testUninitializedAdoptsTypeOfFirstElement() {
+    GrowableArray longs = GrowableArray.createUninitialized(4);
+    longs.append(1L);
+    longs.append(2L);
+    assertTrue(longs.isLongType());
+    assertArrayEquals(new long[] {1, 2}, (long[]) longs.toFixedStorage());
+
+    GrowableArray mixed = GrowableArray.createUninitialized(0);
+    mixed.append(1.5);
+    mixed.append("two");
+    assertArrayEquals(new Object[] {1.5, "two"}, (Object[]) mixed.toFixedStorage());
+  }
+
+  @Test
+  public void testUninitializedKeepsRequestedCapacity() {
+    GrowableArray arr = GrowableArray.createUninitialized(2);
+    arr.ensureCapacity(100);
+    arr.append(true);
+
+    assertTrue(arr.isBooleanType());
+    assertEquals(1, arr.getSize());
+    assertEquals(0, SArray.createFixed(GrowableArray.createUninitialized(3)).getLength());
+  }
+
+  @Test
+  public void testCopyOnWriteKeepsBothSidesIndependent() {
+    assumeTrue(VmSettings.CopyOnWriteMinLength > 0);
+
+    long[] values = new long[Math.max(2, VmSettings.CopyOnWriteMinLength)];
+    Arrays.fill(values, 1);
+    SArray original = SArray.create(values);
+    SArray copy = original.copyOnWrite();
+
+    copy.materializeCopyOnWrite();
+    copy.getLongStorage()[0] = 2;
+    assertEquals(1L, original.getElement(0));
+
+    original.ensureOwnStorage();
+    original.getLongStorage()[1] = 3;
+    assertEquals(1L, copy.getElement(1));
+    assertEquals(2L, copy.getElement(0));
+  }
+
+  @Test
+  public void testCopyOnWriteLeavesOriginalStorage() {
+    assumeTrue(VmSettings.CopyOnWriteMinLength > 0);
+
+    long[] values = new long[Math.max(2, VmSettings.CopyOnWriteMinLength)];
+    Arrays.fill(values, 1);
+    SArray original = SArray.create(values);
+    SArray copy = original.copyOnWrite();
+    SArray copyOfCopy = copy.copyOnWrite();
+
+    assertTrue(original.isLongType());
+    assertSame(values, original.getLongStorage());
+    assertTrue(copy.isCopyOnWriteType());
+    assertEquals(values.length, copyOfCopy.getLength());
+
+    original.ensureOwnStorage();
+    original.getLongStorage()[0] = 2;
+    assertEquals(1L, copy.getElement(0));
+    assertEquals(1L, copyOfCopy.getElement(0));
+    assertEquals(2L, original.getElement(0));
+  }
+
+  @Test
+  public void testExtendCopiedArray() {
+    assumeTrue(VmSettings.CopyOnWriteMinLength > 0);
+
+    Object[] values = new Object[Math.max(2, VmSettings.CopyOnWriteMinLength)];
+    Arrays.fill(values, "f");
+    SArray original = SArray.create(values);
+    original.copyOnWrite();
+
+    SArray extended = original.copyAndExtendWith("g");
+    assertEquals(values.length + 1, extended.getLength());
+    assertEquals("f", extended.getElement(0));
+    assertEquals("g", extended.getElement(values.length));
+    assertEquals("f", original.debugGetObject(0));
+  }
+}
@@ -0,0 +1,45 @@
+package trufflesom.vmobjects;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+public class SClassTests {
+
+  private static SClass subclassOf(final SClass superclass) {
+    SClass clazz = new SClass(0);
+    clazz.setSuperClass(superclass);
+    return clazz;
+  }
+
+  @Test
+  public void testIsKindOf() {
+    SClass root = new SClass(0);
+    SClass a = subclassOf(root);
+    SClass b = subclassOf(a);
+
+    assertTrue(b.isKindOf(b));
+    assertTrue(b.isKindOf(a));
+    assertTrue(b.isKindOf(root));
+    assertFalse(a.isKindOf(b));
+  }
+
+  @Test
+  public void testReparentingUpdatesDisplaysOfSubclasses() {
+    SClass root = new SClass(0);
+    SClass a = subclassOf(root);
+    SClass b = subclassOf(a);
+    SClass other = subclassOf(root);
+
+    assertTrue(b.isKindOf(a));
+    assertFalse(b.isKindOf(other));
+
+    a.setSuperClass(other);
+    assertTrue(b.isKindOf(other));
+    assertTrue(b.isKindOf(a));
+    assertTrue(b.isKindOf(root));
+    assertFalse(other.isKindOf(a));
+  }
+}
@@ -0,0 +1,157 @@
+package trufflesom.vmobjects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import trufflesom.vm.SymbolTable;
+import trufflesom.vm.constants.Nil;
+
+
+public class SHashTableTests {
+
+  @Test
+  public void testLongKeys() {
+    SHashTable map = new SHashTable(null, true);
+    for (long i = 0; i < 100; i++) {
+      map.putLong(i * 31, i);
+    }
+
+    assertTrue(map.hasLongKeys());
+    assertEquals(100, map.size());
+    for (long i = 0; i < 100; i++) {
+      assertEquals(i, map.getLong(i * 31));
+    }
+    assertSame(Nil.nilObject, map.getLong(1));
+  }
+
+  @Test
+  public void testGeneralizeToObjectKeys() {
+    SHashTable map = new SHashTable(null, true);
+    map.putLong(1, "one");
+    map.put("two", 2L);
+
+    assertFalse(map.hasLongKeys());
+    assertEquals(2, map.size());
+    assertEquals("one", map.get(1L));
+    assertEquals(2L, map.get(new String("two")));
+  }
+
+  @Test
+  public void testRemoveKeepsCollidingEntriesReachable() {
+    SHashTable map = new SHashTable(null, true);
+    for (long i = 0; i < 1000; i++) {
+      map.putLong(i, i);
+    }
+    for (long i = 0; i < 1000; i += 2) {
+      assertEquals(i, map.removeLong(i));
+    }
+
+    assertEquals(500, map.size());
+    for (long i = 0; i < 1000; i++) {
+      if (i % 2 == 0) {
+        assertFalse(map.containsLong(i));
+      } else {
+        assertEquals(i, map.getLong(i));
+      }
+    }
+  }
+
+  @Test
+  public void testIdentityKeys() {
+    SHashTable set = new SHashTable(null, false);
+    Object a = new Object();
+    Object b = new Object();
+    set.put(a, null);
+
+    assertTrue(set.contains(a));
+    assertFalse(set.contains(b));
+    assertSame(Nil.nilObject, set.get(a));
+    assertEquals(1, set.getKeys().getLength());
+  }
+
+  @Test
+  public void testNumericKeysCompareLikeSom() {
+    SHashTable map = new SHashTable(null, true);
+    map.put(1L, "one");
+    map.put(2.5, "two and a half");
+
+    assertEquals("one", map.get(1.0));
+    assertEquals("two and a half", map.get(2.5));
+
+    map.put(1.0, "uno");
+    assertEquals(2, map.size());
+    assertEquals("uno", map.get(1L));
+  }
+
+  @Test
+  public void testIntegralDoubleKeysStayUnboxed() {
+    SHashTable map = new SHashTable(null, true);
+    map.put(3.0, "three");
+
+    assertTrue(map.hasLongKeys());
+    assertEquals("three", map.getLong(3));
+  }
+
+  @Test
+  public void testNegativeZeroAndNaN() {
+    SHashTable map = new SHashTable(null, true);
+    map.put(0.0, "zero");
+    map.put("str", "generalize");
+
+    assertEquals("zero", map.get(-0.0));
+    assertEquals("zero", map.get(0L));
+
+    map.put(Double.NaN, "nan");
+    map.put(Double.NaN, "nan");
+    assertSame(Nil.nilObject, map.get(Double.NaN));
+    assertEquals(4, map.size());
+  }
+
+  @Test
+  public void testStringAndIdentityLookups() {
+    SHashTable map = new SHashTable(null, true);
+    SArray arr = new SArray(0);
+    map.put("key", 1L);
+    map.putIdentity(arr, 2L);
+    map.putString(new String("other"), 3L);
+
+    assertEquals(1L, map.getString(new String("key")));
+    assertEquals(2L, map.getIdentity(arr));
+    assertEquals(2L, map.get(arr));
+    assertEquals(3L, map.get("other"));
+    assertSame(Nil.nilObject, map.getIdentity(new SArray(0)));
+
+    assertTrue(map.containsString("key"));
+    assertEquals(2L, map.removeIdentity(arr));
+    assertFalse(map.containsIdentity(arr));
+    assertEquals(1L, map.removeString("key"));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  public void testSymbolAndStringKeysAreEqual() {
+    SHashTable map = new SHashTable(null, true);
+    SSymbol sym = SymbolTable.symbolFor("key");
+    map.putSymbol(sym, 1L);
+    map.putString(new String("other"), 2L);
+
+    assertEquals(1L, map.getString("key"));
+    assertEquals(1L, map.get("key"));
+    assertEquals(2L, map.getSymbol(SymbolTable.symbolFor("other")));
+    assertEquals(2L, map.get(SymbolTable.symbolFor("other")));
+
+    map.put("key", 3L);
+    assertEquals(2, map.size());
+    assertEquals(3L, map.getSymbol(sym));
+
+    assertTrue(map.containsSymbol(SymbolTable.symbolFor("other")));
+    assertEquals(3L, map.removeString("key"));
+    assertFalse(map.containsSymbol(sym));
+    assertEquals(2L, map.removeSymbol(SymbolTable.symbolFor("other")));
+    assertEquals(0, map.size());
+  }
+}
@@ -0,0 +1,79 @@
+package trufflesom.vmobjects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+import trufflesom.vm.VmSettings;
+
+
+/**
+ * The tests are meant to run also with -Dsom.ropeMinLength=4, which is done by
+ * {@code mx tests-junit}.
+ */
+public class SRopeTests {
+
+  @Test
+  public void testShortConcatenationIsFlat() {
+    assertEquals("ab", SRope.concat("a", "b"));
+  }
+
+  @Test
+  public void testConcatenationKeepsParts() {
+    assumeTrue(VmSettings.RopeMinLength > 0);
+
+    Object rope = SRope.concat("abcdefgh", "ijklmnop");
+    assertTrue(rope instanceof SRope);
+    assertEquals(16, ((SRope) rope).length());
+    assertEquals('i', ((SRope) rope).charAt(8));
+    assertEquals("abcdefghijklmnop", ((SRope) rope).flatten());
+  }
+
+  @Test
+  public void testFlattenDeepRope() {
+    Object str = "";
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 100_000; i++) {
+      str = SRope.concat(str, "x");
+      expected.append('x');
+    }
+
+    String flat = str instanceof SRope ? ((SRope) str).flatten() : (String) str;
+    assertEquals(expected.toString(), flat);
+  }
+
+  @Test
+  public void testFlattenIsCached() {
+    assumeTrue(VmSettings.RopeMinLength > 0);
+
+    SRope rope = (SRope) SRope.concat("abcdefgh", "ijklmnop");
+    assertTrue(rope.flatten() == rope.flatten());
+  }
+
+  @Test
+  public void testSubstringOfRope() {
+    Object rope = SRope.concat("abcdefgh", "ijklmnop");
+    Object sub = SRope.substring(rope, 4, 12);
+
+    assertEquals(8, sub instanceof SRope ? ((SRope) sub).length() : ((String) sub).length());
+    assertEquals("efghijkl", sub.toString());
+  }
+
+  @Test
+  public void testEquality() {
+    assumeTrue(VmSettings.RopeMinLength > 0);
+
+    SRope rope = (SRope) SRope.concat("abcdefgh", "ijklmnop");
+    SRope other = (SRope) SRope.concat("abcdefghijk", "lmnop");
+
+    assertTrue(rope.sameCharsAs("abcdefghijklmnop"));
+    assertTrue(rope.sameCharsAs(other));
+    assertTrue(rope.sameCharsAs(new SSymbol("abcdefghijklmnop")));
+    assertFalse(rope.sameCharsAs("abcdefghijklmnoq"));
+    assertFalse(rope.sameCharsAs("abcdefgh"));
+    assertFalse(rope.sameCharsAs(16L));
+  }
+}